@@ -23,13 +23,21 @@ import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
 
+import org.coury.jfilehelpers.converters.ConverterBase;
 import org.coury.jfilehelpers.enums.ConverterKind;
 
+/**
+ * Converter of a field: one of the built in kinds, or a custom converter class. The custom class
+ * needs a public constructor taking the format as a String or, with no format, a public no argument
+ * one.
+ */
 @Retention(RetentionPolicy.RUNTIME)
 @Target(ElementType.FIELD)
 public @interface FieldConverter {
 
-  ConverterKind converter();
+  ConverterKind converter() default ConverterKind.None;
+
+  String format() default "";
 
-  String format();
+  Class<? extends ConverterBase> converterClass() default ConverterBase.class;
 }
@@ -0,0 +1,43 @@
+/*
+ * FieldQuoted.java
+ *
+ * Copyright (C) 2007 Felipe Gonalves Coury <felipe.coury@gmail.com>
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation; either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program; if
+ * not, write to the Free Software Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA
+ * 02111-1307, USA.
+ */
+
+package org.coury.jfilehelpers.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import org.coury.jfilehelpers.enums.MultilineMode;
+import org.coury.jfilehelpers.enums.QuoteMode;
+
+/**
+ * The values of a delimited field are enclosed in quotes, a quote inside the value is written
+ * twice. Put on the record class it applies to all of its fields, an annotation on a field
+ * overrides it.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.FIELD, ElementType.TYPE})
+public @interface FieldQuoted {
+
+  char quoteChar() default '"';
+
+  QuoteMode quoteMode() default QuoteMode.AlwaysQuoted;
+
+  MultilineMode multiline() default MultilineMode.AllowForBoth;
+}
@@ -0,0 +1,78 @@
+/*
+ * CharSequenceConverter.java
+ *
+ * Copyright (C) 2007 Felipe Gonalves Coury <felipe.coury@gmail.com>
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation; either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program; if
+ * not, write to the Free Software Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA
+ * 02111-1307, USA.
+ */
+
+package org.coury.jfilehelpers.converters;
+
+/**
+ * Base of the custom converters that read their values from a {@link CharSequence} and write them
+ * to the record buffer, so no String is created for each value. When reading a line the sequence
+ * is the {@link CharSlice} the line reuses for its fields, pointed to the chars of each one; values
+ * given as Strings are passed as they are.
+ * Custom converters based on {@link ConverterBase#stringToField(String)} keep working, getting a
+ * String made of the chars.
+ */
+public abstract class CharSequenceConverter extends ConverterBase {
+
+  /**
+   * Converts the text of a field
+   *
+   * @param chars the text, only valid during this call
+   * @return the field value
+   */
+  public abstract Object fromChars(CharSequence chars);
+
+  /**
+   * Appends the text of a field value
+   *
+   * @param sb buffer receiving the text
+   * @param from the field value, never null
+   */
+  public abstract void toChars(StringBuffer sb, Object from);
+
+  @Override
+  public Object stringToField(final String from) {
+    return this.fromChars(from);
+  }
+
+  @Override
+  public Object charsToField(final char[] chars, final int from, final int length) {
+    return this.fromChars(new CharSlice(chars, from, length));
+  }
+
+  @Override
+  public Object charsToField(final CharSlice chars) {
+    return this.fromChars(chars);
+  }
+
+  @Override
+  public String fieldToString(final Object from) {
+    if (from == null) {
+      return "";
+    }
+    StringBuffer sb = new StringBuffer();
+    this.toChars(sb, from);
+    return sb.toString();
+  }
+
+  @Override
+  public void fieldToString(final StringBuffer sb, final Object from) {
+    if (from != null) {
+      this.toChars(sb, from);
+    }
+  }
+}
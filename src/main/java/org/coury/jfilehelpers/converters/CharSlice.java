@@ -0,0 +1,123 @@
+/*
+ * CharSlice.java
+ *
+ * Copyright (C) 2007 Felipe Gonalves Coury <felipe.coury@gmail.com>
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation; either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program; if
+ * not, write to the Free Software Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA
+ * 02111-1307, USA.
+ */
+
+package org.coury.jfilehelpers.converters;
+
+/**
+ * A read only view of a range of a char array, handed to the {@link CharSequenceConverter}s so
+ * they can read a value straight from the line chars. The view is only valid during the call it
+ * was given to, as the array is reused for the next lines and the view itself is pointed to the
+ * next fields (see {@link #set(char[], int, int)}); converters keeping the text must copy it with
+ * {@link #toString()}.
+ */
+public final class CharSlice implements CharSequence {
+
+  private char[] chars;
+
+  private int offset;
+
+  private int length;
+
+  public CharSlice(final char[] chars, final int offset, final int length) {
+    this.set(chars, offset, length);
+  }
+
+  /**
+   * Points this view to another range, so one instance serves all the fields of a line
+   *
+   * @param chars buffer holding the value
+   * @param offset start of the value on the buffer
+   * @param length number of chars of the value
+   * @return this instance
+   */
+  public CharSlice set(final char[] chars, final int offset, final int length) {
+    if ((offset < 0) || (length < 0) || ((offset + length) > chars.length)) {
+      throw new IndexOutOfBoundsException(
+          "offset " + offset + ", length " + length + ", array length " + chars.length);
+    }
+    this.chars = chars;
+    this.offset = offset;
+    this.length = length;
+    return this;
+  }
+
+  @Override
+  public int length() {
+    return this.length;
+  }
+
+  @Override
+  public char charAt(final int index) {
+    if ((index < 0) || (index >= this.length)) {
+      throw new IndexOutOfBoundsException("index " + index + ", length " + this.length);
+    }
+    return this.chars[this.offset + index];
+  }
+
+  @Override
+  public CharSlice subSequence(final int start, final int end) {
+    if ((start < 0) || (end > this.length) || (start > end)) {
+      throw new IndexOutOfBoundsException(
+          "start " + start + ", end " + end + ", length " + this.length);
+    }
+    return new CharSlice(this.chars, this.offset + start, end - start);
+  }
+
+  /**
+   * @return the chars of the slice without white space around them
+   */
+  public CharSlice trim() {
+    int start = 0;
+    int end = this.length;
+    while ((start < end) && Character.isWhitespace(this.chars[this.offset + start])) {
+      start++;
+    }
+    while ((end > start) && Character.isWhitespace(this.chars[(this.offset + end) - 1])) {
+      end--;
+    }
+    return ((start == 0) && (end == this.length)) ? this : this.subSequence(start, end);
+  }
+
+  /**
+   * @return the index of the first occurrence of the char on the slice, or -1 if it is not there
+   */
+  public int indexOf(final char c) {
+    for (int i = 0; i < this.length; i++) {
+      if (this.chars[this.offset + i] == c) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * @return the backing array, shared with the reader
+   */
+  public char[] getArray() {
+    return this.chars;
+  }
+
+  public int getOffset() {
+    return this.offset;
+  }
+
+  @Override
+  public String toString() {
+    return new String(this.chars, this.offset, this.length);
+  }
+}
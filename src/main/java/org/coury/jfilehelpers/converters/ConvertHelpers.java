@@ -19,34 +19,73 @@
 package org.coury.jfilehelpers.converters;
 
 import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
 import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TimeZone;
 
+import org.coury.jfilehelpers.annotations.FieldDecimalScale;
+import org.coury.jfilehelpers.annotations.FieldImpliedDecimal;
+import org.coury.jfilehelpers.annotations.FieldLookup;
 import org.coury.jfilehelpers.enums.ConverterKind;
+import org.coury.jfilehelpers.helpers.NumberHelper;
 
 public class ConvertHelpers {
 
   public static ConverterBase getConverter(final ConverterKind converterKind, final String format) {
+    return ConvertHelpers.getConverter(converterKind, format, null);
+  }
+
+  /**
+   * Creates the converter of a kind, taking the converter settings that live on their own
+   * annotations (like {@link FieldDecimalScale}) from the field when one is given.
+   */
+  public static ConverterBase getConverter(final ConverterKind converterKind, final String format,
+      final Field field) {
     switch (converterKind) {
       case Date:
+        if ((field != null) && JavaTime.isSupported(field.getType())) {
+          return new ConvertHelpers().new DateTimeConverter(format, field.getType());
+        }
         return new ConvertHelpers().new DateTimeConverter(format);
 
       case Boolean:
-        return new ConvertHelpers().new BooleanConverter();
+        return ConvertHelpers.booleanConverter(field);
+
+      case Enum:
+        if (field == null) {
+          throw new IllegalArgumentException("The Enum Converter needs the type of the field.");
+        }
+        return ConvertHelpers.enumConverter(field);
+
+      case Byte:
+        return new ConvertHelpers().new ByteConverter(format);
+
+      case Short:
+        return new ConvertHelpers().new ShortConverter(format);
 
-      // case Byte:
-      // return new ConvertHelpers.ByteConverter();
-      //
       case Int:
         return new ConvertHelpers().new IntConverter(format);
 
-      // case Float:
-      // return new ConvertHelpers().new FloatConverter();
-      //
-      // case Double:
-      // return new ConvertHelpers().new DoubleConverter();
+      case Long:
+        return new ConvertHelpers().new LongConverter(format);
+
+      case Float:
+        return new ConvertHelpers().new FloatConverter(format);
+
+      case Double:
+        return new ConvertHelpers().new DoubleConverter(format);
+
+      case Decimal:
+        return ConvertHelpers.decimalConverter(format, field);
 
     }
     return null;
@@ -57,37 +96,165 @@ public class ConvertHelpers {
       return null;
     } else if (field.getType() == Date.class) {
       return new ConvertHelpers().new DateTimeConverter();
-    } else if (field.getType() == Boolean.class) {
-      return new ConvertHelpers().new BooleanConverter();
+    } else if ((field.getType() == Boolean.class)
+        || ((field.getType() == boolean.class) && field.isAnnotationPresent(FieldLookup.class))) {
+      return ConvertHelpers.booleanConverter(field);
+    } else if (field.getType().isEnum()) {
+      return ConvertHelpers.enumConverter(field);
+    } else if (field.getType() == Byte.class) {
+      return new ConvertHelpers().new ByteConverter();
+    } else if (field.getType() == Short.class) {
+      return new ConvertHelpers().new ShortConverter();
     } else if (field.getType() == Integer.class) {
       return new ConvertHelpers().new IntConverter();
+    } else if (field.getType() == Long.class) {
+      return new ConvertHelpers().new LongConverter();
+    } else if (field.getType() == Float.class) {
+      return new ConvertHelpers().new FloatConverter();
+    } else if (field.getType() == Double.class) {
+      return new ConvertHelpers().new DoubleConverter();
+    } else if (field.getType() == BigDecimal.class) {
+      return ConvertHelpers.decimalConverter(null, field);
+    } else if (JavaTime.isSupported(field.getType())) {
+      return new ConvertHelpers().new DateTimeConverter(ConverterBase.getDefaultDateTimeFormat(),
+          field.getType());
     }
     return null;
   }
 
+  /**
+   * Creates the converter of a fixed length field marked with {@link FieldImpliedDecimal}
+   *
+   * @param field the record field
+   * @param length the length of the field
+   * @return the converter
+   */
+  public static ConverterBase getImpliedDecimalConverter(final Field field, final int length) {
+    FieldImpliedDecimal id = field.getAnnotation(FieldImpliedDecimal.class);
+    return new ConvertHelpers().new ImpliedDecimalConverter(field.getType(), id.value(),
+        id.overpunch(), length);
+  }
+
+  /**
+   * Creates a custom converter, through its constructor taking the format or, when there is no
+   * format, its no argument constructor
+   *
+   * @param converterClass the converter class
+   * @param format the format, may be empty
+   * @return the converter
+   */
+  public static ConverterBase createConverter(final Class<? extends ConverterBase> converterClass,
+      final String format) {
+    try {
+      if ((format != null) && (format.length() > 0)) {
+        return converterClass.getConstructor(String.class).newInstance(format);
+      }
+      return converterClass.getConstructor().newInstance();
+    } catch (InvocationTargetException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new IllegalArgumentException(
+          "The converter " + converterClass.getName() + " could not be created.", e.getCause());
+    } catch (ReflectiveOperationException e) {
+      throw new IllegalArgumentException("The converter " + converterClass.getName()
+          + " needs a public constructor taking " + ((format != null) && (format.length() > 0)
+              ? "the format as a String." : "no arguments."),
+          e);
+    }
+  }
+
+  private static ConverterBase booleanConverter(final Field field) {
+    FieldLookup fl = field == null ? null : field.getAnnotation(FieldLookup.class);
+    if (fl == null) {
+      return new ConvertHelpers().new BooleanConverter();
+    }
+    return new ConvertHelpers().new BooleanConverter(null, null, fl.aliases());
+  }
+
+  private static ConverterBase enumConverter(final Field field) {
+    FieldLookup fl = field.getAnnotation(FieldLookup.class);
+    if (fl == null) {
+      return new ConvertHelpers().new EnumConverter(field.getType());
+    }
+    return new ConvertHelpers().new EnumConverter(field.getType(), fl.ignoreCase(),
+        fl.aliases());
+  }
+
+  private static ConverterBase decimalConverter(final String format, final Field field) {
+    FieldDecimalScale ds = field == null ? null : field.getAnnotation(FieldDecimalScale.class);
+    if (ds == null) {
+      return new ConvertHelpers().new DecimalConverter(format);
+    }
+    return new ConvertHelpers().new DecimalConverter(format, ds.value(), ds.rounding());
+  }
+
+  /**
+   * Converter of Date fields and, on Java 8 or later, of LocalDate, LocalDateTime and Instant
+   * fields. Numeric patterns (like "ddMMyyyy" or "yyyy-MM-dd HH:mm:ss") are compiled to a
+   * {@link DatePattern} and read straight from the line chars; patterns with text fields are handed
+   * to a SimpleDateFormat kept per thread. The converter can be shared between threads. Instants
+   * are read and written on UTC, the other types on the default time zone.
+   */
   public class DateTimeConverter extends ConverterBase {
 
     String format;
 
+    private final Class<?> type;
+
+    private final DatePattern pattern;
+
+    private final TimeZone timeZone;
+
+    private final ThreadLocal<SimpleDateFormat> dateFormats = new ThreadLocal<SimpleDateFormat>() {
+      @Override
+      protected SimpleDateFormat initialValue() {
+        SimpleDateFormat sdf = new SimpleDateFormat(DateTimeConverter.this.format);
+        sdf.setTimeZone(DateTimeConverter.this.timeZone);
+        return sdf;
+      }
+    };
+
+    // scratch array for the date fields, the pattern and JavaTime overwrite all of them on each use
+    private final ThreadLocal<int[]> dateFields = new ThreadLocal<int[]>() {
+      @Override
+      protected int[] initialValue() {
+        return new int[DatePattern.FIELD_COUNT];
+      }
+    };
+
     public DateTimeConverter() {
       this(ConverterBase.getDefaultDateTimeFormat());
     }
 
     public DateTimeConverter(final String format) {
+      this(format, Date.class);
+    }
+
+    public DateTimeConverter(final String format, final Class<?> type) {
       if ((format == null) || (format.length() < 1)) {
         throw new IllegalArgumentException(
             "The format of the DateTime Converter can be null or empty.");
       }
+      if ((type != Date.class) && !JavaTime.isSupported(type)) {
+        throw new IllegalArgumentException("The DateTime Converter is only for Date, LocalDate, "
+            + "LocalDateTime and Instant fields, not for " + type.getName() + ".");
+      }
 
-      try {
-        SimpleDateFormat sdf = new SimpleDateFormat(format);
-        sdf.format(new Date());
-      } catch (IllegalArgumentException e) {
-        throw new IllegalArgumentException(
-            "The format: '" + format + " is invalid for the DateTime Converter.");
+      this.pattern = DatePattern.compile(format);
+      if (this.pattern == null) {
+        try {
+          new SimpleDateFormat(format);
+        } catch (IllegalArgumentException e) {
+          throw new IllegalArgumentException(
+              "The format: '" + format + " is invalid for the DateTime Converter.");
+        }
       }
 
       this.format = format;
+      this.type = type;
+      this.timeZone =
+          type == JavaTime.INSTANT ? TimeZone.getTimeZone("UTC") : TimeZone.getDefault();
     }
 
     @Override
@@ -96,141 +263,804 @@ public class ConvertHelpers {
         from = "";
       }
 
-      Object val;
+      char[] chars = from.toCharArray();
+      return this.charsToField(chars, 0, chars.length);
+    }
+
+    @Override
+    public Object charsToField(final char[] chars, final int from, final int length) {
+      int[] fields = this.dateFields.get();
 
+      if (this.pattern != null) {
+        if (!this.pattern.parse(chars, from, from + length, fields)) {
+          throw this.parseError(length);
+        }
+        if (this.type == Date.class) {
+          return new Date(DatePattern.toMillis(fields, this.timeZone));
+        } else if (this.type == JavaTime.INSTANT) {
+          return JavaTime.newInstant(DatePattern.toMillis(fields, this.timeZone));
+        }
+        DatePattern.normalize(fields);
+        return JavaTime.newLocal(this.type, fields);
+      }
+
+      Date date;
       try {
-        val = new SimpleDateFormat(this.format).parse(from);
+        date = this.dateFormats.get().parse(new String(chars, from, length));
       } catch (ParseException e) {
-        String extra = "";
-        if (from.length() > this.format.length()) {
-          extra = " There are more chars than in the format string: '" + this.format + "'";
-        } else if (from.length() < this.format.length()) {
-          extra = " There are less chars than in the format string: '" + this.format + "'";
-        } else {
-          extra = " Using the format: '" + this.format + "'";
-        }
+        throw this.parseError(length);
+      }
 
-        // throw new ConvertException(from, typeof (DateTime), extra);
-        throw new RuntimeException(extra);
+      if (this.type == Date.class) {
+        return date;
+      } else if (this.type == JavaTime.INSTANT) {
+        return JavaTime.newInstant(date.getTime());
       }
+      DatePattern.fromMillis(date.getTime(), this.timeZone, fields);
+      return JavaTime.newLocal(this.type, fields);
+    }
 
-      return val;
+    private RuntimeException parseError(final int length) {
+      String extra = "";
+      if (length > this.format.length()) {
+        extra = " There are more chars than in the format string: '" + this.format + "'";
+      } else if (length < this.format.length()) {
+        extra = " There are less chars than in the format string: '" + this.format + "'";
+      } else {
+        extra = " Using the format: '" + this.format + "'";
+      }
+
+      // throw new ConvertException(from, typeof (DateTime), extra);
+      return new RuntimeException(extra);
     }
 
     @Override
     public String fieldToString(final Object from) {
-      return new SimpleDateFormat(this.format).format(from);
+      if (from == null) {
+        return "";
+      }
+      StringBuffer sb = new StringBuffer(this.format.length() + 4);
+      this.fieldToString(sb, from);
+      return sb.toString();
+    }
+
+    @Override
+    public void fieldToString(final StringBuffer sb, final Object from) {
+      if (from == null) {
+        return;
+      }
+
+      int[] fields = this.dateFields.get();
+      long millis;
+      if (from instanceof Date) {
+        millis = ((Date) from).getTime();
+      } else if (from.getClass() == JavaTime.INSTANT) {
+        millis = JavaTime.toEpochMilli(from);
+      } else {
+        JavaTime.getFields(from, fields);
+        if (this.pattern != null) {
+          this.pattern.format(sb, fields);
+          return;
+        }
+        millis = DatePattern.toMillis(fields, this.timeZone);
+      }
+
+      if (this.pattern != null) {
+        DatePattern.fromMillis(millis, this.timeZone, fields);
+        this.pattern.format(sb, fields);
+      } else {
+        sb.append(this.dateFormats.get().format(new Date(millis)));
+      }
+    }
+
+    @Override
+    public boolean isPlainText() {
+      return (this.pattern != null) && !Character.isWhitespace(this.format.charAt(0))
+          && !Character.isWhitespace(this.format.charAt(this.format.length() - 1));
+    }
+
+    @Override
+    public boolean isImmutableResult() {
+      return true;
     }
   }
 
+  /**
+   * Converter of boolean fields. By default "true" and "1" are read as true and "false", "0" and
+   * empty as false; when the true and false strings are given only them are accepted. The case is
+   * ignored and the aliases ("text=true" or "text=false") add more texts.
+   */
   public class BooleanConverter extends ConverterBase {
 
     private String trueString = null;
 
     private String falseString = null;
 
-    private String trueStringLower = null;
+    private final char[] trueLabel;
+
+    private final char[] falseLabel;
 
-    private String falseStringLower = null;
+    private final LookupTable lookup;
 
-    public BooleanConverter() {}
+    public BooleanConverter() {
+      this(null, null, new String[0]);
+    }
 
     public BooleanConverter(final String trueString, final String falseString) {
+      this(trueString, falseString, new String[0]);
+    }
+
+    public BooleanConverter(final String trueString, final String falseString,
+        final String[] aliases) {
       this.trueString = trueString;
       this.falseString = falseString;
-      this.trueStringLower = trueString.toLowerCase();
-      this.falseStringLower = falseString.toLowerCase();
+
+      Map<String, Object> entries = new LinkedHashMap<String, Object>();
+      if (trueString == null) {
+        entries.put("true", Boolean.TRUE);
+        entries.put("1", Boolean.TRUE);
+        entries.put("false", Boolean.FALSE);
+        entries.put("0", Boolean.FALSE);
+        entries.put("", Boolean.FALSE);
+      } else {
+        entries.put(trueString.trim(), Boolean.TRUE);
+        entries.put(falseString.trim(), Boolean.FALSE);
+      }
+      for (String alias : aliases) {
+        String[] pair = ConvertHelpers.splitAlias(alias);
+        if (!pair[1].equalsIgnoreCase("true") && !pair[1].equalsIgnoreCase("false")) {
+          throw new IllegalArgumentException("The alias '" + alias
+              + "' of the Boolean Converter must map to true or false.");
+        }
+        entries.put(pair[0], Boolean.valueOf(pair[1]));
+      }
+      this.lookup = new LookupTable(entries, true);
+
+      this.trueLabel = (trueString == null ? "True" : trueString).toCharArray();
+      this.falseLabel = (falseString == null ? "False" : falseString).toCharArray();
     }
 
     @Override
     public Object stringToField(final String from) {
-      Object val;
-      try {
-        String testTo = from.toLowerCase();
-        if (this.trueString == null) {
-          testTo = testTo.trim();
-          if (testTo.equals("true") || testTo.equals("1")) {
-            val = true;
-          } else if (testTo.equals("false") || testTo.equals("0") || testTo.equals("")) {
-            val = false;
-          } else {
-            throw new Exception();
-          }
-        } else {
-          if (testTo.equals(this.trueStringLower) || testTo.trim().equals(this.trueStringLower)) {
-            val = true;
-          } else if (testTo.equals(this.falseStringLower)
-              || testTo.trim().equals(this.falseStringLower)) {
-            val = false;
-          } else {
-            // throw new ConvertException(from, typeof(bool), "The string: " + from + " cant be
-            // recognized as boolean using the true/false values: " + mTrueString + "/" +
-            // mFalseString);
-            throw new RuntimeException("The string: " + from + " cant be recognized as boolean "
-                + "using the true/false values: " + this.trueString + "/" + this.falseString);
-          }
-        }
-      } catch (Exception e) {
+      char[] chars = from.toCharArray();
+      return this.charsToField(chars, 0, chars.length);
+    }
+
+    @Override
+    public Object charsToField(final char[] chars, final int from, final int length) {
+      Object val = this.lookup.get(chars, from, from + length);
+      if (val == null) {
         // throw new ConvertException(from, typeof (Boolean));
-        throw new RuntimeException("Error converting: " + from + " to boolean");
+        throw new RuntimeException(
+            "Error converting: " + new String(chars, from, length) + " to boolean");
       }
-
       return val;
     }
 
     @Override
     public String fieldToString(final Object from) {
-      boolean b = Boolean.parseBoolean(from.toString());
-      if (b) {
-        if (this.trueString == null) {
-          return "True";
+      return new String(this.label(from));
+    }
+
+    @Override
+    public void fieldToString(final StringBuffer sb, final Object from) {
+      sb.append(this.label(from));
+    }
+
+    private char[] label(final Object from) {
+      boolean b = from instanceof Boolean ? ((Boolean) from).booleanValue()
+          : Boolean.parseBoolean(String.valueOf(from));
+      return b ? this.trueLabel : this.falseLabel;
+    }
+
+    @Override
+    public boolean isPlainText() {
+      return ConvertHelpers.isPlainLabel(this.trueLabel)
+          && ConvertHelpers.isPlainLabel(this.falseLabel);
+    }
+
+    @Override
+    public boolean isImmutableResult() {
+      return true;
+    }
+  }
+
+  /**
+   * Converter of enum fields. The constants are read by their name, optionally ignoring the case
+   * and with aliases ("text=CONSTANT"), and written by their name. Texts that are no constant are
+   * read as null.
+   */
+  public class EnumConverter extends ConverterBase {
+
+    private final Class<?> type;
+
+    private final char[][] labels;
+
+    private final LookupTable lookup;
+
+    public EnumConverter(final Class<?> type) {
+      this(type, false, new String[0]);
+    }
+
+    public EnumConverter(final Class<?> type, final boolean ignoreCase, final String[] aliases) {
+      if (!type.isEnum()) {
+        throw new IllegalArgumentException(
+            "The Enum Converter is only for enum fields, not for " + type.getName() + ".");
+      }
+      this.type = type;
+
+      Object[] constants = type.getEnumConstants();
+      Map<String, Object> entries = new LinkedHashMap<String, Object>();
+      this.labels = new char[constants.length][];
+      for (int i = 0; i < constants.length; i++) {
+        String name = ((Enum<?>) constants[i]).name();
+        entries.put(name, constants[i]);
+        this.labels[i] = name.toCharArray();
+      }
+      for (String alias : aliases) {
+        String[] pair = ConvertHelpers.splitAlias(alias);
+        Object constant = entries.get(pair[1]);
+        if ((constant == null) || !type.isInstance(constant)) {
+          throw new IllegalArgumentException("The alias '" + alias + "' does not map to a "
+              + "constant of " + type.getName() + ".");
+        }
+        entries.put(pair[0], constant);
+      }
+      this.lookup = new LookupTable(entries, ignoreCase);
+    }
+
+    @Override
+    public Object stringToField(final String from) {
+      char[] chars = from.toCharArray();
+      return this.charsToField(chars, 0, chars.length);
+    }
+
+    @Override
+    public Object charsToField(final char[] chars, final int from, final int length) {
+      return this.lookup.get(chars, from, from + length);
+    }
+
+    @Override
+    public String fieldToString(final Object from) {
+      if (from == null) {
+        return "";
+      }
+      return new String(this.labels[((Enum<?>) from).ordinal()]);
+    }
+
+    @Override
+    public void fieldToString(final StringBuffer sb, final Object from) {
+      if (from != null) {
+        sb.append(this.labels[((Enum<?>) from).ordinal()]);
+      }
+    }
+
+    @Override
+    public boolean isPlainText() {
+      return true;
+    }
+
+    @Override
+    public boolean isImmutableResult() {
+      return true;
+    }
+
+    public Class<?> getType() {
+      return this.type;
+    }
+  }
+
+  private static String[] splitAlias(final String alias) {
+    int eq = alias.lastIndexOf('=');
+    if (eq < 0) {
+      throw new IllegalArgumentException(
+          "The alias '" + alias + "' must be written as text=value.");
+    }
+    return new String[] {alias.substring(0, eq).trim(), alias.substring(eq + 1).trim()};
+  }
+
+  private static boolean isPlainLabel(final char[] label) {
+    for (char c : label) {
+      if ((c == '\n') || (c == '\r')) {
+        return false;
+      }
+    }
+    return (label.length > 0) && !Character.isWhitespace(label[0])
+        && !Character.isWhitespace(label[label.length - 1]);
+  }
+
+  /**
+   * Base of the integer converters. Values are parsed straight from the line chars and written
+   * straight into the record buffer. The format is a DecimalFormat pattern; simple patterns (only
+   * digits and grouping, like "#,##0") are handled in place, others by a copy of the DecimalFormat.
+   */
+  public abstract class IntegralConverter extends ConverterBase {
+
+    String format;
+
+    private final long min;
+
+    private final long max;
+
+    private DecimalFormat decimalFormat = null;
+
+    // simple patterns: grouping separator ('\0' if none), group size and minimum digits
+    private char groupingSeparator = '\0';
+
+    private int groupingSize = 0;
+
+    private int minDigits = 1;
+
+    protected IntegralConverter(final String format, final long min, final long max) {
+      this.min = min;
+      this.max = max;
+      this.format = format;
+
+      if ((format != null) && !this.parseSimpleFormat(format)) {
+        this.decimalFormat = new DecimalFormat(format);
+        this.decimalFormat.setParseIntegerOnly(true);
+      }
+    }
+
+    /**
+     * Reads patterns made only of '#', '0' and ','
+     *
+     * @return false if the pattern needs a DecimalFormat
+     */
+    private boolean parseSimpleFormat(final String pattern) {
+      DecimalFormatSymbols symbols = new DecimalFormatSymbols();
+      if ((pattern.length() == 0) || (symbols.getMinusSign() != '-')
+          || (pattern.charAt(0) == ',') || (pattern.charAt(pattern.length() - 1) == ',')) {
+        return false;
+      }
+
+      int zeros = 0;
+      int lastComma = -1;
+      for (int i = 0; i < pattern.length(); i++) {
+        char c = pattern.charAt(i);
+        if (c == '0') {
+          zeros++;
+        } else if (c == '#') {
+          if (zeros > 0) {
+            return false;
+          }
+        } else if (c == ',') {
+          lastComma = i;
         } else {
-          return this.trueString;
+          return false;
         }
-      } else if (this.falseString == null) {
-        return "False";
+      }
+
+      if (lastComma >= 0) {
+        this.groupingSeparator = symbols.getGroupingSeparator();
+        this.groupingSize = pattern.length() - lastComma - 1;
+      }
+      this.minDigits = zeros;
+      return true;
+    }
+
+    /**
+     * Boxes a parsed value into the type handled by the converter
+     */
+    protected abstract Object box(long value);
+
+    @Override
+    public Object stringToField(final String from) {
+      char[] chars = from.toCharArray();
+      return this.charsToField(chars, 0, chars.length);
+    }
+
+    @Override
+    public Object charsToField(final char[] chars, final int from, final int length) {
+      int start = from;
+      int end = from + length;
+      while ((start < end) && Character.isWhitespace(chars[start])) {
+        start++;
+      }
+      while ((end > start) && Character.isWhitespace(chars[end - 1])) {
+        end--;
+      }
+
+      if (this.decimalFormat == null) {
+        return this.box(NumberHelper.parseLong(chars, start, end, this.min, this.max,
+            this.groupingSeparator));
+      }
+
+      String s = new String(chars, start, end - start);
+      Number n;
+      try {
+        // DecimalFormat keeps parsing state, so each call uses its own copy
+        n = ((DecimalFormat) this.decimalFormat.clone()).parse(s);
+      } catch (ParseException e) {
+        throw new RuntimeException(e);
+      }
+      if ((n instanceof Double) || (n.longValue() < this.min) || (n.longValue() > this.max)) {
+        throw new NumberFormatException("Value out of range. Value:\"" + s + "\"");
+      }
+      return this.box(n.longValue());
+    }
+
+    @Override
+    public String fieldToString(final Object from) {
+      if (from == null) {
+        return "";
+      }
+      StringBuffer sb = new StringBuffer(20);
+      this.fieldToString(sb, from);
+      return sb.toString();
+    }
+
+    @Override
+    public void fieldToString(final StringBuffer sb, final Object from) {
+      if (from == null) {
+        return;
+      }
+      if (this.decimalFormat != null) {
+        sb.append(((DecimalFormat) this.decimalFormat.clone()).format(from));
+      } else if (this.format == null) {
+        sb.append(((Number) from).longValue());
       } else {
-        return this.falseString;
+        NumberHelper.appendLong(sb, ((Number) from).longValue(), this.minDigits,
+            this.groupingSize, this.groupingSeparator);
       }
+    }
 
+    @Override
+    public boolean isPlainText() {
+      return this.decimalFormat == null;
+    }
+
+    @Override
+    public boolean isImmutableResult() {
+      return true;
     }
   }
 
-  public class IntConverter extends ConverterBase {
+  public class ByteConverter extends IntegralConverter {
 
-    String format;
+    public ByteConverter() {
+      this(null);
+    }
+
+    public ByteConverter(final String format) {
+      super(format, Byte.MIN_VALUE, Byte.MAX_VALUE);
+    }
+
+    @Override
+    protected Object box(final long value) {
+      return (byte) value;
+    }
+  }
+
+  public class ShortConverter extends IntegralConverter {
+
+    public ShortConverter() {
+      this(null);
+    }
+
+    public ShortConverter(final String format) {
+      super(format, Short.MIN_VALUE, Short.MAX_VALUE);
+    }
+
+    @Override
+    protected Object box(final long value) {
+      return (short) value;
+    }
+  }
+
+  public class IntConverter extends IntegralConverter {
 
     public IntConverter() {
-      //
+      this(null);
     }
 
     public IntConverter(final String format) {
-      this.format = format;
+      super(format, Integer.MIN_VALUE, Integer.MAX_VALUE);
     }
 
     @Override
-    public Object stringToField(String from) {
+    protected Object box(final long value) {
+      return (int) value;
+    }
+  }
+
+  public class LongConverter extends IntegralConverter {
+
+    public LongConverter() {
+      this(null);
+    }
+
+    public LongConverter(final String format) {
+      super(format, Long.MIN_VALUE, Long.MAX_VALUE);
+    }
+
+    @Override
+    protected Object box(final long value) {
+      return value;
+    }
+  }
+
+  /**
+   * Base of the float and double converters. The format is the decimal separator ("." by default,
+   * or ","); the other one of those chars is taken as grouping separator and skipped when reading.
+   * Values are written with the fewest decimals that read back as the same number.
+   */
+  public abstract class FloatingPointConverter extends ConverterBase {
+
+    protected final char decimalSeparator;
+
+    protected final char groupingSeparator;
+
+    protected FloatingPointConverter(final String format) {
+      if ((format == null) || (format.length() == 0)) {
+        this.decimalSeparator = '.';
+      } else if ((format.length() == 1)
+          && ((format.charAt(0) == '.') || (format.charAt(0) == ','))) {
+        this.decimalSeparator = format.charAt(0);
+      } else {
+        throw new IllegalArgumentException("The decimal separator '" + format
+            + "' is invalid for the floating point converters, use '.' or ','.");
+      }
+      this.groupingSeparator = this.decimalSeparator == '.' ? ',' : '.';
+    }
+
+    @Override
+    public Object stringToField(final String from) {
+      char[] chars = from.toCharArray();
+      return this.charsToField(chars, 0, chars.length);
+    }
+
+    @Override
+    public Object charsToField(final char[] chars, final int from, final int length) {
+      int start = from;
+      int end = from + length;
+      while ((start < end) && Character.isWhitespace(chars[start])) {
+        start++;
+      }
+      while ((end > start) && Character.isWhitespace(chars[end - 1])) {
+        end--;
+      }
+      return this.parse(chars, start, end);
+    }
+
+    protected abstract Object parse(char[] chars, int from, int to);
+
+    @Override
+    public String fieldToString(final Object from) {
+      if (from == null) {
+        return "";
+      }
+      StringBuffer sb = new StringBuffer(24);
+      this.fieldToString(sb, from);
+      return sb.toString();
+    }
+
+    @Override
+    public boolean isPlainText() {
+      return true;
+    }
+
+    @Override
+    public boolean isImmutableResult() {
+      return true;
+    }
+  }
+
+  public class DoubleConverter extends FloatingPointConverter {
+
+    public DoubleConverter() {
+      this(null);
+    }
+
+    public DoubleConverter(final String decimalSeparator) {
+      super(decimalSeparator);
+    }
+
+    @Override
+    protected Object parse(final char[] chars, final int from, final int to) {
+      return NumberHelper.parseDouble(chars, from, to, this.decimalSeparator,
+          this.groupingSeparator);
+    }
+
+    @Override
+    public void fieldToString(final StringBuffer sb, final Object from) {
       if (from != null) {
-        from = from.trim();
+        NumberHelper.appendDouble(sb, ((Number) from).doubleValue(), this.decimalSeparator);
       }
-      if (format != null) {
-        try {
-          return new DecimalFormat(this.format).parse(from);
-        } catch (ParseException e) {
-          throw new RuntimeException(e);
+    }
+  }
+
+  public class FloatConverter extends FloatingPointConverter {
+
+    public FloatConverter() {
+      this(null);
+    }
+
+    public FloatConverter(final String decimalSeparator) {
+      super(decimalSeparator);
+    }
+
+    @Override
+    protected Object parse(final char[] chars, final int from, final int to) {
+      return NumberHelper.parseFloat(chars, from, to, this.decimalSeparator,
+          this.groupingSeparator);
+    }
+
+    @Override
+    public void fieldToString(final StringBuffer sb, final Object from) {
+      if (from != null) {
+        NumberHelper.appendFloat(sb, ((Number) from).floatValue(), this.decimalSeparator);
+      }
+    }
+  }
+
+  /**
+   * Exact converter for BigDecimal fields. The format is the decimal separator, like on the
+   * floating point converters. When a scale is given the values are rounded to it on both read and
+   * write, otherwise they keep the scale found on the text.
+   */
+  public class DecimalConverter extends FloatingPointConverter {
+
+    private final int scale;
+
+    private final RoundingMode rounding;
+
+    public DecimalConverter() {
+      this(null);
+    }
+
+    public DecimalConverter(final String decimalSeparator) {
+      super(decimalSeparator);
+      this.scale = -1;
+      this.rounding = RoundingMode.HALF_UP;
+    }
+
+    public DecimalConverter(final String decimalSeparator, final int scale,
+        final RoundingMode rounding) {
+      super(decimalSeparator);
+      if (scale < 0) {
+        throw new IllegalArgumentException("The decimal scale must not be negative: " + scale);
+      }
+      this.scale = scale;
+      this.rounding = rounding;
+    }
+
+    @Override
+    protected Object parse(final char[] chars, final int from, final int to) {
+      return this.rescale(NumberHelper.parseBigDecimal(chars, from, to, this.decimalSeparator,
+          this.groupingSeparator));
+    }
+
+    @Override
+    public void fieldToString(final StringBuffer sb, final Object from) {
+      if (from == null) {
+        return;
+      }
+      BigDecimal value;
+      if (from instanceof BigDecimal) {
+        value = (BigDecimal) from;
+      } else if ((from instanceof Double) || (from instanceof Float)) {
+        value = BigDecimal.valueOf(((Number) from).doubleValue());
+      } else {
+        value = new BigDecimal(from.toString());
+      }
+      NumberHelper.appendBigDecimal(sb, this.rescale(value), this.decimalSeparator);
+    }
+
+    private BigDecimal rescale(final BigDecimal value) {
+      if ((this.scale < 0) || (value.scale() == this.scale)) {
+        return value;
+      }
+      return value.setScale(this.scale, this.rounding);
+    }
+  }
+
+  /**
+   * Converter of fixed length implied decimal numbers, see {@link FieldImpliedDecimal}. The digits
+   * are read straight into the unscaled long, and written zero padded to the length of the field.
+   */
+  public class ImpliedDecimalConverter extends ConverterBase {
+
+    private final Class<?> type;
+
+    private final int scale;
+
+    private final boolean overpunch;
+
+    private final int length;
+
+    public ImpliedDecimalConverter(final Class<?> type, final int scale, final boolean overpunch,
+        final int length) {
+      if ((type != long.class) && (type != Long.class) && (type != int.class)
+          && (type != Integer.class) && (type != double.class) && (type != Double.class)
+          && (type != BigDecimal.class)) {
+        throw new IllegalArgumentException("The implied decimals are only for long, int, double "
+            + "and BigDecimal fields, not for " + type.getName() + ".");
+      }
+      if ((scale < 0) || (scale > 18)) {
+        throw new IllegalArgumentException("The implied decimals must be between 0 and 18: "
+            + scale);
+      }
+      this.type = type;
+      this.scale = scale;
+      this.overpunch = overpunch;
+      this.length = length;
+    }
+
+    @Override
+    public Object stringToField(final String from) {
+      char[] chars = from.toCharArray();
+      return this.charsToField(chars, 0, chars.length);
+    }
+
+    @Override
+    public Object charsToField(final char[] chars, final int from, final int length) {
+      int start = from;
+      int end = from + length;
+      while ((start < end) && Character.isWhitespace(chars[start])) {
+        start++;
+      }
+      while ((end > start) && Character.isWhitespace(chars[end - 1])) {
+        end--;
+      }
+
+      long unscaled = NumberHelper.parseImplied(chars, start, end, this.overpunch);
+      if ((this.type == long.class) || (this.type == Long.class)) {
+        return Long.valueOf(unscaled);
+      } else if ((this.type == int.class) || (this.type == Integer.class)) {
+        if ((unscaled < Integer.MIN_VALUE) || (unscaled > Integer.MAX_VALUE)) {
+          throw new NumberFormatException("Value out of range. Value:\""
+              + new String(chars, start, end - start) + "\"");
         }
+        return Integer.valueOf((int) unscaled);
+      } else if (this.type == BigDecimal.class) {
+        return BigDecimal.valueOf(unscaled, this.scale);
+      } else {
+        return Double.valueOf(NumberHelper.unscaledToDouble(unscaled, this.scale));
       }
-      return Integer.parseInt(from);
     }
 
     @Override
     public String fieldToString(final Object from) {
-      if (format != null) {
-        return new DecimalFormat(this.format).format(from);
+      if (from == null) {
+        return "";
+      }
+      StringBuffer sb = new StringBuffer(this.length);
+      this.fieldToString(sb, from);
+      return sb.toString();
+    }
+
+    @Override
+    public void fieldToString(final StringBuffer sb, final Object from) {
+      if (from == null) {
+        return;
+      }
+      long unscaled;
+      if (from instanceof BigDecimal) {
+        BigInteger value =
+            ((BigDecimal) from).setScale(this.scale, RoundingMode.HALF_UP).unscaledValue();
+        if (value.bitLength() >= 64) {
+          throw new IllegalArgumentException("The value " + from + " with " + this.scale
+              + " implied decimals does not fit on a long.");
+        }
+        unscaled = value.longValue();
+      } else if ((from instanceof Double) || (from instanceof Float)) {
+        unscaled = NumberHelper.doubleToUnscaled(((Number) from).doubleValue(), this.scale);
+      } else {
+        unscaled = ((Number) from).longValue();
       }
-      return from.toString();
+      NumberHelper.appendImplied(sb, unscaled, this.length, this.overpunch);
     }
 
+    @Override
+    public boolean isPlainText() {
+      return true;
+    }
+
+    @Override
+    public boolean isImmutableResult() {
+      return true;
+    }
   }
 
 }
@@ -37,6 +37,64 @@ public abstract class ConverterBase {
     }
   }
 
+  /**
+   * Converts a range of chars of the line. The default implementation creates a String and calls
+   * {@link #stringToField(String)}, converters that can parse the chars in place override it.
+   * 
+   * @param chars buffer holding the value
+   * @param from start of the value on the buffer
+   * @param length number of chars of the value
+   * @return the converted value
+   */
+  public Object charsToField(final char[] chars, final int from, final int length) {
+    return this.stringToField(new String(chars, from, length));
+  }
+
+  /**
+   * Converts the chars of a field read from the line. The default implementation calls
+   * {@link #charsToField(char[], int, int)} with the range of the slice, converters reading a
+   * {@link CharSequence} take the slice itself.
+   * 
+   * @param chars the value, a view reused for the next fields, only valid during this call
+   * @return the converted value
+   */
+  public Object charsToField(final CharSlice chars) {
+    return this.charsToField(chars.getArray(), chars.getOffset(), chars.length());
+  }
+
+  /**
+   * Appends the text of a field value to a buffer. The default implementation appends the result
+   * of {@link #fieldToString(Object)}, converters that can write the text in place override it.
+   * 
+   * @param sb buffer receiving the text
+   * @param from the field value
+   */
+  public void fieldToString(final StringBuffer sb, final Object from) {
+    sb.append(this.fieldToString(from));
+  }
+
+  /**
+   * Indicates if the text written by this converter never has line breaks nor white space around
+   * it, so the fields can append it straight to the record without checking it first
+   * 
+   * @return true if the text can be appended without checks
+   */
+  public boolean isPlainText() {
+    return false;
+  }
+
+  /**
+   * Indicates if the values returned by this converter can be handed to many records, as
+   * {@link MemoizingConverter} does. Only converters returning immutable values (or Dates, that the
+   * cache copies) should return true; fields marked with
+   * {@link org.coury.jfilehelpers.annotations.FieldMemoized} are rejected otherwise.
+   * 
+   * @return true if the same value can be shared between records
+   */
+  public boolean isImmutableResult() {
+    return false;
+  }
+
   public boolean isCustomNullHandling() {
     return false;
   }
@@ -0,0 +1,341 @@
+/*
+ * DatePattern.java
+ *
+ * Copyright (C) 2007 Felipe Gonalves Coury <felipe.coury@gmail.com>
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation; either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program; if
+ * not, write to the Free Software Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA
+ * 02111-1307, USA.
+ */
+
+package org.coury.jfilehelpers.converters;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+import java.util.List;
+import java.util.TimeZone;
+
+import org.coury.jfilehelpers.helpers.NumberHelper;
+
+/**
+ * A date pattern compiled to the positions of its numeric fields, so dates are read and written
+ * with digit arithmetic instead of a SimpleDateFormat. Only patterns made of numeric fields (y, M
+ * and MM, d, H, m, s and S) and literal chars other than letters and quotes are compiled; they are
+ * read like SimpleDateFormat does: a field followed by another field takes as many digits as its
+ * letters, other fields take all the digits found. A compiled pattern has no mutable state and can
+ * be shared between threads.
+ * <p>
+ * The date values are kept on an int array indexed by {@link #YEAR}, {@link #MONTH} (1 to 12),
+ * {@link #DAY}, {@link #HOUR}, {@link #MINUTE}, {@link #SECOND} and {@link #MILLIS}.
+ */
+public final class DatePattern {
+
+  public static final int YEAR = 0;
+
+  public static final int MONTH = 1;
+
+  public static final int DAY = 2;
+
+  public static final int HOUR = 3;
+
+  public static final int MINUTE = 4;
+
+  public static final int SECOND = 5;
+
+  public static final int MILLIS = 6;
+
+  public static final int FIELD_COUNT = 7;
+
+  private static final String FIELD_LETTERS = "yMdHmsS";
+
+  private static final int LITERAL = -1;
+
+  private static final long MILLIS_PER_DAY = 24L * 60 * 60 * 1000;
+
+  // epoch day of 1583-01-01, the dates before it are left to the calendar (julian dates)
+  private static final long FIRST_GREGORIAN_DAY = DatePattern.toEpochDay(1583, 1, 1);
+
+  private final String pattern;
+
+  // field index of each element, or LITERAL
+  private final int[] kinds;
+
+  private final int[] counts;
+
+  private final char[] literals;
+
+  // true for the fields followed by another field, that are read with a fixed width
+  private final boolean[] fixedWidth;
+
+  // start of the century two digit years are placed on, 80 years ago like SimpleDateFormat
+  private final int[] twoDigitYearStart = new int[DatePattern.FIELD_COUNT];
+
+  private DatePattern(final String pattern, final List<int[]> elements) {
+    this.pattern = pattern;
+    int size = elements.size();
+    this.kinds = new int[size];
+    this.counts = new int[size];
+    this.literals = new char[size];
+    this.fixedWidth = new boolean[size];
+
+    for (int i = 0; i < size; i++) {
+      int[] element = elements.get(i);
+      this.kinds[i] = element[0];
+      if (element[0] == DatePattern.LITERAL) {
+        this.literals[i] = (char) element[1];
+      } else {
+        this.counts[i] = element[1];
+      }
+    }
+    for (int i = 0; i < (size - 1); i++) {
+      this.fixedWidth[i] =
+          (this.kinds[i] != DatePattern.LITERAL) && (this.kinds[i + 1] != DatePattern.LITERAL);
+    }
+
+    Calendar calendar = Calendar.getInstance();
+    calendar.add(Calendar.YEAR, -80);
+    DatePattern.fromMillis(calendar.getTimeInMillis(), calendar.getTimeZone(),
+        this.twoDigitYearStart);
+  }
+
+  /**
+   * Compiles a SimpleDateFormat pattern
+   *
+   * @param pattern the pattern
+   * @return the compiled pattern, or null if the pattern has text fields or quotes and needs a
+   *         SimpleDateFormat
+   */
+  public static DatePattern compile(final String pattern) {
+    List<int[]> elements = new ArrayList<int[]>();
+
+    int i = 0;
+    while (i < pattern.length()) {
+      char c = pattern.charAt(i);
+      if (c == '\'') {
+        return null;
+      }
+
+      if (((c >= 'a') && (c <= 'z')) || ((c >= 'A') && (c <= 'Z'))) {
+        int kind = DatePattern.FIELD_LETTERS.indexOf(c);
+        int count = 1;
+        while (((i + count) < pattern.length()) && (pattern.charAt(i + count) == c)) {
+          count++;
+        }
+        if ((kind < 0) || ((kind == DatePattern.MONTH) && (count > 2))) {
+          return null;
+        }
+        elements.add(new int[] {kind, count});
+        i += count;
+      } else {
+        elements.add(new int[] {DatePattern.LITERAL, c});
+        i++;
+      }
+    }
+
+    return new DatePattern(pattern, elements);
+  }
+
+  /**
+   * Reads a date. The fields missing on the pattern are taken from 1970-01-01 00:00:00.000 and the
+   * chars after the end of the pattern are ignored, as on SimpleDateFormat.
+   *
+   * @param chars buffer holding the date
+   * @param from start of the date (inclusive)
+   * @param to end of the date (exclusive)
+   * @param fields receives the date fields
+   * @return false if the chars do not match the pattern
+   */
+  public boolean parse(final char[] chars, final int from, final int to, final int[] fields) {
+    fields[DatePattern.YEAR] = 1970;
+    fields[DatePattern.MONTH] = 1;
+    fields[DatePattern.DAY] = 1;
+    fields[DatePattern.HOUR] = 0;
+    fields[DatePattern.MINUTE] = 0;
+    fields[DatePattern.SECOND] = 0;
+    fields[DatePattern.MILLIS] = 0;
+
+    boolean twoDigitYear = false;
+    int pos = from;
+    for (int i = 0; i < this.kinds.length; i++) {
+      int kind = this.kinds[i];
+      if (kind == DatePattern.LITERAL) {
+        if ((pos >= to) || (chars[pos] != this.literals[i])) {
+          return false;
+        }
+        pos++;
+        continue;
+      }
+
+      int max = this.fixedWidth[i] ? this.counts[i] : 9;
+      int start = pos;
+      int value = 0;
+      while ((pos < to) && ((pos - start) < max) && (chars[pos] >= '0') && (chars[pos] <= '9')) {
+        value = (value * 10) + (chars[pos] - '0');
+        pos++;
+      }
+      if (pos == start) {
+        return false;
+      }
+
+      if (kind == DatePattern.YEAR) {
+        twoDigitYear = (this.counts[i] <= 2) && ((pos - start) == 2);
+      }
+      fields[kind] = value;
+    }
+
+    if (twoDigitYear) {
+      // places the year on the century that starts 80 years ago
+      fields[DatePattern.YEAR] += (this.twoDigitYearStart[DatePattern.YEAR] / 100) * 100;
+      for (int i = 0; i < DatePattern.FIELD_COUNT; i++) {
+        if (fields[i] != this.twoDigitYearStart[i]) {
+          if (fields[i] < this.twoDigitYearStart[i]) {
+            fields[DatePattern.YEAR] += 100;
+          }
+          break;
+        }
+      }
+    }
+
+    return true;
+  }
+
+  /**
+   * Writes a date, each field padded with zeros to the number of its letters
+   *
+   * @param sb buffer receiving the date
+   * @param fields the date fields
+   */
+  public void format(final StringBuffer sb, final int[] fields) {
+    for (int i = 0; i < this.kinds.length; i++) {
+      int kind = this.kinds[i];
+      if (kind == DatePattern.LITERAL) {
+        sb.append(this.literals[i]);
+      } else if ((kind == DatePattern.YEAR) && (this.counts[i] == 2)) {
+        NumberHelper.appendLong(sb, Math.abs(fields[kind]) % 100, 2, 0, '\0');
+      } else {
+        NumberHelper.appendLong(sb, fields[kind], this.counts[i], 0, '\0');
+      }
+    }
+  }
+
+  public String getPattern() {
+    return this.pattern;
+  }
+
+  /**
+   * Brings the fields out of their range (like month 13 or day 32) into the next ones, as a
+   * lenient calendar does
+   *
+   * @param fields the date fields
+   */
+  public static void normalize(final int[] fields) {
+    long millisOfDay = DatePattern.millisOfDay(fields);
+    long day = DatePattern.toEpochDay(fields[DatePattern.YEAR], fields[DatePattern.MONTH],
+        fields[DatePattern.DAY]) + DatePattern.floorDiv(millisOfDay, DatePattern.MILLIS_PER_DAY);
+    DatePattern.setFields(day, DatePattern.floorMod(millisOfDay, DatePattern.MILLIS_PER_DAY),
+        fields);
+  }
+
+  /**
+   * @return the instant of the date fields on a time zone
+   */
+  public static long toMillis(final int[] fields, final TimeZone timeZone) {
+    long day = DatePattern.toEpochDay(fields[DatePattern.YEAR], fields[DatePattern.MONTH],
+        fields[DatePattern.DAY]);
+    if (day < DatePattern.FIRST_GREGORIAN_DAY) {
+      Calendar calendar = new GregorianCalendar(timeZone);
+      calendar.clear();
+      calendar.set(fields[DatePattern.YEAR], fields[DatePattern.MONTH] - 1,
+          fields[DatePattern.DAY], fields[DatePattern.HOUR], fields[DatePattern.MINUTE],
+          fields[DatePattern.SECOND]);
+      calendar.set(Calendar.MILLISECOND, fields[DatePattern.MILLIS]);
+      return calendar.getTimeInMillis();
+    }
+
+    long local = (day * DatePattern.MILLIS_PER_DAY) + DatePattern.millisOfDay(fields);
+    int offset = timeZone.getOffset(local - timeZone.getRawOffset());
+    return local - timeZone.getOffset(local - offset);
+  }
+
+  /**
+   * Fills the date fields of an instant on a time zone
+   */
+  public static void fromMillis(final long millis, final TimeZone timeZone, final int[] fields) {
+    long local = millis + timeZone.getOffset(millis);
+    long day = DatePattern.floorDiv(local, DatePattern.MILLIS_PER_DAY);
+    if (day < DatePattern.FIRST_GREGORIAN_DAY) {
+      Calendar calendar = new GregorianCalendar(timeZone);
+      calendar.setTimeInMillis(millis);
+      fields[DatePattern.YEAR] = calendar.get(Calendar.YEAR);
+      fields[DatePattern.MONTH] = calendar.get(Calendar.MONTH) + 1;
+      fields[DatePattern.DAY] = calendar.get(Calendar.DAY_OF_MONTH);
+      fields[DatePattern.HOUR] = calendar.get(Calendar.HOUR_OF_DAY);
+      fields[DatePattern.MINUTE] = calendar.get(Calendar.MINUTE);
+      fields[DatePattern.SECOND] = calendar.get(Calendar.SECOND);
+      fields[DatePattern.MILLIS] = calendar.get(Calendar.MILLISECOND);
+      return;
+    }
+    DatePattern.setFields(day, local - (day * DatePattern.MILLIS_PER_DAY), fields);
+  }
+
+  /**
+   * Days from 1970-01-01 of a date on the gregorian calendar. Months out of 1 to 12 move the year
+   * and days out of the month move the date, as on a lenient calendar.
+   */
+  static long toEpochDay(final int year, final int month, final int day) {
+    long y = year + DatePattern.floorDiv(month - 1, 12);
+    int m = (int) DatePattern.floorMod(month - 1, 12) + 1;
+    if (m <= 2) {
+      y--;
+    }
+    long era = DatePattern.floorDiv(y, 400);
+    long yearOfEra = y - (era * 400);
+    long dayOfYear = (((153 * (m > 2 ? m - 3 : m + 9)) + 2) / 5);
+    long dayOfEra = ((yearOfEra * 365) + (yearOfEra / 4)) - (yearOfEra / 100) + dayOfYear;
+    return ((era * 146097) + dayOfEra) - 719468 + (day - 1);
+  }
+
+  private static void setFields(final long epochDay, final long millisOfDay, final int[] fields) {
+    long z = epochDay + 719468;
+    long era = DatePattern.floorDiv(z, 146097);
+    long dayOfEra = z - (era * 146097);
+    long yearOfEra =
+        (((dayOfEra - (dayOfEra / 1460)) + (dayOfEra / 36524)) - (dayOfEra / 146096)) / 365;
+    long dayOfYear = dayOfEra - (((365 * yearOfEra) + (yearOfEra / 4)) - (yearOfEra / 100));
+    long mp = ((5 * dayOfYear) + 2) / 153;
+    int month = (int) (mp < 10 ? mp + 3 : mp - 9);
+
+    fields[DatePattern.YEAR] = (int) (yearOfEra + (era * 400) + (month <= 2 ? 1 : 0));
+    fields[DatePattern.MONTH] = month;
+    fields[DatePattern.DAY] = (int) ((dayOfYear - (((153 * mp) + 2) / 5)) + 1);
+
+    int millis = (int) millisOfDay;
+    fields[DatePattern.HOUR] = millis / 3600000;
+    fields[DatePattern.MINUTE] = (millis / 60000) % 60;
+    fields[DatePattern.SECOND] = (millis / 1000) % 60;
+    fields[DatePattern.MILLIS] = millis % 1000;
+  }
+
+  private static long millisOfDay(final int[] fields) {
+    return (((((fields[DatePattern.HOUR] * 60L) + fields[DatePattern.MINUTE]) * 60)
+        + fields[DatePattern.SECOND]) * 1000) + fields[DatePattern.MILLIS];
+  }
+
+  private static long floorDiv(final long x, final long y) {
+    long q = x / y;
+    return ((x % y) != 0) && ((x < 0) != (y < 0)) ? q - 1 : q;
+  }
+
+  private static long floorMod(final long x, final long y) {
+    return x - (DatePattern.floorDiv(x, y) * y);
+  }
+}
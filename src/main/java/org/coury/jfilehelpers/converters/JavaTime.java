@@ -0,0 +1,191 @@
+/*
+ * JavaTime.java
+ *
+ * Copyright (C) 2007 Felipe Gonalves Coury <felipe.coury@gmail.com>
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation; either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program; if
+ * not, write to the Free Software Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA
+ * 02111-1307, USA.
+ */
+
+package org.coury.jfilehelpers.converters;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+/**
+ * Access to the java.time types (LocalDate, LocalDateTime and Instant) through method handles, as
+ * the library is still built for Java 7. On older runtimes none of the types is supported.
+ */
+final class JavaTime {
+
+  static final Class<?> LOCAL_DATE = JavaTime.findClass("java.time.LocalDate");
+
+  static final Class<?> LOCAL_DATE_TIME = JavaTime.findClass("java.time.LocalDateTime");
+
+  static final Class<?> INSTANT = JavaTime.findClass("java.time.Instant");
+
+  private static final MethodHandle LOCAL_DATE_OF;
+
+  private static final MethodHandle LOCAL_DATE_TIME_OF;
+
+  private static final MethodHandle INSTANT_OF_EPOCH_MILLI;
+
+  private static final MethodHandle INSTANT_TO_EPOCH_MILLI;
+
+  // getYear, getMonthValue, getDayOfMonth, getHour, getMinute, getSecond and getNano
+  private static final MethodHandle[] LOCAL_DATE_GETTERS;
+
+  private static final MethodHandle[] LOCAL_DATE_TIME_GETTERS;
+
+  private static final String[] GETTER_NAMES = new String[] {"getYear", "getMonthValue",
+      "getDayOfMonth", "getHour", "getMinute", "getSecond", "getNano"};
+
+  static {
+    MethodHandle localDateOf = null;
+    MethodHandle localDateTimeOf = null;
+    MethodHandle instantOfEpochMilli = null;
+    MethodHandle instantToEpochMilli = null;
+    MethodHandle[] localDateGetters = null;
+    MethodHandle[] localDateTimeGetters = null;
+
+    if ((JavaTime.LOCAL_DATE != null) && (JavaTime.LOCAL_DATE_TIME != null)
+        && (JavaTime.INSTANT != null)) {
+      MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+      try {
+        localDateOf = lookup
+            .findStatic(JavaTime.LOCAL_DATE, "of",
+                MethodType.methodType(JavaTime.LOCAL_DATE, int.class, int.class, int.class))
+            .asType(MethodType.methodType(Object.class, int.class, int.class, int.class));
+        localDateTimeOf = lookup
+            .findStatic(JavaTime.LOCAL_DATE_TIME, "of",
+                MethodType.methodType(JavaTime.LOCAL_DATE_TIME, int.class, int.class, int.class,
+                    int.class, int.class, int.class, int.class))
+            .asType(MethodType.methodType(Object.class, int.class, int.class, int.class,
+                int.class, int.class, int.class, int.class));
+        instantOfEpochMilli = lookup
+            .findStatic(JavaTime.INSTANT, "ofEpochMilli",
+                MethodType.methodType(JavaTime.INSTANT, long.class))
+            .asType(MethodType.methodType(Object.class, long.class));
+        instantToEpochMilli = lookup
+            .findVirtual(JavaTime.INSTANT, "toEpochMilli", MethodType.methodType(long.class))
+            .asType(MethodType.methodType(long.class, Object.class));
+        localDateGetters = JavaTime.findGetters(lookup, JavaTime.LOCAL_DATE, 3);
+        localDateTimeGetters =
+            JavaTime.findGetters(lookup, JavaTime.LOCAL_DATE_TIME, JavaTime.GETTER_NAMES.length);
+      } catch (ReflectiveOperationException e) {
+        localDateOf = null;
+      }
+    }
+
+    LOCAL_DATE_OF = localDateOf;
+    LOCAL_DATE_TIME_OF = localDateTimeOf;
+    INSTANT_OF_EPOCH_MILLI = instantOfEpochMilli;
+    INSTANT_TO_EPOCH_MILLI = instantToEpochMilli;
+    LOCAL_DATE_GETTERS = localDateGetters;
+    LOCAL_DATE_TIME_GETTERS = localDateTimeGetters;
+  }
+
+  private JavaTime() {}
+
+  /**
+   * @return true if the type is one of the supported java.time types
+   */
+  static boolean isSupported(final Class<?> type) {
+    return (JavaTime.LOCAL_DATE_OF != null) && (type != null) && ((type == JavaTime.LOCAL_DATE)
+        || (type == JavaTime.LOCAL_DATE_TIME) || (type == JavaTime.INSTANT));
+  }
+
+  /**
+   * Creates a LocalDate or LocalDateTime from normalized date fields
+   */
+  static Object newLocal(final Class<?> type, final int[] fields) {
+    try {
+      if (type == JavaTime.LOCAL_DATE) {
+        return (Object) JavaTime.LOCAL_DATE_OF.invokeExact(fields[DatePattern.YEAR],
+            fields[DatePattern.MONTH], fields[DatePattern.DAY]);
+      }
+      return (Object) JavaTime.LOCAL_DATE_TIME_OF.invokeExact(fields[DatePattern.YEAR],
+          fields[DatePattern.MONTH], fields[DatePattern.DAY], fields[DatePattern.HOUR],
+          fields[DatePattern.MINUTE], fields[DatePattern.SECOND],
+          fields[DatePattern.MILLIS] * 1000000);
+    } catch (Throwable e) {
+      throw JavaTime.rethrow(e);
+    }
+  }
+
+  /**
+   * Fills the date fields of a LocalDate or LocalDateTime
+   */
+  static void getFields(final Object value, final int[] fields) {
+    MethodHandle[] getters = value.getClass() == JavaTime.LOCAL_DATE
+        ? JavaTime.LOCAL_DATE_GETTERS : JavaTime.LOCAL_DATE_TIME_GETTERS;
+    try {
+      for (int i = 0; i < getters.length; i++) {
+        fields[i] = (int) getters[i].invokeExact(value);
+      }
+    } catch (Throwable e) {
+      throw JavaTime.rethrow(e);
+    }
+    for (int i = getters.length; i < DatePattern.FIELD_COUNT; i++) {
+      fields[i] = 0;
+    }
+    if (getters.length == DatePattern.FIELD_COUNT) {
+      // the last getter returns nanoseconds
+      fields[DatePattern.MILLIS] /= 1000000;
+    }
+  }
+
+  static Object newInstant(final long millis) {
+    try {
+      return (Object) JavaTime.INSTANT_OF_EPOCH_MILLI.invokeExact(millis);
+    } catch (Throwable e) {
+      throw JavaTime.rethrow(e);
+    }
+  }
+
+  static long toEpochMilli(final Object instant) {
+    try {
+      return (long) JavaTime.INSTANT_TO_EPOCH_MILLI.invokeExact(instant);
+    } catch (Throwable e) {
+      throw JavaTime.rethrow(e);
+    }
+  }
+
+  private static MethodHandle[] findGetters(final MethodHandles.Lookup lookup, final Class<?> type,
+      final int count) throws ReflectiveOperationException {
+    MethodHandle[] getters = new MethodHandle[count];
+    for (int i = 0; i < count; i++) {
+      getters[i] = lookup.findVirtual(type, JavaTime.GETTER_NAMES[i],
+          MethodType.methodType(int.class)).asType(MethodType.methodType(int.class, Object.class));
+    }
+    return getters;
+  }
+
+  private static Class<?> findClass(final String name) {
+    try {
+      return Class.forName(name);
+    } catch (ClassNotFoundException e) {
+      return null;
+    }
+  }
+
+  private static RuntimeException rethrow(final Throwable e) {
+    if (e instanceof RuntimeException) {
+      return (RuntimeException) e;
+    }
+    if (e instanceof Error) {
+      throw (Error) e;
+    }
+    return new RuntimeException(e);
+  }
+}
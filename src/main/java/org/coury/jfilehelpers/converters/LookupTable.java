@@ -0,0 +1,119 @@
+/*
+ * LookupTable.java
+ *
+ * Copyright (C) 2007 Felipe Gonalves Coury <felipe.coury@gmail.com>
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation; either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program; if
+ * not, write to the Free Software Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA
+ * 02111-1307, USA.
+ */
+
+package org.coury.jfilehelpers.converters;
+
+import java.util.Map;
+
+/**
+ * Values looked up by the chars of their text, built once for a fixed set of texts. The texts are
+ * kept on an open addressing hash table and compared in place, so a lookup creates no String.
+ * White space around the looked up chars is ignored. The table is immutable and can be shared
+ * between threads.
+ */
+public final class LookupTable {
+
+  private final char[][] keys;
+
+  private final Object[] values;
+
+  private final int mask;
+
+  private final boolean ignoreCase;
+
+  /**
+   * @param entries the texts and their values; when two texts are the same (ignoring the case if
+   *        asked) the first one is kept
+   * @param ignoreCase whether the case of the texts is ignored
+   */
+  public LookupTable(final Map<String, ?> entries, final boolean ignoreCase) {
+    this.ignoreCase = ignoreCase;
+
+    int capacity = 4;
+    while (capacity < (entries.size() * 2)) {
+      capacity <<= 1;
+    }
+    this.keys = new char[capacity][];
+    this.values = new Object[capacity];
+    this.mask = capacity - 1;
+
+    for (Map.Entry<String, ?> entry : entries.entrySet()) {
+      char[] key = entry.getKey().toCharArray();
+      int slot = this.hash(key, 0, key.length) & this.mask;
+      while ((this.keys[slot] != null) && !this.matches(this.keys[slot], key, 0, key.length)) {
+        slot = (slot + 1) & this.mask;
+      }
+      if (this.keys[slot] == null) {
+        this.keys[slot] = key;
+        this.values[slot] = entry.getValue();
+      }
+    }
+  }
+
+  /**
+   * @param chars buffer holding the text
+   * @param from start of the text (inclusive)
+   * @param to end of the text (exclusive)
+   * @return the value of the text, or null if the text is not on the table
+   */
+  public Object get(final char[] chars, final int from, final int to) {
+    int start = from;
+    int end = to;
+    while ((start < end) && Character.isWhitespace(chars[start])) {
+      start++;
+    }
+    while ((end > start) && Character.isWhitespace(chars[end - 1])) {
+      end--;
+    }
+
+    int slot = this.hash(chars, start, end) & this.mask;
+    while (this.keys[slot] != null) {
+      if (this.matches(this.keys[slot], chars, start, end)) {
+        return this.values[slot];
+      }
+      slot = (slot + 1) & this.mask;
+    }
+    return null;
+  }
+
+  private int hash(final char[] chars, final int from, final int to) {
+    int hash = to - from;
+    for (int i = from; i < to; i++) {
+      hash = (31 * hash) + this.fold(chars[i]);
+    }
+    return (hash * 0x9E3779B9) >>> 16;
+  }
+
+  private boolean matches(final char[] key, final char[] chars, final int from, final int to) {
+    if (key.length != (to - from)) {
+      return false;
+    }
+    for (int i = 0; i < key.length; i++) {
+      char c = chars[from + i];
+      if ((key[i] != c) && (!this.ignoreCase || (this.fold(key[i]) != this.fold(c)))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private char fold(final char c) {
+    // same folding as String.equalsIgnoreCase
+    return this.ignoreCase ? Character.toLowerCase(Character.toUpperCase(c)) : c;
+  }
+}
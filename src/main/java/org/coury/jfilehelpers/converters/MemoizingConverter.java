@@ -0,0 +1,229 @@
+/*
+ * MemoizingConverter.java
+ *
+ * Copyright (C) 2007 Felipe Gonalves Coury <felipe.coury@gmail.com>
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation; either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program; if
+ * not, write to the Free Software Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA
+ * 02111-1307, USA.
+ */
+
+package org.coury.jfilehelpers.converters;
+
+import java.util.Arrays;
+import java.util.Date;
+
+import org.coury.jfilehelpers.helpers.StripedCounter;
+
+/**
+ * Converter that remembers the values converted by another one, keyed by the raw chars. The cache
+ * is split in sets of two entries: each raw value can only be on the set chosen by its hash, and a
+ * new value evicts the older entry of its set. Lookups compare the chars in place, so a hit creates
+ * no String.
+ * Values longer than {@link #MAX_KEY_LENGTH} chars are not cached. The cache can be shared between
+ * threads; Date values, being mutable, are handed out as copies. Other values are shared between
+ * records, so the converter has to return immutable ones (see
+ * {@link ConverterBase#isImmutableResult()}).
+ */
+public class MemoizingConverter extends ConverterBase {
+
+  public static final int MAX_KEY_LENGTH = 64;
+
+  private final ConverterBase converter;
+
+  private final Entry[] entries;
+
+  private final int shift;
+
+  private final StripedCounter hits = new StripedCounter();
+
+  private final StripedCounter misses = new StripedCounter();
+
+  private static final class Entry {
+
+    final char[] key;
+
+    final int hash;
+
+    final Object value;
+
+    Entry(final char[] key, final int hash, final Object value) {
+      this.key = key;
+      this.hash = hash;
+      this.value = value;
+    }
+  }
+
+  /**
+   * @param converter converter of the values missing on the cache
+   * @param size number of cached values, rounded up to a power of two
+   */
+  public MemoizingConverter(final ConverterBase converter, final int size) {
+    if (size < 1) {
+      throw new IllegalArgumentException("The size of the converter cache must be positive: "
+          + size);
+    }
+    this.converter = converter;
+    int capacity = Integer.highestOneBit(Math.min(Math.max(size, 2), 1 << 30));
+    if (capacity < size) {
+      capacity <<= 1;
+    }
+    this.entries = new Entry[capacity];
+    this.shift = 32 - Integer.numberOfTrailingZeros(capacity);
+  }
+
+  @Override
+  public Object stringToField(final String from) {
+    char[] chars = from.toCharArray();
+    return this.charsToField(chars, 0, chars.length);
+  }
+
+  @Override
+  public Object charsToField(final char[] chars, final int from, final int length) {
+    return this.convert(chars, from, length, null);
+  }
+
+  @Override
+  public Object charsToField(final CharSlice chars) {
+    return this.convert(chars.getArray(), chars.getOffset(), chars.length(), chars);
+  }
+
+  /**
+   * @param slice the reused view of the chars to hand to the converter on a miss, or null
+   */
+  private Object convert(final char[] chars, final int from, final int length,
+      final CharSlice slice) {
+    if (length > MemoizingConverter.MAX_KEY_LENGTH) {
+      this.misses.increment();
+      return this.convertMissing(chars, from, length, slice);
+    }
+
+    int hash = 0;
+    for (int i = from; i < (from + length); i++) {
+      hash = (31 * hash) + chars[i];
+    }
+    int set = this.setOf(hash);
+    Entry first = this.entries[set];
+    if (MemoizingConverter.matches(first, hash, chars, from, length)) {
+      this.hits.increment();
+      return MemoizingConverter.copy(first.value);
+    }
+    Entry second = this.entries[set + 1];
+    if (MemoizingConverter.matches(second, hash, chars, from, length)) {
+      this.hits.increment();
+      return MemoizingConverter.copy(second.value);
+    }
+
+    this.misses.increment();
+    Object value = this.convertMissing(chars, from, length, slice);
+
+    // the new value goes first and the older of the two is evicted
+    this.entries[set + 1] = first;
+    this.entries[set] = new Entry(Arrays.copyOfRange(chars, from, from + length), hash,
+        MemoizingConverter.copy(value));
+    return value;
+  }
+
+  private Object convertMissing(final char[] chars, final int from, final int length,
+      final CharSlice slice) {
+    return slice != null ? this.converter.charsToField(slice)
+        : this.converter.charsToField(chars, from, length);
+  }
+
+  private int setOf(final int hash) {
+    // spreads the hash over the high bits and takes as many of them as the capacity needs, each
+    // set has two entries
+    return ((hash * 0x9E3779B9) >>> this.shift) & ~1;
+  }
+
+  private static boolean matches(final Entry entry, final int hash, final char[] chars,
+      final int from, final int length) {
+    return (entry != null) && (entry.hash == hash)
+        && MemoizingConverter.sameChars(entry.key, chars, from, length);
+  }
+
+  private static boolean sameChars(final char[] key, final char[] chars, final int from,
+      final int length) {
+    if (key.length != length) {
+      return false;
+    }
+    for (int i = 0; i < length; i++) {
+      if (key[i] != chars[from + i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static Object copy(final Object value) {
+    if (value instanceof Date) {
+      return ((Date) value).clone();
+    }
+    return value;
+  }
+
+  @Override
+  public String fieldToString(final Object from) {
+    return this.converter.fieldToString(from);
+  }
+
+  @Override
+  public void fieldToString(final StringBuffer sb, final Object from) {
+    this.converter.fieldToString(sb, from);
+  }
+
+  @Override
+  public boolean isPlainText() {
+    return this.converter.isPlainText();
+  }
+
+  @Override
+  public boolean isImmutableResult() {
+    return true;
+  }
+
+  @Override
+  public boolean isCustomNullHandling() {
+    return this.converter.isCustomNullHandling();
+  }
+
+  /**
+   * Empties the cache, keeping the counters
+   */
+  public void clear() {
+    Arrays.fill(this.entries, null);
+  }
+
+  /**
+   * @return the converter of the values missing on the cache
+   */
+  public ConverterBase getConverter() {
+    return this.converter;
+  }
+
+  /**
+   * @return how many values were found on the cache
+   */
+  public long getHits() {
+    return this.hits.get();
+  }
+
+  /**
+   * @return how many values were converted
+   */
+  public long getMisses() {
+    return this.misses.get();
+  }
+
+  public int getSize() {
+    return this.entries.length;
+  }
+}
@@ -0,0 +1,268 @@
+/*
+ * CodecCompiler.java
+ *
+ * Copyright (C) 2007 Felipe Gonalves Coury <felipe.coury@gmail.com>
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation; either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program; if
+ * not, write to the Free Software Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA
+ * 02111-1307, USA.
+ */
+
+package org.coury.jfilehelpers.core;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.net.URI;
+import java.security.CodeSource;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.tools.DiagnosticCollector;
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.JavaFileObject.Kind;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import org.coury.jfilehelpers.fields.FieldBase;
+
+/**
+ * Builds a {@link RecordCodec} specialized for one record class. The codec is generated as Java
+ * source with one statement per field, compiled in memory with the system Java compiler and loaded
+ * on a child class loader of the record class. Public fields are read and assigned directly, the
+ * others go through the field descriptor. The source itself is written by {@link CodecSource}.
+ *
+ * When there is no compiler available (running on a JRE) or the record class can't be created by
+ * generated code, no codec is built and the records are handled by the generic path of
+ * {@link RecordInfo}.
+ *
+ * @author Felipe Gonalves Coury <felipe.coury@gmail.com>
+ */
+final class CodecCompiler {
+
+  static final String CODEC_PACKAGE = "org.coury.jfilehelpers.codecs";
+
+  private CodecCompiler() {}
+
+  /**
+   * Generates and compiles the codec for a record class
+   *
+   * @param recordClass the record class
+   * @param fields the field descriptors of the record class
+   * @return the codec or null if it could not be built
+   */
+  @SuppressWarnings("unchecked")
+  static <T> RecordCodec<T> compile(final Class<T> recordClass, final FieldBase[] fields) {
+    if (!CodecCompiler.isAccessible(recordClass) || !CodecCompiler.isInstantiable(recordClass)
+        || (recordClass.getClassLoader() == null)) {
+      return null;
+    }
+
+    JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+    if (compiler == null) {
+      return null;
+    }
+
+    String simpleName = recordClass.getName().replace('.', '_').replace('$', '_') + "Codec";
+    String className = CodecCompiler.CODEC_PACKAGE + "." + simpleName;
+    String source =
+        CodecCompiler.generateSource(CodecCompiler.CODEC_PACKAGE, simpleName, recordClass, fields);
+
+    try {
+      MemoryFileManager fileManager =
+          new MemoryFileManager(compiler.getStandardFileManager(null, null, null));
+      List<String> options =
+          Arrays.asList("-classpath", CodecCompiler.classPath(recordClass), "-proc:none");
+      List<JavaFileObject> units =
+          Collections.<JavaFileObject>singletonList(new SourceFile(className, source));
+
+      Boolean compiled = compiler.getTask(new StringWriter(), fileManager,
+          new DiagnosticCollector<JavaFileObject>(), options, null, units).call();
+      if (!Boolean.TRUE.equals(compiled)) {
+        return null;
+      }
+
+      CodecClassLoader loader = new CodecClassLoader(recordClass.getClassLoader());
+      Class<?> codecClass = loader.define(className, fileManager.getClassBytes(className));
+
+      return (RecordCodec<T>) codecClass.getConstructor(FieldBase[].class)
+          .newInstance((Object) fields);
+    } catch (Exception e) {
+      return null;
+    } catch (LinkageError e) {
+      return null;
+    }
+  }
+
+  /**
+   * Writes the source of the codec class
+   *
+   * @param packageName package of the codec class
+   * @param className simple name of the codec class
+   * @param recordClass the record class
+   * @param fields the field descriptors of the record class
+   * @return the java source of the codec
+   */
+  static String generateSource(final String packageName, final String className,
+      final Class<?> recordClass, final FieldBase[] fields) {
+    Set<String> names = new HashSet<String>();
+    Set<String> repeated = new HashSet<String>();
+    for (FieldBase field : fields) {
+      if (!names.add(field.getFieldInfo().getName())) {
+        repeated.add(field.getFieldInfo().getName());
+      }
+    }
+
+    CodecSource source = new CodecSource(packageName, className, recordClass.getCanonicalName());
+    for (FieldBase field : fields) {
+      Field fi = field.getFieldInfo();
+      int modifiers = fi.getModifiers();
+
+      // public instance fields of a public type, whose name is not hidden by another field of the
+      // record hierarchy, are reached directly
+      boolean direct = Modifier.isPublic(modifiers) && !Modifier.isStatic(modifiers)
+          && !repeated.contains(fi.getName()) && CodecCompiler.isAccessible(fi.getDeclaringClass())
+          && CodecCompiler.isAccessible(fi.getType());
+
+      source.addField(fi.getName(), CodecCompiler.descriptorType(field),
+          fi.getType().getCanonicalName(), direct, !Modifier.isFinal(modifiers));
+    }
+
+    return source.generate();
+  }
+
+  /**
+   * Checks if generated code can create records with <code>new</code>: a public top level or static
+   * nested class with a public empty constructor
+   */
+  private static boolean isInstantiable(final Class<?> recordClass) {
+    if (Modifier.isAbstract(recordClass.getModifiers()) || (recordClass.getEnclosingClass() != null
+        && !Modifier.isStatic(recordClass.getModifiers()))) {
+      return false;
+    }
+    try {
+      return Modifier.isPublic(recordClass.getConstructor().getModifiers());
+    } catch (NoSuchMethodException e) {
+      return false;
+    }
+  }
+
+  private static boolean isAccessible(final Class<?> type) {
+    if (type.isArray()) {
+      return CodecCompiler.isAccessible(type.getComponentType());
+    }
+    if (type.isPrimitive()) {
+      return true;
+    }
+    if (!Modifier.isPublic(type.getModifiers()) || (type.getCanonicalName() == null)) {
+      return false;
+    }
+    return (type.getEnclosingClass() == null)
+        || CodecCompiler.isAccessible(type.getEnclosingClass());
+  }
+
+  private static String descriptorType(final FieldBase field) {
+    if (CodecCompiler.isAccessible(field.getClass())) {
+      return field.getClass().getCanonicalName();
+    }
+    return FieldBase.class.getName();
+  }
+
+  /**
+   * Class path for compiling the codec: the application class path plus the locations of the record
+   * class and of this library, which may come from other class loaders
+   */
+  private static String classPath(final Class<?> recordClass) {
+    StringBuilder cp = new StringBuilder(System.getProperty("java.class.path", ""));
+
+    for (Class<?> c : new Class<?>[] {recordClass, RecordCodec.class}) {
+      try {
+        CodeSource cs = c.getProtectionDomain().getCodeSource();
+        if ((cs != null) && (cs.getLocation() != null)) {
+          cp.append(File.pathSeparator).append(new File(cs.getLocation().toURI()).getPath());
+        }
+      } catch (Exception e) {
+        // the location is left out, the application class path may be enough
+      }
+    }
+
+    return cp.toString();
+  }
+
+  private static class SourceFile extends SimpleJavaFileObject {
+
+    private final String source;
+
+    SourceFile(final String className, final String source) {
+      super(URI.create("string:///" + className.replace('.', '/') + Kind.SOURCE.extension),
+          Kind.SOURCE);
+      this.source = source;
+    }
+
+    @Override
+    public CharSequence getCharContent(final boolean ignoreEncodingErrors) {
+      return this.source;
+    }
+  }
+
+  private static class MemoryFileManager
+      extends ForwardingJavaFileManager<StandardJavaFileManager> {
+
+    private final Map<String, ByteArrayOutputStream> classes =
+        new HashMap<String, ByteArrayOutputStream>();
+
+    MemoryFileManager(final StandardJavaFileManager fileManager) {
+      super(fileManager);
+    }
+
+    @Override
+    public JavaFileObject getJavaFileForOutput(final Location location, final String className,
+        final Kind kind, final FileObject sibling) {
+      return new SimpleJavaFileObject(
+          URI.create("mem:///" + className.replace('.', '/') + kind.extension), kind) {
+
+        @Override
+        public OutputStream openOutputStream() {
+          ByteArrayOutputStream out = new ByteArrayOutputStream();
+          MemoryFileManager.this.classes.put(className, out);
+          return out;
+        }
+      };
+    }
+
+    byte[] getClassBytes(final String className) {
+      return this.classes.get(className).toByteArray();
+    }
+  }
+
+  private static class CodecClassLoader extends ClassLoader {
+
+    CodecClassLoader(final ClassLoader parent) {
+      super(parent);
+    }
+
+    Class<?> define(final String name, final byte[] bytes) {
+      return this.defineClass(name, bytes, 0, bytes.length);
+    }
+  }
+}
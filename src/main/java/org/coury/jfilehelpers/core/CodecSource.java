@@ -0,0 +1,259 @@
+/*
+ * CodecSource.java
+ *
+ * Copyright (C) 2007 Felipe Gonalves Coury <felipe.coury@gmail.com>
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation; either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program; if
+ * not, write to the Free Software Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA
+ * 02111-1307, USA.
+ */
+
+package org.coury.jfilehelpers.core;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes the Java source of a {@link RecordCodec} class. It is shared by the codecs compiled at
+ * runtime ({@link CodecCompiler}) and the ones generated at build time by the annotation processor,
+ * so both describe the record fields in the same terms: the name of the field, the type of its
+ * descriptor and how the generated code may reach it.
+ *
+ * @author Felipe Gonalves Coury <felipe.coury@gmail.com>
+ */
+public final class CodecSource {
+
+  /**
+   * Suffix of the codecs generated at build time, see {@link #codecClassName(String)}
+   */
+  public static final String CODEC_SUFFIX = "_Codec";
+
+  /**
+   * Name of the static field holding the names of the fields handled by a generated codec, in
+   * order. Used to check that the codec still matches the record class.
+   */
+  public static final String FIELD_NAMES = "FIELD_NAMES";
+
+  /**
+   * Name of the static field holding the canonical names of the types of the fields handled by a
+   * generated codec, in the same order of {@link #FIELD_NAMES}
+   */
+  public static final String FIELD_TYPES = "FIELD_TYPES";
+
+  /**
+   * Name of the static field holding the names of the field descriptor classes the codec casts
+   * the descriptors to, in the same order of {@link #FIELD_NAMES}
+   */
+  public static final String FIELD_DESCRIPTORS = "FIELD_DESCRIPTORS";
+
+  private final String packageName;
+
+  private final String className;
+
+  private final String recordType;
+
+  private final List<Member> members = new ArrayList<Member>();
+
+  /**
+   * @param packageName package of the codec class
+   * @param className simple name of the codec class
+   * @param recordType canonical name of the record class
+   */
+  public CodecSource(final String packageName, final String className, final String recordType) {
+    this.packageName = packageName;
+    this.className = className;
+    this.recordType = recordType;
+  }
+
+  /**
+   * Name of the codec generated at build time for a record class, in the same package of the
+   * record
+   *
+   * @param recordBinaryName binary name of the record class (as in {@link Class#getName()})
+   * @return the binary name of the codec class
+   */
+  public static String codecClassName(final String recordBinaryName) {
+    int dot = recordBinaryName.lastIndexOf('.');
+    return recordBinaryName.substring(0, dot + 1)
+        + recordBinaryName.substring(dot + 1).replace('$', '_') + CodecSource.CODEC_SUFFIX;
+  }
+
+  /**
+   * Adds the next field of the record
+   *
+   * @param name field name
+   * @param descriptorType canonical name of the field descriptor class
+   * @param fieldType canonical name of the field type, or null if the codec can't refer to it
+   * @param readable true if the codec can read the field directly
+   * @param writable true if the codec can assign the field directly
+   */
+  public void addField(final String name, final String descriptorType, final String fieldType,
+      final boolean readable, final boolean writable) {
+    Member m = new Member();
+    m.name = name;
+    m.descriptorType = descriptorType;
+    m.fieldType = fieldType;
+    m.readable = readable && (fieldType != null);
+    m.writable = m.readable && writable;
+    this.members.add(m);
+  }
+
+  /**
+   * @return the java source of the codec class
+   */
+  public String generate() {
+    StringBuilder sb = new StringBuilder(1024);
+
+    if (this.packageName.length() > 0) {
+      sb.append("package ").append(this.packageName).append(";\n\n");
+    }
+    sb.append("public final class ").append(this.className)
+        .append(" implements org.coury.jfilehelpers.core.RecordCodec<").append(this.recordType)
+        .append("> {\n\n");
+
+    String[] names = new String[this.members.size()];
+    String[] types = new String[this.members.size()];
+    String[] descriptors = new String[this.members.size()];
+    for (int i = 0; i < this.members.size(); i++) {
+      names[i] = this.members.get(i).name;
+      types[i] = this.members.get(i).fieldType;
+      descriptors[i] = this.members.get(i).descriptorType;
+    }
+    CodecSource.appendNames(sb, CodecSource.FIELD_NAMES, names);
+    CodecSource.appendNames(sb, CodecSource.FIELD_TYPES, types);
+    CodecSource.appendNames(sb, CodecSource.FIELD_DESCRIPTORS, descriptors);
+    sb.append("\n");
+
+    for (int i = 0; i < this.members.size(); i++) {
+      sb.append("  private final ").append(this.members.get(i).descriptorType).append(" f")
+          .append(i).append(";\n");
+    }
+
+    sb.append("\n  public ").append(this.className)
+        .append("(final org.coury.jfilehelpers.fields.FieldBase[] fields) {\n");
+    for (int i = 0; i < this.members.size(); i++) {
+      sb.append("    this.f").append(i).append(" = (").append(this.members.get(i).descriptorType)
+          .append(") fields[").append(i).append("];\n");
+    }
+    sb.append("  }\n\n");
+
+    sb.append("  @Override\n");
+    sb.append("  public ").append(this.recordType).append(" newRecord() {\n");
+    sb.append("    return new ").append(this.recordType).append("();\n");
+    sb.append("  }\n\n");
+
+    sb.append("  @Override\n");
+    sb.append("  public void readFields(final org.coury.jfilehelpers.engines.LineInfo line, final ")
+        .append(this.recordType).append(" record) throws java.io.IOException {\n");
+    sb.append("    Object v;\n");
+    for (int i = 0; i < this.members.size(); i++) {
+      Member m = this.members.get(i);
+      String f = "this.f" + i;
+
+      if (!m.writable) {
+        sb.append("    ").append(f).append(".extractInto(line, record);\n");
+        continue;
+      }
+
+      String box = CodecSource.boxType(m.fieldType);
+      if (box != null) {
+        // primitives without a converter are parsed unboxed
+        sb.append("    if (").append(f).append(".isPrimitiveParsed()) {\n");
+        sb.append("      record.").append(m.name).append(" = ").append(f).append(".extract")
+            .append(Character.toUpperCase(m.fieldType.charAt(0)))
+            .append(m.fieldType.substring(1)).append("(line, record.").append(m.name)
+            .append(");\n");
+        sb.append("    } else {\n");
+        sb.append("      v = ").append(f).append(".extractValue(line);\n");
+        sb.append("      if (v instanceof ").append(box).append(") {\n");
+        sb.append("        record.").append(m.name).append(" = ((").append(box).append(") v).")
+            .append(m.fieldType).append("Value();\n");
+        sb.append("      } else {\n");
+        sb.append("        ").append(f).append(".setValue(record, v);\n");
+        sb.append("      }\n");
+        sb.append("    }\n");
+      } else {
+        sb.append("    v = ").append(f).append(".extractValue(line);\n");
+        sb.append("    if ((v == null) || (v instanceof ").append(m.fieldType).append(")) {\n");
+        sb.append("      record.").append(m.name).append(" = (").append(m.fieldType)
+            .append(") v;\n");
+        sb.append("    } else {\n");
+        sb.append("      ").append(f).append(".setValue(record, v);\n");
+        sb.append("    }\n");
+      }
+    }
+    sb.append("  }\n\n");
+
+    sb.append("  @Override\n");
+    sb.append("  public void writeFields(final ").append(this.recordType)
+        .append(" record, final StringBuffer sb) {\n");
+    for (int i = 0; i < this.members.size(); i++) {
+      Member m = this.members.get(i);
+      String f = "this.f" + i;
+      sb.append("    ").append(f).append(".assignToString(sb, ");
+      if (m.readable) {
+        sb.append("record.").append(m.name);
+      } else {
+        sb.append(f).append(".getValue(record)");
+      }
+      sb.append(");\n");
+    }
+    sb.append("  }\n");
+    sb.append("}\n");
+
+    return sb.toString();
+  }
+
+  /**
+   * Appends a static array of names, null names are kept as null
+   */
+  private static void appendNames(final StringBuilder sb, final String field,
+      final String[] values) {
+    sb.append("  public static final String[] ").append(field).append(" = {");
+    for (int i = 0; i < values.length; i++) {
+      sb.append(i == 0 ? "" : ", ");
+      if (values[i] == null) {
+        sb.append("null");
+      } else {
+        sb.append('"').append(values[i]).append('"');
+      }
+    }
+    sb.append("};\n");
+  }
+
+  /**
+   * @return the wrapper class of a primitive type name, or null if it is not a primitive
+   */
+  private static String boxType(final String type) {
+    if ("int".equals(type)) {
+      return "Integer";
+    } else if ("char".equals(type)) {
+      return "Character";
+    } else if ("long".equals(type) || "double".equals(type) || "float".equals(type)
+        || "short".equals(type) || "byte".equals(type) || "boolean".equals(type)) {
+      return Character.toUpperCase(type.charAt(0)) + type.substring(1);
+    }
+    return null;
+  }
+
+  private static class Member {
+
+    String name;
+
+    String descriptorType;
+
+    String fieldType;
+
+    boolean readable;
+
+    boolean writable;
+  }
+}
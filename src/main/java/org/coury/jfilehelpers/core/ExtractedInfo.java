@@ -18,11 +18,16 @@
 
 package org.coury.jfilehelpers.core;
 
-import java.util.Arrays;
-
+import org.coury.jfilehelpers.converters.CharSlice;
 import org.coury.jfilehelpers.engines.LineInfo;
+import org.coury.jfilehelpers.helpers.CharClass;
 import org.coury.jfilehelpers.helpers.StringHelper;
 
+/**
+ * The chars of one field: a range of the line buffer or, when the value had to be rebuilt (like a
+ * quoted value with escaped quotes), a custom String. The engines reuse a single instance per line,
+ * see {@link LineInfo#getExtractedInfo()}, so it is only valid until the next field is extracted.
+ */
 public final class ExtractedInfo {
 
   public static final ExtractedInfo Empty = new ExtractedInfo("");
@@ -35,10 +40,16 @@ public final class ExtractedInfo {
 
   private String customExtractedString = null;
 
+  // where the line goes on after this field, -1 to go on right after extractedTo
+  private int nextPos = -1;
+
+  // view of the chars handed to the converters, created once and pointed to each field
+  private CharSlice slice;
+
   public ExtractedInfo(final LineInfo line) {
     this.line = line;
     this.extractedFrom = line.getCurrentPos();
-    this.extractedTo = line.getLine().length - 1;
+    this.extractedTo = line.getLineEnd() - 1;
   }
 
   public ExtractedInfo(final LineInfo line, final int extractTo) {
@@ -47,76 +58,135 @@ public final class ExtractedInfo {
     this.extractedTo = extractTo - 1;
   }
 
+  /**
+   * A slice of the line that is not followed by the rest of the line, like the value inside quotes
+   *
+   * @param line the line
+   * @param extractFrom start of the value (inclusive)
+   * @param extractTo end of the value (exclusive)
+   * @param nextPos position where the line goes on after the field
+   */
+  public ExtractedInfo(final LineInfo line, final int extractFrom, final int extractTo,
+      final int nextPos) {
+    this.line = line;
+    this.extractedFrom = extractFrom;
+    this.extractedTo = extractTo - 1;
+    this.nextPos = nextPos;
+  }
+
   public ExtractedInfo(final String customExtract) {
     this.customExtractedString = customExtract;
   }
 
-  public void trimStart(final char[] sortedToTrim) {
+  /**
+   * Points this instance to a range of the line
+   *
+   * @param line the line
+   * @param extractFrom start of the value (inclusive)
+   * @param extractTo end of the value (exclusive)
+   * @param nextPos position where the line goes on after the field, or -1 for extractTo
+   * @return this instance
+   */
+  public ExtractedInfo slice(final LineInfo line, final int extractFrom, final int extractTo,
+      final int nextPos) {
+    this.line = line;
+    this.extractedFrom = extractFrom;
+    this.extractedTo = extractTo - 1;
+    this.nextPos = nextPos;
+    this.customExtractedString = null;
+    return this;
+  }
+
+  /**
+   * Makes this instance hold a value that is not on the line
+   *
+   * @param customExtract the value
+   * @return this instance
+   */
+  public ExtractedInfo custom(final String customExtract) {
+    this.customExtractedString = customExtract;
+    this.nextPos = -1;
+    return this;
+  }
+
+  public void trimStart(final char[] toTrim) {
+    this.trimStart(new CharClass(toTrim));
+  }
+
+  public void TrimEnd(final char[] toTrim) {
+    this.trimEnd(new CharClass(toTrim));
+  }
+
+  public void trimBoth(final char[] toTrim) {
+    this.trimBoth(new CharClass(toTrim));
+  }
+
+  public boolean hasOnlyThisChars(final char[] chars) {
+    return this.hasOnlyThisChars(new CharClass(chars));
+  }
+
+  public void trimStart(final CharClass toTrim) {
     if (this.customExtractedString != null) {
-      // customExtractedString = customExtractedString.trimStart(sortedToTrim);
-      this.customExtractedString = StringHelper.trimStart(this.customExtractedString, sortedToTrim);
+      this.customExtractedString = toTrim.trimStart(this.customExtractedString);
     } else {
-      while ((this.extractedFrom < this.extractedTo)
-          && (Arrays.binarySearch(sortedToTrim, this.line.getLine()[this.extractedFrom]) >= 0)) {
-        this.extractedFrom++;
-      }
+      this.extractedFrom =
+          toTrim.skip(this.line.getLine(), this.extractedFrom, this.extractedTo + 1);
     }
   }
 
-  public void TrimEnd(final char[] sortedToTrim) {
+  public void trimEnd(final CharClass toTrim) {
     if (this.customExtractedString != null) {
-      // customExtractedString = customExtractedString.trimEnd(sortedToTrim);
-      this.customExtractedString = StringHelper.trimEnd(this.customExtractedString, sortedToTrim);
+      this.customExtractedString = toTrim.trimEnd(this.customExtractedString);
     } else {
-      while ((this.extractedTo > this.extractedFrom)
-          && (Arrays.binarySearch(sortedToTrim, this.line.getLine()[this.extractedTo]) >= 0)) {
-        this.extractedTo--;
-      }
+      this.extractedTo =
+          toTrim.skipBack(this.line.getLine(), this.extractedFrom, this.extractedTo + 1) - 1;
     }
   }
 
-  public void trimBoth(final char[] sortedToTrim) {
+  public void trimBoth(final CharClass toTrim) {
     if (this.customExtractedString != null) {
-      // customExtractedString = mCustomExtractedString.Trim(sortedToTrim);
-      this.customExtractedString = StringHelper.trimBoth(this.customExtractedString, sortedToTrim);
+      this.customExtractedString = toTrim.trim(this.customExtractedString);
     } else {
-      while ((this.extractedFrom <= this.extractedTo)
-          && (Arrays.binarySearch(sortedToTrim, this.line.getLine()[this.extractedFrom]) >= 0)) {
-        this.extractedFrom++;
-      }
-
-      while ((this.extractedTo > this.extractedFrom)
-          && (Arrays.binarySearch(sortedToTrim, this.line.getLine()[this.extractedTo]) >= 0)) {
-        this.extractedTo--;
-      }
+      this.extractedFrom =
+          toTrim.skip(this.line.getLine(), this.extractedFrom, this.extractedTo + 1);
+      this.extractedTo =
+          toTrim.skipBack(this.line.getLine(), this.extractedFrom, this.extractedTo + 1) - 1;
     }
   }
 
-  public boolean hasOnlyThisChars(final char[] sortedArray) {
+  public boolean hasOnlyThisChars(final CharClass chars) {
     // Check if the chars at pos or right are empty ones
     if (this.customExtractedString != null) {
-      int pos = 0;
-      while ((pos < this.customExtractedString.length())
-          && (Arrays.binarySearch(sortedArray, this.customExtractedString.charAt(pos)) >= 0)) {
-        pos++;
-      }
-
-      return pos == this.customExtractedString.length();
-    } else {
-      int pos = this.extractedFrom;
-      while ((pos <= this.extractedTo)
-          && (Arrays.binarySearch(sortedArray, this.line.getLine()[pos]) >= 0)) {
-        pos++;
-      }
-
-      return pos > this.extractedTo;
+      return chars.containsAll(this.customExtractedString);
     }
+    return chars.skip(this.line.getLine(), this.extractedFrom,
+        this.extractedTo + 1) > this.extractedTo;
   }
 
   public int length() {
+    if (this.customExtractedString != null) {
+      return this.customExtractedString.length();
+    }
     return (this.extractedTo - this.extractedFrom) + 1;
   }
 
+  /**
+   * Points the slice reused by this info to the chars of the field on the line, so converting a
+   * value creates no object. Only for values that are a range of the line (no custom String).
+   *
+   * @return the chars of the field, valid until the next field is extracted
+   */
+  public CharSlice toCharSlice() {
+    char[] chars = this.line.getLine();
+    int length = (this.extractedTo - this.extractedFrom) + 1;
+    if (this.slice == null) {
+      this.slice = new CharSlice(chars, this.extractedFrom, length);
+    } else {
+      this.slice.set(chars, this.extractedFrom, length);
+    }
+    return this.slice;
+  }
+
   public String extractedString() {
     if (this.customExtractedString == null) {
       return new String(this.line.getLine(), this.extractedFrom,
@@ -150,6 +220,17 @@ public final class ExtractedInfo {
     this.extractedTo = extractedTo;
   }
 
+  /**
+   * @return the position where the line goes on after this field
+   */
+  public int getNextPos() {
+    return this.nextPos >= 0 ? this.nextPos : this.extractedTo + 1;
+  }
+
+  public void setNextPos(final int nextPos) {
+    this.nextPos = nextPos;
+  }
+
   public String getCustomExtractedString() {
     return this.customExtractedString;
   }
@@ -17,90 +17,238 @@
  */
 package org.coury.jfilehelpers.core;
 
-import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
 
+import org.coury.jfilehelpers.engines.LineInfo;
 import org.coury.jfilehelpers.helpers.StringHelper;
 
+/**
+ * Reads lines from a character stream into one reusable char window. Lines are handed out as
+ * offsets into that window, so parsing can run straight over the read chars without creating a
+ * String (and its char[] copy) for every line.
+ */
 public class ForwardReader {
 
-  private final BufferedReader reader;
+  private static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+  private final Reader reader;
+
+  private char[] buffer;
+
+  private int bufferLength = 0;
+
+  private int scanPos = 0;
+
+  private int retainFrom = 0;
+
+  private boolean endOfStream = false;
 
   private int forwardIndex = 0;
 
   private int forwardLines = 0;
 
-  // private char[] EOF = StringHelper.NEW_LINE.toCharArray();
-  // private int capacityHint = 64;
-
   private int remainingLines = 0;
 
   private int lineNumber = 0;
 
-  private final String[] forwardStrings;
+  // window offsets of the lines read ahead, a start of -1 marks the end of the stream
+  private final int[] forwardStarts;
+
+  private final int[] forwardEnds;
+
+  // window offsets of the line returned by the last read
+  private int lineStart = -1;
+
+  private int lineEnd = -1;
 
   private boolean discardForward = false;
 
-  public ForwardReader(final BufferedReader reader) throws IOException {
+  public ForwardReader(final Reader reader) throws IOException {
     this(reader, 0, 0);
   }
 
-  public ForwardReader(final BufferedReader reader, final int forwardLines) throws IOException {
+  public ForwardReader(final Reader reader, final int forwardLines) throws IOException {
     this(reader, forwardLines, 0);
   }
 
-  public ForwardReader(final BufferedReader reader, final int forwardLines, final int startLine)
+  public ForwardReader(final Reader reader, final int forwardLines, final int startLine)
       throws IOException {
     this.reader = reader;
     this.forwardLines = forwardLines;
     this.lineNumber = startLine;
+    this.buffer = new char[ForwardReader.DEFAULT_BUFFER_SIZE];
 
-    this.forwardStrings = new String[forwardLines + 1];
+    this.forwardStarts = new int[forwardLines + 1];
+    this.forwardEnds = new int[forwardLines + 1];
     this.remainingLines = forwardLines + 1;
 
     for (int i = 0; i < (forwardLines + 1); i++) {
-      this.forwardStrings[i] = reader.readLine();
+      boolean found = this.readRawLine(i);
       this.lineNumber++;
 
-      if (this.forwardStrings[i] == null) {
+      if (!found) {
         this.remainingLines = i;
         break;
       }
     }
   }
 
+  /**
+   * Reads the next line as a new String
+   *
+   * @return the line read or null if there are no more lines
+   * @throws IOException
+   */
   public String readNextLine() throws IOException {
-    if (this.remainingLines <= 0) {
+    if (!this.nextLine()) {
       return null;
+    }
+    return new String(this.buffer, this.lineStart, this.lineEnd - this.lineStart);
+  }
+
+  /**
+   * Reads the next line and points the given line info to it. The chars stay valid until the next
+   * read on this reader.
+   *
+   * @param line line info to be reloaded
+   * @return true if a line was read, false if there are no more lines
+   * @throws IOException
+   */
+  public boolean readNextLine(final LineInfo line) throws IOException {
+    if (!this.nextLine()) {
+      line.reload((String) null);
+      return false;
+    }
+    line.reload(this.buffer, this.lineStart, this.lineEnd);
+    return true;
+  }
+
+  private boolean nextLine() throws IOException {
+    if (this.remainingLines <= 0) {
+      return false;
+    }
+
+    this.lineStart = this.forwardStarts[this.forwardIndex];
+    this.lineEnd = this.forwardEnds[this.forwardIndex];
+
+    if (this.remainingLines == (this.forwardLines + 1)) {
+      // the returned line is the oldest one we hold, keep it while reading ahead
+      this.retainFrom = this.lineStart;
+      if (!this.readRawLine(this.forwardIndex)) {
+        this.remainingLines--;
+      }
+      this.lineNumber++;
     } else {
-      String res = this.forwardStrings[this.forwardIndex];
+      this.remainingLines--;
+      if (this.discardForward) {
+        return false;
+      }
+    }
+
+    this.forwardIndex = (this.forwardIndex + 1) % (this.forwardLines + 1);
+
+    return true;
+  }
+
+  /**
+   * Scans the window for the next line terminator (\n, \r or \r\n) and stores the line offsets on
+   * the given read ahead slot
+   */
+  private boolean readRawLine(final int slot) throws IOException {
+    int pos = this.scanPos;
 
-      if (this.remainingLines == (this.forwardLines + 1)) {
-        this.forwardStrings[this.forwardIndex] = this.reader.readLine();
-        this.lineNumber++;
+    while (true) {
+      for (; pos < this.bufferLength; pos++) {
+        char c = this.buffer[pos];
+        if ((c == '\n') || (c == '\r')) {
+          if ((c == '\r') && ((pos + 1) == this.bufferLength) && !this.endOfStream) {
+            // we need the next char to know if this is a \r\n
+            break;
+          }
 
-        if (this.forwardStrings[this.forwardIndex] == null) {
-          this.remainingLines--;
+          this.forwardStarts[slot] = this.scanPos;
+          this.forwardEnds[slot] = pos;
+          if ((c == '\r') && ((pos + 1) < this.bufferLength) && (this.buffer[pos + 1] == '\n')) {
+            this.scanPos = pos + 2;
+          } else {
+            this.scanPos = pos + 1;
+          }
+          return true;
         }
-      } else {
-        this.remainingLines--;
-        if (this.discardForward) {
-          return null;
+      }
+
+      if (this.endOfStream) {
+        if (this.scanPos < this.bufferLength) {
+          this.forwardStarts[slot] = this.scanPos;
+          this.forwardEnds[slot] = this.bufferLength;
+          this.scanPos = this.bufferLength;
+          return true;
         }
+
+        this.forwardStarts[slot] = -1;
+        this.forwardEnds[slot] = -1;
+        return false;
       }
 
-      this.forwardIndex = (this.forwardIndex + 1) % (this.forwardLines + 1);
+      pos -= this.fill();
+    }
+  }
 
-      return res;
+  /**
+   * Discards the chars that are not needed anymore and reads more chars into the window, growing
+   * it if a single line does not fit
+   *
+   * @return how many positions the window content was shifted to the left
+   */
+  private int fill() throws IOException {
+    int shift = this.retainFrom;
+
+    if (shift > 0) {
+      System.arraycopy(this.buffer, shift, this.buffer, 0, this.bufferLength - shift);
+      this.bufferLength -= shift;
+      this.scanPos -= shift;
+      this.retainFrom = 0;
+
+      if (this.lineStart >= 0) {
+        this.lineStart -= shift;
+        this.lineEnd -= shift;
+      }
+
+      for (int i = 0; i < this.forwardStarts.length; i++) {
+        if (this.forwardStarts[i] >= 0) {
+          this.forwardStarts[i] -= shift;
+          this.forwardEnds[i] -= shift;
+        }
+      }
     }
+
+    if (this.bufferLength == this.buffer.length) {
+      this.buffer = Arrays.copyOf(this.buffer, this.buffer.length * 2);
+    }
+
+    int read =
+        this.reader.read(this.buffer, this.bufferLength, this.buffer.length - this.bufferLength);
+    if (read < 0) {
+      this.endOfStream = true;
+    } else {
+      this.bufferLength += read;
+    }
+
+    return shift;
   }
 
   public String getRemainingText() {
     StringBuffer sb = new StringBuffer(100);
 
-    for (int i = 0; i < (this.remainingLines + 1); i++) {
-      sb.append(this.forwardStrings[(this.forwardIndex + i) % (this.forwardLines + 1)]
-          + StringHelper.NEW_LINE);
+    for (int i = 0; i < Math.min(this.remainingLines + 1, this.forwardLines + 1); i++) {
+      int slot = (this.forwardIndex + i) % (this.forwardLines + 1);
+      if (this.forwardStarts[slot] >= 0) {
+        sb.append(this.buffer, this.forwardStarts[slot],
+            this.forwardEnds[slot] - this.forwardStarts[slot]);
+        sb.append(StringHelper.NEW_LINE);
+      }
     }
 
     return sb.toString();
@@ -0,0 +1,386 @@
+/*
+ * MappedFileReader.java
+ *
+ * Copyright (C) 2007 Felipe Gonalves Coury <felipe.coury@gmail.com>
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation; either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program; if
+ * not, write to the Free Software Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA
+ * 02111-1307, USA.
+ */
+
+package org.coury.jfilehelpers.core;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.Reader;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+
+/**
+ * Reads a file by mapping it in memory and decoding the mapped bytes straight into the chars asked
+ * by the caller (the window of the {@link ForwardReader}). There is no read system call copying the
+ * file into a byte buffer and no intermediate char buffer as in a FileReader.
+ * <p>
+ * Only US-ASCII, ISO-8859-1 and UTF-8 are decoded here, see {@link #isSupported(Charset)}. Bytes
+ * that are not valid for the charset are read as U+FFFD, like a FileReader does. Big files are
+ * mapped one chunk at a time. Each chunk is unmapped as soon as it is read when the runtime allows
+ * it, otherwise the mappings are released by the garbage collector.
+ */
+public final class MappedFileReader extends Reader {
+
+  private static final int DEFAULT_CHUNK_SIZE = 64 * 1024 * 1024;
+
+  private static final char REPLACEMENT = '\uFFFD';
+
+  private static final int ASCII = 0;
+
+  private static final int LATIN1 = 1;
+
+  private static final int UTF8 = 2;
+
+  // releases a mapping right away, null when the runtime has no way to do it
+  private static final Unmapper UNMAPPER = Unmapper.find();
+
+  private final FileInputStream stream;
+
+  private final FileChannel channel;
+
+  // file position after the last byte read
+  private final long size;
+
+  private final int chunkSize;
+
+  private final int kind;
+
+  private MappedByteBuffer buffer = null;
+
+  // file position of the first byte of the mapped chunk
+  private long bufferStart = 0;
+
+  // file position of the next byte to decode
+  private long pos = 0;
+
+  // second half of a surrogate pair that did not fit on the last read
+  private char pendingLow = 0;
+
+  /**
+   * @param charset a charset
+   * @return true if files in this charset can be read by this class
+   */
+  public static boolean isSupported(final Charset charset) {
+    String name = charset.name();
+    return "US-ASCII".equals(name) || "ISO-8859-1".equals(name) || "UTF-8".equals(name);
+  }
+
+  public MappedFileReader(final File file, final Charset charset) throws IOException {
+    this(file, charset, MappedFileReader.DEFAULT_CHUNK_SIZE);
+  }
+
+  /**
+   * @param file file to read
+   * @param charset charset of the file, see {@link #isSupported(Charset)}
+   * @param chunkSize how many bytes are mapped at once
+   * @throws IOException
+   */
+  public MappedFileReader(final File file, final Charset charset, final int chunkSize)
+      throws IOException {
+    this(file, charset, 0, chunkSize);
+  }
+
+  /**
+   * @param file file to read
+   * @param charset charset of the file, see {@link #isSupported(Charset)}
+   * @param offset how many bytes to skip at the start of the file (like a byte order mark)
+   * @param chunkSize how many bytes are mapped at once
+   * @throws IOException
+   */
+  public MappedFileReader(final File file, final Charset charset, final long offset,
+      final int chunkSize) throws IOException {
+    this(file, charset, offset, Long.MAX_VALUE, chunkSize);
+  }
+
+  /**
+   * Reads a range of a file. The range should not cut a multi byte char in two.
+   *
+   * @param file file to read
+   * @param charset charset of the file, see {@link #isSupported(Charset)}
+   * @param offset position of the first byte to read
+   * @param end position after the last byte to read, past the end of the file reads to the end
+   * @param chunkSize how many bytes are mapped at once
+   * @throws IOException
+   */
+  public MappedFileReader(final File file, final Charset charset, final long offset,
+      final long end, final int chunkSize) throws IOException {
+    String name = charset.name();
+    if ("US-ASCII".equals(name)) {
+      this.kind = MappedFileReader.ASCII;
+    } else if ("ISO-8859-1".equals(name)) {
+      this.kind = MappedFileReader.LATIN1;
+    } else if ("UTF-8".equals(name)) {
+      this.kind = MappedFileReader.UTF8;
+    } else {
+      throw new IllegalArgumentException("The charset " + name + " can't be read mapped");
+    }
+    if (chunkSize < 4) {
+      throw new IllegalArgumentException("The chunk size must be at least 4 bytes");
+    }
+
+    this.stream = new FileInputStream(file);
+    this.channel = this.stream.getChannel();
+    this.size = Math.min(end, this.channel.size());
+    this.chunkSize = chunkSize;
+    this.pos = Math.min(offset, this.size);
+  }
+
+  @Override
+  public int read(final char[] cbuf, final int off, final int len) throws IOException {
+    if (len == 0) {
+      return 0;
+    }
+
+    int n = 0;
+    if (this.pendingLow != 0) {
+      cbuf[off] = this.pendingLow;
+      this.pendingLow = 0;
+      n = 1;
+    }
+
+    while ((n < len) && (this.pos < this.size)) {
+      if ((this.buffer == null) || (this.pos >= (this.bufferStart + this.buffer.limit()))) {
+        this.map();
+      }
+
+      if (this.kind == MappedFileReader.UTF8) {
+        n = this.decodeUtf8(cbuf, off, len, n);
+      } else {
+        n = this.decodeSingleByte(cbuf, off, len, n);
+      }
+    }
+
+    return n == 0 ? -1 : n;
+  }
+
+  private int decodeSingleByte(final char[] cbuf, final int off, final int len, final int n) {
+    MappedByteBuffer b = this.buffer;
+    int p = (int) (this.pos - this.bufferStart);
+    int count = Math.min(len - n, b.limit() - p);
+    int to = off + n + count;
+
+    if (this.kind == MappedFileReader.LATIN1) {
+      for (int i = off + n; i < to; i++) {
+        cbuf[i] = (char) (b.get(p++) & 0xff);
+      }
+    } else {
+      for (int i = off + n; i < to; i++) {
+        byte c = b.get(p++);
+        cbuf[i] = c >= 0 ? (char) c : MappedFileReader.REPLACEMENT;
+      }
+    }
+
+    this.pos += count;
+    return n + count;
+  }
+
+  private int decodeUtf8(final char[] cbuf, final int off, final int len, final int start) {
+    MappedByteBuffer b = this.buffer;
+    int p = (int) (this.pos - this.bufferStart);
+    int limit = b.limit();
+    boolean lastChunk = (this.bufferStart + limit) >= this.size;
+    int n = start;
+
+    while ((n < len) && (p < limit)) {
+      int c = b.get(p);
+      if (c >= 0) {
+        cbuf[off + n++] = (char) c;
+        p++;
+        continue;
+      }
+
+      int lead = c & 0xFF;
+      int need;
+      if ((lead >= 0xC2) && (lead <= 0xDF)) {
+        need = 1;
+      } else if ((lead & 0xF0) == 0xE0) {
+        need = 2;
+      } else if ((lead >= 0xF0) && (lead <= 0xF4)) {
+        need = 3;
+      } else {
+        cbuf[off + n++] = MappedFileReader.REPLACEMENT;
+        p++;
+        continue;
+      }
+
+      if (((p + need) >= limit) && !lastChunk) {
+        // the sequence goes on in the next chunk, map again from its first byte
+        break;
+      }
+
+      int bad = MappedFileReader.malformedLength(b, p, lead, need, Math.min(need, limit - p - 1));
+      if (bad > 0) {
+        cbuf[off + n++] = MappedFileReader.REPLACEMENT;
+        p += bad;
+        continue;
+      }
+
+      int cp = lead & (0x3F >> need);
+      for (int i = 1; i <= need; i++) {
+        cp = (cp << 6) | (b.get(p + i) & 0x3F);
+      }
+
+      p += need + 1;
+      if (cp < 0x10000) {
+        cbuf[off + n++] = (char) cp;
+      } else {
+        cbuf[off + n++] = Character.highSurrogate(cp);
+        if (n < len) {
+          cbuf[off + n++] = Character.lowSurrogate(cp);
+        } else {
+          this.pendingLow = Character.lowSurrogate(cp);
+        }
+      }
+    }
+
+    this.pos = this.bufferStart + p;
+    if ((n < len) && (p < limit)) {
+      // stopped on a sequence split between chunks
+      this.unmap();
+    }
+    return n;
+  }
+
+  /**
+   * Checks a multi byte sequence the way the JDK decoder does, so a file reads the same as through
+   * a FileReader
+   *
+   * @param avail how many of the continuation bytes are on the file
+   * @return 0 if the sequence is valid, otherwise how many bytes are replaced by one U+FFFD
+   */
+  private static int malformedLength(final MappedByteBuffer b, final int p, final int lead,
+      final int need, final int avail) {
+    if (avail == 0) {
+      return 1;
+    }
+
+    int b2 = b.get(p + 1) & 0xFF;
+    if ((b2 & 0xC0) != 0x80) {
+      return 1;
+    }
+    if (need == 1) {
+      return 0;
+    }
+    if (((lead == 0xE0) && (b2 < 0xA0)) || ((lead == 0xF0) && (b2 < 0x90))
+        || ((lead == 0xF4) && (b2 > 0x8F))) {
+      // overlong or out of the Unicode range
+      return 1;
+    }
+
+    if (avail == 1) {
+      return 2;
+    }
+    if ((b.get(p + 2) & 0xC0) != 0x80) {
+      return 2;
+    }
+    if (need == 2) {
+      // surrogates can't be encoded
+      return (lead == 0xED) && (b2 >= 0xA0) ? 3 : 0;
+    }
+
+    if ((avail == 2) || ((b.get(p + 3) & 0xC0) != 0x80)) {
+      return 3;
+    }
+    return 0;
+  }
+
+  private void map() throws IOException {
+    this.unmap();
+    long length = Math.min(this.chunkSize, this.size - this.pos);
+    this.buffer = this.channel.map(FileChannel.MapMode.READ_ONLY, this.pos, length);
+    this.bufferStart = this.pos;
+  }
+
+  @Override
+  public boolean ready() {
+    return (this.pos < this.size) || (this.pendingLow != 0);
+  }
+
+  private void unmap() {
+    MappedByteBuffer b = this.buffer;
+    this.buffer = null;
+    if ((b != null) && (MappedFileReader.UNMAPPER != null)) {
+      MappedFileReader.UNMAPPER.unmap(b);
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    this.unmap();
+    this.channel.close();
+    this.stream.close();
+  }
+
+  /**
+   * Unmaps buffers through the JDK internals: Unsafe.invokeCleaner since Java 9, the buffer cleaner
+   * before it
+   */
+  private static final class Unmapper {
+
+    private final Object target;
+
+    private final Method first;
+
+    private final Method second;
+
+    private Unmapper(final Object target, final Method first, final Method second) {
+      this.target = target;
+      this.first = first;
+      this.second = second;
+    }
+
+    static Unmapper find() {
+      try {
+        Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+        Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+        Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+        theUnsafe.setAccessible(true);
+        return new Unmapper(theUnsafe.get(null), invokeCleaner, null);
+      } catch (Exception e) {
+        // not on Java 9 or later
+      }
+      try {
+        Method cleaner = Class.forName("sun.nio.ch.DirectBuffer").getMethod("cleaner");
+        Method clean = Class.forName("sun.misc.Cleaner").getMethod("clean");
+        return new Unmapper(null, cleaner, clean);
+      } catch (Exception e) {
+        return null;
+      }
+    }
+
+    void unmap(final MappedByteBuffer buffer) {
+      try {
+        if (this.second == null) {
+          this.first.invoke(this.target, buffer);
+        } else {
+          Object cleaner = this.first.invoke(buffer);
+          if (cleaner != null) {
+            this.second.invoke(cleaner);
+          }
+        }
+      } catch (Exception e) {
+        // left to the garbage collector
+      }
+    }
+  }
+}
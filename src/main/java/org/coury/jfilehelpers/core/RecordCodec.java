@@ -0,0 +1,58 @@
+/*
+ * RecordCodec.java
+ *
+ * Copyright (C) 2007 Felipe Gonalves Coury <felipe.coury@gmail.com>
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation; either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program; if
+ * not, write to the Free Software Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA
+ * 02111-1307, USA.
+ */
+
+package org.coury.jfilehelpers.core;
+
+import java.io.IOException;
+
+import org.coury.jfilehelpers.engines.LineInfo;
+
+/**
+ * Moves the field values between a line and a record object. Implementations are generated for a
+ * specific record class, with one straight-line statement per field instead of the generic loop
+ * over the field descriptors done by {@link RecordInfo}.
+ *
+ * @author Felipe Gonalves Coury <felipe.coury@gmail.com>
+ * @param <T> Type of the record
+ */
+public interface RecordCodec<T> {
+
+  /**
+   * Creates a new, empty record object
+   *
+   * @return the record object
+   */
+  public T newRecord();
+
+  /**
+   * Extracts all the fields from the line and assigns them to the record
+   *
+   * @param line line being parsed
+   * @param record the record object to be filled
+   * @throws IOException
+   */
+  public void readFields(LineInfo line, T record) throws IOException;
+
+  /**
+   * Appends all the fields of the record to the buffer
+   *
+   * @param record the record object
+   * @param sb buffer receiving the record text
+   */
+  public void writeFields(T record, StringBuffer sb);
+}
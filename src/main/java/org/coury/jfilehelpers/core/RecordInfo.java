@@ -21,8 +21,6 @@ package org.coury.jfilehelpers.core;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
-import java.security.AccessController;
-import java.security.PrivilegedAction;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.regex.Pattern;
@@ -33,7 +31,11 @@ import org.coury.jfilehelpers.annotations.IgnoreEmptyLines;
 import org.coury.jfilehelpers.annotations.IgnoreFirst;
 import org.coury.jfilehelpers.annotations.IgnoreLast;
 import org.coury.jfilehelpers.engines.LineInfo;
+import org.coury.jfilehelpers.enums.FixedMode;
+import org.coury.jfilehelpers.enums.MultilineMode;
 import org.coury.jfilehelpers.enums.RecordCondition;
+import org.coury.jfilehelpers.enums.TrimMode;
+import org.coury.jfilehelpers.fields.DelimitedField;
 import org.coury.jfilehelpers.fields.FieldBase;
 import org.coury.jfilehelpers.fields.FieldFactory;
 import org.coury.jfilehelpers.fields.FixedLengthField;
@@ -51,6 +53,15 @@ import org.coury.jfilehelpers.interfaces.NotifyWrite;
  */
 public final class RecordInfo<T> {
 
+  private static final ClassValue<RecordInfo<?>> CACHE = new ClassValue<RecordInfo<?>>() {
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    @Override
+    protected RecordInfo<?> computeValue(final Class<?> type) {
+      return new RecordInfo(type);
+    }
+  };
+
   private FieldBase[] fields;
 
   private final Class<T> recordClass;
@@ -85,6 +96,27 @@ public final class RecordInfo<T> {
 
   private int fieldCount;
 
+  private RecordCodec<T> compiledCodec = null;
+
+  private boolean codecCompiled = false;
+
+  private RecordCodec<T> generatedCodec = null;
+
+  private boolean codecLookedUp = false;
+
+  /**
+   * Gets the record info of a record class. The annotations of each class are read only once, the
+   * instance is then shared by all engines (and dropped along with the class when its class loader
+   * is unloaded). The shared instance must not be changed.
+   * 
+   * @param recordClass the record class
+   * @return the record info for the class
+   */
+  @SuppressWarnings("unchecked")
+  public static <T> RecordInfo<T> forClass(final Class<T> recordClass) {
+    return (RecordInfo<T>) RecordInfo.CACHE.get(recordClass);
+  }
+
   public RecordInfo(final Class<T> recordClass) {
     // this.recordObject = recordObject;
     this.recordClass = recordClass;
@@ -98,26 +130,34 @@ public final class RecordInfo<T> {
    * @return parsed object
    */
   public T strToRecord(final LineInfo line) {
-    if (this.mustIgnoreLine(line.getLineStr())) {
+    return this.strToRecord(line, null);
+  }
+
+  /**
+   * Parses a text line into a record object
+   * 
+   * @param line current text line extracted from file
+   * @param codec compiled codec for the record class, or null to use the field descriptors
+   * @return parsed object
+   */
+  public T strToRecord(final LineInfo line, final RecordCodec<T> codec) {
+    // the line String is only created when some rule needs to look at it
+    if (this.hasLineRules() && this.mustIgnoreLine(line.getLineStr())) {
       return null;
     }
 
-    Object[] values = new Object[this.fieldCount];
-
-    // array that holds the fields values
     T record = null;
     try {
-      for (int i = 0; i < this.fieldCount; i++) {
-        values[i] = this.fields[i].extractValue(line);
+      if (codec != null) {
+        record = codec.newRecord();
+        codec.readFields(line, record);
+        return record;
       }
 
       record = this.createRecordObject();
       for (int i = 0; i < this.fieldCount; i++) {
-        // sets the field on the object
-        RecordInfo.setInternalField(this.fields[i].getFieldInfo().getName(), record, values[i]);
-        // Field f = record.getClass().getDeclaredField(fields[i].getFieldInfo().getName());
-        // f.set(record, values[i]);
-        // fields[i].getFieldInfo().set(record, values[i]);
+        // extracts the value and sets the field on the object
+        this.fields[i].extractInto(line, record);
       }
     } catch (Exception e) {
       e.printStackTrace();
@@ -150,92 +190,119 @@ public final class RecordInfo<T> {
     // }
   }
 
-  static Object getInternalField(final String fieldName, final Object target) {
-    Object value = AccessController.doPrivileged(new PrivilegedAction<Object>() {
-
-      @Override
-      public Object run() {
-        Object result = null;
-        java.lang.reflect.Field field = null;
-        Class<?> clazz = target.getClass();
-        while ((field == null) && (clazz != null)) {
-          try {
-            field = clazz.getDeclaredField(fieldName);
-          } catch (Exception e) {
-            //
-          } finally {
-            clazz = clazz.getSuperclass();
-          }
-        }
-        if (field != null) {
-          try {
-            field.setAccessible(true);
-            result = field.get(target);
-          } catch (Exception e) {
-            //
-          }
-        }
-        return result;
-      }
-    });
-    return value;
-  }
-
-  static void setInternalField(final String fieldName, final Object target, final Object value) {
-    AccessController.doPrivileged(new PrivilegedAction<Object>() {
-
-      @Override
-      public Object run() {
-        java.lang.reflect.Field field = null;
-        Class<?> clazz = target.getClass();
-        while ((field == null) && (clazz != null)) {
-          try {
-            field = clazz.getDeclaredField(fieldName);
-          } catch (Exception e) {
-            //
-          } finally {
-            clazz = clazz.getSuperclass();
-          }
-        }
-        if (field != null) {
-          try {
-            field.setAccessible(true);
-            field.set(target, value);
-          } catch (Exception e) {
-            //
-          }
-        }
-        return null;
-      }
-    });
+  /**
+   * Creates a string representation of the record object
+   * 
+   * @param record the record object
+   * @return string representation of the record object, respecting rules defined
+   * @throws IllegalArgumentException
+   * @throws IllegalAccessException
+   */
+  public String recordToStr(final T record)
+      throws IllegalArgumentException, IllegalAccessException {
+    return this.recordToStr(record, null);
   }
 
   /**
    * Creates a string representation of the record object
    * 
    * @param record the record object
+   * @param codec compiled codec for the record class, or null to use the field descriptors
    * @return string representation of the record object, respecting rules defined
    * @throws IllegalArgumentException
    * @throws IllegalAccessException
    */
-  public String recordToStr(final T record)
+  public String recordToStr(final T record, final RecordCodec<T> codec)
       throws IllegalArgumentException, IllegalAccessException {
     StringBuffer sb = new StringBuffer(this.sizeHint);
 
-    Object[] values = new Object[this.fieldCount];
-    for (int i = 0; i < this.fieldCount; i++) {
-      // values[i] = fields[i].getFieldInfo().get(record);
-      values[i] = RecordInfo.getInternalField(this.fields[i].getFieldInfo().getName(), record);
-
+    if (codec != null) {
+      codec.writeFields(record, sb);
+      return sb.toString();
     }
 
     for (int i = 0; i < this.fieldCount; i++) {
-      this.fields[i].assignToString(sb, values[i]);
+      this.fields[i].assignToString(sb, this.fields[i].getValue(record));
     }
 
     return sb.toString();
   }
 
+  /**
+   * Gets a codec for the record class: the one generated at build time if there is one, otherwise
+   * a codec compiled on the first call and shared by every engine that asks for it afterwards.
+   * 
+   * @return the codec or null if it could not be generated (e.g. running without a Java compiler)
+   */
+  public synchronized RecordCodec<T> getCompiledCodec() {
+    if (this.getGeneratedCodec() != null) {
+      return this.generatedCodec;
+    }
+    if (!this.codecCompiled) {
+      this.compiledCodec = CodecCompiler.compile(this.recordClass, this.fields);
+      this.codecCompiled = true;
+    }
+    return this.compiledCodec;
+  }
+
+  /**
+   * Gets the codec generated at build time by the annotation processor. The codec is only used if
+   * it handles the same fields of the record class, a codec left from an older version of the
+   * class is ignored.
+   * 
+   * @return the generated codec or null if there isn't one
+   */
+  @SuppressWarnings("unchecked")
+  public synchronized RecordCodec<T> getGeneratedCodec() {
+    if (!this.codecLookedUp) {
+      this.codecLookedUp = true;
+
+      try {
+        Class<?> codecClass = Class.forName(CodecSource.codecClassName(this.recordClass.getName()),
+            true, this.recordClass.getClassLoader());
+
+        String[] names = (String[]) codecClass.getField(CodecSource.FIELD_NAMES).get(null);
+        String[] types = (String[]) codecClass.getField(CodecSource.FIELD_TYPES).get(null);
+        String[] descriptors =
+            (String[]) codecClass.getField(CodecSource.FIELD_DESCRIPTORS).get(null);
+        if (RecordCodec.class.isAssignableFrom(codecClass)
+            && this.hasFields(names, types, descriptors)) {
+          this.generatedCodec = (RecordCodec<T>) codecClass.getConstructor(FieldBase[].class)
+              .newInstance((Object) this.fields);
+        }
+      } catch (ClassNotFoundException e) {
+        // no codec was generated for this class
+      } catch (Exception e) {
+        // the codec doesn't match this version of the library, use the field descriptors
+      } catch (LinkageError e) {
+        // same as above
+      }
+    }
+    return this.generatedCodec;
+  }
+
+  /**
+   * Checks that a generated codec was built for the current fields of the record class: the same
+   * names, types and descriptors. A codec compiled against an older version of the class would
+   * otherwise fail with a {@link LinkageError} while reading.
+   */
+  private boolean hasFields(final String[] names, final String[] types,
+      final String[] descriptors) {
+    if ((names.length != this.fieldCount) || (types.length != this.fieldCount)
+        || (descriptors.length != this.fieldCount)) {
+      return false;
+    }
+    for (int i = 0; i < this.fieldCount; i++) {
+      Field fi = this.fields[i].getFieldInfo();
+      if (!fi.getName().equals(names[i])
+          || !String.valueOf(types[i]).equals(fi.getType().getCanonicalName())
+          || !this.fields[i].getClass().getName().equals(descriptors[i])) {
+        return false;
+      }
+    }
+    return true;
+  }
+
   /**
    * Instantiates a new object of the record class type
    * 
@@ -255,6 +322,17 @@ public final class RecordInfo<T> {
     }
   }
 
+  /**
+   * Indicates if any of the ignore rules (empty lines, comments or record conditions) is active
+   *
+   * @return true if lines need to be checked by {@link #mustIgnoreLine(String)}
+   */
+  private boolean hasLineRules() {
+    return this.ignoreEmptyLines
+        || ((this.commentMarker != null) && (this.commentMarker.length() > 0))
+        || (this.recordCondition != RecordCondition.None);
+  }
+
   /**
    * Verifies if current line should be ignored
    * 
@@ -394,6 +472,84 @@ public final class RecordInfo<T> {
     }
   }
 
+  /**
+   * Creates a separator index for the lines of this record, see {@link StructuralIndex}. Each
+   * reader needs its own index. The quotes are indexed too when all the fields are quoted with the
+   * same char and separator and none of them trims the start, so every field looks for its quote
+   * right after the separator, where the index does.
+   * 
+   * @return a new index, or null if the record is not delimited
+   */
+  public StructuralIndex newStructuralIndex() {
+    if (!(this.fields[0] instanceof DelimitedField)) {
+      return null;
+    }
+
+    DelimitedField first = (DelimitedField) this.fields[0];
+    char quoteChar = first.getQuoteChar();
+    for (FieldBase field : this.fields) {
+      if (!(field instanceof DelimitedField)) {
+        quoteChar = '\0';
+        continue;
+      }
+      DelimitedField df = (DelimitedField) field;
+      if ((df.getQuoteChar() != quoteChar) || !df.getSeparator().equals(first.getSeparator())
+          || (df.getTrimMode() == TrimMode.Both) || (df.getTrimMode() == TrimMode.Left)) {
+        quoteChar = '\0';
+      }
+    }
+    return new StructuralIndex(first.getSeparatorSearch(), quoteChar);
+  }
+
+  /**
+   * Indicates if a record takes more than one line, having a field in a new line
+   * 
+   * @return true if a record takes more than one line
+   */
+  public boolean isMultiline() {
+    for (FieldBase field : this.fields) {
+      if (field.isInNewLine()) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Indicates if a quoted field can have line breaks, going on in the next lines
+   * 
+   * @return true if a quoted value can take more than one line
+   */
+  public boolean hasMultilineQuotes() {
+    for (FieldBase field : this.fields) {
+      if (field instanceof DelimitedField) {
+        DelimitedField df = (DelimitedField) field;
+        if ((df.getQuoteChar() != '\0') && ((df.getQuoteMultiline() == MultilineMode.AllowForBoth)
+            || (df.getQuoteMultiline() == MultilineMode.AllowForRead))) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  /**
+   * @return the chars of a fixed length record when all the records must have exactly this length,
+   *         -1 otherwise
+   */
+  public int getRecordLength() {
+    if (!this.isFixedLength()) {
+      return -1;
+    }
+    for (FieldBase field : this.fields) {
+      if ((((FixedLengthField) field).getFixedMode() != FixedMode.ExactLength)
+          || field.isInNewLine() || field.isOptional()) {
+        return -1;
+      }
+    }
+    return this.sizeHint;
+  }
+
   /**
    * Indicates if this record is of fixed length
    * 
@@ -0,0 +1,289 @@
+/*
+ * StructuralIndex.java
+ *
+ * Copyright (C) 2007 Felipe Gonalves Coury <felipe.coury@gmail.com>
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation; either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program; if
+ * not, write to the Free Software Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA
+ * 02111-1307, USA.
+ */
+
+package org.coury.jfilehelpers.core;
+
+import java.util.Arrays;
+
+import org.coury.jfilehelpers.helpers.CharSearch;
+
+/**
+ * Positions of every separator of a line, found in one pass over its chars. The delimited fields
+ * then take their ends from the index instead of searching the rest of the line field by field,
+ * which keeps the scan in a single tight loop on wide rows.
+ * <p>
+ * With a quote char, the same pass records the positions of the quotes, so the quoted fields take
+ * their closing quote from the index too, and the separators inside a quoted value are left out. A
+ * value is taken as quoted only when the quote is the first char of the field, right after a
+ * separator (or at the start of the line), which is where the fields look for it when they don't
+ * trim the start; the index is given a quote char only for records read that way (see
+ * {@link RecordInfo#newStructuralIndex()}). A line that goes on with a quoted value of the line
+ * before starts inside it.
+ * <p>
+ * The index is built the first time it is asked after {@link #reset()}, so lines that are ignored
+ * are never scanned. Overlapping matches of multi-char separators are all kept, so the next
+ * position from any offset is the same one a search from that offset would find.
+ */
+public final class StructuralIndex {
+
+  private final CharSearch separator;
+
+  private final char quoteChar;
+
+  private int[] positions = new int[64];
+
+  private int count = 0;
+
+  private int cursor = 0;
+
+  private int[] quotes = new int[16];
+
+  private int quoteCount = 0;
+
+  private int quoteCursor = 0;
+
+  private boolean built = false;
+
+  /**
+   * @param separator the separator to index
+   */
+  public StructuralIndex(final CharSearch separator) {
+    this(separator, '\0');
+  }
+
+  /**
+   * @param separator the separator to index
+   * @param quoteChar the char quoting the values, or '\0' to index only the separators
+   */
+  public StructuralIndex(final CharSearch separator, final char quoteChar) {
+    this.separator = separator;
+    this.quoteChar = quoteChar;
+  }
+
+  /**
+   * Drops the positions of the previous line
+   */
+  public void reset() {
+    this.built = false;
+  }
+
+  /**
+   * Scans the line and records the positions of its separators
+   *
+   * @param chars buffer holding the line
+   * @param from start of the line (inclusive)
+   * @param to end of the line (exclusive)
+   */
+  public void build(final char[] chars, final int from, final int to) {
+    this.build(chars, from, to, false);
+  }
+
+  /**
+   * Scans the line and records the positions of its separators and quotes
+   *
+   * @param chars buffer holding the line
+   * @param from start of the line (inclusive)
+   * @param to end of the line (exclusive)
+   * @param inQuotes true if the line starts inside a quoted value of the line before
+   */
+  public void build(final char[] chars, final int from, final int to, final boolean inQuotes) {
+    if (this.quoteChar == '\0') {
+      this.buildSeparators(chars, from, to);
+    } else {
+      this.buildQuoted(chars, from, to, inQuotes);
+    }
+    this.cursor = 0;
+    this.quoteCursor = 0;
+    this.built = true;
+  }
+
+  private void buildSeparators(final char[] chars, final int from, final int to) {
+    int n = 0;
+    int[] pos = this.positions;
+
+    int i = this.separator.indexOf(chars, from, to);
+    while (i >= 0) {
+      if (n == pos.length) {
+        pos = Arrays.copyOf(pos, n * 2);
+      }
+      pos[n++] = i;
+      i = this.separator.indexOf(chars, i + 1, to);
+    }
+
+    this.positions = pos;
+    this.count = n;
+    this.quoteCount = 0;
+  }
+
+  /**
+   * Walks the separators and the quotes of the line in order, keeping the separators outside the
+   * quoted values
+   */
+  private void buildQuoted(final char[] chars, final int from, final int to,
+      final boolean inQuotes) {
+    char quote = this.quoteChar;
+    int n = 0;
+    int[] pos = this.positions;
+    int nq = 0;
+    int[] qpos = this.quotes;
+
+    boolean quoted = inQuotes;
+    // where the next field starts, or -1 when it is not known (overlapping separators)
+    int fieldStart = inQuotes ? -1 : from;
+    int s = this.separator.indexOf(chars, from, to);
+    int q = StructuralIndex.indexOf(chars, quote, from, to);
+
+    while ((q >= 0) || (s >= 0)) {
+      if (quoted && (s >= 0) && ((q < 0) || (s < q))) {
+        // the separators before the closing quote are part of the value
+        s = q < 0 ? -1 : this.separator.indexOf(chars, q, to);
+      } else if ((q >= 0) && ((s < 0) || (q < s))) {
+        if (nq == qpos.length) {
+          qpos = Arrays.copyOf(qpos, nq * 2);
+        }
+        qpos[nq++] = q;
+        int nextFrom = q + 1;
+        if (quoted) {
+          if ((nextFrom < to) && (chars[nextFrom] == quote)) {
+            // an escaped quote, still inside the value
+            if (nq == qpos.length) {
+              qpos = Arrays.copyOf(qpos, nq * 2);
+            }
+            qpos[nq++] = nextFrom++;
+          } else {
+            quoted = false;
+          }
+        } else if (q == fieldStart) {
+          quoted = true;
+        }
+        q = StructuralIndex.indexOf(chars, quote, nextFrom, to);
+      } else {
+        if (n == pos.length) {
+          pos = Arrays.copyOf(pos, n * 2);
+        }
+        pos[n++] = s;
+        fieldStart = (n > 1) && (s < (pos[n - 2] + this.separator.length())) ? -1
+            : s + this.separator.length();
+        s = this.separator.indexOf(chars, s + 1, to);
+      }
+    }
+
+    this.positions = pos;
+    this.count = n;
+    this.quotes = qpos;
+    this.quoteCount = nq;
+  }
+
+  private static int indexOf(final char[] chars, final char c, final int from, final int to) {
+    for (int i = from; i < to; i++) {
+      if (chars[i] == c) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * @return true if the positions of the current line were already recorded
+   */
+  public boolean isBuilt() {
+    return this.built;
+  }
+
+  /**
+   * Finds the first separator at or after a position. The fields are read from left to right, so
+   * the lookup just moves a cursor forward; going back does a binary search.
+   *
+   * @param from position to search from
+   * @return the position of the separator, or -1 if there is none
+   */
+  public int next(final int from) {
+    int c = StructuralIndex.seek(this.positions, this.count, this.cursor, from);
+    this.cursor = c;
+    return c < this.count ? this.positions[c] : -1;
+  }
+
+  /**
+   * Finds the first quote at or after a position, like {@link #next(int)}
+   *
+   * @param from position to search from
+   * @return the position of the quote, or -1 if there is none
+   */
+  public int nextQuote(final int from) {
+    int c = StructuralIndex.seek(this.quotes, this.quoteCount, this.quoteCursor, from);
+    this.quoteCursor = c;
+    return c < this.quoteCount ? this.quotes[c] : -1;
+  }
+
+  /**
+   * @return the index of the first position at or after <code>from</code>, moving the cursor
+   */
+  private static int seek(final int[] positions, final int count, final int cursor,
+      final int from) {
+    int c = cursor;
+    if ((c > 0) && (positions[c - 1] >= from)) {
+      c = Arrays.binarySearch(positions, 0, count, from);
+      if (c < 0) {
+        c = -c - 1;
+      }
+    }
+    while ((c < count) && (positions[c] < from)) {
+      c++;
+    }
+    return c;
+  }
+
+  /**
+   * @return the number of separators on the line
+   */
+  public int getCount() {
+    return this.count;
+  }
+
+  /**
+   * @param n index of the separator, from 0 to {@link #getCount()} - 1
+   * @return the position of the separator on the line buffer
+   */
+  public int getPosition(final int n) {
+    if ((n < 0) || (n >= this.count)) {
+      throw new IndexOutOfBoundsException("Separator " + n + " of " + this.count);
+    }
+    return this.positions[n];
+  }
+
+  /**
+   * @return the number of quotes on the line, 0 without a quote char
+   */
+  public int getQuoteCount() {
+    return this.quoteCount;
+  }
+
+  /**
+   * @return the separator indexed
+   */
+  public CharSearch getSeparator() {
+    return this.separator;
+  }
+
+  /**
+   * @return the quote char indexed, or '\0' if only the separators are indexed
+   */
+  public char getQuoteChar() {
+    return this.quoteChar;
+  }
+}
@@ -0,0 +1,479 @@
+/*
+ * ChunkedFileReader.java
+ *
+ * Copyright (C) 2007 Felipe Gonalves Coury <felipe.coury@gmail.com>
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation; either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program; if
+ * not, write to the Free Software Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA
+ * 02111-1307, USA.
+ */
+
+package org.coury.jfilehelpers.engines;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import org.coury.jfilehelpers.events.RecordsReadHandler;
+
+import org.coury.jfilehelpers.core.ForwardReader;
+import org.coury.jfilehelpers.core.MappedFileReader;
+
+/**
+ * Reads a file on many threads. The lines between the header and the footer are cut in chunks of
+ * whole lines (each chunk ends right after a \n) and every chunk is parsed on a fork/join worker,
+ * with its own reader and {@link LineInfo}. The records of the chunks are then put together in file
+ * order, or handed to a {@link RecordsReadHandler} as the chunks are parsed.
+ * <p>
+ * The chunks are cut on the bytes of the file, so only charsets where a \n or \r byte is always a
+ * line break can be read here (see {@link MappedFileReader#isSupported(Charset)}), and a record
+ * must not have fields in a new line. A quoted value with line breaks is read inside its chunk; if
+ * it goes on past the end of the chunk, the next chunks started inside the value and the records
+ * of the chunks are discarded. When the quoted values can have line breaks, the handler gets the
+ * records of a chunk only once every chunk before it ended outside a quoted value, so it never sees
+ * the records of a chunk that did not start on a record.
+ * <p>
+ * Fixed length records of exact length in US-ASCII or ISO-8859-1 take the same bytes each, so the
+ * chunks are cut on whole records by arithmetic, without looking for the line breaks. The size of
+ * the file is checked against the record length before reading, and the line break after each
+ * record while reading it.
+ *
+ * @param <T> the record type
+ */
+final class ChunkedFileReader<T> {
+
+  private static final int MIN_CHUNK_SIZE = 1024 * 1024;
+
+  private static final int MAX_CHUNK_SIZE = 64 * 1024 * 1024;
+
+  // chunks per thread, so a slow chunk does not keep the other threads waiting
+  private static final int CHUNKS_PER_THREAD = 4;
+
+  private final FileHelperEngine<T> engine;
+
+  private final RecordsReadHandler<T> handler;
+
+  private FileLayout layout;
+
+  // chunks being parsed, and the next one to hand out when they are handed out in file order
+  private List<Chunk> chunks;
+
+  private boolean inOrder;
+
+  private int next;
+
+  // true once a chunk failed or ended inside a quoted value, the chunks after it are not handed out
+  private boolean stopped;
+
+  private int delivered;
+
+  /**
+   * @param engine engine with the record and the read events
+   * @param handler gets the records of each chunk once it is parsed, or null to put them together
+   */
+  ChunkedFileReader(final FileHelperEngine<T> engine, final RecordsReadHandler<T> handler) {
+    this.engine = engine;
+    this.handler = handler;
+  }
+
+  /**
+   * Reads a file in parallel
+   *
+   * @param file file to read
+   * @param charset charset of the file, see {@link MappedFileReader#isSupported(Charset)}
+   * @param offset position of the first line (after a byte order mark)
+   * @param pool pool running the chunks
+   * @return the records read (none when they are handed to the handler), or null if a quoted value
+   *         goes on past the end of a chunk and the file has to be read on one thread
+   * @throws IOException
+   */
+  List<T> read(final File file, final Charset charset, final long offset,
+      final ForkJoinPool pool) throws IOException {
+    RandomAccessFile raf = new RandomAccessFile(file, "r");
+    try {
+      this.layout = new FileLayout(file, charset, offset, raf.getChannel(), this.engine.recordInfo);
+      this.engine.setHeaderText(this.layout.getHeaderText());
+      this.engine.setFooterText(this.layout.getFooterText());
+
+      int recordLength = this.engine.recordInfo.getRecordLength();
+      String name = charset.name();
+      if ((recordLength > 0) && ("US-ASCII".equals(name) || "ISO-8859-1".equals(name))) {
+        return this.readFixed(recordLength, pool);
+      }
+      this.inOrder = this.engine.recordInfo.hasMultilineQuotes();
+      return this.read(pool);
+    } finally {
+      raf.close();
+    }
+  }
+
+  /**
+   * @return how many records were handed to the handler, the first ones of the file when a quoted
+   *         value went on past the end of a chunk
+   */
+  int getDelivered() {
+    return this.delivered;
+  }
+
+  private List<T> read(final ForkJoinPool pool) throws IOException {
+    List<Chunk> chunks = this.split(pool.getParallelism());
+
+    if (this.engine.hasReadHandlers()) {
+      // the events see the line numbers while parsing, count the lines of each chunk first
+      for (Chunk chunk : chunks) {
+        chunk.counting = true;
+      }
+      this.invoke(pool, chunks);
+      this.numberLines(chunks);
+    }
+
+    for (Chunk chunk : chunks) {
+      chunk.reinitialize();
+      chunk.counting = false;
+    }
+    this.chunks = chunks;
+    this.invoke(pool, chunks);
+    this.numberLines(chunks);
+
+    return this.collect(chunks);
+  }
+
+  /**
+   * Reads fixed length records, cutting the chunks on whole records
+   */
+  private List<T> readFixed(final int recordLength, final ForkJoinPool pool)
+      throws IOException {
+    long count = this.layout.countRecords(recordLength);
+    int stride = this.layout.getStride();
+    long bodyStart = this.layout.getBodyStart();
+
+    long perChunk = Math.max(1, this.chunkSize(pool.getParallelism()) / stride);
+    List<Chunk> chunks = new ArrayList<Chunk>();
+    for (long first = 0; first < count; first += perChunk) {
+      Chunk chunk = new Chunk(bodyStart + (first * stride),
+          Math.min(this.layout.getBodyEnd(), bodyStart + ((first + perChunk) * stride)));
+      chunk.fixed = true;
+      chunk.firstLine = this.layout.getFirstLine() + (int) first;
+      chunks.add(chunk);
+    }
+
+    this.chunks = chunks;
+    this.invoke(pool, chunks);
+    return this.collect(chunks);
+  }
+
+  /**
+   * @return the records of the chunks, or the first error in file order, or null if a chunk ends
+   *         inside a quoted value
+   */
+  private List<T> collect(final List<Chunk> chunks) {
+    int lines = 0;
+    for (int i = 0; i < chunks.size(); i++) {
+      Chunk chunk = chunks.get(i);
+      if (chunk.openQuote && (i < (chunks.size() - 1))) {
+        // the chunks after this one did not start on a record
+        return null;
+      }
+      if (chunk.error != null) {
+        throw new RuntimeException("Problems while reading the record at line "
+            + (chunk.firstLine + chunk.errorLine), chunk.error);
+      }
+      lines += chunk.lines;
+    }
+    this.engine.totalRecords = lines;
+    this.engine.lineNumber = this.layout.getFirstLine() + lines;
+
+    if (this.handler != null) {
+      return new ArrayList<T>();
+    }
+    List<T> records = new ArrayList<T>();
+    for (Chunk chunk : chunks) {
+      records.addAll(chunk.records);
+    }
+    return records;
+  }
+
+  /**
+   * Hands the records of a parsed chunk to the handler. Without quoted values with line breaks, a
+   * chunk is handed out as soon as it is parsed; with them, the chunks are handed out in file
+   * order, each one once the chunk before it ended outside a quoted value. The handler is called
+   * by one thread at a time.
+   */
+  private synchronized void release(final Chunk chunk) {
+    chunk.parsed = true;
+    if (!this.inOrder) {
+      if (chunk.error == null) {
+        this.deliver(chunk);
+      }
+      return;
+    }
+
+    while (!this.stopped && (this.next < this.chunks.size())
+        && this.chunks.get(this.next).parsed) {
+      Chunk first = this.chunks.get(this.next++);
+      if (first.openQuote && (this.next < this.chunks.size())) {
+        // the records before the open value are read the same way on one thread
+        this.deliver(first);
+        this.stopped = true;
+      } else if (first.error != null) {
+        this.stopped = true;
+      } else {
+        this.deliver(first);
+      }
+    }
+  }
+
+  private void deliver(final Chunk chunk) {
+    if (!chunk.records.isEmpty()) {
+      this.handler.handleRecordsRead(this.engine, chunk.records);
+      this.delivered += chunk.records.size();
+    }
+  }
+
+  /**
+   * Cuts the lines between the header and the footer in chunks ending after a \n
+   */
+  private List<Chunk> split(final int threads) throws IOException {
+    long chunkSize = this.chunkSize(threads);
+
+    long bodyEnd = this.layout.getBodyEnd();
+    List<Chunk> chunks = new ArrayList<Chunk>();
+    long start = this.layout.getBodyStart();
+    while (start < bodyEnd) {
+      long end = bodyEnd;
+      if ((start + chunkSize) < bodyEnd) {
+        long pos = this.layout.indexOf((byte) '\n', (start + chunkSize) - 1, bodyEnd);
+        if (pos >= 0) {
+          end = pos + 1;
+        }
+      }
+      chunks.add(new Chunk(start, end));
+      start = end;
+    }
+    return chunks;
+  }
+
+  /**
+   * @return how many bytes go on each chunk
+   */
+  private long chunkSize(final int threads) {
+    long chunkSize = (this.layout.getBodyEnd() - this.layout.getBodyStart())
+        / (threads * ChunkedFileReader.CHUNKS_PER_THREAD);
+    return Math.max(ChunkedFileReader.MIN_CHUNK_SIZE,
+        Math.min(ChunkedFileReader.MAX_CHUNK_SIZE, chunkSize));
+  }
+
+  /**
+   * Runs the chunks on the pool. The I/O errors are kept by the chunks and thrown here, the first
+   * one in file order, as the pool would wrap them.
+   */
+  private void invoke(final ForkJoinPool pool, final List<Chunk> chunks) throws IOException {
+    pool.invoke(new RecursiveAction() {
+
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      protected void compute() {
+        RecursiveAction.invokeAll(chunks);
+      }
+    });
+
+    for (Chunk chunk : chunks) {
+      if (chunk.ioError != null) {
+        throw chunk.ioError;
+      }
+    }
+  }
+
+  /**
+   * Sets the number of the first line of each chunk from the lines of the chunks before it
+   */
+  private void numberLines(final List<Chunk> chunks) {
+    int line = this.layout.getFirstLine();
+    for (Chunk chunk : chunks) {
+      chunk.firstLine = line;
+      line += chunk.lines;
+    }
+  }
+
+  /**
+   * A range of whole lines of the file, counted or parsed by a worker
+   */
+  private final class Chunk extends RecursiveAction {
+
+    private static final long serialVersionUID = 1L;
+
+    private final long start;
+
+    private final long end;
+
+    // true to only count the lines
+    private boolean counting;
+
+    // true to read fixed length records, false to read lines
+    private boolean fixed;
+
+    private int firstLine;
+
+    private int lines;
+
+    private List<T> records;
+
+    private RuntimeException error;
+
+    private IOException ioError;
+
+    // line of the error, from the first line of the chunk
+    private int errorLine;
+
+    // true if the last record ran out of lines inside a quoted value
+    private boolean openQuote;
+
+    // true once the records are ready to be handed out
+    private boolean parsed;
+
+    Chunk(final long start, final long end) {
+      this.start = start;
+      this.end = end;
+    }
+
+    @Override
+    protected void compute() {
+      try {
+        if (this.counting) {
+          this.count();
+        } else {
+          if (this.fixed) {
+            this.parseFixed();
+          } else {
+            this.parse();
+          }
+          if (ChunkedFileReader.this.handler != null) {
+            ChunkedFileReader.this.release(this);
+          }
+        }
+      } catch (IOException e) {
+        this.ioError = e;
+      }
+    }
+
+    /**
+     * Counts the line breaks the way the {@link ForwardReader} does: \n, \r or \r\n
+     */
+    private void count() throws IOException {
+      ByteBuffer block = ByteBuffer.allocate(FileLayout.BLOCK_SIZE);
+      int n = 0;
+      boolean afterCr = false;
+      byte b = '\n';
+      for (long pos = this.start; pos < this.end; pos += block.limit()) {
+        ChunkedFileReader.this.layout.readBlock(block, pos, this.end);
+        for (int i = 0; i < block.limit(); i++) {
+          b = block.get(i);
+          if (b == '\n') {
+            if (!afterCr) {
+              n++;
+            }
+          } else if (b == '\r') {
+            n++;
+          }
+          afterCr = b == '\r';
+        }
+      }
+      if ((b != '\n') && (b != '\r')) {
+        // last line without a line break
+        n++;
+      }
+      this.lines = n;
+    }
+
+    private void parse() throws IOException {
+      FileHelperEngine<T> engine = ChunkedFileReader.this.engine;
+      List<T> list = new ArrayList<T>();
+
+      FileLayout layout = ChunkedFileReader.this.layout;
+      ForwardReader reader = new ForwardReader(new MappedFileReader(layout.getFile(),
+          layout.getCharset(), this.start, this.end, ChunkedFileReader.MAX_CHUNK_SIZE));
+      try {
+        LineInfo line = new LineInfo(null);
+        line.setReader(reader);
+        if (engine.structuralIndex) {
+          line.setIndex(engine.recordInfo.newStructuralIndex());
+        }
+
+        int n = 0;
+        while (reader.readNextLine(line)) {
+          if (this.error == null) {
+            try {
+              T record = engine.readRecord(line, this.firstLine + n);
+              if (record != null) {
+                list.add(record);
+              }
+            } catch (RuntimeException e) {
+              // the lines after it are still counted, so the line of the error can be told
+              this.error = e;
+              this.errorLine = n;
+              this.openQuote = !line.isLineLoaded();
+            }
+          }
+          n++;
+        }
+        this.lines = n;
+      } finally {
+        reader.close();
+      }
+
+      this.records = list;
+    }
+
+    /**
+     * Reads fixed length records, decoded by the layout straight from the bytes
+     */
+    private void parseFixed() throws IOException {
+      FileHelperEngine<T> engine = ChunkedFileReader.this.engine;
+      FileLayout layout = ChunkedFileReader.this.layout;
+      int stride = layout.getStride();
+      List<T> list = new ArrayList<T>();
+
+      ByteBuffer block = layout.allocateRecords(Long.MAX_VALUE);
+      char[] chars = new char[layout.getRecordLength()];
+      LineInfo line = new LineInfo(null);
+
+      int n = 0;
+      for (long pos = this.start; pos < this.end; pos += block.limit()) {
+        layout.readBlock(block, pos, this.end);
+        for (int p = 0; p < block.limit(); p += stride) {
+          if (this.error == null) {
+            try {
+              layout.decodeRecord(block, p, chars, line);
+
+              T record = engine.readRecord(line, this.firstLine + n);
+              if (record != null) {
+                list.add(record);
+              }
+            } catch (RuntimeException e) {
+              this.error = e;
+              this.errorLine = n;
+            }
+          }
+          n++;
+        }
+      }
+      this.lines = n;
+      this.records = list;
+    }
+  }
+}
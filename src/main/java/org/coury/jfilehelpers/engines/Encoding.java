@@ -18,6 +18,650 @@
 
 package org.coury.jfilehelpers.engines;
 
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import org.coury.jfilehelpers.core.MappedFileReader;
+
+/**
+ * The charset used by an engine to read and write files. Readers decode with a decoder and a large
+ * byte buffer taken from pools, and writers encode with an encoder and a buffer from the same
+ * pools, so opening many files does not allocate them again; US-ASCII and ISO-8859-1 skip the
+ * decoder (or encoder) and just widen (or narrow) the bytes. In UTF-8 and UTF-16 a byte
+ * order mark at the start of the input is skipped, unless disabled; in UTF-16 it also tells the
+ * byte order. Other charsets never look for a mark, so their first bytes are always read as text.
+ * <p>
+ * Invalid input is read as U+FFFD and chars that can't be written become '?', like the JDK readers
+ * and writers do. Instances are immutable and can be shared by engines and threads.
+ */
 public class Encoding {
-  // Dummy class
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private static final int POOL_SIZE = 16;
+
+  private static final int ASCII = 0;
+
+  private static final int LATIN1 = 1;
+
+  private static final int OTHER = 2;
+
+  // byte order marks looked for
+  private static final int NO_BOM = 0;
+
+  private static final int UTF8_BOM = 1;
+
+  private static final int UTF16_BOM = 2;
+
+  // byte buffers of the readers and writers closed, ready to be reused
+  private static final ConcurrentLinkedQueue<byte[]> BUFFERS = new ConcurrentLinkedQueue<byte[]>();
+
+  public static final Encoding DEFAULT = new Encoding(Charset.defaultCharset());
+
+  public static final Encoding ASCII_ENCODING = new Encoding(Charset.forName("US-ASCII"));
+
+  public static final Encoding LATIN1_ENCODING = new Encoding(Charset.forName("ISO-8859-1"));
+
+  public static final Encoding UTF8 = new Encoding(Charset.forName("UTF-8"));
+
+  public static final Encoding UTF16BE = new Encoding(Charset.forName("UTF-16BE"));
+
+  public static final Encoding UTF16LE = new Encoding(Charset.forName("UTF-16LE"));
+
+  private final Charset charset;
+
+  private final boolean detectBom;
+
+  private final int kind;
+
+  private final int bomKind;
+
+  // decoders of the readers closed, ready to be reused
+  private final ConcurrentLinkedQueue<CharsetDecoder> decoders =
+      new ConcurrentLinkedQueue<CharsetDecoder>();
+
+  // encoders of the writers closed, ready to be reused
+  private final ConcurrentLinkedQueue<CharsetEncoder> encoders =
+      new ConcurrentLinkedQueue<CharsetEncoder>();
+
+  public Encoding(final String charsetName) {
+    this(Charset.forName(charsetName));
+  }
+
+  public Encoding(final Charset charset) {
+    this(charset, true);
+  }
+
+  /**
+   * @param charset the charset
+   * @param detectBom true to look for a byte order mark at the start of the input, only done for
+   *        UTF-8 and UTF-16
+   */
+  public Encoding(final Charset charset, final boolean detectBom) {
+    this.charset = charset;
+    this.detectBom = detectBom;
+
+    String name = charset.name();
+    if ("US-ASCII".equals(name)) {
+      this.kind = Encoding.ASCII;
+    } else if ("ISO-8859-1".equals(name)) {
+      this.kind = Encoding.LATIN1;
+    } else {
+      this.kind = Encoding.OTHER;
+    }
+
+    if (!detectBom) {
+      this.bomKind = Encoding.NO_BOM;
+    } else if ("UTF-8".equals(name)) {
+      this.bomKind = Encoding.UTF8_BOM;
+    } else if (name.startsWith("UTF-16")) {
+      this.bomKind = Encoding.UTF16_BOM;
+    } else {
+      this.bomKind = Encoding.NO_BOM;
+    }
+  }
+
+  /**
+   * Creates a reader over a stream. The stream is closed along with the reader.
+   *
+   * @param in the bytes to read
+   * @return the reader
+   * @throws IOException
+   */
+  public Reader newReader(final InputStream in) throws IOException {
+    byte[] bytes = Encoding.takeBuffer();
+    int end = 0;
+
+    Encoding target = this;
+    int start = 0;
+    if (this.bomKind != Encoding.NO_BOM) {
+      // reads what is needed to see the longest mark
+      int n = 0;
+      while ((end < 3) && (n >= 0)) {
+        n = in.read(bytes, end, bytes.length - end);
+        if (n > 0) {
+          end += n;
+        }
+      }
+      int bom = this.bomLength(bytes, end);
+      if (bom > 0) {
+        target = this.bomEncoding(bytes);
+        start = bom;
+      }
+    }
+
+    if (target.kind == Encoding.OTHER) {
+      return new DecoderReader(target, in, bytes, start, end);
+    }
+    return new ByteReader(in, bytes, start, end, target.kind == Encoding.ASCII);
+  }
+
+  /**
+   * Opens a file to read
+   *
+   * @param file the file
+   * @param mapped true to read it through a memory mapping, see {@link MappedFileReader}
+   * @return the reader
+   * @throws IOException
+   */
+  public Reader openFile(final File file, final boolean mapped) throws IOException {
+    if (mapped) {
+      byte[] head = this.readHead(file);
+      int bom = this.bomLength(head, head.length);
+      Charset cs = bom > 0 ? this.bomEncoding(head).charset : this.charset;
+
+      if (MappedFileReader.isSupported(cs)) {
+        return new MappedFileReader(file, cs, bom, 64 * 1024 * 1024);
+      }
+    }
+    return this.newReader(new FileInputStream(file));
+  }
+
+  /**
+   * @param file a file
+   * @return the length of the byte order mark at the start of the file, 0 if there is none or the
+   *         marks are not detected
+   * @throws IOException
+   */
+  public int bomLength(final File file) throws IOException {
+    byte[] head = this.readHead(file);
+    return this.bomLength(head, head.length);
+  }
+
+  /**
+   * @param file a file
+   * @return the charset the file is read in: the one of its byte order mark or this one
+   * @throws IOException
+   */
+  public Charset charsetOf(final File file) throws IOException {
+    byte[] head = this.readHead(file);
+    return this.bomLength(head, head.length) > 0 ? this.bomEncoding(head).charset
+        : this.charset;
+  }
+
+  /**
+   * @return the first bytes of the file, enough to see the longest mark, none if the marks are not
+   *         detected
+   */
+  private byte[] readHead(final File file) throws IOException {
+    if (this.bomKind == Encoding.NO_BOM) {
+      return new byte[0];
+    }
+
+    byte[] head = new byte[3];
+    int end = 0;
+    InputStream in = new FileInputStream(file);
+    try {
+      int n = 0;
+      while ((end < 3) && (n >= 0)) {
+        n = in.read(head, end, 3 - end);
+        if (n > 0) {
+          end += n;
+        }
+      }
+    } finally {
+      in.close();
+    }
+    return Arrays.copyOf(head, end);
+  }
+
+  /**
+   * Creates a writer over a stream. The stream is closed along with the writer.
+   *
+   * @param out the stream
+   * @return the writer
+   */
+  public Writer newWriter(final OutputStream out) {
+    if (this.kind == Encoding.OTHER) {
+      return new EncoderWriter(this, out);
+    }
+    return new ByteWriter(out, this.kind == Encoding.ASCII ? 0x7F : 0xFF);
+  }
+
+  /**
+   * @return the length of the byte order mark of this charset at the start of the bytes, 0 if
+   *         there is none
+   */
+  private int bomLength(final byte[] bytes, final int length) {
+    if ((this.bomKind == Encoding.UTF8_BOM) && (length >= 3) && (bytes[0] == (byte) 0xEF)
+        && (bytes[1] == (byte) 0xBB) && (bytes[2] == (byte) 0xBF)) {
+      return 3;
+    }
+    if ((this.bomKind == Encoding.UTF16_BOM) && (length >= 2)
+        && (((bytes[0] == (byte) 0xFE) && (bytes[1] == (byte) 0xFF))
+            || ((bytes[0] == (byte) 0xFF) && (bytes[1] == (byte) 0xFE)))) {
+      return 2;
+    }
+    return 0;
+  }
+
+  /**
+   * @return the encoding of the input after a mark found by {@link #bomLength(byte[], int)}: this
+   *         one in UTF-8, the byte order of the mark in UTF-16
+   */
+  private Encoding bomEncoding(final byte[] bytes) {
+    if (this.bomKind == Encoding.UTF8_BOM) {
+      return this;
+    }
+    return bytes[0] == (byte) 0xFE ? Encoding.UTF16BE : Encoding.UTF16LE;
+  }
+
+  private static byte[] takeBuffer() {
+    byte[] bytes = Encoding.BUFFERS.poll();
+    return bytes != null ? bytes : new byte[Encoding.BUFFER_SIZE];
+  }
+
+  private static void returnBuffer(final byte[] bytes) {
+    if (Encoding.BUFFERS.size() < Encoding.POOL_SIZE) {
+      Encoding.BUFFERS.offer(bytes);
+    }
+  }
+
+  private CharsetDecoder takeDecoder() {
+    CharsetDecoder decoder = this.decoders.poll();
+    if (decoder == null) {
+      return this.charset.newDecoder().onMalformedInput(CodingErrorAction.REPLACE)
+          .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    }
+    return decoder.reset();
+  }
+
+  private void returnDecoder(final CharsetDecoder decoder) {
+    if (this.decoders.size() < Encoding.POOL_SIZE) {
+      this.decoders.offer(decoder);
+    }
+  }
+
+  private CharsetEncoder takeEncoder() {
+    CharsetEncoder encoder = this.encoders.poll();
+    if (encoder == null) {
+      return this.charset.newEncoder().onMalformedInput(CodingErrorAction.REPLACE)
+          .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    }
+    return encoder.reset();
+  }
+
+  private void returnEncoder(final CharsetEncoder encoder) {
+    if (this.encoders.size() < Encoding.POOL_SIZE) {
+      this.encoders.offer(encoder);
+    }
+  }
+
+  public Charset getCharset() {
+    return this.charset;
+  }
+
+  public boolean isDetectBom() {
+    return this.detectBom;
+  }
+
+  @Override
+  public String toString() {
+    return this.charset.name();
+  }
+
+  /**
+   * Reads US-ASCII or ISO-8859-1, one char per byte
+   */
+  private static final class ByteReader extends Reader {
+
+    private final InputStream in;
+
+    private byte[] bytes;
+
+    private int pos;
+
+    private int end;
+
+    private final boolean ascii;
+
+    ByteReader(final InputStream in, final byte[] bytes, final int pos, final int end,
+        final boolean ascii) {
+      this.in = in;
+      this.bytes = bytes;
+      this.pos = pos;
+      this.end = end;
+      this.ascii = ascii;
+    }
+
+    @Override
+    public int read(final char[] cbuf, final int off, final int len) throws IOException {
+      if (len == 0) {
+        return 0;
+      }
+      if (this.pos == this.end) {
+        int n = this.in.read(this.bytes, 0, this.bytes.length);
+        if (n < 0) {
+          return -1;
+        }
+        this.pos = 0;
+        this.end = n;
+      }
+
+      int count = Math.min(len, this.end - this.pos);
+      byte[] b = this.bytes;
+      int p = this.pos;
+      if (this.ascii) {
+        for (int i = off; i < (off + count); i++) {
+          byte c = b[p++];
+          cbuf[i] = c >= 0 ? (char) c : '\uFFFD';
+        }
+      } else {
+        for (int i = off; i < (off + count); i++) {
+          cbuf[i] = (char) (b[p++] & 0xFF);
+        }
+      }
+      this.pos = p;
+      return count;
+    }
+
+    @Override
+    public void close() throws IOException {
+      if (this.bytes != null) {
+        Encoding.returnBuffer(this.bytes);
+        this.bytes = null;
+      }
+      this.in.close();
+    }
+  }
+
+  /**
+   * Reads any charset through a pooled decoder
+   */
+  private static final class DecoderReader extends Reader {
+
+    private final Encoding encoding;
+
+    private final InputStream in;
+
+    private CharsetDecoder decoder;
+
+    private byte[] bytes;
+
+    private final ByteBuffer buffer;
+
+    private boolean endOfInput = false;
+
+    // all the input was decoded, only the flush is left
+    private boolean decoded = false;
+
+    private boolean flushed = false;
+
+    // second char of a pair that did not fit on the last read
+    private char pending = 0;
+
+    DecoderReader(final Encoding encoding, final InputStream in, final byte[] bytes,
+        final int start, final int end) {
+      this.encoding = encoding;
+      this.in = in;
+      this.decoder = encoding.takeDecoder();
+      this.bytes = bytes;
+      this.buffer = ByteBuffer.wrap(bytes, start, end - start);
+    }
+
+    @Override
+    public int read(final char[] cbuf, final int off, final int len) throws IOException {
+      if (len == 0) {
+        return 0;
+      }
+
+      int from = off;
+      if (this.pending != 0) {
+        cbuf[from++] = this.pending;
+        this.pending = 0;
+        if (len == 1) {
+          return 1;
+        }
+      }
+
+      if (this.flushed) {
+        return from > off ? 1 : -1;
+      }
+
+      CharBuffer out = CharBuffer.wrap(cbuf, from, (off + len) - from);
+      while (true) {
+        if (!this.decoded) {
+          CoderResult result = this.decoder.decode(this.buffer, out, this.endOfInput);
+          if (result.isOverflow()) {
+            break;
+          }
+          if (!this.endOfInput) {
+            if (out.position() > off) {
+              // return what was decoded instead of waiting for more input
+              break;
+            }
+            this.fill();
+            continue;
+          }
+          this.decoded = true;
+        }
+
+        if (!this.decoder.flush(out).isOverflow()) {
+          this.flushed = true;
+        }
+        break;
+      }
+
+      int n = out.position() - off;
+      if ((n == 0) && (len == 1) && !this.flushed) {
+        // a surrogate pair does not fit on one char
+        char[] pair = new char[2];
+        int read = this.read(pair, 0, 2);
+        if (read > 0) {
+          cbuf[off] = pair[0];
+          this.pending = read > 1 ? pair[1] : 0;
+          return 1;
+        }
+        return read;
+      }
+      return (n == 0) && this.flushed ? -1 : n;
+    }
+
+    private void fill() throws IOException {
+      this.buffer.compact();
+      int n = this.in.read(this.bytes, this.buffer.position(), this.buffer.remaining());
+      if (n < 0) {
+        this.endOfInput = true;
+      } else {
+        this.buffer.position(this.buffer.position() + n);
+      }
+      this.buffer.flip();
+    }
+
+    @Override
+    public void close() throws IOException {
+      if (this.decoder != null) {
+        this.encoding.returnDecoder(this.decoder);
+        Encoding.returnBuffer(this.bytes);
+        this.decoder = null;
+        this.bytes = null;
+      }
+      this.in.close();
+    }
+  }
+
+  /**
+   * Writes US-ASCII or ISO-8859-1, one byte per char
+   */
+  private static final class ByteWriter extends Writer {
+
+    private final OutputStream out;
+
+    private final int max;
+
+    private byte[] bytes = Encoding.takeBuffer();
+
+    private int count = 0;
+
+    ByteWriter(final OutputStream out, final int max) {
+      this.out = out;
+      this.max = max;
+    }
+
+    @Override
+    public void write(final char[] cbuf, final int off, final int len) throws IOException {
+      for (int i = off; i < (off + len); i++) {
+        if (this.count == this.bytes.length) {
+          this.flushBuffer();
+        }
+        char c = cbuf[i];
+        if (c <= this.max) {
+          this.bytes[this.count++] = (byte) c;
+        } else if (Character.isHighSurrogate(c) && ((i + 1) < (off + len))
+            && Character.isLowSurrogate(cbuf[i + 1])) {
+          // a pair stands for one char, written as one '?'
+          this.bytes[this.count++] = '?';
+          i++;
+        } else {
+          this.bytes[this.count++] = '?';
+        }
+      }
+    }
+
+    private void flushBuffer() throws IOException {
+      if (this.count > 0) {
+        this.out.write(this.bytes, 0, this.count);
+        this.count = 0;
+      }
+    }
+
+    @Override
+    public void flush() throws IOException {
+      this.flushBuffer();
+      this.out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+      if (this.bytes != null) {
+        this.flush();
+        Encoding.returnBuffer(this.bytes);
+        this.bytes = null;
+      }
+      this.out.close();
+    }
+  }
+
+  /**
+   * Writes any charset through a pooled encoder
+   */
+  private static final class EncoderWriter extends Writer {
+
+    private final Encoding encoding;
+
+    private final OutputStream out;
+
+    private CharsetEncoder encoder;
+
+    private byte[] bytes = Encoding.takeBuffer();
+
+    private final ByteBuffer buffer = ByteBuffer.wrap(this.bytes);
+
+    // high surrogate left at the end of the last write, waiting for the other half
+    private char pending = 0;
+
+    private final char[] pair = new char[2];
+
+    EncoderWriter(final Encoding encoding, final OutputStream out) {
+      this.encoding = encoding;
+      this.out = out;
+      this.encoder = encoding.takeEncoder();
+    }
+
+    @Override
+    public void write(final char[] cbuf, final int off, final int len) throws IOException {
+      if (len == 0) {
+        return;
+      }
+
+      int from = off;
+      int end = off + len;
+      while ((this.pending != 0) && (from < end)) {
+        this.pair[0] = this.pending;
+        this.pair[1] = cbuf[from++];
+        this.pending = 0;
+        this.encode(CharBuffer.wrap(this.pair), false);
+      }
+      if (from < end) {
+        this.encode(CharBuffer.wrap(cbuf, from, end - from), false);
+      }
+    }
+
+    private void encode(final CharBuffer in, final boolean endOfInput) throws IOException {
+      while (this.encoder.encode(in, this.buffer, endOfInput).isOverflow()) {
+        this.flushBuffer();
+      }
+      if (in.hasRemaining()) {
+        // only a high surrogate is left, the encoder needs the next char
+        this.pending = in.get();
+      }
+    }
+
+    private void flushBuffer() throws IOException {
+      if (this.buffer.position() > 0) {
+        this.out.write(this.bytes, 0, this.buffer.position());
+        this.buffer.clear();
+      }
+    }
+
+    @Override
+    public void flush() throws IOException {
+      this.flushBuffer();
+      this.out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+      if (this.encoder != null) {
+        // a high surrogate without its pair is written as a replacement
+        this.pair[0] = this.pending;
+        this.encode(CharBuffer.wrap(this.pair, 0, this.pending != 0 ? 1 : 0), true);
+        this.pending = 0;
+        while (this.encoder.flush(this.buffer).isOverflow()) {
+          this.flushBuffer();
+        }
+        this.flush();
+
+        this.encoding.returnEncoder(this.encoder);
+        Encoding.returnBuffer(this.bytes);
+        this.encoder = null;
+        this.bytes = null;
+      }
+      this.out.close();
+    }
+  }
 }
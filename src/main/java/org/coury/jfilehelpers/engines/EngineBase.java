@@ -18,6 +18,14 @@
 
 package org.coury.jfilehelpers.engines;
 
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.Writer;
+
+import org.coury.jfilehelpers.core.RecordCodec;
 import org.coury.jfilehelpers.core.RecordInfo;
 import org.coury.jfilehelpers.enums.ProgressMode;
 import org.coury.jfilehelpers.progress.ProgressChangeHandler;
@@ -26,9 +34,15 @@ public abstract class EngineBase<T> {
 
   protected RecordInfo<T> recordInfo;
 
+  protected RecordCodec<T> codec = null;
+
   protected Class<T> recordClass;
 
-  protected Encoding encoding;
+  protected Encoding encoding = Encoding.DEFAULT;
+
+  protected boolean structuralIndex = false;
+
+  protected boolean memoryMapped = false;
 
   protected String footerText;
 
@@ -40,7 +54,7 @@ public abstract class EngineBase<T> {
 
   public EngineBase(final Class<T> recordClass) {
     this.recordClass = recordClass;
-    this.recordInfo = new RecordInfo<T>(recordClass);
+    this.recordInfo = RecordInfo.forClass(recordClass);
   }
 
   protected ProgressMode progressMode = ProgressMode.DontNotify;
@@ -71,12 +85,104 @@ public abstract class EngineBase<T> {
     this.totalRecords = 0;
   }
 
+  /**
+   * Enables or disables the use of a codec class generated for the record type. The codec reads
+   * and writes the record fields without the generic per field loop. It is disabled by default.
+   * When enabled, the codec generated at build time by the
+   * {@link org.coury.jfilehelpers.processor.RecordCodecProcessor} is used if there is one,
+   * otherwise one is compiled at runtime. When it can't be generated (e.g. running without a Java
+   * compiler) the generic path is used.
+   *
+   * @param compiledCodec true to use a compiled codec
+   */
+  public void setCompiledCodec(final boolean compiledCodec) {
+    this.codec = compiledCodec ? this.recordInfo.getCompiledCodec() : null;
+  }
+
+  /**
+   * @return true if records are read and written by a compiled codec
+   */
+  public boolean isCompiledCodec() {
+    return this.codec != null;
+  }
+
+  /**
+   * Enables or disables the separator index on delimited records. With the index each line is
+   * scanned once for all its separators and the fields are cut at the recorded positions, instead
+   * of searching the separator again for every field. Fixed length records ignore it. Setting the
+   * field values usually costs more than finding them, so the gain depends on the data: measure
+   * it before turning the index on.
+   * <p>
+   * When all the fields are quoted with the same char and separator, without trimming the start,
+   * the quotes are indexed in the same pass: the quoted values take their closing quote from the
+   * index and their separators are left out of it. Other quoted records index only the
+   * separators, and their quoted values are scanned char by char as without the index.
+   *
+   * @param structuralIndex true to index the separators of each line
+   */
+  public void setStructuralIndex(final boolean structuralIndex) {
+    this.structuralIndex = structuralIndex;
+  }
+
+  /**
+   * @return true if the separators of each line are indexed before reading the fields
+   */
+  public boolean isStructuralIndex() {
+    return this.structuralIndex;
+  }
+
+  /**
+   * Enables or disables reading files through a memory mapping. The mapped bytes are decoded
+   * straight into the parse buffer, saving the copies of a stream reader. Only used for files in
+   * US-ASCII, ISO-8859-1 or UTF-8; files in other encodings are read the usual way.
+   *
+   * @param memoryMapped true to map the files read
+   */
+  public void setMemoryMapped(final boolean memoryMapped) {
+    this.memoryMapped = memoryMapped;
+  }
+
+  /**
+   * @return true if files are read through a memory mapping when their charset allows it
+   */
+  public boolean isMemoryMapped() {
+    return this.memoryMapped;
+  }
+
   public Encoding getEncoding() {
     return this.encoding;
   }
 
+  /**
+   * @param encoding the encoding of the files read and written, null for the platform default
+   */
   public void setEncoding(final Encoding encoding) {
-    this.encoding = encoding;
+    this.encoding = encoding != null ? encoding : Encoding.DEFAULT;
+  }
+
+  /**
+   * Opens a file for reading in the engine encoding, mapped in memory when enabled and possible
+   */
+  protected Reader openFileReader(final String fileName) throws IOException {
+    return this.encoding.openFile(new File(fileName), this.memoryMapped);
+  }
+
+  /**
+   * Opens a class path resource for reading in the engine encoding
+   */
+  protected Reader openResourceReader(final String resourceName) throws IOException {
+    InputStream in = this.getClass().getResourceAsStream(resourceName);
+    if (in == null) {
+      throw new IOException("Resource not found: " + resourceName);
+    }
+    return this.encoding.newReader(in);
+  }
+
+  /**
+   * Opens a file for writing in the engine encoding
+   */
+  protected Writer openFileWriter(final String fileName) throws IOException {
+    return this.encoding.newWriter(new FileOutputStream(new File(fileName)));
   }
 
   public String getFooterText() {
@@ -17,28 +17,28 @@
  */
 package org.coury.jfilehelpers.engines;
 
-import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.io.InputStreamReader;
 import java.io.Reader;
 import java.io.StringWriter;
 import java.io.Writer;
+import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 import org.coury.jfilehelpers.core.ForwardReader;
+import org.coury.jfilehelpers.core.MappedFileReader;
 import org.coury.jfilehelpers.events.AfterReadRecordEventArgs;
 import org.coury.jfilehelpers.events.AfterReadRecordHandler;
 import org.coury.jfilehelpers.events.AfterWriteRecordEventArgs;
 import org.coury.jfilehelpers.events.AfterWriteRecordHandler;
 import org.coury.jfilehelpers.events.BeforeReadRecordEventArgs;
 import org.coury.jfilehelpers.events.BeforeReadRecordHandler;
+import org.coury.jfilehelpers.events.RecordsReadHandler;
 import org.coury.jfilehelpers.events.BeforeWriteRecordEventArgs;
 import org.coury.jfilehelpers.events.BeforeWriteRecordHandler;
 import org.coury.jfilehelpers.helpers.ProgressHelper;
@@ -56,12 +56,14 @@ public class FileHelperEngine<T> extends EngineBase<T> implements Iterable<T> {
 
   private String currentLine;
 
-  private String completeLine;
+  private boolean lineAvailable;
 
-  private FileReader fr = null;
+  private Reader fr = null;
 
   private ForwardReader freader = null;
 
+  private ForkJoinPool forkJoinPool = null;
+
   private BeforeReadRecordHandler<T> beforeReadRecordHandler;
 
   private AfterReadRecordHandler<T> afterReadRecordHandler;
@@ -84,9 +86,9 @@ public class FileHelperEngine<T> extends EngineBase<T> implements Iterable<T> {
 
   public void writeFile(final String fileName, final List<T> records, final int maxRecords)
       throws IOException {
-    FileWriter fw = null;
+    Writer fw = null;
     try {
-      fw = new FileWriter(new File(fileName));
+      fw = this.openFileWriter(fileName);
       // fw.write("ABCDEF\n");
       this.writeStream(fw, records, maxRecords);
     } finally {
@@ -157,7 +159,7 @@ public class FileHelperEngine<T> extends EngineBase<T> implements Iterable<T> {
           skip = this.onBeforeWriteRecord(rec);
 
           if (!skip) {
-            this.currentLine = this.recordInfo.recordToStr(rec);
+            this.currentLine = this.recordInfo.recordToStr(rec, this.codec);
             this.currentLine = this.onAfterWriteRecord(this.currentLine, rec);
             writer.write(this.currentLine + StringHelper.NEW_LINE);
           }
@@ -200,7 +202,7 @@ public class FileHelperEngine<T> extends EngineBase<T> implements Iterable<T> {
     List<T> tempRes = null;
     Reader r = null;
     try {
-      r = new FileReader(new File(fileName));
+      r = this.openFileReader(fileName);
       tempRes = this.readStream(r, maxRecords);
     } finally {
       if (r != null) {
@@ -210,6 +212,93 @@ public class FileHelperEngine<T> extends EngineBase<T> implements Iterable<T> {
     return tempRes;
   }
 
+  /**
+   * Reads a file on many threads. The file is cut in chunks of whole lines which are parsed at the
+   * same time on the fork/join pool of the engine, each one with its own reader. The records are
+   * returned in file order.
+   * <p>
+   * Fixed length records of exact length in US-ASCII or ISO-8859-1 are cut in chunks by their
+   * offsets, without looking for the line breaks. The size of the file must then be a whole number
+   * of records (a record and its line break, which may be missing after the last one) or an
+   * IllegalArgumentException is thrown before reading.
+   * <p>
+   * Quoted values with line breaks are read inside a chunk. When one goes on past the end of its
+   * chunk, the chunks after it did not start on a record, and the file is read again the usual way.
+   * <p>
+   * The read events are fired from the pool threads, with the right line numbers, so their
+   * handlers must be thread safe; the progress is not notified. The file is read the usual way when
+   * a record takes more than one line (a field in a new line), when there are read events and the
+   * quoted values can have line breaks, or when its charset is not US-ASCII, ISO-8859-1 or UTF-8.
+   *
+   * @param fileName the file
+   * @return the records read
+   * @throws IOException
+   */
+  public List<T> readFileParallel(final String fileName) throws IOException {
+    return this.readParallel(fileName, null);
+  }
+
+  /**
+   * Reads a file on many threads like {@link #readFileParallel(String)}, but hands the records of
+   * each chunk to the handler as soon as the chunk is parsed instead of putting them together, so
+   * the chunks come in the order they are finished. The handler is called by one pool thread at a
+   * time. When the quoted values can have line breaks, a chunk is handed out only once the chunk
+   * before it ended outside a quoted value, so the chunks come in file order.
+   * <p>
+   * When the file is read the usual way, or read again after a quoted value went on past the end of
+   * a chunk, the records not handed out yet are given to the handler at once. When a record can't
+   * be read, the records of some chunks may already have been handed out before the error is
+   * thrown.
+   *
+   * @param fileName the file
+   * @param handler gets the records, a chunk at a time
+   * @throws IOException
+   */
+  public void readFileParallel(final String fileName, final RecordsReadHandler<T> handler)
+      throws IOException {
+    if (handler == null) {
+      throw new IllegalArgumentException("The records read handler can't be null");
+    }
+    this.readParallel(fileName, handler);
+  }
+
+  private List<T> readParallel(final String fileName, final RecordsReadHandler<T> handler)
+      throws IOException {
+    File file = new File(fileName);
+    Charset charset = this.encoding.charsetOf(file);
+    if (this.recordInfo.isMultiline()
+        || (this.hasReadHandlers() && this.recordInfo.hasMultilineQuotes())
+        || !MappedFileReader.isSupported(charset)) {
+      return this.handOut(this.readFile(fileName), 0, handler);
+    }
+
+    this.resetFields();
+    ChunkedFileReader<T> reader = new ChunkedFileReader<T>(this, handler);
+    List<T> res;
+    ForkJoinPool pool = this.forkJoinPool != null ? this.forkJoinPool : new ForkJoinPool();
+    try {
+      res = reader.read(file, charset, this.encoding.bomLength(file), pool);
+    } finally {
+      if (pool != this.forkJoinPool) {
+        pool.shutdown();
+      }
+    }
+    if (res != null) {
+      return res;
+    }
+
+    // a quoted value went on past the end of a chunk, the first records may be handed out already
+    return this.handOut(this.readFile(fileName), reader.getDelivered(), handler);
+  }
+
+  private List<T> handOut(final List<T> records, final int from,
+      final RecordsReadHandler<T> handler) {
+    if ((handler != null) && (from < records.size())) {
+      handler.handleRecordsRead(this, records.subList(from, records.size()));
+    }
+    return records;
+  }
+
   public List<T> readResource(final String resourceName) throws IOException {
     return this.readResource(resourceName, Integer.MAX_VALUE);
   }
@@ -218,7 +307,7 @@ public class FileHelperEngine<T> extends EngineBase<T> implements Iterable<T> {
     List<T> tempRes = null;
     Reader r = null;
     try {
-      r = new InputStreamReader(this.getClass().getResourceAsStream(fileName));
+      r = this.openResourceReader(fileName);
       tempRes = this.readStream(r, maxRecords);
     } finally {
       if (r != null) {
@@ -256,7 +345,7 @@ public class FileHelperEngine<T> extends EngineBase<T> implements Iterable<T> {
   }
 
   public void openFile(final String fileName, final int maxRecords) throws IOException {
-    this.fr = new FileReader(new File(fileName));
+    this.fr = this.openFileReader(fileName);
     this.openStream(this.fr, maxRecords);
   }
 
@@ -266,29 +355,34 @@ public class FileHelperEngine<T> extends EngineBase<T> implements Iterable<T> {
 
   public void openResource(final String fileName, final int maxRecords) throws IOException {
     Reader r = null;
-    r = new InputStreamReader(this.getClass().getResourceAsStream(fileName));
+    r = this.openResourceReader(fileName);
     this.openStream(r, maxRecords);
   }
 
   public void openStream(final Reader fileReader, final int maxRecords) throws IOException {
-    BufferedReader reader = new BufferedReader(fileReader);
     this.resetFields();
     this.setHeaderText("");
     this.setFooterText("");
 
-    this.freader = new ForwardReader(reader, this.recordInfo.getIgnoreLast());
+    // the forward reader does its own buffering, lines are parsed right from its window
+    this.freader = new ForwardReader(fileReader, this.recordInfo.getIgnoreLast());
     this.freader.setDiscardForward(true);
 
+    this.line = new LineInfo(null);
+    this.line.setReader(this.freader);
+    if (this.structuralIndex) {
+      this.line.setIndex(this.recordInfo.newStructuralIndex());
+    }
+
     this.setLineNumber(1);
-    this.completeLine = this.freader.readNextLine();
-    this.currentLine = this.completeLine;
+    this.lineAvailable = this.freader.readNextLine(this.line);
 
     ProgressHelper.notify(this.notifyHandler, this.progressMode, 0, -1);
 
     if (this.recordInfo.getIgnoreFirst() > 0) {
-      for (int i = 0; (i < this.recordInfo.getIgnoreFirst()) && (this.currentLine != null); i++) {
-        this.headerText += this.currentLine + StringHelper.NEW_LINE;
-        this.currentLine = this.freader.readNextLine();
+      for (int i = 0; (i < this.recordInfo.getIgnoreFirst()) && this.lineAvailable; i++) {
+        this.headerText += this.line.getLineStr() + StringHelper.NEW_LINE;
+        this.lineAvailable = this.freader.readNextLine(this.line);
         this.lineNumber++;
       }
     }
@@ -300,9 +394,6 @@ public class FileHelperEngine<T> extends EngineBase<T> implements Iterable<T> {
     } else {
       this.maxRecords = maxRecords;
     }
-
-    this.line = new LineInfo(this.currentLine);
-    this.line.setReader(this.freader);
   }
 
   public void close() throws IOException {
@@ -311,6 +402,20 @@ public class FileHelperEngine<T> extends EngineBase<T> implements Iterable<T> {
     }
   }
 
+  /**
+   * @return the pool reading the files in parallel, null to use a new pool on each read
+   */
+  public ForkJoinPool getForkJoinPool() {
+    return this.forkJoinPool;
+  }
+
+  /**
+   * @param forkJoinPool the pool reading the files in parallel, null to use a new pool on each read
+   */
+  public void setForkJoinPool(final ForkJoinPool forkJoinPool) {
+    this.forkJoinPool = forkJoinPool;
+  }
+
   public void setBeforeReadRecordHandler(final BeforeReadRecordHandler<T> beforeReadRecordHandler) {
     this.beforeReadRecordHandler = beforeReadRecordHandler;
   }
@@ -337,13 +442,13 @@ public class FileHelperEngine<T> extends EngineBase<T> implements Iterable<T> {
   }
 
   @SuppressWarnings("unchecked")
-  private boolean onAfterReadRecord(final String line, final T record) {
+  private boolean onAfterReadRecord(final String line, final T record, final int lineNumber) {
     if (this.recordInfo.isNotifyRead()) {
       ((NotifyRead<T>) record).afterRead(this, line);
     }
     if (this.afterReadRecordHandler != null) {
       AfterReadRecordEventArgs<T> e =
-          new AfterReadRecordEventArgs<T>(line, record, this.lineNumber);
+          new AfterReadRecordEventArgs<T>(line, record, lineNumber);
       this.afterReadRecordHandler.handleAfterReadRecord(this, e);
       return e.getSkipThisRecord();
     }
@@ -373,8 +478,50 @@ public class FileHelperEngine<T> extends EngineBase<T> implements Iterable<T> {
     return line;
   }
 
+  /**
+   * Reads the record of the current line, firing the read events
+   *
+   * @param line the line
+   * @param lineNumber number of the line in the file, for the events
+   * @return the record or null if it is skipped
+   */
+  T readRecord(final LineInfo line, final int lineNumber) {
+    boolean skip = false;
+
+    // only create the line String when a callback is going to see it
+    String currentLine = null;
+    if ((this.beforeReadRecordHandler != null) || (this.afterReadRecordHandler != null)
+        || this.recordInfo.isNotifyRead()) {
+      currentLine = line.getLineStr();
+    }
+
+    if (this.beforeReadRecordHandler != null) {
+      BeforeReadRecordEventArgs<T> e = new BeforeReadRecordEventArgs<T>(currentLine, lineNumber);
+      skip = this.onBeforeReadRecord(e);
+      if (e.getRecordLineChanged()) {
+        line.reload(e.getRecordLine());
+      }
+    }
+
+    T record = null;
+    if (!skip) {
+      record = this.recordInfo.strToRecord(line, this.codec);
+      if (this.onAfterReadRecord(currentLine, record, lineNumber)) {
+        record = null;
+      }
+    }
+    return record;
+  }
+
+  /**
+   * @return true if a read event needs the number of the line read
+   */
+  boolean hasReadHandlers() {
+    return (this.beforeReadRecordHandler != null) || (this.afterReadRecordHandler != null);
+  }
+
   public boolean hasNext() {
-    return (this.currentLine != null);
+    return this.lineAvailable;
   }
 
   @Override
@@ -383,37 +530,24 @@ public class FileHelperEngine<T> extends EngineBase<T> implements Iterable<T> {
 
       @Override
       public boolean hasNext() {
-        return (FileHelperEngine.this.currentLine != null);
+        return FileHelperEngine.this.lineAvailable;
       }
 
       @Override
       public T next() {
         T record = null;
-        if ((FileHelperEngine.this.currentLine != null)
+        if (FileHelperEngine.this.lineAvailable
             && (FileHelperEngine.this.currentRecord < FileHelperEngine.this.maxRecords)) {
           try {
             FileHelperEngine.this.totalRecords++;
             FileHelperEngine.this.currentRecord++;
-            FileHelperEngine.this.line.reload(FileHelperEngine.this.currentLine);
-            boolean skip = false;
             ProgressHelper.notify(FileHelperEngine.this.notifyHandler,
                 FileHelperEngine.this.progressMode, FileHelperEngine.this.currentRecord, -1);
-            BeforeReadRecordEventArgs<T> e = new BeforeReadRecordEventArgs<T>(
-                FileHelperEngine.this.currentLine, FileHelperEngine.this.lineNumber);
-            skip = FileHelperEngine.this.onBeforeReadRecord(e);
-            if (e.getRecordLineChanged()) {
-              FileHelperEngine.this.line.reload(e.getRecordLine());
-            }
-            if (!skip) {
-              record = FileHelperEngine.this.recordInfo.strToRecord(FileHelperEngine.this.line);
-              skip = FileHelperEngine.this.onAfterReadRecord(FileHelperEngine.this.currentLine,
-                  record);
-              if (skip) {
-                record = null;
-              }
-            }
-            FileHelperEngine.this.currentLine = FileHelperEngine.this.freader.readNextLine();
-            FileHelperEngine.this.completeLine = FileHelperEngine.this.currentLine;
+
+            record = FileHelperEngine.this.readRecord(FileHelperEngine.this.line,
+                FileHelperEngine.this.lineNumber);
+            FileHelperEngine.this.lineAvailable =
+                FileHelperEngine.this.freader.readNextLine(FileHelperEngine.this.line);
             FileHelperEngine.this.lineNumber++;
           } catch (IOException ex) {
             throw new Error(ex);
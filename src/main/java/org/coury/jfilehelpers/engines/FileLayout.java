@@ -0,0 +1,367 @@
+/*
+ * FileLayout.java
+ *
+ * Copyright (C) 2007 Felipe Gonalves Coury <felipe.coury@gmail.com>
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation; either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program; if
+ * not, write to the Free Software Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA
+ * 02111-1307, USA.
+ */
+
+package org.coury.jfilehelpers.engines;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+
+import org.coury.jfilehelpers.core.ForwardReader;
+import org.coury.jfilehelpers.core.MappedFileReader;
+import org.coury.jfilehelpers.core.RecordInfo;
+import org.coury.jfilehelpers.helpers.StringHelper;
+
+/**
+ * Where the records are on the bytes of a file: the lines between the header (@IgnoreFirst) and
+ * the footer (@IgnoreLast). The lines are found on the bytes, so the charset must be one where a \n
+ * or \r byte is always a line break, see {@link MappedFileReader#isSupported(Charset)}.
+ * <p>
+ * Fixed length records in a single byte charset take the same bytes each, so their positions can
+ * be told by arithmetic once {@link #countRecords(int)} has checked the file against the record
+ * length.
+ */
+final class FileLayout {
+
+  static final int BLOCK_SIZE = 64 * 1024;
+
+  private static final int MAP_SIZE = 64 * 1024 * 1024;
+
+  private final File file;
+
+  private final Charset charset;
+
+  // true if the bytes over 127 are not chars of the charset
+  private final boolean ascii;
+
+  private final FileChannel channel;
+
+  private long bodyStart;
+
+  private long bodyEnd;
+
+  // number of the first line after the header
+  private int firstLine;
+
+  private final String headerText;
+
+  private final String footerText;
+
+  // chars of each fixed length record and the line break after it
+  private int recordLength = 0;
+
+  private byte[] lineBreak = null;
+
+  /**
+   * @param file the file
+   * @param charset charset of the file, see {@link MappedFileReader#isSupported(Charset)}
+   * @param offset position of the first line (after a byte order mark)
+   * @param channel channel of the file, kept open while it is read
+   * @param recordInfo record with the lines to ignore
+   * @throws IOException
+   */
+  FileLayout(final File file, final Charset charset, final long offset, final FileChannel channel,
+      final RecordInfo<?> recordInfo) throws IOException {
+    this.file = file;
+    this.charset = charset;
+    this.ascii = "US-ASCII".equals(charset.name());
+    this.channel = channel;
+
+    long size = channel.size();
+    this.bodyStart = offset;
+    this.firstLine = 1;
+    for (int i = 0; (i < recordInfo.getIgnoreFirst()) && (this.bodyStart < size); i++) {
+      long pos = this.indexOfBreak(this.bodyStart, size);
+      this.bodyStart = pos < 0 ? size : this.afterBreak(pos, size);
+      this.firstLine++;
+    }
+
+    this.bodyEnd = size;
+    int ignoreLast = recordInfo.getIgnoreLast();
+    for (int i = 0; (i < ignoreLast) && (this.bodyEnd > this.bodyStart); i++) {
+      this.bodyEnd = this.startOfLastLine(this.bodyStart, this.bodyEnd);
+    }
+
+    this.headerText = this.readText(offset, this.bodyStart);
+    this.footerText = this.readText(this.bodyEnd, size);
+  }
+
+  /**
+   * Checks that the lines are fixed length records followed by the same line break, which may be
+   * missing after the last one
+   *
+   * @param recordLength bytes of each record, without the line break
+   * @return the number of records
+   * @throws IOException
+   */
+  long countRecords(final int recordLength) throws IOException {
+    long length = this.bodyEnd - this.bodyStart;
+    this.recordLength = recordLength;
+    this.lineBreak = this.lineBreakAt(this.bodyStart + recordLength);
+    int stride = this.getStride();
+
+    // the last record may have no line break, but then it can't end on one
+    long count = (length + this.lineBreak.length) / stride;
+    boolean whole = (count * stride) == length;
+    if ((count > 0) && !whole && (this.lineBreak.length > 0)) {
+      byte last = this.byteAt(this.bodyEnd - 1);
+      whole = (((count * stride) - this.lineBreak.length) == length) && (last != '\n')
+          && (last != '\r');
+    }
+    if (!whole && (length > 0)) {
+      throw new IllegalArgumentException("The file " + this.file.getName() + " has " + length
+          + " bytes of records, which is not a whole number of records of " + recordLength
+          + " chars and a line break of " + this.lineBreak.length + " bytes");
+    }
+    return count;
+  }
+
+  /**
+   * Allocates a block for whole fixed length records, to be read by
+   * {@link #readBlock(ByteBuffer, long, long)}
+   *
+   * @param maxRecords the most records the block needs to hold
+   * @return the block
+   */
+  ByteBuffer allocateRecords(final long maxRecords) {
+    int stride = this.getStride();
+    return ByteBuffer.allocate(
+        (int) Math.min(Math.max(1, FileLayout.BLOCK_SIZE / stride), maxRecords) * stride);
+  }
+
+  /**
+   * Decodes a fixed length record of a block into the line, after checking the line break after
+   * it. The bytes are widened straight into chars, one char per byte; in US-ASCII the bytes over
+   * 127 are decoded as U+FFFD.
+   *
+   * @param block bytes read, holding whole records
+   * @param pos position of the record on the bytes
+   * @param chars buffer of the record length receiving the chars
+   * @param line line reloaded with the record
+   */
+  void decodeRecord(final ByteBuffer block, final int pos, final char[] chars,
+      final LineInfo line) {
+    this.checkLineBreak(block, pos + this.recordLength,
+        Math.min(pos + this.getStride(), block.limit()));
+
+    for (int i = 0; i < this.recordLength; i++) {
+      byte b = block.get(pos + i);
+      chars[i] = !this.ascii || (b >= 0) ? (char) (b & 0xFF) : '\uFFFD';
+    }
+    line.reload(chars, 0, this.recordLength);
+  }
+
+  /**
+   * @return the bytes of a fixed length record and its line break
+   */
+  int getStride() {
+    return this.recordLength + this.lineBreak.length;
+  }
+
+  /**
+   * @return the chars of a fixed length record
+   */
+  int getRecordLength() {
+    return this.recordLength;
+  }
+
+  File getFile() {
+    return this.file;
+  }
+
+  Charset getCharset() {
+    return this.charset;
+  }
+
+  long getBodyStart() {
+    return this.bodyStart;
+  }
+
+  long getBodyEnd() {
+    return this.bodyEnd;
+  }
+
+  int getFirstLine() {
+    return this.firstLine;
+  }
+
+  String getHeaderText() {
+    return this.headerText;
+  }
+
+  String getFooterText() {
+    return this.footerText;
+  }
+
+  /**
+   * Checks that the bytes after a fixed length record are the line break of the file
+   *
+   * @param block bytes read
+   * @param from position after the record on the bytes
+   * @param to end of the line break on the bytes, shorter after the last record
+   */
+  private void checkLineBreak(final ByteBuffer block, final int from, final int to) {
+    boolean valid = from <= to;
+    for (int i = from; valid && (i < to); i++) {
+      valid = block.get(i) == this.lineBreak[i - from];
+    }
+    if (!valid) {
+      throw new IllegalArgumentException(
+          "The record does not have " + this.recordLength + " chars followed by a line break");
+    }
+  }
+
+  /**
+   * @return the lines of a range of the file, each one followed by a new line
+   */
+  private String readText(final long start, final long end) throws IOException {
+    if (start >= end) {
+      return "";
+    }
+
+    StringBuilder sb = new StringBuilder();
+    ForwardReader reader = new ForwardReader(new MappedFileReader(this.file, this.charset, start,
+        end, FileLayout.MAP_SIZE));
+    try {
+      String line;
+      while ((line = reader.readNextLine()) != null) {
+        sb.append(line).append(StringHelper.NEW_LINE);
+      }
+    } finally {
+      reader.close();
+    }
+    return sb.toString();
+  }
+
+  /**
+   * @return the position of the first \n or \r of the range, or -1 if there is none
+   */
+  private long indexOfBreak(final long from, final long to) throws IOException {
+    ByteBuffer block = ByteBuffer.allocate(FileLayout.BLOCK_SIZE);
+    for (long pos = from; pos < to; pos += block.limit()) {
+      this.readBlock(block, pos, to);
+      for (int i = 0; i < block.limit(); i++) {
+        byte b = block.get(i);
+        if ((b == '\n') || (b == '\r')) {
+          return pos + i;
+        }
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * @return the position of the first byte of the range with the given value, or -1
+   */
+  long indexOf(final byte value, final long from, final long to) throws IOException {
+    ByteBuffer block = ByteBuffer.allocate(FileLayout.BLOCK_SIZE);
+    for (long pos = from; pos < to; pos += block.limit()) {
+      this.readBlock(block, pos, to);
+      for (int i = 0; i < block.limit(); i++) {
+        if (block.get(i) == value) {
+          return pos + i;
+        }
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * @return the position after the line break at the given position
+   */
+  private long afterBreak(final long pos, final long to) throws IOException {
+    if (((pos + 1) < to) && (this.byteAt(pos) == '\r') && (this.byteAt(pos + 1) == '\n')) {
+      return pos + 2;
+    }
+    return pos + 1;
+  }
+
+  /**
+   * @return the position where the last line of the range starts
+   */
+  private long startOfLastLine(final long from, final long to) throws IOException {
+    // the line break of the last line is not part of the lines before it
+    long end = to;
+    byte last = this.byteAt(end - 1);
+    if (last == '\n') {
+      end--;
+      if ((end > from) && (this.byteAt(end - 1) == '\r')) {
+        end--;
+      }
+    } else if (last == '\r') {
+      end--;
+    }
+
+    ByteBuffer block = ByteBuffer.allocate(FileLayout.BLOCK_SIZE);
+    while (end > from) {
+      long pos = Math.max(from, end - FileLayout.BLOCK_SIZE);
+      this.readBlock(block, pos, end);
+      for (int i = block.limit() - 1; i >= 0; i--) {
+        byte b = block.get(i);
+        if ((b == '\n') || (b == '\r')) {
+          return pos + i + 1;
+        }
+      }
+      end = pos;
+    }
+    return from;
+  }
+
+  /**
+   * @return the bytes of the line break at the given position, none if it is the end of the lines
+   */
+  private byte[] lineBreakAt(final long pos) throws IOException {
+    if (pos >= this.bodyEnd) {
+      return new byte[0];
+    }
+
+    byte b = this.byteAt(pos);
+    if ((b == '\r') && ((pos + 1) < this.bodyEnd) && (this.byteAt(pos + 1) == '\n')) {
+      return new byte[] { '\r', '\n' };
+    }
+    if ((b == '\r') || (b == '\n')) {
+      return new byte[] { b };
+    }
+    throw new IllegalArgumentException("The line " + this.firstLine + " of the file "
+        + this.file.getName() + " does not have " + (pos - this.bodyStart) + " chars");
+  }
+
+  byte byteAt(final long pos) throws IOException {
+    ByteBuffer b = ByteBuffer.allocate(1);
+    this.readBlock(b, pos, pos + 1);
+    return b.get(0);
+  }
+
+  /**
+   * Reads the bytes from a position up to the end of the range or of the buffer, the buffer is
+   * left with its limit on the bytes read
+   */
+  void readBlock(final ByteBuffer block, final long pos, final long to)
+      throws IOException {
+    block.clear();
+    block.limit((int) Math.min(block.capacity(), to - pos));
+    while (block.hasRemaining()) {
+      if (this.channel.read(block, pos + block.position()) < 0) {
+        break;
+      }
+    }
+    block.flip();
+  }
+}
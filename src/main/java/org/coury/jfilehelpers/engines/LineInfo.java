@@ -19,25 +19,48 @@
 package org.coury.jfilehelpers.engines;
 
 import java.io.IOException;
-import java.util.Arrays;
 
+import org.coury.jfilehelpers.core.ExtractedInfo;
 import org.coury.jfilehelpers.core.ForwardReader;
+import org.coury.jfilehelpers.core.StructuralIndex;
+import org.coury.jfilehelpers.helpers.CharClass;
+import org.coury.jfilehelpers.helpers.CharSearch;
 import org.coury.jfilehelpers.helpers.StringHelper;
 
+/**
+ * The line being parsed. The chars of the line may live inside a bigger shared buffer (the window
+ * of the {@link ForwardReader}), so the line goes from {@link #getLineStart()} (inclusive) to
+ * {@link #getLineEnd()} (exclusive) of {@link #getLine()} and all positions are absolute indexes on
+ * that buffer.
+ */
 public final class LineInfo {
 
   private static char[] emptyChars = new char[] {};
 
   private String lineStr;
 
+  private boolean lineLoaded;
+
   private char[] line;
 
+  private int lineStart = 0;
+
+  private int lineEnd = 0;
+
   private int currentPos = 0;
 
   private int lineNumber;
 
   private ForwardReader reader;
 
+  private StructuralIndex index;
+
+  // true if the line goes on with a quoted value of the line before
+  private boolean inQuotes;
+
+  // the chars of the field being read, reused for every field of every line
+  private final ExtractedInfo extracted = new ExtractedInfo("");
+
   @Override
   public String toString() {
     StringBuffer sb = new StringBuffer();
@@ -57,75 +80,71 @@ public final class LineInfo {
   }
 
   public LineInfo(final String line) {
-    this.lineStr = line;
-    this.line = line == null ? LineInfo.emptyChars : line.toCharArray();
-    this.currentPos = 0;
+    this.reload(line);
   }
 
   public String currentString() {
-    return new String(this.line, this.currentPos, this.line.length - this.currentPos);
+    return new String(this.line, this.currentPos, this.lineEnd - this.currentPos);
   }
 
   public int getCurrentLength() {
-    return this.line.length - this.currentPos;
+    return this.lineEnd - this.currentPos;
   }
 
   public boolean isEol() {
-    return this.currentPos >= this.line.length;
+    return this.currentPos >= this.lineEnd;
   }
 
+  /**
+   * @return true if there is only white space from the current position to the end of the line
+   */
   public boolean isEmptyFromPos() {
-    int length = this.line.length;
-    int pos = this.currentPos;
-
-    while ((pos < length)
-        && (Arrays.binarySearch(StringHelper.WHITESPACE_CHARS, this.line[pos]) > 0)) {
-      pos++;
-    }
-
-    return pos > length;
+    return CharClass.WHITESPACE.skip(this.line, this.currentPos, this.lineEnd) >= this.lineEnd;
   }
 
   public void trimStart() {
-    this.trimStartSorted(StringHelper.WHITESPACE_CHARS);
+    this.trimStart(CharClass.WHITESPACE);
   }
 
   public void trimStart(final char[] toTrim) {
-    Arrays.sort(toTrim);
-    this.trimStartSorted(toTrim);
+    this.trimStart(new CharClass(toTrim));
   }
 
-  private void trimStartSorted(final char[] toTrim) {
-    // Move the pointer to the first non to Trim char
-    int length = this.line.length;
-
-    while ((this.currentPos < length)
-        && (Arrays.binarySearch(toTrim, this.line[this.currentPos]) >= 0)) {
-      this.currentPos++;
-    }
+  /**
+   * Moves the current position past the chars of the class
+   */
+  public void trimStart(final CharClass toTrim) {
+    this.currentPos = toTrim.skip(this.line, this.currentPos, this.lineEnd);
   }
 
   public boolean startsWith(final String str) {
     // Returns true if the string begin with str
-    if (this.currentPos >= this.lineStr.length()) {
+    if (this.currentPos >= this.lineEnd) {
       return false;
     } else {
-      return this.lineStr.substring(this.currentPos, str.length()).equalsIgnoreCase(str);
-      // return Arrays.equals(mLineStr, mCurrentPos, str.Length, str, 0, str.Length,
-      // CompareOptions.IgnoreCase) == 0;
+      return this.regionMatches(this.currentPos, str);
     }
   }
 
   public boolean startsWithTrim(final String str) {
-    int length = this.line.length;
-    int pos = this.currentPos;
+    return this.regionMatches(CharClass.WHITESPACE.skip(this.line, this.currentPos, this.lineEnd),
+        str);
+  }
+
+  private boolean regionMatches(final int pos, final String str) {
+    if ((pos + str.length()) > this.lineEnd) {
+      return false;
+    }
 
-    while ((pos < length)
-        && (Arrays.binarySearch(StringHelper.WHITESPACE_CHARS, this.line[pos]) > 0)) {
-      pos++;
+    for (int i = 0; i < str.length(); i++) {
+      char c1 = this.line[pos + i];
+      char c2 = str.charAt(i);
+      if ((c1 != c2) && (Character.toUpperCase(c1) != Character.toUpperCase(c2))) {
+        return false;
+      }
     }
 
-    return this.lineStr.substring(pos, str.length()).equalsIgnoreCase(str);
+    return true;
   }
 
   // public String readLine() throws IOException {
@@ -135,35 +154,124 @@ public final class LineInfo {
   // }
 
   public void readNextLine() throws IOException {
-    this.lineStr = this.reader.readNextLine();
-    this.line = this.lineStr.toCharArray();
+    this.reader.readNextLine(this);
+  }
 
-    this.currentPos = 0;
+  /**
+   * Reads the next line, which goes on with a quoted value of the line before
+   */
+  public void readQuotedLine() throws IOException {
+    this.reader.readNextLine(this);
+    this.inQuotes = true;
   }
 
   public String getCurrentString() {
-    return new String(this.line, this.currentPos, this.line.length - this.currentPos);
+    return new String(this.line, this.currentPos, this.lineEnd - this.currentPos);
   }
 
   public void setReader(final ForwardReader reader) {
     this.reader = reader;
   }
 
+  /**
+   * @return the position of the string (ignoring case) from the current position, or -1 if it is
+   *         not found
+   */
   public int indexOf(final String toFind) {
-    return this.lineStr.substring(this.currentPos).toUpperCase().indexOf(toFind.toUpperCase())
-        + this.currentPos;
+    for (int pos = this.currentPos; pos <= (this.lineEnd - toFind.length()); pos++) {
+      if (this.regionMatches(pos, toFind)) {
+        return pos;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * @return the position of the searched string from the current position, or -1 if it is not
+   *         found
+   */
+  public int indexOf(final CharSearch toFind) {
+    if ((this.index != null) && this.index.getSeparator().equals(toFind)) {
+      this.buildIndex();
+      return this.index.next(this.currentPos);
+    }
+    return toFind.indexOf(this.line, this.currentPos, this.lineEnd);
+  }
+
+  /**
+   * @param quoteChar the quote char
+   * @param from position to search from
+   * @return the position of the quote char, or -1 if it is not found
+   */
+  public int indexOfQuote(final char quoteChar, final int from) {
+    if ((this.index != null) && (this.index.getQuoteChar() == quoteChar)) {
+      this.buildIndex();
+      return this.index.nextQuote(from);
+    }
+    for (int pos = from; pos < this.lineEnd; pos++) {
+      if (this.line[pos] == quoteChar) {
+        return pos;
+      }
+    }
+    return -1;
+  }
+
+  private void buildIndex() {
+    if (!this.index.isBuilt()) {
+      this.index.build(this.line, this.lineStart, this.lineEnd, this.inQuotes);
+    }
   }
 
   public void reload(final String line) {
     this.line = line == null ? LineInfo.emptyChars : line.toCharArray();
     this.lineStr = line;
+    this.lineLoaded = line != null;
+    this.lineStart = 0;
+    this.lineEnd = this.line.length;
     this.currentPos = 0;
+    this.inQuotes = false;
+    if (this.index != null) {
+      this.index.reset();
+    }
   }
 
+  /**
+   * Points this line to a range of a shared buffer, no chars are copied
+   *
+   * @param buffer buffer holding the line
+   * @param start start of the line on the buffer (inclusive)
+   * @param end end of the line on the buffer (exclusive)
+   */
+  public void reload(final char[] buffer, final int start, final int end) {
+    this.line = buffer;
+    this.lineStr = null;
+    this.lineLoaded = true;
+    this.lineStart = start;
+    this.lineEnd = end;
+    this.currentPos = start;
+    this.inQuotes = false;
+    if (this.index != null) {
+      this.index.reset();
+    }
+  }
+
+  /**
+   * @return the complete line as a String (created on demand) or null if there is no line loaded
+   */
   public String getLineStr() {
+    if ((this.lineStr == null) && this.lineLoaded) {
+      this.lineStr = new String(this.line, this.lineStart, this.lineEnd - this.lineStart);
+    }
     return this.lineStr;
   }
 
+  /**
+   * @return true if a line is loaded, false if the end of the stream was reached
+   */
+  public boolean isLineLoaded() {
+    return this.lineLoaded;
+  }
+
   public void setLineStr(final String lineStr) {
     this.lineStr = lineStr;
   }
@@ -176,6 +284,21 @@ public final class LineInfo {
     this.line = line;
   }
 
+  public int getLineStart() {
+    return this.lineStart;
+  }
+
+  public int getLineEnd() {
+    return this.lineEnd;
+  }
+
+  /**
+   * @return the length of the complete line
+   */
+  public int getLineLength() {
+    return this.lineEnd - this.lineStart;
+  }
+
   public int getCurrentPos() {
     return this.currentPos;
   }
@@ -188,6 +311,52 @@ public final class LineInfo {
     return this.lineNumber;
   }
 
+  /**
+   * @return the info reused for the fields of this line, valid until the next field is extracted
+   */
+  public ExtractedInfo getExtractedInfo() {
+    return this.extracted;
+  }
+
+  /**
+   * @param end end of the field (exclusive)
+   * @return the chars from the current position to the end, in the reused info
+   */
+  public ExtractedInfo extractTo(final int end) {
+    return this.extracted.slice(this, this.currentPos, end, -1);
+  }
+
+  /**
+   * @return the chars from the current position to the end of the line, in the reused info
+   */
+  public ExtractedInfo extractRest() {
+    return this.extracted.slice(this, this.currentPos, this.lineEnd, -1);
+  }
+
+  /**
+   * @return an empty value, in the reused info
+   */
+  public ExtractedInfo extractEmpty() {
+    return this.extracted.custom("");
+  }
+
+  /**
+   * @return the separator index of the line, or null if the separators are searched field by field
+   */
+  public StructuralIndex getIndex() {
+    return this.index;
+  }
+
+  /**
+   * @param index separator index rebuilt for every line, or null to search field by field
+   */
+  public void setIndex(final StructuralIndex index) {
+    this.index = index;
+    if (index != null) {
+      index.reset();
+    }
+  }
+
   /**
    * @return the reader
    */
@@ -0,0 +1,167 @@
+/*
+ * RandomAccessEngine.java
+ *
+ * Copyright (C) 2007 Felipe Gonalves Coury <felipe.coury@gmail.com>
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation; either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program; if
+ * not, write to the Free Software Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA
+ * 02111-1307, USA.
+ */
+
+package org.coury.jfilehelpers.engines;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.coury.jfilehelpers.enums.FixedMode;
+
+/**
+ * Reads the records of a fixed length file by their position, without reading the file from the
+ * top. The records must be of exact length ({@link FixedMode#ExactLength}) and the file in US-ASCII
+ * or ISO-8859-1, so each record takes the same bytes: a read goes straight to the offset of the
+ * records asked for and decodes just them.
+ * <p>
+ * The size of the file is checked against the record length when it is opened. Records are
+ * numbered from 0, after the header (@IgnoreFirst) and before the footer (@IgnoreLast). The reads
+ * can be done from many threads at the same time; the read events and the progress are not fired.
+ *
+ * @param <T> the record type
+ */
+public class RandomAccessEngine<T> extends EngineBase<T> implements Closeable {
+
+  private RandomAccessFile file = null;
+
+  private FileLayout layout = null;
+
+  private long count = 0;
+
+  public RandomAccessEngine(final Class<T> recordClass) {
+    super(recordClass);
+    if (this.recordInfo.getRecordLength() < 0) {
+      throw new IllegalArgumentException("The record class " + recordClass.getName()
+          + " must be a fixed length record of exact length to be read by position");
+    }
+  }
+
+  /**
+   * Opens a file, closing the one opened before
+   *
+   * @param fileName the file
+   * @throws IOException
+   */
+  public void open(final String fileName) throws IOException {
+    this.close();
+
+    File f = new File(fileName);
+    Charset charset = this.encoding.charsetOf(f);
+    String name = charset.name();
+    if (!"US-ASCII".equals(name) && !"ISO-8859-1".equals(name)) {
+      throw new IllegalArgumentException("The file " + f.getName() + " is in " + name
+          + ", only files in US-ASCII or ISO-8859-1 can be read by position");
+    }
+
+    RandomAccessFile raf = new RandomAccessFile(f, "r");
+    try {
+      FileLayout fileLayout = new FileLayout(f, charset, this.encoding.bomLength(f),
+          raf.getChannel(), this.recordInfo);
+      this.count = fileLayout.countRecords(this.recordInfo.getRecordLength());
+      this.layout = fileLayout;
+      this.file = raf;
+    } finally {
+      if (this.file == null) {
+        raf.close();
+      }
+    }
+
+    this.resetFields();
+    this.setHeaderText(this.layout.getHeaderText());
+    this.setFooterText(this.layout.getFooterText());
+  }
+
+  /**
+   * @return the number of records of the file
+   */
+  public long size() {
+    this.checkOpen();
+    return this.count;
+  }
+
+  /**
+   * @param index position of the record, from 0
+   * @return the record, or null if it is skipped by the record rules (like a commented line)
+   * @throws IOException
+   */
+  public T get(final long index) throws IOException {
+    return this.getRange(index, index + 1).get(0);
+  }
+
+  /**
+   * @param from position of the first record, inclusive
+   * @param to position of the last record, exclusive
+   * @return the records, with null on the positions of the records skipped by the record rules
+   * @throws IOException
+   */
+  public List<T> getRange(final long from, final long to) throws IOException {
+    this.checkOpen();
+    if ((from < 0) || (to > this.count) || (from > to)) {
+      throw new IndexOutOfBoundsException(
+          "Records from " + from + " to " + to + " of a file with " + this.count);
+    }
+
+    FileLayout fileLayout = this.layout;
+    int stride = fileLayout.getStride();
+    long start = fileLayout.getBodyStart() + (from * stride);
+    long end = Math.min(fileLayout.getBodyEnd(), fileLayout.getBodyStart() + (to * stride));
+
+    List<T> records = new ArrayList<T>((int) (to - from));
+    ByteBuffer block = fileLayout.allocateRecords(to - from);
+    char[] chars = new char[fileLayout.getRecordLength()];
+    LineInfo line = new LineInfo(null);
+
+    long index = from;
+    for (long pos = start; pos < end; pos += block.limit()) {
+      fileLayout.readBlock(block, pos, end);
+      for (int p = 0; p < block.limit(); p += stride) {
+        try {
+          fileLayout.decodeRecord(block, p, chars, line);
+          records.add(this.recordInfo.strToRecord(line, this.codec));
+        } catch (RuntimeException e) {
+          throw new RuntimeException("Problems while reading the record at line "
+              + (fileLayout.getFirstLine() + index), e);
+        }
+        index++;
+      }
+    }
+    return records;
+  }
+
+  private void checkOpen() {
+    if (this.layout == null) {
+      throw new IllegalStateException("No file is open");
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (this.file != null) {
+      this.file.close();
+      this.file = null;
+      this.layout = null;
+      this.count = 0;
+    }
+  }
+}
@@ -19,5 +19,5 @@
 package org.coury.jfilehelpers.enums;
 
 public enum ConverterKind {
-  None, Date, Boolean, Byte, Int, Float, Double;
+  None, Date, Boolean, Byte, Short, Int, Long, Float, Double, Decimal, Enum;
 }
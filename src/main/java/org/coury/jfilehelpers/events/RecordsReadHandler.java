@@ -0,0 +1,39 @@
+/*
+ * RecordsReadHandler.java
+ *
+ * Copyright (C) 2007 Felipe Gonalves Coury <felipe.coury@gmail.com>
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation; either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program; if
+ * not, write to the Free Software Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA
+ * 02111-1307, USA.
+ */
+
+package org.coury.jfilehelpers.events;
+
+import java.util.List;
+
+import org.coury.jfilehelpers.engines.EngineBase;
+
+/**
+ * Receives the records of a file read on many threads, a chunk of the file at a time, see
+ * {@link org.coury.jfilehelpers.engines.FileHelperEngine#readFileParallel(String,
+ * RecordsReadHandler)}.
+ *
+ * @param <T> the data record type
+ */
+public interface RecordsReadHandler<T> {
+
+  /**
+   * @param engine the engine reading the file
+   * @param records the records of a chunk, in file order
+   */
+  public void handleRecordsRead(EngineBase<T> engine, List<T> records);
+}
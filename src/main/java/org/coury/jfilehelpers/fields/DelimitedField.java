@@ -26,55 +26,52 @@ import org.coury.jfilehelpers.engines.LineInfo;
 import org.coury.jfilehelpers.enums.MultilineMode;
 import org.coury.jfilehelpers.enums.QuoteMode;
 import org.coury.jfilehelpers.enums.TrimMode;
+import org.coury.jfilehelpers.helpers.CharSearch;
 import org.coury.jfilehelpers.helpers.StringHelper;
 
 public class DelimitedField extends FieldBase {
 
   private String separator;
 
-  private final char quoteChar = '\0';
+  private CharSearch separatorSearch;
 
-  private QuoteMode quoteMode;
+  private char quoteChar = '\0';
 
-  private final MultilineMode quoteMultiline = MultilineMode.AllowForBoth;
+  private QuoteMode quoteMode = QuoteMode.AlwaysQuoted;
+
+  private MultilineMode quoteMultiline = MultilineMode.AllowForBoth;
 
   public DelimitedField(final Field fi, final String sep) {
     super(fi);
     this.separator = sep;
+    this.separatorSearch = new CharSearch(sep);
+    this.charsToDiscard = sep.length();
   }
 
   @Override
   protected ExtractedInfo extractFieldString(final LineInfo line) {
     if (this.isOptional() && line.isEol()) {
-      return ExtractedInfo.Empty;
-    }
-
-    if (this.isLast()) {
-      this.charsToDiscard = 0;
-    } else {
-      this.charsToDiscard = this.separator.length();
+      return line.extractEmpty();
     }
 
     if (this.quoteChar == '\0') {
       return this.basicExtractString(line);
     } else {
-      // TODO: UnComment and Fix
-
       if ((this.getTrimMode() == TrimMode.Both) || (this.getTrimMode() == TrimMode.Left)) {
-        line.trimStart(this.getTrimChars());
+        line.trimStart(this.getTrimClass());
       }
 
-      String quotedStr = Character.toString(this.quoteChar);
-      if (line.startsWith(quotedStr)) {
+      if (!line.isEol() && (line.getLine()[line.getCurrentPos()] == this.quoteChar)) {
         try {
-          return StringHelper.extractQuotedString(line, this.quoteChar,
-              (this.quoteMultiline == MultilineMode.AllowForBoth)
-                  || (this.quoteMultiline == MultilineMode.AllowForRead));
+          return this.checkAfterQuote(line, StringHelper.extractQuotedString(line,
+              this.quoteChar, (this.quoteMultiline == MultilineMode.AllowForBoth)
+                  || (this.quoteMultiline == MultilineMode.AllowForRead)));
         } catch (IOException e) {
           throw new RuntimeException(
               "IOException extracting information from field '" + this.getFieldInfo().getName());
         }
       } else {
+        String quotedStr = Character.toString(this.quoteChar);
         if ((this.quoteMode == QuoteMode.OptionalForBoth)
             || (this.quoteMode == QuoteMode.OptionalForRead)) {
           return this.basicExtractString(line);
@@ -94,15 +91,53 @@ public class DelimitedField extends FieldBase {
     }
   }
 
+  /**
+   * Checks that only the separator (or the end of the line) follows the closing quote and moves
+   * the field end to it
+   */
+  private ExtractedInfo checkAfterQuote(final LineInfo line, final ExtractedInfo info) {
+    boolean slice = info.getCustomExtractedString() == null;
+    int pos = slice ? info.getNextPos() : line.getCurrentPos();
+
+    if ((this.getTrimMode() == TrimMode.Both) || (this.getTrimMode() == TrimMode.Right)) {
+      pos = this.getTrimClass().skip(line.getLine(), pos, line.getLineEnd());
+    }
+
+    if (pos < line.getLineEnd()) {
+      int sepEnd = Math.min(pos + this.separator.length(), line.getLineEnd());
+      if (this.isLast() || (this.separatorSearch.indexOf(line.getLine(), pos, sepEnd) != pos)) {
+        throw new IllegalArgumentException("The field '" + this.getFieldInfo().getName()
+            + "' has text after the closing quote at line " + line.getLineNumber()
+            + ". Field String: " + new String(line.getLine(), pos, line.getLineEnd() - pos));
+      }
+    } else if (!this.isLast() && !this.isNextOptional()) {
+      throw new IllegalArgumentException(this.missingSeparatorMessage(line));
+    }
+
+    if (slice) {
+      info.setNextPos(pos);
+    } else {
+      line.setCurrentPos(pos);
+    }
+    return info;
+  }
+
+  private String missingSeparatorMessage(final LineInfo line) {
+    return "The delimiter '" + this.separator + "' " + "can't be found after the field '"
+        + this.getFieldInfo().getName() + "' at line " + line.getLineNumber()
+        + " (the record has less fields, the delimiter "
+        + "is wrong or the next field must be marked " + "as optional).";
+  }
+
   private ExtractedInfo basicExtractString(final LineInfo line) {
     ExtractedInfo res;
 
     if (this.isLast()) {
-      res = new ExtractedInfo(line);
+      res = line.extractRest();
     } else {
       int sepPos;
 
-      sepPos = line.indexOf(this.separator);
+      sepPos = line.indexOf(this.separatorSearch);
 
       if (sepPos == -1) {
         if (this.isNextOptional() == false) {
@@ -113,29 +148,36 @@ public class DelimitedField extends FieldBase {
                 + " is empty. Maybe you need to use the annotation "
                 + "[@IgnoreEmptyLines] in your record class.";
           } else {
-            msg = "The delimiter '" + this.separator + "' " + "can't be found after the field '"
-                + this.getFieldInfo().getName() + "' at line " + line.getLineNumber()
-                + " (the record has less fields, the delimiter "
-                + "is wrong or the next field must be marked " + "as optional).";
+            msg = this.missingSeparatorMessage(line);
           }
 
           // throw new FileHelpersException(msg);
           throw new IllegalArgumentException(msg);
         } else {
-          sepPos = line.getLine().length - 1;
+          // the next fields are missing, this one takes the rest of the line
+          sepPos = line.getLineEnd();
         }
       }
 
-      res = new ExtractedInfo(line, sepPos);
+      res = line.extractTo(sepPos);
     }
     return res;
   }
 
   @Override
   protected void createFieldString(final StringBuffer sb, final Object fieldValue) {
+    if ((this.quoteChar == '\0') && this.isPlainText()) {
+      // nothing to check on the text, it goes straight to the buffer
+      this.appendFieldString(sb, fieldValue);
+      if (!this.isLast()) {
+        sb.append(this.separator);
+      }
+      return;
+    }
+
     String field = super.baseFieldString(fieldValue);
 
-    boolean hasNewLine = field.indexOf(StringHelper.NEW_LINE) >= 0;
+    boolean hasNewLine = (field.indexOf('\n') >= 0) || (field.indexOf('\r') >= 0);
 
     // If have a new line and this is not allowed throw an exception
     if (hasNewLine && ((this.quoteMultiline == MultilineMode.AllowForRead)
@@ -150,13 +192,14 @@ public class DelimitedField extends FieldBase {
     // Add Quotes If:
     // - optional == false
     // - is optional and contains the separator
+    // - is optional and contains the quote char
     // - is optional and contains a new line
 
     if ((this.quoteChar != '\0') && ((this.quoteMode == QuoteMode.AlwaysQuoted)
         || (this.quoteMode == QuoteMode.OptionalForRead)
         || (((this.quoteMode == QuoteMode.OptionalForWrite)
             || (this.quoteMode == QuoteMode.OptionalForBoth))
-            && (field.indexOf(this.separator) >= 0))
+            && ((field.indexOf(this.separator) >= 0) || (field.indexOf(this.quoteChar) >= 0)))
         || hasNewLine)) {
       StringHelper.createQuotedString(sb, field, this.quoteChar);
     } else {
@@ -168,12 +211,51 @@ public class DelimitedField extends FieldBase {
     }
   }
 
+  @Override
+  public void setLast(final boolean last) {
+    super.setLast(last);
+    // the descriptor is shared between engines, so the separator length is not computed on reads
+    this.charsToDiscard = last ? 0 : this.separator.length();
+  }
+
+  public char getQuoteChar() {
+    return this.quoteChar;
+  }
+
+  public void setQuoteChar(final char quoteChar) {
+    this.quoteChar = quoteChar;
+  }
+
+  public QuoteMode getQuoteMode() {
+    return this.quoteMode;
+  }
+
+  public void setQuoteMode(final QuoteMode quoteMode) {
+    this.quoteMode = quoteMode;
+  }
+
+  public MultilineMode getQuoteMultiline() {
+    return this.quoteMultiline;
+  }
+
+  public void setQuoteMultiline(final MultilineMode quoteMultiline) {
+    this.quoteMultiline = quoteMultiline;
+  }
+
   public String getSeparator() {
     return this.separator;
   }
 
+  /**
+   * @return the search used to find the separator on the line
+   */
+  public CharSearch getSeparatorSearch() {
+    return this.separatorSearch;
+  }
+
   public void setSeparator(final String separator) {
     this.separator = separator;
+    this.separatorSearch = new CharSearch(separator);
     if (this.isLast()) {
       this.charsToDiscard = 0;
     } else {
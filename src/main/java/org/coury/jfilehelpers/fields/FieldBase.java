@@ -20,26 +20,60 @@ package org.coury.jfilehelpers.fields;
 
 import java.io.IOException;
 import java.lang.reflect.Field;
+import java.security.AccessController;
+import java.security.PrivilegedAction;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 import org.coury.jfilehelpers.annotations.FieldConverter;
 import org.coury.jfilehelpers.annotations.FieldNullValue;
 import org.coury.jfilehelpers.converters.ConvertHelpers;
 import org.coury.jfilehelpers.converters.ConverterBase;
+import org.coury.jfilehelpers.converters.LookupTable;
 import org.coury.jfilehelpers.core.ExtractedInfo;
 import org.coury.jfilehelpers.engines.LineInfo;
 import org.coury.jfilehelpers.enums.TrimMode;
+import org.coury.jfilehelpers.helpers.CharClass;
+import org.coury.jfilehelpers.helpers.NumberHelper;
 import org.coury.jfilehelpers.helpers.StringHelper;
+import org.coury.jfilehelpers.helpers.StringPool;
 
 public abstract class FieldBase {
 
+  // texts of the primitive boolean fields without a converter
+  private static final LookupTable BOOLEANS;
+
+  static {
+    Map<String, Boolean> booleans = new LinkedHashMap<String, Boolean>();
+    booleans.put("true", Boolean.TRUE);
+    booleans.put("1", Boolean.TRUE);
+    booleans.put("false", Boolean.FALSE);
+    booleans.put("0", Boolean.FALSE);
+    BOOLEANS = new LookupTable(booleans, true);
+  }
+
+  /**
+   * Kind of value held by the field, worked out once from the field type
+   */
+  private enum ValueKind {
+    Object, Int, Long, Double, Float, Short, Byte, Char, Boolean
+  }
+
   private boolean stringField;
 
+  private ValueKind valueKind;
+
+  private boolean primitiveParsed;
+
   private Field fieldInfo;
 
   private TrimMode trimMode = TrimMode.None;
 
   private char[] trimChars = null;
 
+  // table of the trim chars, built when they are set
+  private CharClass trimClass = CharClass.WHITESPACE;
+
   private boolean isOptional = false;
 
   private boolean nextOptional = false;
@@ -60,24 +94,242 @@ public abstract class FieldBase {
 
   private ConverterBase convertProvider;
 
+  private StringPool stringPool = null;
+
   public FieldBase(final Field field) {
     this.fieldInfo = field;
+    FieldBase.makeAccessible(field);
     this.stringField = (field.getType().equals(String.class));
 
     FieldConverter fc = field.getAnnotation(FieldConverter.class);
     if (fc == null) {
       this.convertProvider = ConvertHelpers.getDefaultConverter(field);
+    } else if (fc.converterClass() != ConverterBase.class) {
+      this.convertProvider = ConvertHelpers.createConverter(fc.converterClass(), fc.format());
     } else {
-      this.convertProvider = ConvertHelpers.getConverter(fc.converter(), fc.format());
+      this.convertProvider = ConvertHelpers.getConverter(fc.converter(), fc.format(), field);
     }
 
     FieldNullValue fn = field.getAnnotation(FieldNullValue.class);
     if (fn != null) {
       this.nullValue = fn.value();
     }
+
+    this.initValueKind();
+  }
+
+  private void initValueKind() {
+    Class<?> type = this.fieldInfo.getType();
+
+    if ((type == int.class) || (type == Integer.class)) {
+      this.valueKind = ValueKind.Int;
+    } else if ((type == long.class) || (type == Long.class)) {
+      this.valueKind = ValueKind.Long;
+    } else if ((type == double.class) || (type == Double.class)) {
+      this.valueKind = ValueKind.Double;
+    } else if ((type == float.class) || (type == Float.class)) {
+      this.valueKind = ValueKind.Float;
+    } else if ((type == short.class) || (type == Short.class)) {
+      this.valueKind = ValueKind.Short;
+    } else if ((type == byte.class) || (type == Byte.class)) {
+      this.valueKind = ValueKind.Byte;
+    } else if ((type == char.class) || (type == Character.class)) {
+      this.valueKind = ValueKind.Char;
+    } else if ((type == boolean.class) || (type == Boolean.class)) {
+      this.valueKind = ValueKind.Boolean;
+    } else {
+      this.valueKind = ValueKind.Object;
+    }
+
+    // primitive fields without a converter are parsed from the line chars and assigned unboxed
+    this.primitiveParsed = type.isPrimitive() && (this.convertProvider == null);
   }
 
   public Object extractValue(final LineInfo line) throws IOException {
+    ExtractedInfo info = this.extractInfo(line);
+    return this.assignFromString(info, line);
+  }
+
+  /**
+   * Extracts the value of this field from the line and sets it on the record. Primitive fields are
+   * parsed and assigned without boxing the value.
+   *
+   * @param line line being parsed
+   * @param record the record object
+   * @throws IOException
+   */
+  public void extractInto(final LineInfo line, final Object record) throws IOException {
+    if (!this.primitiveParsed) {
+      this.setValue(record, this.extractValue(line));
+      return;
+    }
+
+    ExtractedInfo info = this.extractInfo(line);
+    if (!this.trimPrimitive(info)) {
+      // nothing to parse, the null value (if any) is assigned the generic way
+      this.setValue(record, this.getNullValue());
+      return;
+    }
+
+    try {
+      switch (this.valueKind) {
+        case Int:
+          this.fieldInfo.setInt(record, (int) this.parseLong(info, Integer.MIN_VALUE,
+              Integer.MAX_VALUE));
+          break;
+        case Long:
+          this.fieldInfo.setLong(record, this.parseLong(info, Long.MIN_VALUE, Long.MAX_VALUE));
+          break;
+        case Double:
+          this.fieldInfo.setDouble(record, this.parseDouble(info));
+          break;
+        case Float:
+          this.fieldInfo.setFloat(record, this.parseFloat(info));
+          break;
+        case Short:
+          this.fieldInfo.setShort(record, (short) this.parseLong(info, Short.MIN_VALUE,
+              Short.MAX_VALUE));
+          break;
+        case Byte:
+          this.fieldInfo.setByte(record, (byte) this.parseLong(info, Byte.MIN_VALUE,
+              Byte.MAX_VALUE));
+          break;
+        case Char:
+          this.fieldInfo.setChar(record, this.parseChar(info));
+          break;
+        case Boolean:
+          this.fieldInfo.setBoolean(record, this.parseBoolean(info));
+          break;
+        default:
+          break;
+      }
+    } catch (IllegalAccessException e) {
+      throw new RuntimeException("The field " + this.fieldInfo.getName() + " can't be accessed", e);
+    }
+  }
+
+  /**
+   * Indicates if the value of this field is a primitive parsed straight from the line, so the
+   * <code>extractInt</code> like methods can be used in place of {@link #extractValue(LineInfo)}
+   *
+   * @return true for primitive fields without a converter
+   */
+  public boolean isPrimitiveParsed() {
+    return this.primitiveParsed;
+  }
+
+  /**
+   * Extracts an int field, see {@link #isPrimitiveParsed()}
+   *
+   * @param line line being parsed
+   * @param current current value of the field, kept if the field is empty
+   * @return the field value
+   * @throws IOException
+   */
+  public int extractInt(final LineInfo line, final int current) throws IOException {
+    ExtractedInfo info = this.extractInfo(line);
+    return this.trimPrimitive(info)
+        ? (int) this.parseLong(info, Integer.MIN_VALUE, Integer.MAX_VALUE) : current;
+  }
+
+  /**
+   * Extracts a long field, see {@link #isPrimitiveParsed()}
+   *
+   * @param line line being parsed
+   * @param current current value of the field, kept if the field is empty
+   * @return the field value
+   * @throws IOException
+   */
+  public long extractLong(final LineInfo line, final long current) throws IOException {
+    ExtractedInfo info = this.extractInfo(line);
+    return this.trimPrimitive(info) ? this.parseLong(info, Long.MIN_VALUE, Long.MAX_VALUE)
+        : current;
+  }
+
+  /**
+   * Extracts a double field, see {@link #isPrimitiveParsed()}
+   *
+   * @param line line being parsed
+   * @param current current value of the field, kept if the field is empty
+   * @return the field value
+   * @throws IOException
+   */
+  public double extractDouble(final LineInfo line, final double current) throws IOException {
+    ExtractedInfo info = this.extractInfo(line);
+    return this.trimPrimitive(info) ? this.parseDouble(info) : current;
+  }
+
+  /**
+   * Extracts a float field, see {@link #isPrimitiveParsed()}
+   *
+   * @param line line being parsed
+   * @param current current value of the field, kept if the field is empty
+   * @return the field value
+   * @throws IOException
+   */
+  public float extractFloat(final LineInfo line, final float current) throws IOException {
+    ExtractedInfo info = this.extractInfo(line);
+    return this.trimPrimitive(info) ? this.parseFloat(info) : current;
+  }
+
+  /**
+   * Extracts a short field, see {@link #isPrimitiveParsed()}
+   *
+   * @param line line being parsed
+   * @param current current value of the field, kept if the field is empty
+   * @return the field value
+   * @throws IOException
+   */
+  public short extractShort(final LineInfo line, final short current) throws IOException {
+    ExtractedInfo info = this.extractInfo(line);
+    return this.trimPrimitive(info)
+        ? (short) this.parseLong(info, Short.MIN_VALUE, Short.MAX_VALUE) : current;
+  }
+
+  /**
+   * Extracts a byte field, see {@link #isPrimitiveParsed()}
+   *
+   * @param line line being parsed
+   * @param current current value of the field, kept if the field is empty
+   * @return the field value
+   * @throws IOException
+   */
+  public byte extractByte(final LineInfo line, final byte current) throws IOException {
+    ExtractedInfo info = this.extractInfo(line);
+    return this.trimPrimitive(info)
+        ? (byte) this.parseLong(info, Byte.MIN_VALUE, Byte.MAX_VALUE) : current;
+  }
+
+  /**
+   * Extracts a char field, see {@link #isPrimitiveParsed()}
+   *
+   * @param line line being parsed
+   * @param current current value of the field, kept if the field is empty
+   * @return the field value
+   * @throws IOException
+   */
+  public char extractChar(final LineInfo line, final char current) throws IOException {
+    ExtractedInfo info = this.extractInfo(line);
+    return this.trimPrimitive(info) ? this.parseChar(info) : current;
+  }
+
+  /**
+   * Extracts a boolean field, see {@link #isPrimitiveParsed()}
+   *
+   * @param line line being parsed
+   * @param current current value of the field, kept if the field is empty
+   * @return the field value
+   * @throws IOException
+   */
+  public boolean extractBoolean(final LineInfo line, final boolean current) throws IOException {
+    ExtractedInfo info = this.extractInfo(line);
+    return this.trimPrimitive(info) ? this.parseBoolean(info) : current;
+  }
+
+  /**
+   * Finds the chars of this field on the line and moves the line past them
+   */
+  private ExtractedInfo extractInfo(final LineInfo line) throws IOException {
     if (this.inNewLine) {
       if (!line.isEmptyFromPos()) {
         // throw new BadUsageException("Text '" + line.CurrentString +
@@ -88,9 +340,9 @@ public abstract class FieldBase {
             + " (this is not allowed when you use [FieldInNewLine])");
       }
 
-      line.reload(line.getReader().readNextLine());
+      line.readNextLine();
 
-      if (line.getLineStr() == null) {
+      if (!line.isLineLoaded()) {
         // throw new BadUsageException("End of stream found parsing the field " +
         // fieldInfo.getName() +
         // ". Please check the class record.");
@@ -101,12 +353,113 @@ public abstract class FieldBase {
 
     ExtractedInfo info = this.extractFieldString(line);
     if (info.getCustomExtractedString() == null) {
-      line.setCurrentPos(info.getExtractedTo() + 1);
+      line.setCurrentPos(info.getNextPos());
     }
 
-    line.setCurrentPos(line.getCurrentPos() + this.charsToDiscard);
+    // a field that took the rest of the line has no separator to discard
+    line.setCurrentPos(Math.min(line.getCurrentPos() + this.charsToDiscard, line.getLineEnd()));
 
-    return this.assignFromString(info, line);
+    return info;
+  }
+
+  /**
+   * Trims the chars of a primitive field
+   *
+   * @return false if the field is empty
+   */
+  private boolean trimPrimitive(final ExtractedInfo info) {
+    this.trim(info);
+    info.trimBoth(CharClass.WHITESPACE);
+    return info.length() > 0;
+  }
+
+  private long parseLong(final ExtractedInfo info, final long min, final long max) {
+    if (info.getCustomExtractedString() != null) {
+      char[] chars = info.getCustomExtractedString().toCharArray();
+      return NumberHelper.parseLong(chars, 0, chars.length, min, max);
+    }
+    return NumberHelper.parseLong(info.getLine().getLine(), info.getExtractedFrom(),
+        info.getExtractedTo() + 1, min, max);
+  }
+
+  private double parseDouble(final ExtractedInfo info) {
+    if (info.getCustomExtractedString() != null) {
+      return Double.parseDouble(info.getCustomExtractedString());
+    }
+    return NumberHelper.parseDouble(info.getLine().getLine(), info.getExtractedFrom(),
+        info.getExtractedTo() + 1, '.', '\0');
+  }
+
+  private float parseFloat(final ExtractedInfo info) {
+    if (info.getCustomExtractedString() != null) {
+      return Float.parseFloat(info.getCustomExtractedString());
+    }
+    return NumberHelper.parseFloat(info.getLine().getLine(), info.getExtractedFrom(),
+        info.getExtractedTo() + 1, '.', '\0');
+  }
+
+  private char parseChar(final ExtractedInfo info) {
+    if (info.getCustomExtractedString() != null) {
+      return info.getCustomExtractedString().charAt(0);
+    }
+    return info.getLine().getLine()[info.getExtractedFrom()];
+  }
+
+  private boolean parseBoolean(final ExtractedInfo info) {
+    Object value;
+    if (info.getCustomExtractedString() == null) {
+      value = FieldBase.BOOLEANS.get(info.getLine().getLine(), info.getExtractedFrom(),
+          info.getExtractedFrom() + info.length());
+    } else {
+      char[] chars = info.getCustomExtractedString().toCharArray();
+      value = FieldBase.BOOLEANS.get(chars, 0, chars.length);
+    }
+    if (value == null) {
+      throw new RuntimeException("Error converting: " + info.extractedString() + " to boolean");
+    }
+    return ((Boolean) value).booleanValue();
+  }
+
+  /**
+   * Sets the value of this field on a record object. The field was made accessible when this
+   * descriptor was created, so no lookup happens here.
+   *
+   * @param record the record object
+   * @param value the value to be assigned
+   */
+  public void setValue(final Object record, final Object value) {
+    try {
+      this.fieldInfo.set(record, value);
+    } catch (IllegalArgumentException e) {
+      // values that can't be held by the field (like a null for a primitive) are left out
+    } catch (IllegalAccessException e) {
+      throw new RuntimeException("The field " + this.fieldInfo.getName() + " can't be accessed", e);
+    }
+  }
+
+  /**
+   * Gets the value of this field from a record object
+   *
+   * @param record the record object
+   * @return the field value
+   */
+  public Object getValue(final Object record) {
+    try {
+      return this.fieldInfo.get(record);
+    } catch (IllegalAccessException e) {
+      throw new RuntimeException("The field " + this.fieldInfo.getName() + " can't be accessed", e);
+    }
+  }
+
+  private static void makeAccessible(final Field field) {
+    AccessController.doPrivileged(new PrivilegedAction<Object>() {
+
+      @Override
+      public Object run() {
+        field.setAccessible(true);
+        return null;
+      }
+    });
   }
 
   public Object createValueForField(final Object fieldValue) {
@@ -148,32 +501,55 @@ public abstract class FieldBase {
     }
   }
 
-  private Object assignFromString(final ExtractedInfo fieldString, final LineInfo line) {
-    Object val;
+  /**
+   * Indicates if the converter of this field can append the value text straight to the record
+   * buffer with {@link #appendFieldString(StringBuffer, Object)}
+   */
+  protected boolean isPlainText() {
+    return (this.convertProvider != null) && this.convertProvider.isPlainText();
+  }
+
+  protected void appendFieldString(final StringBuffer sb, final Object fieldValue) {
+    this.convertProvider.fieldToString(sb, fieldValue);
+  }
 
+  private void trim(final ExtractedInfo fieldString) {
     switch (this.trimMode) {
       case None:
         break;
 
       case Both:
-        fieldString.trimBoth(this.trimChars);
+        fieldString.trimBoth(this.trimClass);
         break;
 
       case Left:
-        fieldString.trimStart(this.trimChars);
+        fieldString.trimStart(this.trimClass);
         break;
 
       case Right:
-        fieldString.TrimEnd(this.trimChars);
+        fieldString.trimEnd(this.trimClass);
         break;
     }
+  }
+
+  private Object assignFromString(final ExtractedInfo fieldString, final LineInfo line) {
+    Object val;
+
+    this.trim(fieldString);
 
     if (this.convertProvider == null) {
       if (this.stringField) {
-        val = fieldString.extractedString();
+        if (this.stringPool == null) {
+          val = fieldString.extractedString();
+        } else if (fieldString.getCustomExtractedString() == null) {
+          val = this.stringPool.intern(fieldString.getLine().getLine(),
+              fieldString.getExtractedFrom(), fieldString.length());
+        } else {
+          val = this.stringPool.intern(fieldString.getCustomExtractedString());
+        }
       } else {
         // Trim it to use Convert.ChangeType
-        fieldString.trimBoth(StringHelper.WHITESPACE_CHARS);
+        fieldString.trimBoth(CharClass.WHITESPACE);
 
         if (fieldString.length() == 0) {
           // Empty stand for null
@@ -186,11 +562,15 @@ public abstract class FieldBase {
       }
     } else {
       if ((this.convertProvider.isCustomNullHandling() == false)
-          && fieldString.hasOnlyThisChars(StringHelper.WHITESPACE_CHARS)) {
+          && fieldString.hasOnlyThisChars(CharClass.WHITESPACE)) {
         val = this.getNullValue();
       } else {
-        String from = fieldString.extractedString();
-        val = this.convertProvider.stringToField(from);
+        if (fieldString.getCustomExtractedString() == null) {
+          // converts the chars in place, without a String for the value
+          val = this.convertProvider.charsToField(fieldString.toCharSlice());
+        } else {
+          val = this.convertProvider.stringToField(fieldString.getCustomExtractedString());
+        }
 
         if (val == null) {
           val = this.getNullValue();
@@ -203,19 +583,34 @@ public abstract class FieldBase {
 
   @SuppressWarnings("unchecked")
   private Object changeType(final String s, final Field fieldInfo) {
-    if (fieldInfo.getType().getName().equals("int")) {
-      return Integer.parseInt(s);
-    }
-    if (fieldInfo.getType().getName().equals("double")) {
-      return Double.parseDouble(s);
-    }
-    if (fieldInfo.getType().getName().equals("float")) {
-      return Float.parseFloat(s);
+    switch (this.valueKind) {
+      case Int:
+        return Integer.parseInt(s);
+      case Long:
+        return Long.parseLong(s);
+      case Double:
+        return Double.parseDouble(s);
+      case Float:
+        return Float.parseFloat(s);
+      case Short:
+        return Short.parseShort(s);
+      case Byte:
+        return Byte.parseByte(s);
+      case Char:
+        return s.charAt(0);
+      case Boolean:
+        if (s.equalsIgnoreCase("true") || s.equals("1")) {
+          return Boolean.TRUE;
+        } else if (s.equalsIgnoreCase("false") || s.equals("0")) {
+          return Boolean.FALSE;
+        }
+        throw new RuntimeException("Error converting: " + s + " to boolean");
+      default:
+        break;
     }
     if (fieldInfo.getType().isEnum()) {
       Object ret = null;
       try {
-        System.out.println(s);
         ret = Enum.valueOf((Class<Enum>) fieldInfo.getType(), s);
       } catch (IllegalArgumentException e) {
       }
@@ -251,6 +646,8 @@ public abstract class FieldBase {
 
   public void setFieldInfo(final Field fieldInfo) {
     this.fieldInfo = fieldInfo;
+    FieldBase.makeAccessible(fieldInfo);
+    this.initValueKind();
   }
 
   public TrimMode getTrimMode() {
@@ -267,6 +664,14 @@ public abstract class FieldBase {
 
   public void setTrimChars(final char[] trimChars) {
     this.trimChars = trimChars;
+    this.trimClass = trimChars == null ? CharClass.WHITESPACE : new CharClass(trimChars);
+  }
+
+  /**
+   * @return the trim chars as a char class
+   */
+  public CharClass getTrimClass() {
+    return this.trimClass;
   }
 
   public boolean isOptional() {
@@ -339,5 +744,17 @@ public abstract class FieldBase {
 
   public void setConvertProvider(final ConverterBase converterProvider) {
     this.convertProvider = converterProvider;
+    this.initValueKind();
+  }
+
+  /**
+   * @return the pool of the values of this String field, or null if they are not pooled
+   */
+  public StringPool getStringPool() {
+    return this.stringPool;
+  }
+
+  public void setStringPool(final StringPool stringPool) {
+    this.stringPool = stringPool;
   }
 }
@@ -25,9 +25,16 @@ import org.coury.jfilehelpers.annotations.FieldAlign;
 import org.coury.jfilehelpers.annotations.FieldDelimiter;
 import org.coury.jfilehelpers.annotations.FieldFixedLength;
 import org.coury.jfilehelpers.annotations.FieldIgnored;
+import org.coury.jfilehelpers.annotations.FieldImpliedDecimal;
+import org.coury.jfilehelpers.annotations.FieldIntern;
+import org.coury.jfilehelpers.annotations.FieldMemoized;
 import org.coury.jfilehelpers.annotations.FieldOptional;
+import org.coury.jfilehelpers.annotations.FieldQuoted;
 import org.coury.jfilehelpers.annotations.FieldTrim;
 import org.coury.jfilehelpers.annotations.FixedLengthRecord;
+import org.coury.jfilehelpers.converters.ConvertHelpers;
+import org.coury.jfilehelpers.converters.MemoizingConverter;
+import org.coury.jfilehelpers.helpers.StringPool;
 
 public class FieldFactory {
 
@@ -79,6 +86,13 @@ public class FieldFactory {
 
       res = new FixedLengthField(fi, attb.value(), FieldAlignBean.createFromAnnotation(align, fi),
           fixedLengthRecord.fixedMode());
+
+      if (fi.isAnnotationPresent(FieldImpliedDecimal.class)) {
+        res.setConvertProvider(ConvertHelpers.getImpliedDecimalConverter(fi, attb.value()));
+      }
+    } else if (fi.isAnnotationPresent(FieldImpliedDecimal.class)) {
+      throw new IllegalArgumentException(
+          "The FieldImpliedDecimal is only for the FixedLength fields not for the delimited ones.");
     } else if (fi.isAnnotationPresent(FieldDelimiter.class)) {
       if (recordClass.isAnnotationPresent(FixedLengthRecord.class)) {
         throw new IllegalArgumentException(
@@ -97,6 +111,22 @@ public class FieldFactory {
       res = new DelimitedField(fi, delimiter);
     }
 
+    FieldQuoted fq = fi.getAnnotation(FieldQuoted.class);
+    if (res instanceof DelimitedField) {
+      if (fq == null) {
+        fq = (FieldQuoted) recordClass.getAnnotation(FieldQuoted.class);
+      }
+      if (fq != null) {
+        DelimitedField df = (DelimitedField) res;
+        df.setQuoteChar(fq.quoteChar());
+        df.setQuoteMode(fq.quoteMode());
+        df.setQuoteMultiline(fq.multiline());
+      }
+    } else if (fq != null) {
+      throw new IllegalArgumentException(
+          "The FieldQuoted is only for the delimited fields not for the FixedLength ones.");
+    }
+
     FieldTrim ft = fi.getAnnotation(FieldTrim.class);
     if (ft != null) {
       res.setTrimMode(ft.trimMode());
@@ -105,6 +135,24 @@ public class FieldFactory {
 
     res.setOptional(fi.isAnnotationPresent(FieldOptional.class));
 
+    FieldMemoized fm = fi.getAnnotation(FieldMemoized.class);
+    if ((fm != null) && (res.getConvertProvider() != null)) {
+      if (!res.getConvertProvider().isImmutableResult()) {
+        throw new IllegalArgumentException("The FieldMemoized is only for converters returning "
+            + "immutable values, the converter of " + fi.getName() + " does not.");
+      }
+      res.setConvertProvider(new MemoizingConverter(res.getConvertProvider(), fm.value()));
+    }
+
+    FieldIntern fs = fi.getAnnotation(FieldIntern.class);
+    if (fs != null) {
+      if (!res.isStringField()) {
+        throw new IllegalArgumentException(
+            "The FieldIntern is only for String fields, not for " + fi.getName() + ".");
+      }
+      res.setStringPool(fs.shared() ? StringPool.getShared() : new StringPool(fs.value()));
+    }
+
     return res;
   }
 }
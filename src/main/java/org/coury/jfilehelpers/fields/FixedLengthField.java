@@ -24,7 +24,7 @@ import org.coury.jfilehelpers.core.ExtractedInfo;
 import org.coury.jfilehelpers.engines.LineInfo;
 import org.coury.jfilehelpers.enums.AlignMode;
 import org.coury.jfilehelpers.enums.FixedMode;
-import org.coury.jfilehelpers.helpers.StringHelper;
+import org.coury.jfilehelpers.helpers.CharClass;
 
 public class FixedLengthField extends FieldBase {
 
@@ -46,7 +46,7 @@ public class FixedLengthField extends FieldBase {
   protected ExtractedInfo extractFieldString(final LineInfo line) {
     if (line.getCurrentLength() == 0) {
       if (this.isOptional()) {
-        return ExtractedInfo.Empty;
+        return line.extractEmpty();
       } else {
         throw new IllegalArgumentException("End Of Line found processing the field: "
             + this.getFieldInfo().getName() + " at line " + line.getLineNumber() + ". "
@@ -59,7 +59,7 @@ public class FixedLengthField extends FieldBase {
     if (line.getCurrentLength() < this.fieldLength) {
       if ((this.fixedMode == FixedMode.AllowLessChars)
           || (this.fixedMode == FixedMode.AllowVariableLength)) {
-        res = new ExtractedInfo(line);
+        res = line.extractRest();
       } else {
         throw new IllegalArgumentException("The string '" + line.getCurrentString() + "' (length "
             + line.getCurrentLength() + ") at line " + line.getLineNumber()
@@ -76,7 +76,7 @@ public class FixedLengthField extends FieldBase {
           + " (" + this.fieldLength + "). "
           + "You can use the @FixedLengthRecord(fixedMode=FixedMode.AllowMoreChars) to avoid this problem.");
     } else {
-      res = new ExtractedInfo(line, line.getCurrentPos() + this.fieldLength);
+      res = line.extractTo(line.getCurrentPos() + this.fieldLength);
     }
 
     return res;
@@ -84,34 +84,36 @@ public class FixedLengthField extends FieldBase {
 
   @Override
   protected void createFieldString(final StringBuffer sb, final Object fieldValue) {
-    String field = super.baseFieldString(fieldValue);
-    field = StringHelper.trimBoth(field, StringHelper.WHITESPACE_CHARS);
+    int start = sb.length();
+    if (this.isPlainText()) {
+      this.appendFieldString(sb, fieldValue);
+    } else {
+      String field = super.baseFieldString(fieldValue);
+      sb.append(CharClass.WHITESPACE.trim(field));
+    }
 
-    if (field.length() > this.fieldLength) {
-      field = field.substring(0, this.fieldLength);
-      // sb.Length = length + this.mFieldLength;
+    // aligns the text written to the buffer
+    int length = sb.length() - start;
+    if (length > this.fieldLength) {
+      sb.setLength(start + this.fieldLength);
+      length = this.fieldLength;
     }
 
+    int padding = this.fieldLength - length;
+    int before;
     if (this.align.getAlign() == AlignMode.Left) {
-      sb.append(field);
-      for (int i = 0; i < (this.fieldLength - field.length()); i++) {
-        sb.append(this.align.getChar());
-      }
+      before = 0;
     } else if (this.align.getAlign() == AlignMode.Right) {
-      for (int i = 0; i < (this.fieldLength - field.length()); i++) {
-        sb.append(this.align.getChar());
-      }
-      sb.append(field);
+      before = padding;
     } else {
-      int middle = (this.fieldLength - field.length()) / 2;
+      before = padding / 2;
+    }
 
-      for (int i = 0; i < middle; i++) {
-        sb.append(this.align.getChar());
-      }
-      sb.append(field);
-      for (int i = 0; i < (this.fieldLength - field.length() - middle); i++) {
-        sb.append(this.align.getChar());
-      }
+    for (int i = 0; i < before; i++) {
+      sb.insert(start, this.align.getChar());
+    }
+    for (int i = before; i < padding; i++) {
+      sb.append(this.align.getChar());
     }
   }
 
@@ -0,0 +1,126 @@
+/*
+ * CharClass.java
+ *
+ * Copyright (C) 2007 Felipe Gonalves Coury <felipe.coury@gmail.com>
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation; either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program; if
+ * not, write to the Free Software Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA
+ * 02111-1307, USA.
+ */
+
+package org.coury.jfilehelpers.helpers;
+
+import java.util.Arrays;
+
+/**
+ * A set of chars tested with a bit table for the Latin-1 chars (0 to 255) and a sorted array for
+ * the others, so classifying a char is a single bit test in the common case. Used to trim fields
+ * and skip white space by moving offsets over a char array. Instances are immutable.
+ */
+public final class CharClass {
+
+  /**
+   * The chars of {@link StringHelper#WHITESPACE_CHARS}
+   */
+  public static final CharClass WHITESPACE = new CharClass(StringHelper.WHITESPACE_CHARS);
+
+  private final long[] latin1 = new long[4];
+
+  private final char[] others;
+
+  /**
+   * @param chars the chars of the class, in any order
+   */
+  public CharClass(final char[] chars) {
+    int count = 0;
+    char[] high = new char[chars.length];
+    for (char c : chars) {
+      if (c < 256) {
+        this.latin1[c >>> 6] |= 1L << c;
+      } else {
+        high[count++] = c;
+      }
+    }
+    this.others = Arrays.copyOf(high, count);
+    Arrays.sort(this.others);
+  }
+
+  public boolean contains(final char c) {
+    if (c < 256) {
+      return (this.latin1[c >>> 6] & (1L << c)) != 0;
+    }
+    return (this.others.length > 0) && (Arrays.binarySearch(this.others, c) >= 0);
+  }
+
+  /**
+   * @return the first position from <code>from</code> (inclusive) to <code>to</code> (exclusive)
+   *         whose char is not on this class, or <code>to</code> if all are
+   */
+  public int skip(final char[] chars, final int from, final int to) {
+    int pos = from;
+    while ((pos < to) && this.contains(chars[pos])) {
+      pos++;
+    }
+    return pos;
+  }
+
+  /**
+   * @return the end (exclusive) of the range without the chars of this class at its end
+   */
+  public int skipBack(final char[] chars, final int from, final int to) {
+    int pos = to;
+    while ((pos > from) && this.contains(chars[pos - 1])) {
+      pos--;
+    }
+    return pos;
+  }
+
+  /**
+   * @return the string without the chars of this class at its start
+   */
+  public String trimStart(final String s) {
+    int start = 0;
+    while ((start < s.length()) && this.contains(s.charAt(start))) {
+      start++;
+    }
+    return s.substring(start);
+  }
+
+  /**
+   * @return the string without the chars of this class at its end
+   */
+  public String trimEnd(final String s) {
+    int end = s.length();
+    while ((end > 0) && this.contains(s.charAt(end - 1))) {
+      end--;
+    }
+    return s.substring(0, end);
+  }
+
+  /**
+   * @return the string without the chars of this class at both ends
+   */
+  public String trim(final String s) {
+    return this.trimStart(this.trimEnd(s));
+  }
+
+  /**
+   * @return true if all the chars of the string are on this class
+   */
+  public boolean containsAll(final String s) {
+    for (int i = 0; i < s.length(); i++) {
+      if (!this.contains(s.charAt(i))) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
@@ -0,0 +1,157 @@
+/*
+ * CharSearch.java
+ *
+ * Copyright (C) 2007 Felipe Gonalves Coury <felipe.coury@gmail.com>
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation; either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program; if
+ * not, write to the Free Software Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA
+ * 02111-1307, USA.
+ */
+
+package org.coury.jfilehelpers.helpers;
+
+import java.util.Arrays;
+
+/**
+ * Finds a fixed string (like a field separator) on a range of a char array without creating any
+ * object. A single char is found with a plain loop, longer strings use a Horspool skip table built
+ * once. The search ignores case, as the separators always did, but only pays for that when the
+ * string has letters. Instances are immutable.
+ */
+public final class CharSearch {
+
+  private final char[] pattern;
+
+  private final boolean ignoreCase;
+
+  // Horspool shifts for the Latin-1 chars, the others use otherShift
+  private final int[] shifts;
+
+  private final int otherShift;
+
+  /**
+   * @param pattern the string to find, not empty
+   */
+  public CharSearch(final String pattern) {
+    if ((pattern == null) || (pattern.length() == 0)) {
+      throw new IllegalArgumentException("The string to find can't be empty");
+    }
+
+    boolean cased = false;
+    for (int i = 0; i < pattern.length(); i++) {
+      char c = pattern.charAt(i);
+      if ((Character.toUpperCase(c) != c) || (Character.toLowerCase(c) != c)) {
+        cased = true;
+      }
+    }
+    this.ignoreCase = cased;
+
+    this.pattern = new char[pattern.length()];
+    for (int i = 0; i < this.pattern.length; i++) {
+      this.pattern[i] = this.fold(pattern.charAt(i));
+    }
+
+    int m = this.pattern.length;
+    if (m == 1) {
+      this.shifts = null;
+      this.otherShift = 1;
+    } else {
+      this.shifts = new int[256];
+      Arrays.fill(this.shifts, m);
+      int other = m;
+      for (int i = 0; i < (m - 1); i++) {
+        char c = this.pattern[i];
+        if (c < 256) {
+          this.shifts[c] = m - 1 - i;
+        } else {
+          // the non Latin-1 chars share the smallest shift, still safe
+          other = m - 1 - i;
+        }
+      }
+      this.otherShift = other;
+    }
+  }
+
+  /**
+   * @return the position of the first occurrence from <code>from</code> (inclusive) that ends
+   *         before <code>to</code> (exclusive), or -1 if there is none
+   */
+  public int indexOf(final char[] chars, final int from, final int to) {
+    if (this.pattern.length == 1) {
+      return this.indexOfChar(chars, from, to);
+    }
+
+    int m = this.pattern.length;
+    int last = m - 1;
+    int pos = from;
+    while (pos <= (to - m)) {
+      char c = this.fold(chars[pos + last]);
+      if (c == this.pattern[last]) {
+        int i = last - 1;
+        while ((i >= 0) && (this.fold(chars[pos + i]) == this.pattern[i])) {
+          i--;
+        }
+        if (i < 0) {
+          return pos;
+        }
+      }
+      pos += c < 256 ? this.shifts[c] : this.otherShift;
+    }
+    return -1;
+  }
+
+  private int indexOfChar(final char[] chars, final int from, final int to) {
+    char sep = this.pattern[0];
+    if (this.ignoreCase) {
+      for (int pos = from; pos < to; pos++) {
+        if (Character.toUpperCase(chars[pos]) == sep) {
+          return pos;
+        }
+      }
+    } else {
+      for (int pos = from; pos < to; pos++) {
+        if (chars[pos] == sep) {
+          return pos;
+        }
+      }
+    }
+    return -1;
+  }
+
+  private char fold(final char c) {
+    return this.ignoreCase ? Character.toUpperCase(c) : c;
+  }
+
+  /**
+   * @return the length of the string to find
+   */
+  public int length() {
+    return this.pattern.length;
+  }
+
+  @Override
+  public boolean equals(final Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (!(obj instanceof CharSearch)) {
+      return false;
+    }
+    CharSearch other = (CharSearch) obj;
+    return (this.ignoreCase == other.ignoreCase) && Arrays.equals(this.pattern, other.pattern);
+  }
+
+  @Override
+  public int hashCode() {
+    return Arrays.hashCode(this.pattern);
+  }
+
+}
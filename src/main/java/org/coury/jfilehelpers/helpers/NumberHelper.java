@@ -0,0 +1,615 @@
+/*
+ * NumberHelper.java
+ *
+ * Copyright (C) 2007 Felipe Gonalves Coury <felipe.coury@gmail.com>
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation; either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program; if
+ * not, write to the Free Software Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA
+ * 02111-1307, USA.
+ */
+
+package org.coury.jfilehelpers.helpers;
+
+import java.math.BigDecimal;
+
+/**
+ * Number parsing straight from a range of chars, so the values of a line can be read without
+ * creating a String for each one of them.
+ *
+ * @author Felipe Gonalves Coury <felipe.coury@gmail.com>
+ */
+public final class NumberHelper {
+
+  private NumberHelper() {}
+
+  private static final long[] POWERS_OF_TEN = new long[19];
+
+  // powers of ten that are exact as double (up to 10^22) and as float (up to 10^10)
+  private static final double[] DOUBLE_POWERS_OF_TEN = new double[23];
+
+  private static final float[] FLOAT_POWERS_OF_TEN = new float[11];
+
+  // the biggest mantissas that are exact as double (2^53) and as float (2^24)
+  private static final long DOUBLE_EXACT_MANTISSA = 1L << 53;
+
+  private static final long FLOAT_EXACT_MANTISSA = 1L << 24;
+
+  static {
+    NumberHelper.POWERS_OF_TEN[0] = 1;
+    for (int i = 1; i < NumberHelper.POWERS_OF_TEN.length; i++) {
+      NumberHelper.POWERS_OF_TEN[i] = NumberHelper.POWERS_OF_TEN[i - 1] * 10;
+    }
+    for (int i = 0; i < NumberHelper.DOUBLE_POWERS_OF_TEN.length; i++) {
+      NumberHelper.DOUBLE_POWERS_OF_TEN[i] = Double.parseDouble("1e" + i);
+    }
+    for (int i = 0; i < NumberHelper.FLOAT_POWERS_OF_TEN.length; i++) {
+      NumberHelper.FLOAT_POWERS_OF_TEN[i] = Float.parseFloat("1e" + i);
+    }
+  }
+
+  /**
+   * Parses a signed decimal integer, with the same rules of {@link Long#parseLong(String)}
+   *
+   * @param chars buffer holding the number
+   * @param from start of the number (inclusive)
+   * @param to end of the number (exclusive)
+   * @param min smallest value accepted
+   * @param max biggest value accepted
+   * @return the parsed value
+   * @throws NumberFormatException if the chars are not a number or it is out of range
+   */
+  public static long parseLong(final char[] chars, final int from, final int to, final long min,
+      final long max) {
+    return NumberHelper.parseLong(chars, from, to, min, max, '\0');
+  }
+
+  /**
+   * Parses a signed decimal integer that may have grouping (thousands) separators between the
+   * digits
+   *
+   * @param chars buffer holding the number
+   * @param from start of the number (inclusive)
+   * @param to end of the number (exclusive)
+   * @param min smallest value accepted
+   * @param max biggest value accepted
+   * @param groupingSeparator separator skipped between the digits, or '\0' for none
+   * @return the parsed value
+   * @throws NumberFormatException if the chars are not a number or it is out of range
+   */
+  public static long parseLong(final char[] chars, final int from, final int to, final long min,
+      final long max, final char groupingSeparator) {
+    int pos = from;
+    boolean negative = false;
+
+    if ((pos < to) && ((chars[pos] == '-') || (chars[pos] == '+'))) {
+      negative = chars[pos] == '-';
+      pos++;
+    }
+    if ((pos >= to) || (chars[pos] == groupingSeparator)) {
+      throw NumberHelper.numberFormatException(chars, from, to);
+    }
+
+    // accumulates negatively, as Long.MIN_VALUE has no positive counterpart
+    long limit = negative ? min : -max;
+    long multMin = limit / 10;
+    long result = 0;
+
+    for (; pos < to; pos++) {
+      char c = chars[pos];
+      if ((c == groupingSeparator) && (groupingSeparator != '\0')) {
+        continue;
+      }
+
+      int digit = c - '0';
+      if ((digit < 0) || (digit > 9) || (result < multMin)) {
+        throw NumberHelper.numberFormatException(chars, from, to);
+      }
+      result *= 10;
+      if (result < (limit + digit)) {
+        throw NumberHelper.numberFormatException(chars, from, to);
+      }
+      result -= digit;
+    }
+
+    return negative ? result : -result;
+  }
+
+  /**
+   * Appends the decimal digits of a number, without creating an intermediate String
+   *
+   * @param sb buffer receiving the digits
+   * @param value the number
+   * @param minDigits minimum number of integer digits, padded with leading zeros
+   * @param groupingSize digits in each group, or 0 for no grouping
+   * @param groupingSeparator char written between the groups
+   */
+  public static void appendLong(final StringBuffer sb, final long value, final int minDigits,
+      final int groupingSize, final char groupingSeparator) {
+    // works with the negative magnitude, as Long.MIN_VALUE has no positive counterpart
+    long neg = value;
+    if (value < 0) {
+      sb.append('-');
+    } else {
+      neg = -value;
+    }
+
+    int digits = 1;
+    while ((digits < 19) && (neg <= -NumberHelper.POWERS_OF_TEN[digits])) {
+      digits++;
+    }
+    int total = Math.max(digits, minDigits);
+
+    for (int i = total - 1; i >= 0; i--) {
+      if (i >= 19) {
+        sb.append('0');
+      } else {
+        sb.append((char) ('0' - ((neg / NumberHelper.POWERS_OF_TEN[i]) % 10)));
+      }
+      if ((groupingSize > 0) && (i > 0) && ((i % groupingSize) == 0)) {
+        sb.append(groupingSeparator);
+      }
+    }
+  }
+
+  /**
+   * Parses a decimal number as a double. Numbers with up to 15 significant digits and small
+   * exponents are computed exactly with a single multiplication or division by a power of ten (the
+   * Clinger fast path), the others are handed to {@link Double#parseDouble(String)}.
+   *
+   * @param chars buffer holding the number
+   * @param from start of the number (inclusive)
+   * @param to end of the number (exclusive)
+   * @param decimalSeparator the decimal separator
+   * @param groupingSeparator separator skipped between the digits, or '\0' for none
+   * @return the parsed value
+   * @throws NumberFormatException if the chars are not a number
+   */
+  public static double parseDouble(final char[] chars, final int from, final int to,
+      final char decimalSeparator, final char groupingSeparator) {
+    return NumberHelper.parseFloating(chars, from, to, decimalSeparator, groupingSeparator, false);
+  }
+
+  /**
+   * Parses a decimal number as a float, see
+   * {@link #parseDouble(char[], int, int, char, char)}. The fast path takes up to 7 significant
+   * digits.
+   *
+   * @param chars buffer holding the number
+   * @param from start of the number (inclusive)
+   * @param to end of the number (exclusive)
+   * @param decimalSeparator the decimal separator
+   * @param groupingSeparator separator skipped between the digits, or '\0' for none
+   * @return the parsed value
+   * @throws NumberFormatException if the chars are not a number
+   */
+  public static float parseFloat(final char[] chars, final int from, final int to,
+      final char decimalSeparator, final char groupingSeparator) {
+    // a float widened to double and back is exact
+    return (float) NumberHelper.parseFloating(chars, from, to, decimalSeparator,
+        groupingSeparator, true);
+  }
+
+  private static double parseFloating(final char[] chars, final int from, final int to,
+      final char decimalSeparator, final char groupingSeparator, final boolean asFloat) {
+    int pos = from;
+    boolean negative = false;
+    if ((pos < to) && ((chars[pos] == '-') || (chars[pos] == '+'))) {
+      negative = chars[pos] == '-';
+      pos++;
+    }
+
+    // reads the number as mantissa * 10^exponent
+    long mantissa = 0;
+    int digits = 0;
+    int significant = 0;
+    int exponent = 0;
+    boolean fraction = false;
+    boolean plain = true;
+
+    for (; pos < to; pos++) {
+      char c = chars[pos];
+      if ((c >= '0') && (c <= '9')) {
+        digits++;
+        if ((significant > 0) || (c != '0')) {
+          significant++;
+        }
+        if (significant > 18) {
+          plain = false;
+          break;
+        }
+        mantissa = (mantissa * 10) + (c - '0');
+        if (fraction) {
+          exponent--;
+        }
+      } else if ((c == decimalSeparator) && !fraction) {
+        fraction = true;
+      } else if ((c == groupingSeparator) && (groupingSeparator != '\0') && !fraction) {
+        continue;
+      } else {
+        break;
+      }
+    }
+
+    if (plain && (digits > 0) && (pos < to) && ((chars[pos] == 'e') || (chars[pos] == 'E'))) {
+      pos++;
+      boolean negativeExp = false;
+      if ((pos < to) && ((chars[pos] == '-') || (chars[pos] == '+'))) {
+        negativeExp = chars[pos] == '-';
+        pos++;
+      }
+      int exp = 0;
+      int expStart = pos;
+      for (; (pos < to) && (chars[pos] >= '0') && (chars[pos] <= '9'); pos++) {
+        if (exp < 1000) {
+          exp = (exp * 10) + (chars[pos] - '0');
+        }
+      }
+      plain = pos > expStart;
+      exponent += negativeExp ? -exp : exp;
+    }
+
+    plain = plain && (digits > 0) && (pos == to);
+
+    if (plain && asFloat && (mantissa < NumberHelper.FLOAT_EXACT_MANTISSA)
+        && (Math.abs(exponent) < NumberHelper.FLOAT_POWERS_OF_TEN.length)) {
+      float value = mantissa;
+      if (exponent < 0) {
+        value /= NumberHelper.FLOAT_POWERS_OF_TEN[-exponent];
+      } else {
+        value *= NumberHelper.FLOAT_POWERS_OF_TEN[exponent];
+      }
+      return negative ? -value : value;
+    } else if (plain && !asFloat && (mantissa < NumberHelper.DOUBLE_EXACT_MANTISSA)
+        && (Math.abs(exponent) < NumberHelper.DOUBLE_POWERS_OF_TEN.length)) {
+      double value = mantissa;
+      if (exponent < 0) {
+        value /= NumberHelper.DOUBLE_POWERS_OF_TEN[-exponent];
+      } else {
+        value *= NumberHelper.DOUBLE_POWERS_OF_TEN[exponent];
+      }
+      return negative ? -value : value;
+    }
+
+    // not exact with one operation, the JDK does the correct rounding
+    String normalized =
+        NumberHelper.normalizeDecimal(chars, from, to, decimalSeparator, groupingSeparator);
+    return asFloat ? Float.parseFloat(normalized) : Double.parseDouble(normalized);
+  }
+
+  /**
+   * Parses a decimal number as a BigDecimal, keeping the scale written. Numbers with up to 18
+   * significant digits are built from an unscaled long, longer ones (or with an exponent) go
+   * through {@link BigDecimal#BigDecimal(String)}.
+   *
+   * @param chars buffer holding the number
+   * @param from start of the number (inclusive)
+   * @param to end of the number (exclusive)
+   * @param decimalSeparator the decimal separator
+   * @param groupingSeparator separator skipped between the digits, or '\0' for none
+   * @return the parsed value
+   * @throws NumberFormatException if the chars are not a number
+   */
+  public static BigDecimal parseBigDecimal(final char[] chars, final int from, final int to,
+      final char decimalSeparator, final char groupingSeparator) {
+    int pos = from;
+    boolean negative = false;
+    if ((pos < to) && ((chars[pos] == '-') || (chars[pos] == '+'))) {
+      negative = chars[pos] == '-';
+      pos++;
+    }
+
+    long unscaled = 0;
+    int digits = 0;
+    int significant = 0;
+    int scale = 0;
+    boolean fraction = false;
+
+    for (; pos < to; pos++) {
+      char c = chars[pos];
+      if ((c >= '0') && (c <= '9')) {
+        digits++;
+        if ((significant > 0) || (c != '0')) {
+          significant++;
+        }
+        if (significant > 18) {
+          break;
+        }
+        unscaled = (unscaled * 10) + (c - '0');
+        if (fraction) {
+          scale++;
+        }
+      } else if ((c == decimalSeparator) && !fraction) {
+        fraction = true;
+      } else if ((c == groupingSeparator) && (groupingSeparator != '\0') && !fraction) {
+        continue;
+      } else {
+        break;
+      }
+    }
+
+    if ((digits > 0) && (pos == to)) {
+      return BigDecimal.valueOf(negative ? -unscaled : unscaled, scale);
+    }
+
+    return new BigDecimal(
+        NumberHelper.normalizeDecimal(chars, from, to, decimalSeparator, groupingSeparator));
+  }
+
+  /**
+   * Appends the plain text (no exponent) of a BigDecimal. Values with up to 18 digits are written
+   * from their unscaled long.
+   *
+   * @param sb buffer receiving the text
+   * @param value the number
+   * @param decimalSeparator the decimal separator
+   */
+  public static void appendBigDecimal(final StringBuffer sb, final BigDecimal value,
+      final char decimalSeparator) {
+    int scale = value.scale();
+    if ((value.precision() > 18) || (scale > 18)) {
+      NumberHelper.appendFallback(sb, value.toPlainString(), decimalSeparator);
+      return;
+    }
+
+    long unscaled = value.scaleByPowerOfTen(scale).longValue();
+    if (scale <= 0) {
+      sb.append(unscaled);
+      for (int i = scale; i < 0; i++) {
+        sb.append('0');
+      }
+    } else {
+      NumberHelper.appendUnscaled(sb, unscaled < 0, Math.abs(unscaled), scale, decimalSeparator);
+    }
+  }
+
+  /**
+   * Appends the shortest fixed point text that reads back as the same double, without an
+   * exponent. Values too big or too small for that are written by
+   * {@link StringBuffer#append(double)}.
+   *
+   * @param sb buffer receiving the text
+   * @param value the number
+   * @param decimalSeparator the decimal separator
+   */
+  public static void appendDouble(final StringBuffer sb, final double value,
+      final char decimalSeparator) {
+    double abs = Math.abs(value);
+    if ((abs < NumberHelper.DOUBLE_EXACT_MANTISSA) && (abs >= 1e-7)) {
+      for (int decimals = 0; decimals < 16; decimals++) {
+        double scaled = abs * NumberHelper.DOUBLE_POWERS_OF_TEN[decimals];
+        if (scaled >= NumberHelper.DOUBLE_EXACT_MANTISSA) {
+          break;
+        }
+        long unscaled = Math.round(scaled);
+        // the same division done by the parser, so the text reads back as this value
+        if ((unscaled / NumberHelper.DOUBLE_POWERS_OF_TEN[decimals]) == abs) {
+          NumberHelper.appendUnscaled(sb, value < 0, unscaled, decimals, decimalSeparator);
+          return;
+        }
+      }
+    } else if (abs == 0) {
+      NumberHelper.appendUnscaled(sb, (1 / value) < 0, 0, 0, decimalSeparator);
+      return;
+    }
+
+    NumberHelper.appendFallback(sb, Double.toString(value), decimalSeparator);
+  }
+
+  /**
+   * Appends the shortest fixed point text that reads back as the same float, see
+   * {@link #appendDouble(StringBuffer, double, char)}
+   *
+   * @param sb buffer receiving the text
+   * @param value the number
+   * @param decimalSeparator the decimal separator
+   */
+  public static void appendFloat(final StringBuffer sb, final float value,
+      final char decimalSeparator) {
+    float abs = Math.abs(value);
+    if ((abs < NumberHelper.FLOAT_EXACT_MANTISSA) && (abs >= 1e-3f)) {
+      for (int decimals = 0; decimals < NumberHelper.FLOAT_POWERS_OF_TEN.length; decimals++) {
+        double scaled = (double) abs * NumberHelper.DOUBLE_POWERS_OF_TEN[decimals];
+        if (scaled >= NumberHelper.FLOAT_EXACT_MANTISSA) {
+          break;
+        }
+        long unscaled = Math.round(scaled);
+        if ((unscaled / NumberHelper.FLOAT_POWERS_OF_TEN[decimals]) == abs) {
+          NumberHelper.appendUnscaled(sb, value < 0, unscaled, decimals, decimalSeparator);
+          return;
+        }
+      }
+    } else if (abs == 0) {
+      NumberHelper.appendUnscaled(sb, (1 / value) < 0, 0, 0, decimalSeparator);
+      return;
+    }
+
+    NumberHelper.appendFallback(sb, Float.toString(value), decimalSeparator);
+  }
+
+  /**
+   * Parses an implied decimal number (digits only, the decimal point is not written) as its
+   * unscaled value. The sign is either a leading '+' or '-' or, with overpunch, carried by the
+   * last char: '{' and 'A' to 'I' are the positive 0 to 9, '}' and 'J' to 'R' the negative ones.
+   * Up to 18 digits are accepted.
+   *
+   * @param chars buffer holding the number
+   * @param from start of the number (inclusive)
+   * @param to end of the number (exclusive)
+   * @param overpunch whether the last char may carry the sign
+   * @return the unscaled value
+   * @throws NumberFormatException if the chars are not a number
+   */
+  public static long parseImplied(final char[] chars, final int from, final int to,
+      final boolean overpunch) {
+    int pos = from;
+    int end = to;
+    boolean negative = false;
+    if ((pos < end) && ((chars[pos] == '-') || (chars[pos] == '+'))) {
+      negative = chars[pos] == '-';
+      pos++;
+    }
+
+    int last = -1;
+    if (overpunch && (end > pos)) {
+      char c = chars[end - 1];
+      if (c == '{') {
+        last = 0;
+      } else if ((c >= 'A') && (c <= 'I')) {
+        last = (c - 'A') + 1;
+      } else if (c == '}') {
+        last = 0;
+        negative = true;
+      } else if ((c >= 'J') && (c <= 'R')) {
+        last = (c - 'J') + 1;
+        negative = true;
+      }
+      if (last >= 0) {
+        end--;
+      }
+    }
+
+    int digits = (end - pos) + (last >= 0 ? 1 : 0);
+    if ((digits == 0) || (digits > 18)) {
+      throw NumberHelper.numberFormatException(chars, from, to);
+    }
+
+    long result = 0;
+    for (; pos < end; pos++) {
+      char c = chars[pos];
+      if ((c < '0') || (c > '9')) {
+        throw NumberHelper.numberFormatException(chars, from, to);
+      }
+      result = (result * 10) + (c - '0');
+    }
+    if (last >= 0) {
+      result = (result * 10) + last;
+    }
+
+    return negative ? -result : result;
+  }
+
+  /**
+   * Appends an implied decimal number zero padded to a fixed length, see
+   * {@link #parseImplied(char[], int, int, boolean)}. Without overpunch a negative number takes
+   * one of the positions for its leading '-'.
+   *
+   * @param sb buffer receiving the number
+   * @param unscaled the unscaled value
+   * @param length number of chars to write
+   * @param overpunch whether the sign goes on the last char
+   * @throws IllegalArgumentException if the number does not fit on the length
+   */
+  public static void appendImplied(final StringBuffer sb, final long unscaled, final int length,
+      final boolean overpunch) {
+    if (unscaled == Long.MIN_VALUE) {
+      throw new IllegalArgumentException("The value " + unscaled + " does not fit on " + length
+          + " chars.");
+    }
+
+    int start = sb.length();
+    boolean negative = unscaled < 0;
+    int digits = length;
+    if (negative && !overpunch) {
+      sb.append('-');
+      digits--;
+    }
+    NumberHelper.appendLong(sb, Math.abs(unscaled), digits, 0, '\0');
+
+    if ((sb.length() - start) > length) {
+      sb.setLength(start);
+      throw new IllegalArgumentException("The value " + unscaled + " does not fit on " + length
+          + " chars.");
+    }
+
+    if (overpunch) {
+      int last = sb.length() - 1;
+      int digit = sb.charAt(last) - '0';
+      if (negative) {
+        sb.setCharAt(last, digit == 0 ? '}' : (char) (('J' + digit) - 1));
+      } else {
+        sb.setCharAt(last, digit == 0 ? '{' : (char) (('A' + digit) - 1));
+      }
+    }
+  }
+
+  /**
+   * @return unscaled / 10^scale as the nearest double
+   */
+  public static double unscaledToDouble(final long unscaled, final int scale) {
+    if ((scale < NumberHelper.DOUBLE_POWERS_OF_TEN.length)
+        && (Math.abs(unscaled) <= NumberHelper.DOUBLE_EXACT_MANTISSA)) {
+      // both operands are exact, so the division is correctly rounded
+      return unscaled / NumberHelper.DOUBLE_POWERS_OF_TEN[scale];
+    }
+    return BigDecimal.valueOf(unscaled, scale).doubleValue();
+  }
+
+  /**
+   * @return value * 10^scale rounded to the nearest long
+   * @throws IllegalArgumentException if the result does not fit on a long
+   */
+  public static long doubleToUnscaled(final double value, final int scale) {
+    double scaled = value * NumberHelper.DOUBLE_POWERS_OF_TEN[scale];
+    if (Double.isNaN(scaled) || (Math.abs(scaled) >= 9.2E18)) {
+      throw new IllegalArgumentException("The value " + value + " with " + scale
+          + " implied decimals does not fit on a long.");
+    }
+    return Math.round(scaled);
+  }
+
+  /**
+   * Appends unscaled / 10^decimals
+   */
+  private static void appendUnscaled(final StringBuffer sb, final boolean negative,
+      final long unscaled, final int decimals, final char decimalSeparator) {
+    if (negative) {
+      sb.append('-');
+    }
+    if (decimals == 0) {
+      sb.append(unscaled);
+      return;
+    }
+
+    long power = NumberHelper.POWERS_OF_TEN[decimals];
+    sb.append(unscaled / power);
+    sb.append(decimalSeparator);
+    NumberHelper.appendLong(sb, unscaled % power, decimals, 0, '\0');
+  }
+
+  private static void appendFallback(final StringBuffer sb, final String text,
+      final char decimalSeparator) {
+    sb.append(decimalSeparator == '.' ? text : text.replace('.', decimalSeparator));
+  }
+
+  /**
+   * Rewrites a number with '.' as decimal separator and no grouping, as expected by the JDK
+   * parsers
+   */
+  private static String normalizeDecimal(final char[] chars, final int from, final int to,
+      final char decimalSeparator, final char groupingSeparator) {
+    StringBuilder sb = new StringBuilder(to - from);
+    for (int i = from; i < to; i++) {
+      char c = chars[i];
+      if (c == decimalSeparator) {
+        sb.append('.');
+      } else if ((c != groupingSeparator) || (groupingSeparator == '\0')) {
+        sb.append(c);
+      }
+    }
+    return sb.toString();
+  }
+
+  private static NumberFormatException numberFormatException(final char[] chars, final int from,
+      final int to) {
+    return new NumberFormatException(
+        "For input string: \"" + new String(chars, from, to - from) + "\"");
+  }
+}
@@ -52,20 +52,35 @@ public class StringHelper {
         ToStringStyle.MULTI_LINE_STYLE);
   }
 
-  public static void createQuotedString(final StringBuffer sb, String source,
+  public static void createQuotedString(final StringBuffer sb, final String source,
       final char quoteChar) {
-    if (source == null) {
-      source = "";
-    }
-
-    String quotedCharStr = Character.toString(quoteChar);
-    String escapedString = source.replace(quotedCharStr, quotedCharStr + quotedCharStr);
-
     sb.append(quoteChar);
-    sb.append(escapedString);
+    if (source != null) {
+      // the quotes inside the value are written twice
+      int from = 0;
+      int pos = source.indexOf(quoteChar);
+      while (pos >= 0) {
+        sb.append(source, from, pos + 1).append(quoteChar);
+        from = pos + 1;
+        pos = source.indexOf(quoteChar, from);
+      }
+      sb.append(source, from, source.length());
+    }
     sb.append(quoteChar);
   }
 
+  /**
+   * Extracts the value enclosed in quotes that starts at the current position of the line. Inside
+   * the quotes a quote written twice stands for one quote, any other quote closes the value. A
+   * value without doubled quotes that ends on the same line is returned as a slice of the line,
+   * a String is only built for the others.
+   *
+   * @param line line positioned on the opening quote
+   * @param quoteChar the quote char
+   * @param allowMultiline true to go on reading lines when the value has line breaks
+   * @return the value, the line goes on right after the closing quote
+   * @throws IOException
+   */
   public static ExtractedInfo extractQuotedString(final LineInfo line, final char quoteChar,
       final boolean allowMultiline) throws IOException {
     if (line.isEol()) {
@@ -73,102 +88,80 @@ public class StringHelper {
           + "a QuotedString try to use SafeExtractQuotedString");
     }
 
-    if (line.getLine()[line.getCurrentPos()] != quoteChar) {
+    char[] chars = line.getLine();
+    if (chars[line.getCurrentPos()] != quoteChar) {
       throw new IllegalArgumentException(
           "The source string not begins with the quote char: " + quoteChar);
     }
 
-    StringBuilder res = new StringBuilder(32);
-    // int lines = 0;
+    int start = line.getCurrentPos() + 1;
+    int end = line.getLineEnd();
+    int from = start;
+    int i = start;
 
-    boolean firstFound = false;
+    // only created when the value can't be a slice of the line
+    StringBuilder res = null;
 
-    int i = line.getCurrentPos() + 1;
-    // bool mustContinue = true;
+    while (true) {
+      i = line.indexOfQuote(quoteChar, i);
+      if (i < 0) {
+        i = end;
+      }
 
-    while (line.getLineStr() != null) {
-      while (i < line.getLine().length) {
-        if (line.getLine()[i] == quoteChar) {
-          if (firstFound == true) {
-            // Is an escaped quoted char
-            res.append(quoteChar);
-            firstFound = false;
-          } else {
-            firstFound = true;
-          }
-        } else {
-          if (firstFound) {
-            // This was the end of the string
-            line.setCurrentPos(i);
-            return new ExtractedInfo(res.toString());
-            // ExtractedInfo ei = ;
-            // return ei;
-
-          } else {
-            res.append(line.getLine()[i]);
+      if (i < end) {
+        if (((i + 1) < end) && (chars[i + 1] == quoteChar)) {
+          // an escaped quote, keep one of them
+          if (res == null) {
+            res = new StringBuilder((i - from) + 16);
           }
+          res.append(chars, from, (i + 1) - from);
+          i += 2;
+          from = i;
+          continue;
         }
-        i++;
-      }
 
-      if (firstFound) {
-        line.setCurrentPos(i);
-        return new ExtractedInfo(res.toString());
-      } else {
-        if (allowMultiline == false) {
-          throw new IllegalArgumentException(
-              "The current field has an UnClosed quoted string. Complete line: " + res.toString());
+        if (res == null) {
+          return line.getExtractedInfo().slice(line, start, i, i + 1);
         }
+        res.append(chars, from, i - from);
+        line.setCurrentPos(i + 1);
+        return line.getExtractedInfo().custom(res.toString());
+      }
 
-        line.readNextLine();
-        res.append(StringHelper.NEW_LINE);
-        // lines++;
-        i = 0;
+      if (!allowMultiline || (line.getReader() == null)) {
+        throw new IllegalArgumentException(
+            "The current field has an UnClosed quoted string. Complete line: "
+                + line.getLineStr());
       }
-    }
 
-    throw new IllegalArgumentException(
-        "The current field has an unclosed quoted string. Complete Filed String: "
-            + res.toString());
+      if (res == null) {
+        res = new StringBuilder((end - from) + 32);
+      }
+      res.append(chars, from, end - from).append(StringHelper.NEW_LINE);
+
+      line.readQuotedLine();
+      if (!line.isLineLoaded()) {
+        throw new IllegalArgumentException(
+            "The end of the file was found inside a quoted string: " + res.toString());
+      }
+
+      chars = line.getLine();
+      from = line.getLineStart();
+      i = from;
+      end = line.getLineEnd();
+    }
   }
 
   public static String trimBoth(final String s, final char[] toTrim) {
-    return StringHelper.trimStart(StringHelper.trimEnd(s, toTrim), toTrim);
+    return new CharClass(toTrim).trim(s);
   }
 
   public static String trimStart(final String s, final char[] toTrim) {
-    char[] sChars = s.toCharArray();
-    String toTrimStr = new String(toTrim);
-    StringBuffer sb = new StringBuffer();
-
-    boolean trimming = true;
-    for (int i = 0; i < sChars.length; i++) {
-      if (toTrimStr.indexOf(sChars[i]) == -1) {
-        trimming = false;
-      }
-
-      if (!trimming) {
-        sb.append(sChars[i]);
-      }
-    }
-
-    return sb.toString();
+    return new CharClass(toTrim).trimStart(s);
   }
 
   public static String trimEnd(final String s, final char[] toTrim) {
-    char[] sChars = s.toCharArray();
-    String toTrimStr = new String(toTrim);
-    StringBuffer sb = new StringBuffer(s);
-
-    for (int i = sChars.length - 1; i >= 0; i--) {
-      if (toTrimStr.indexOf(sChars[i]) > -1) {
-        sb.deleteCharAt(i);
-      } else {
-        break;
-      }
-    }
-
-    return sb.toString();
+    return new CharClass(toTrim).trimEnd(s);
   }
 
   public static final char[] WHITESPACE_CHARS =
@@ -0,0 +1,148 @@
+/*
+ * StringPool.java
+ *
+ * Copyright (C) 2007 Felipe Gonalves Coury <felipe.coury@gmail.com>
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation; either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program; if
+ * not, write to the Free Software Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA
+ * 02111-1307, USA.
+ */
+
+package org.coury.jfilehelpers.helpers;
+
+import java.util.Arrays;
+
+/**
+ * Bounded pool of Strings looked up by a range of chars, so equal values read from many lines share
+ * one instance and a String is only created for values not found. The pool is split in sets of two
+ * entries: each value can only be on the set chosen by its hash, and a new value evicts the older
+ * entry of its set. Values longer than {@link #MAX_LENGTH} chars are not pooled. The pool can be
+ * shared between threads.
+ */
+public final class StringPool {
+
+  public static final int MAX_LENGTH = 64;
+
+  private static final StringPool SHARED = new StringPool(4096);
+
+  private final String[] strings;
+
+  private final int shift;
+
+  /**
+   * @param size number of pooled Strings, rounded up to a power of two (at least two)
+   */
+  public StringPool(final int size) {
+    if (size < 1) {
+      throw new IllegalArgumentException("The size of the string pool must be positive: " + size);
+    }
+    int capacity = Integer.highestOneBit(Math.min(Math.max(size, 2), 1 << 30));
+    if (capacity < size) {
+      capacity <<= 1;
+    }
+    this.strings = new String[capacity];
+    this.shift = 32 - Integer.numberOfTrailingZeros(capacity);
+  }
+
+  /**
+   * @return the pool shared by all the fields marked to use it
+   */
+  public static StringPool getShared() {
+    return StringPool.SHARED;
+  }
+
+  /**
+   * Returns the pooled String with the given chars, creating and pooling it if needed
+   *
+   * @param chars buffer holding the value
+   * @param from start of the value on the buffer
+   * @param length number of chars of the value
+   * @return a String with the chars
+   */
+  public String intern(final char[] chars, final int from, final int length) {
+    if (length > StringPool.MAX_LENGTH) {
+      return new String(chars, from, length);
+    }
+
+    // same hash as String.hashCode(), that the Strings keep once computed
+    int hash = 0;
+    for (int i = from; i < (from + length); i++) {
+      hash = (31 * hash) + chars[i];
+    }
+
+    int set = this.setOf(hash);
+    String first = this.strings[set];
+    if (StringPool.matches(first, hash, chars, from, length)) {
+      return first;
+    }
+    String second = this.strings[set + 1];
+    if (StringPool.matches(second, hash, chars, from, length)) {
+      return second;
+    }
+
+    String s = new String(chars, from, length);
+    this.strings[set + 1] = first;
+    this.strings[set] = s;
+    return s;
+  }
+
+  /**
+   * Returns the pooled String equal to the given one, pooling it if needed
+   *
+   * @param s the value
+   * @return a String equal to the value
+   */
+  public String intern(final String s) {
+    if ((s == null) || (s.length() > StringPool.MAX_LENGTH)) {
+      return s;
+    }
+
+    int set = this.setOf(s.hashCode());
+    String first = this.strings[set];
+    if (s.equals(first)) {
+      return first;
+    }
+    String second = this.strings[set + 1];
+    if (s.equals(second)) {
+      return second;
+    }
+
+    this.strings[set + 1] = first;
+    this.strings[set] = s;
+    return s;
+  }
+
+  public void clear() {
+    Arrays.fill(this.strings, null);
+  }
+
+  public int getSize() {
+    return this.strings.length;
+  }
+
+  private int setOf(final int hash) {
+    // spreads the hash over the high bits and takes as many of them as the capacity needs
+    return ((hash * 0x9E3779B9) >>> this.shift) & ~1;
+  }
+
+  private static boolean matches(final String s, final int hash, final char[] chars,
+      final int from, final int length) {
+    if ((s == null) || (s.length() != length) || (s.hashCode() != hash)) {
+      return false;
+    }
+    for (int i = 0; i < length; i++) {
+      if (s.charAt(i) != chars[from + i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
@@ -0,0 +1,62 @@
+/*
+ * StripedCounter.java
+ *
+ * Copyright (C) 2007 Felipe Gonalves Coury <felipe.coury@gmail.com>
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation; either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program; if
+ * not, write to the Free Software Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA
+ * 02111-1307, USA.
+ */
+
+package org.coury.jfilehelpers.helpers;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counter updated by many threads, as a set of cells picked by thread. Each thread mostly updates
+ * its own cell, so the threads of a parallel read don't contend on one value. The cells are spaced
+ * a cache line apart. Reading the count adds all the cells.
+ */
+public final class StripedCounter {
+
+  // longs on a 64 byte cache line
+  private static final int SPACING = 8;
+
+  private static final int MAX_CELLS = 64;
+
+  private final AtomicLongArray cells;
+
+  private final int mask;
+
+  public StripedCounter() {
+    int processors = Math.min(Runtime.getRuntime().availableProcessors(), StripedCounter.MAX_CELLS);
+    int size = Integer.highestOneBit((Math.max(processors, 1) << 1) - 1);
+    this.cells = new AtomicLongArray(size * StripedCounter.SPACING);
+    this.mask = size - 1;
+  }
+
+  public void increment() {
+    long id = Thread.currentThread().getId() * 0x9E3779B97F4A7C15L;
+    int cell = (int) (id >>> 32) & this.mask;
+    this.cells.incrementAndGet(cell * StripedCounter.SPACING);
+  }
+
+  /**
+   * @return the sum of the cells; updates made while adding may or may not be counted
+   */
+  public long get() {
+    long sum = 0;
+    for (int i = 0; i < this.cells.length(); i += StripedCounter.SPACING) {
+      sum += this.cells.get(i);
+    }
+    return sum;
+  }
+}
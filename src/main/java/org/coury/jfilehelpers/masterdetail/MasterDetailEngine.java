@@ -17,19 +17,16 @@
  */
 package org.coury.jfilehelpers.masterdetail;
 
-import java.io.BufferedReader;
 import java.io.BufferedWriter;
-import java.io.ByteArrayInputStream;
-import java.io.File;
-import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.Writer;
 import java.util.ArrayList;
 import java.util.List;
 
 import org.coury.jfilehelpers.core.ForwardReader;
+import org.coury.jfilehelpers.core.RecordCodec;
 import org.coury.jfilehelpers.core.RecordInfo;
 import org.coury.jfilehelpers.engines.EngineBase;
 import org.coury.jfilehelpers.engines.LineInfo;
@@ -48,19 +45,21 @@ public class MasterDetailEngine<MT, DT> extends EngineBase<DT> {
 
   private final RecordInfo<MT> masterInfo;
 
+  private RecordCodec<MT> masterCodec = null;
+
   private final MasterDetailSelector recordSelector;
 
   public MasterDetailEngine(final Class<MT> masterRecordClass, final Class<DT> detailRecordClass,
       final MasterDetailSelector recordSelector) {
     super(detailRecordClass);
-    this.masterInfo = new RecordInfo<MT>(masterRecordClass);
+    this.masterInfo = RecordInfo.forClass(masterRecordClass);
     this.recordSelector = recordSelector;
   }
 
   public MasterDetailEngine(final Class<MT> masterRecordClass, final Class<DT> detailRecordClass,
       final CommonSelector action, final String selector) {
     super(detailRecordClass);
-    this.masterInfo = new RecordInfo<MT>(masterRecordClass);
+    this.masterInfo = RecordInfo.forClass(masterRecordClass);
     final CommonInternalSelector sel = new CommonInternalSelector(action, selector,
         this.masterInfo.isIgnoreEmptyLines() || this.recordInfo.isIgnoreEmptyLines());
 
@@ -74,12 +73,18 @@ public class MasterDetailEngine<MT, DT> extends EngineBase<DT> {
     };
   }
 
+  @Override
+  public void setCompiledCodec(final boolean compiledCodec) {
+    super.setCompiledCodec(compiledCodec);
+    this.masterCodec = compiledCodec ? this.masterInfo.getCompiledCodec() : null;
+  }
+
   public List<MasterDetails<MT, DT>> readResource(final String fileName) throws IOException {
     List<MasterDetails<MT, DT>> tempRes = null;
 
-    InputStreamReader fr = null;
+    Reader fr = null;
     try {
-      fr = new InputStreamReader(this.getClass().getResourceAsStream(fileName));
+      fr = this.openResourceReader(fileName);
       tempRes = this.readStream(fr);
     } finally {
       if (fr != null) {
@@ -91,15 +96,15 @@ public class MasterDetailEngine<MT, DT> extends EngineBase<DT> {
   }
 
   public List<MasterDetails<MT, DT>> fromString(final String s) throws IOException {
-    return this.readStream(new InputStreamReader(new ByteArrayInputStream(s.getBytes())));
+    return this.readStream(new StringReader(s));
   }
 
   public List<MasterDetails<MT, DT>> readFile(final String fileName) throws IOException {
     List<MasterDetails<MT, DT>> tempRes = null;
 
-    FileReader fr = null;
+    Reader fr = null;
     try {
-      fr = new FileReader(new File(fileName));
+      fr = this.openFileReader(fileName);
       tempRes = this.readStream(fr);
     } finally {
       if (fr != null) {
@@ -125,9 +130,9 @@ public class MasterDetailEngine<MT, DT> extends EngineBase<DT> {
 
   public void writeFile(final String fileName, final List<MasterDetails<MT, DT>> records,
       final int maxRecords) throws IOException {
-    FileWriter fw = null;
+    Writer fw = null;
     try {
-      fw = new FileWriter(new File(fileName));
+      fw = this.openFileWriter(fileName);
       // fw.write("ABCDEF\n");
       this.writeStream(fw, records, maxRecords);
     } finally {
@@ -138,7 +143,7 @@ public class MasterDetailEngine<MT, DT> extends EngineBase<DT> {
     }
   }
 
-  private void writeStream(final OutputStreamWriter osr, final List<MasterDetails<MT, DT>> records,
+  private void writeStream(final Writer osr, final List<MasterDetails<MT, DT>> records,
       final int maxRecords) throws IOException {
     BufferedWriter writer = new BufferedWriter(osr);
 
@@ -168,12 +173,13 @@ public class MasterDetailEngine<MT, DT> extends EngineBase<DT> {
 
         ProgressHelper.notify(this.notifyHandler, this.progressMode, i + 1, max);
 
-        currentLine = this.masterInfo.recordToStr(records.get(i).getMaster());
+        currentLine = this.masterInfo.recordToStr(records.get(i).getMaster(), this.masterCodec);
         writer.write(currentLine + StringHelper.NEW_LINE);
 
         if (records.get(i).getDetails() != null) {
           for (int d = 0; d < records.get(i).getDetails().size(); d++) {
-            currentLine = this.recordInfo.recordToStr(records.get(i).getDetails().get(d));
+            currentLine = this.recordInfo.recordToStr(records.get(i).getDetails().get(d),
+                this.codec);
             writer.write(currentLine + StringHelper.NEW_LINE);
           }
         }
@@ -210,34 +216,32 @@ public class MasterDetailEngine<MT, DT> extends EngineBase<DT> {
     }
   }
 
-  private List<MasterDetails<MT, DT>> readStream(final InputStreamReader fileReader)
+  private List<MasterDetails<MT, DT>> readStream(final Reader fileReader)
       throws IOException {
-    BufferedReader reader = new BufferedReader(fileReader);
-
     this.resetFields();
     this.setHeaderText("");
     this.setFooterText("");
 
     List<MasterDetails<MT, DT>> resArray = new ArrayList<MasterDetails<MT, DT>>();
 
-    ForwardReader freader = new ForwardReader(reader, this.masterInfo.getIgnoreLast());
+    ForwardReader freader = new ForwardReader(fileReader, this.masterInfo.getIgnoreLast());
     freader.setDiscardForward(true);
 
-    String currentLine, completeLine;
+    LineInfo line = new LineInfo(null);
+    line.setReader(freader);
 
     this.lineNumber = 1;
 
-    completeLine = freader.readNextLine();
-    currentLine = completeLine;
+    boolean lineAvailable = freader.readNextLine(line);
 
     ProgressHelper.notify(this.notifyHandler, this.progressMode, 0, -1);
 
     int currentRecord = 0;
 
     if (this.masterInfo.getIgnoreFirst() > 0) {
-      for (int i = 0; (i < this.masterInfo.getIgnoreFirst()) && (currentLine != null); i++) {
-        this.headerText += currentLine + StringHelper.NEW_LINE;
-        currentLine = freader.readNextLine();
+      for (int i = 0; (i < this.masterInfo.getIgnoreFirst()) && lineAvailable; i++) {
+        this.headerText += line.getLineStr() + StringHelper.NEW_LINE;
+        lineAvailable = freader.readNextLine(line);
         this.lineNumber++;
       }
     }
@@ -247,18 +251,13 @@ public class MasterDetailEngine<MT, DT> extends EngineBase<DT> {
 
     List<DT> tmpDetails = new ArrayList<DT>();
 
-    LineInfo line = new LineInfo(currentLine);
-    line.setReader(freader);
-
-    while (currentLine != null) {
+    while (lineAvailable) {
       try {
         currentRecord++;
 
-        line.reload(currentLine);
-
         ProgressHelper.notify(this.notifyHandler, this.progressMode, currentRecord, -1);
 
-        RecordAction action = this.recordSelector.getRecordAction(currentLine);
+        RecordAction action = this.recordSelector.getRecordAction(line.getLineStr());
         switch (action) {
           case Master:
             if (record != null) {
@@ -270,7 +269,7 @@ public class MasterDetailEngine<MT, DT> extends EngineBase<DT> {
             record = new MasterDetails<MT, DT>();
             tmpDetails.clear();
 
-            MT lastMaster = this.masterInfo.strToRecord(line);
+            MT lastMaster = this.masterInfo.strToRecord(line, this.masterCodec);
 
             if (lastMaster != null) {
               record.setMaster(lastMaster);
@@ -279,7 +278,7 @@ public class MasterDetailEngine<MT, DT> extends EngineBase<DT> {
             break;
 
           case Detail:
-            DT lastChild = this.recordInfo.strToRecord(line);
+            DT lastChild = this.recordInfo.strToRecord(line, this.codec);
 
             if (lastChild != null) {
               tmpDetails.add(lastChild);
@@ -311,8 +310,7 @@ public class MasterDetailEngine<MT, DT> extends EngineBase<DT> {
         // }
       } finally {
         if (byPass == false) {
-          currentLine = freader.readNextLine();
-          completeLine = currentLine;
+          lineAvailable = freader.readNextLine(line);
           this.lineNumber = freader.getLineNumber();
         }
       }
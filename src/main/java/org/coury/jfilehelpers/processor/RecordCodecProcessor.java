@@ -0,0 +1,230 @@
+/*
+ * RecordCodecProcessor.java
+ *
+ * Copyright (C) 2007 Felipe Gonalves Coury <felipe.coury@gmail.com>
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation; either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program; if
+ * not, write to the Free Software Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA
+ * 02111-1307, USA.
+ */
+
+package org.coury.jfilehelpers.processor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+
+import org.coury.jfilehelpers.annotations.FieldFixedLength;
+import org.coury.jfilehelpers.annotations.FieldIgnored;
+import org.coury.jfilehelpers.core.CodecSource;
+import org.coury.jfilehelpers.fields.DelimitedField;
+import org.coury.jfilehelpers.fields.FixedLengthField;
+
+/**
+ * Generates a {@link org.coury.jfilehelpers.core.RecordCodec} at build time for every class marked
+ * with {@link org.coury.jfilehelpers.annotations.DelimitedRecord} or
+ * {@link org.coury.jfilehelpers.annotations.FixedLengthRecord}. The codec goes on the same package
+ * of the record, named by {@link CodecSource#codecClassName(String)}, so it can also reach package
+ * private fields. Engines with {@link org.coury.jfilehelpers.engines.EngineBase#setCompiledCodec}
+ * enabled use it for the field access and the record creation instead of reflection.
+ *
+ * The processor is not registered as a service, it only runs when the build names it, e.g.
+ * <code>javac -processor org.coury.jfilehelpers.processor.RecordCodecProcessor</code> or, with the
+ * maven-compiler-plugin, in <code>&lt;annotationProcessors&gt;</code>. Only field access and
+ * record creation are generated: the field descriptors (converters, trimming, alignment) are still
+ * built from the annotations when the record class is first used, so startup is unchanged.
+ *
+ * @author Felipe Gonalves Coury <felipe.coury@gmail.com>
+ */
+@SupportedAnnotationTypes({"org.coury.jfilehelpers.annotations.DelimitedRecord",
+    "org.coury.jfilehelpers.annotations.FixedLengthRecord"})
+public class RecordCodecProcessor extends AbstractProcessor {
+
+  @Override
+  public SourceVersion getSupportedSourceVersion() {
+    return SourceVersion.latestSupported();
+  }
+
+  @Override
+  public boolean process(final Set<? extends TypeElement> annotations,
+      final RoundEnvironment roundEnv) {
+    for (TypeElement annotation : annotations) {
+      for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+        if (element.getKind() == ElementKind.CLASS) {
+          this.generate((TypeElement) element);
+        }
+      }
+    }
+    return false;
+  }
+
+  private void generate(final TypeElement record) {
+    if (!this.isInstantiable(record)) {
+      this.processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE,
+          "No codec generated for " + record.getQualifiedName() + ", it needs to be a non private"
+              + " top level or static class with an empty constructor",
+          record);
+      return;
+    }
+
+    String packageName = this.packageOf(record).getQualifiedName().toString();
+    String binaryName = this.processingEnv.getElementUtils().getBinaryName(record).toString();
+    String codecName = CodecSource.codecClassName(binaryName);
+    String simpleName = codecName.substring(codecName.lastIndexOf('.') + 1);
+
+    List<VariableElement> fields = this.recordFields(record);
+    Set<String> names = new HashSet<String>();
+    Set<String> repeated = new HashSet<String>();
+    for (VariableElement field : fields) {
+      if (!names.add(field.getSimpleName().toString())) {
+        repeated.add(field.getSimpleName().toString());
+      }
+    }
+
+    CodecSource source =
+        new CodecSource(packageName, simpleName, record.getQualifiedName().toString());
+    for (VariableElement field : fields) {
+      Set<Modifier> modifiers = field.getModifiers();
+      String name = field.getSimpleName().toString();
+      TypeMirror type = this.processingEnv.getTypeUtils().erasure(field.asType());
+
+      boolean direct = !modifiers.contains(Modifier.STATIC) && !repeated.contains(name)
+          && this.isAccessible(field, packageName)
+          && this.isAccessible((TypeElement) field.getEnclosingElement(), packageName)
+          && this.isAccessible(type, packageName);
+
+      String descriptor = field.getAnnotation(FieldFixedLength.class) == null
+          ? DelimitedField.class.getName() : FixedLengthField.class.getName();
+
+      source.addField(name, descriptor, type.toString(), direct,
+          !modifiers.contains(Modifier.FINAL));
+    }
+
+    try {
+      JavaFileObject file = this.processingEnv.getFiler().createSourceFile(codecName, record);
+      Writer writer = file.openWriter();
+      try {
+        writer.write(source.generate());
+      } finally {
+        writer.close();
+      }
+    } catch (IOException e) {
+      this.processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING,
+          "Could not generate the codec " + codecName + ": " + e.getMessage(), record);
+    }
+  }
+
+  /**
+   * Lists the fields of the record in the same order used by the record info: the fields of the
+   * super classes first, then the ones declared by the class
+   */
+  private List<VariableElement> recordFields(final TypeElement record) {
+    List<VariableElement> list = new ArrayList<VariableElement>();
+
+    TypeElement type = record;
+    while (type != null) {
+      List<VariableElement> declared = new ArrayList<VariableElement>();
+      for (VariableElement field : ElementFilter.fieldsIn(type.getEnclosedElements())) {
+        if (field.getAnnotation(FieldIgnored.class) == null) {
+          declared.add(field);
+        }
+      }
+      list.addAll(0, declared);
+
+      TypeMirror superclass = type.getSuperclass();
+      type = superclass.getKind() == TypeKind.DECLARED
+          ? (TypeElement) ((DeclaredType) superclass).asElement() : null;
+    }
+
+    return list;
+  }
+
+  private boolean isInstantiable(final TypeElement record) {
+    Set<Modifier> modifiers = record.getModifiers();
+    if (modifiers.contains(Modifier.ABSTRACT)
+        || ((record.getNestingKind() == NestingKind.MEMBER) && !modifiers.contains(Modifier.STATIC))
+        || ((record.getNestingKind() != NestingKind.TOP_LEVEL)
+            && (record.getNestingKind() != NestingKind.MEMBER))) {
+      return false;
+    }
+
+    String packageName = this.packageOf(record).getQualifiedName().toString();
+    if (!this.isAccessible(record, packageName)) {
+      return false;
+    }
+
+    for (ExecutableElement constructor : ElementFilter
+        .constructorsIn(record.getEnclosedElements())) {
+      if (constructor.getParameters().isEmpty()) {
+        return !constructor.getModifiers().contains(Modifier.PRIVATE);
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Checks if an element (and the classes enclosing it) can be reached from code on the given
+   * package
+   */
+  private boolean isAccessible(final Element element, final String packageName) {
+    Element e = element;
+    while ((e != null) && (e.getKind() != ElementKind.PACKAGE)) {
+      Set<Modifier> modifiers = e.getModifiers();
+      if (modifiers.contains(Modifier.PRIVATE)) {
+        return false;
+      }
+      if (!modifiers.contains(Modifier.PUBLIC)
+          && !this.packageOf(e).getQualifiedName().contentEquals(packageName)) {
+        return false;
+      }
+      e = e.getEnclosingElement();
+    }
+    return true;
+  }
+
+  private boolean isAccessible(final TypeMirror type, final String packageName) {
+    if (type.getKind().isPrimitive()) {
+      return true;
+    } else if (type.getKind() == TypeKind.ARRAY) {
+      return this.isAccessible(((ArrayType) type).getComponentType(), packageName);
+    } else if (type.getKind() == TypeKind.DECLARED) {
+      return this.isAccessible(((DeclaredType) type).asElement(), packageName);
+    }
+    return false;
+  }
+
+  private PackageElement packageOf(final Element element) {
+    return this.processingEnv.getElementUtils().getPackageOf(element);
+  }
+}
@@ -23,9 +23,26 @@ import org.coury.jfilehelpers.tests.annotations.IgnoreTest;
 import org.coury.jfilehelpers.tests.callbacks.EventsTest;
 import org.coury.jfilehelpers.tests.callbacks.NotifiersTest;
 import org.coury.jfilehelpers.tests.callbacks.ProgressTest;
+import org.coury.jfilehelpers.tests.converters.BigDecimalTest;
+import org.coury.jfilehelpers.tests.converters.CustomConverterTest;
 import org.coury.jfilehelpers.tests.converters.DateFormatTest;
 import org.coury.jfilehelpers.tests.converters.DecimalNumbersTest;
 import org.coury.jfilehelpers.tests.converters.EnumConverterTest;
+import org.coury.jfilehelpers.tests.converters.FloatingPointTest;
+import org.coury.jfilehelpers.tests.converters.ImpliedDecimalTest;
+import org.coury.jfilehelpers.tests.converters.IntegerConvertersTest;
+import org.coury.jfilehelpers.tests.converters.InternTest;
+import org.coury.jfilehelpers.tests.converters.MemoizedTest;
+import org.coury.jfilehelpers.tests.converters.PrimitiveTypesTest;
+import org.coury.jfilehelpers.tests.converters.TrimTest;
+import org.coury.jfilehelpers.tests.engines.CompiledCodecTest;
+import org.coury.jfilehelpers.tests.engines.EncodingTest;
+import org.coury.jfilehelpers.tests.engines.MappedFileTest;
+import org.coury.jfilehelpers.tests.engines.ParallelReadTest;
+import org.coury.jfilehelpers.tests.engines.QuotedTest;
+import org.coury.jfilehelpers.tests.engines.RandomAccessTest;
+import org.coury.jfilehelpers.tests.engines.RecordInfoCacheTest;
+import org.coury.jfilehelpers.tests.engines.SeparatorTest;
 import org.coury.jfilehelpers.tests.masterdetail.MasterDetailTest;
 
 import junit.framework.Test;
@@ -45,6 +62,23 @@ public class AllTests {
 		suite.addTestSuite(NotifiersTest.class);
 		suite.addTestSuite(EventsTest.class);
 		suite.addTestSuite(ProgressTest.class);
+		suite.addTestSuite(CompiledCodecTest.class);
+		suite.addTestSuite(RandomAccessTest.class);
+		suite.addTestSuite(RecordInfoCacheTest.class);
+		suite.addTestSuite(PrimitiveTypesTest.class);
+		suite.addTestSuite(IntegerConvertersTest.class);
+		suite.addTestSuite(FloatingPointTest.class);
+		suite.addTestSuite(BigDecimalTest.class);
+		suite.addTestSuite(ImpliedDecimalTest.class);
+		suite.addTestSuite(MemoizedTest.class);
+		suite.addTestSuite(InternTest.class);
+		suite.addTestSuite(CustomConverterTest.class);
+		suite.addTestSuite(TrimTest.class);
+		suite.addTestSuite(SeparatorTest.class);
+		suite.addTestSuite(ParallelReadTest.class);
+		suite.addTestSuite(QuotedTest.class);
+		suite.addTestSuite(EncodingTest.class);
+		suite.addTestSuite(MappedFileTest.class);
 		//$JUnit-END$
 		return suite;
 	}
@@ -0,0 +1,74 @@
+/*
+ * BigDecimalTest.java
+ *
+ * Copyright (C) 2007 Felipe Gonalves Coury <felipe.coury@gmail.com>
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package org.coury.jfilehelpers.tests.converters;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.coury.jfilehelpers.engines.FileHelperEngine;
+import org.coury.jfilehelpers.tests.common.Common;
+import org.coury.jfilehelpers.tests.converters.testobjects.BigDecimalType;
+
+public class BigDecimalTest extends TestCase {
+
+	@SuppressWarnings("unchecked")
+	public void testBigDecimal() throws IOException {
+		FileHelperEngine<BigDecimalType> engine = 
+			new FileHelperEngine<BigDecimalType>(BigDecimalType.class);
+
+		List<BigDecimalType> res = 
+			(List<BigDecimalType>) Common.readTest(engine, "Good/BigDecimal.txt");
+
+		assertEquals(3, res.size());
+
+		assertEquals(new BigDecimal("32.380"), res.get(0).plainField);
+		assertEquals(new BigDecimal("11.62"), res.get(0).scaledField);
+		assertEquals(new BigDecimal("1234.2"), res.get(0).commaField);
+
+		assertEquals(new BigDecimal("-0.001"), res.get(1).plainField);
+		assertEquals(new BigDecimal("7.00"), res.get(1).scaledField);
+		assertEquals(new BigDecimal("-0.4"), res.get(1).commaField);
+
+		assertEquals(new BigDecimal("123456789012345678901.25"), res.get(2).plainField);
+		assertEquals(new BigDecimal("100.00"), res.get(2).scaledField);
+		assertEquals(new BigDecimal("10.0"), res.get(2).commaField);
+	}
+
+	@SuppressWarnings("unchecked")
+	public void testWriteScale() throws IOException {
+		FileHelperEngine<BigDecimalType> engine = 
+			new FileHelperEngine<BigDecimalType>(BigDecimalType.class);
+
+		List<BigDecimalType> res = 
+			(List<BigDecimalType>) Common.readTest(engine, "Good/BigDecimal.txt");
+
+		res.get(0).scaledField = new BigDecimal("0.005");
+		res.get(1).commaField = new BigDecimal("-2.25");
+
+		String[] lines = engine.getRecordsAsString(res).split("\r?\n");
+		assertEquals("32.380;0.01;1234,2", lines[0]);
+		assertEquals("-0.001;7.00;-2,2", lines[1]);
+		assertEquals("123456789012345678901.25;100.00;10,0", lines[2]);
+	}
+}
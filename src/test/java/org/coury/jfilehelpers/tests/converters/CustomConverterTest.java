@@ -0,0 +1,103 @@
+/*
+ * CustomConverterTest.java
+ *
+ * Copyright (C) 2007 Felipe Gonalves Coury <felipe.coury@gmail.com>
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package org.coury.jfilehelpers.tests.converters;
+
+import java.io.IOException;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.coury.jfilehelpers.converters.CharSlice;
+import org.coury.jfilehelpers.engines.FileHelperEngine;
+import org.coury.jfilehelpers.engines.LineInfo;
+import org.coury.jfilehelpers.tests.common.Common;
+import org.coury.jfilehelpers.tests.converters.testobjects.CustomConverterType1;
+import org.coury.jfilehelpers.tests.converters.testobjects.CustomConverterType2;
+
+public class CustomConverterTest extends TestCase {
+
+	@SuppressWarnings("unchecked")
+	public void testCharSequenceConverter() throws IOException {
+		FileHelperEngine<CustomConverterType1> engine = 
+			new FileHelperEngine<CustomConverterType1>(CustomConverterType1.class);
+
+		List<CustomConverterType1> res = 
+			(List<CustomConverterType1>) Common.readTest(engine, "Good/CustomConverter1.txt");
+
+		assertEquals(5, res.size());
+		for (CustomConverterType1 record : res) {
+			assertEquals("Argentina", record.country);
+			assertEquals("Meli", record.name.last);
+			assertEquals("Marcos", record.name.first);
+			assertEquals(25, record.age);
+		}
+
+		String[] lines = engine.getRecordsAsString(res).split("\r?\n");
+		assertEquals("Argentina|Meli,Marcos|25", lines[1]);
+	}
+
+	@SuppressWarnings("unchecked")
+	public void testStringConverter() throws IOException {
+		FileHelperEngine<CustomConverterType2> engine = 
+			new FileHelperEngine<CustomConverterType2>(CustomConverterType2.class);
+
+		List<CustomConverterType2> res = 
+			(List<CustomConverterType2>) Common.readTest(engine, "Good/CustomConverter2.txt");
+
+		assertEquals(4, res.size());
+		assertEquals("Sin Nombre", res.get(0).address.street);
+		assertEquals("13", res.get(0).address.number);
+		assertEquals("Bahia Blanca", res.get(0).address.city);
+		assertEquals("s/n", res.get(1).address.number);
+		assertEquals("Bs.As", res.get(2).address.city);
+		assertEquals(25, res.get(3).age);
+
+		String[] lines = engine.getRecordsAsString(res).split("\r?\n");
+		assertEquals("Pololo - 5421, Chilesito|25", lines[3]);
+	}
+
+	public void testCharSlice() {
+		CharSlice slice = new CharSlice("|  Meli , Marcos|".toCharArray(), 1, 15);
+		assertEquals("  Meli , Marcos", slice.toString());
+		assertEquals("Meli , Marcos", slice.trim().toString());
+		assertEquals(7, slice.indexOf(','));
+		assertEquals('M', slice.charAt(2));
+		assertEquals("Marcos", slice.subSequence(9, 15).toString());
+	}
+
+	public void testCharSliceReused() {
+		LineInfo line = new LineInfo("Meli,Marcos|25");
+		CharSlice first = line.extractTo(11).toCharSlice();
+		assertEquals("Meli,Marcos", first.toString());
+
+		// the next field gets the same view, pointed to its chars
+		line.setCurrentPos(12);
+		CharSlice second = line.extractRest().toCharSlice();
+		assertSame(first, second);
+		assertEquals("25", second.toString());
+
+		try {
+			second.set(line.getLine(), 12, 3);
+			fail("The range was not checked");
+		} catch (IndexOutOfBoundsException e) {
+		}
+	}
+}
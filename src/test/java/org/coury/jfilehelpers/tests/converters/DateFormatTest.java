@@ -27,7 +27,10 @@ import java.util.List;
 
 import junit.framework.TestCase;
 
+import org.coury.jfilehelpers.converters.ConvertHelpers;
+import org.coury.jfilehelpers.converters.ConverterBase;
 import org.coury.jfilehelpers.engines.FileHelperEngine;
+import org.coury.jfilehelpers.enums.ConverterKind;
 import org.coury.jfilehelpers.tests.common.Common;
 import org.coury.jfilehelpers.tests.converters.testobjects.DateFormatType1;
 import org.coury.jfilehelpers.tests.converters.testobjects.DateFormatType2;
@@ -80,6 +83,58 @@ public class DateFormatTest extends TestCase {
 		Common.assertSameDate(getDate(1996, 7, 15), res.get(3).shippedDate);		
 	}
 	
+	public void testTimeFormat() {
+		ConverterBase converter = ConvertHelpers.getConverter(ConverterKind.Date, "yyyy-MM-dd HH:mm:ss");
+
+		Calendar c = Calendar.getInstance();
+		c.clear();
+		c.set(2007, 11, 31, 23, 5, 9);
+		assertEquals(c.getTime(), converter.stringToField("2007-12-31 23:05:09"));
+		assertEquals("2007-12-31 23:05:09", converter.fieldToString(c.getTime()));
+
+		// quoted text is left to SimpleDateFormat
+		ConverterBase quoted = ConvertHelpers.getConverter(ConverterKind.Date, "yyyy-MM-dd'T'HH:mm:ss");
+		assertEquals(c.getTime(), quoted.stringToField("2007-12-31T23:05:09"));
+		assertEquals("2007-12-31T23:05:09", quoted.fieldToString(c.getTime()));
+	}
+
+	public void testInvalidDate() {
+		ConverterBase converter = ConvertHelpers.getConverter(ConverterKind.Date, "ddMMyyyy");
+		try {
+			converter.stringToField("01-08-1996");
+			fail("The date does not match the format");
+		} catch (RuntimeException e) {
+		}
+	}
+
+	public void testJavaTime() throws Exception {
+		Class<?> localDate;
+		try {
+			localDate = Class.forName("java.time.LocalDate");
+		} catch (ClassNotFoundException e) {
+			// java.time is only there on Java 8 or later
+			return;
+		}
+
+		ConverterBase converter = new ConvertHelpers().new DateTimeConverter("d/M/yyyy", localDate);
+		Object value = converter.stringToField("4/7/1996");
+		assertEquals(localDate, value.getClass());
+		assertEquals("1996-07-04", value.toString());
+		assertEquals("4/7/1996", converter.fieldToString(value));
+
+		Class<?> localDateTime = Class.forName("java.time.LocalDateTime");
+		converter = new ConvertHelpers().new DateTimeConverter("yyyyMMddHHmmssSSS", localDateTime);
+		value = converter.stringToField("19960704235901250");
+		assertEquals("1996-07-04T23:59:01.250", value.toString());
+		assertEquals("19960704235901250", converter.fieldToString(value));
+
+		Class<?> instant = Class.forName("java.time.Instant");
+		converter = new ConvertHelpers().new DateTimeConverter("yyyy-MM-dd HH:mm", instant);
+		value = converter.stringToField("1996-07-04 12:30");
+		assertEquals("1996-07-04T12:30:00Z", value.toString());
+		assertEquals("1996-07-04 12:30", converter.fieldToString(value));
+	}
+
 	private static Date getDate(int y, int m, int d) {
 		Calendar c = Calendar.getInstance();
 		c.set(y, m-1, d, 0, 0, 0);
@@ -26,10 +26,14 @@ import java.util.List;
 
 import junit.framework.TestCase;
 
+import org.coury.jfilehelpers.converters.ConvertHelpers;
+import org.coury.jfilehelpers.converters.ConverterBase;
 import org.coury.jfilehelpers.engines.FileHelperEngine;
+import org.coury.jfilehelpers.enums.ConverterKind;
 import org.coury.jfilehelpers.tests.common.Common;
 import org.coury.jfilehelpers.tests.converters.testobjects.Enum2;
 import org.coury.jfilehelpers.tests.converters.testobjects.EnumType2;
+import org.coury.jfilehelpers.tests.converters.testobjects.LookupType;
 
 public class EnumConverterTest extends TestCase {
 	public static void main(String[] args) {
@@ -56,4 +60,43 @@ public class EnumConverterTest extends TestCase {
 		assertNull(res.get(1).enumValue);
 	}
 
+	@SuppressWarnings("unchecked")
+	public void testLookup() throws IOException {
+		FileHelperEngine<LookupType> engine = new FileHelperEngine<LookupType>(LookupType.class);
+
+		List<LookupType> res = (ArrayList<LookupType>) Common.readTest(engine, "Good/Lookup.txt");
+
+		assertEquals(4, res.size());
+
+		assertEquals(Enum2.One, res.get(0).enumValue);
+		assertEquals(Enum2.Two, res.get(1).enumValue);
+		assertEquals(Enum2.Three, res.get(2).enumValue);
+		assertNull(res.get(3).enumValue);
+
+		assertTrue(res.get(0).flag);
+		assertFalse(res.get(1).flag);
+		assertTrue(res.get(2).flag);
+		assertFalse(res.get(3).flag);
+
+		assertEquals(Boolean.TRUE, res.get(0).boxedFlag);
+		assertEquals(Boolean.FALSE, res.get(1).boxedFlag);
+		assertEquals(Boolean.FALSE, res.get(2).boxedFlag);
+		assertEquals(Boolean.TRUE, res.get(3).boxedFlag);
+
+		String[] lines = engine.getRecordsAsString(res).split("\r?\n");
+		assertEquals("One,True,True", lines[0]);
+		assertEquals("Two,False,False", lines[1]);
+		assertEquals(",False,True", lines[3]);
+	}
+
+	public void testBadBoolean() {
+		ConverterBase converter = ConvertHelpers.getConverter(ConverterKind.Boolean, "");
+		assertEquals(Boolean.TRUE, converter.stringToField(" TRUE "));
+		try {
+			converter.stringToField("yes");
+			fail("yes is not a boolean");
+		} catch (RuntimeException e) {
+			assertEquals("Error converting: yes to boolean", e.getMessage());
+		}
+	}
 }
@@ -0,0 +1,70 @@
+/*
+ * FloatingPointTest.java
+ *
+ * Copyright (C) 2007 Felipe Gonalves Coury <felipe.coury@gmail.com>
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package org.coury.jfilehelpers.tests.converters;
+
+import java.io.IOException;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.coury.jfilehelpers.engines.FileHelperEngine;
+import org.coury.jfilehelpers.tests.common.Common;
+import org.coury.jfilehelpers.tests.converters.testobjects.FloatingPointType;
+
+public class FloatingPointTest extends TestCase {
+
+	@SuppressWarnings("unchecked")
+	public void testFloatingPoint() throws IOException {
+		FileHelperEngine<FloatingPointType> engine = 
+			new FileHelperEngine<FloatingPointType>(FloatingPointType.class);
+
+		List<FloatingPointType> res = 
+			(List<FloatingPointType>) Common.readTest(engine, "Good/FloatingPoint.txt");
+
+		assertEquals(3, res.size());
+
+		assertEquals(32.38, res.get(0).doubleField.doubleValue());
+		assertEquals(11.61f, res.get(0).floatField.floatValue());
+		assertEquals(1234.5, res.get(0).commaDoubleField.doubleValue());
+		assertEquals(-0.25f, res.get(0).commaFloatField);
+
+		assertEquals(-1000.0, res.get(1).doubleField.doubleValue());
+		assertEquals(0.1f, res.get(1).floatField.floatValue());
+		assertEquals(0.1, res.get(1).commaDoubleField.doubleValue());
+
+		assertEquals(12345678901234567890.0, res.get(2).doubleField.doubleValue());
+		assertEquals(Float.MAX_VALUE, res.get(2).floatField.floatValue());
+		assertEquals(0.001f, res.get(2).commaFloatField);
+	}
+
+	@SuppressWarnings("unchecked")
+	public void testShortestFormat() throws IOException {
+		FileHelperEngine<FloatingPointType> engine = 
+			new FileHelperEngine<FloatingPointType>(FloatingPointType.class);
+
+		List<FloatingPointType> res = 
+			(List<FloatingPointType>) Common.readTest(engine, "Good/FloatingPoint.txt");
+
+		String[] lines = engine.getRecordsAsString(res).split("\r?\n");
+		assertEquals("32.38;11.61;1234,5;-0,25", lines[0]);
+		assertEquals("-1000;0.1;0,1;7", lines[1]);
+	}
+}
@@ -0,0 +1,97 @@
+/*
+ * ImpliedDecimalTest.java
+ *
+ * Copyright (C) 2007 Felipe Gonalves Coury <felipe.coury@gmail.com>
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package org.coury.jfilehelpers.tests.converters;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.coury.jfilehelpers.core.RecordInfo;
+import org.coury.jfilehelpers.engines.FileHelperEngine;
+import org.coury.jfilehelpers.tests.common.Common;
+import org.coury.jfilehelpers.tests.converters.testobjects.ImpliedDecimalType;
+
+public class ImpliedDecimalTest extends TestCase {
+
+	@SuppressWarnings("unchecked")
+	public void testImpliedDecimal() throws IOException {
+		FileHelperEngine<ImpliedDecimalType> engine = 
+			new FileHelperEngine<ImpliedDecimalType>(ImpliedDecimalType.class);
+
+		List<ImpliedDecimalType> res = 
+			(List<ImpliedDecimalType>) Common.readTest(engine, "Good/ImpliedDecimal.txt");
+
+		assertEquals(3, res.size());
+
+		assertEquals(1234567L, res.get(0).minorUnits);
+		assertEquals(new BigDecimal("123.455"), res.get(0).decimalField);
+		assertEquals(-12.5, res.get(0).doubleField);
+		assertEquals(-120, res.get(0).intField.intValue());
+
+		assertEquals(0L, res.get(1).minorUnits);
+		assertEquals(new BigDecimal("0.000"), res.get(1).decimalField);
+		assertEquals(0.0, res.get(1).doubleField);
+		assertEquals(0, res.get(1).intField.intValue());
+
+		assertEquals(-1L, res.get(2).minorUnits);
+		assertEquals(new BigDecimal("-0.001"), res.get(2).decimalField);
+		assertEquals(9.9, res.get(2).doubleField);
+		assertEquals(1, res.get(2).intField.intValue());
+	}
+
+	@SuppressWarnings("unchecked")
+	public void testWriteZeroPadded() throws IOException {
+		FileHelperEngine<ImpliedDecimalType> engine = 
+			new FileHelperEngine<ImpliedDecimalType>(ImpliedDecimalType.class);
+
+		List<ImpliedDecimalType> res = 
+			(List<ImpliedDecimalType>) Common.readTest(engine, "Good/ImpliedDecimal.txt");
+
+		String[] lines = engine.getRecordsAsString(res).split("\r?\n");
+		assertEquals("00012345670012345E-001250012}", lines[0]);
+		assertEquals("00000000000000000{0000000000{", lines[1]);
+		assertEquals("-0000000010000000J0000990000A", lines[2]);
+	}
+
+	public void testValueTooLong() throws Exception {
+		ImpliedDecimalType record = new ImpliedDecimalType();
+		record.minorUnits = 12345678901L;
+		try {
+			RecordInfo.forClass(ImpliedDecimalType.class).recordToStr(record);
+			fail("The value does not fit on the field");
+		} catch (IllegalArgumentException e) {
+		}
+	}
+
+	public void testDecimalOutOfLongRange() throws Exception {
+		// 2^64 thousandths, the unscaled value would wrap to 0 on a long
+		ImpliedDecimalType record = new ImpliedDecimalType();
+		record.decimalField = new BigDecimal("18446744073709551.616");
+		try {
+			RecordInfo.forClass(ImpliedDecimalType.class).recordToStr(record);
+			fail("The value does not fit on a long");
+		} catch (IllegalArgumentException e) {
+			assertTrue(e.getMessage(), e.getMessage().endsWith("does not fit on a long."));
+		}
+	}
+}
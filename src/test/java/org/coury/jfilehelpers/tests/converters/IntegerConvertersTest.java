@@ -0,0 +1,69 @@
+/*
+ * IntegerConvertersTest.java
+ *
+ * Copyright (C) 2007 Felipe Gonalves Coury <felipe.coury@gmail.com>
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package org.coury.jfilehelpers.tests.converters;
+
+import java.io.IOException;
+import java.text.DecimalFormatSymbols;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.coury.jfilehelpers.engines.FileHelperEngine;
+import org.coury.jfilehelpers.tests.common.Common;
+import org.coury.jfilehelpers.tests.converters.testobjects.IntegerType;
+
+public class IntegerConvertersTest extends TestCase {
+
+	@SuppressWarnings("unchecked")
+	public void testIntegerConverters() throws IOException {
+		FileHelperEngine<IntegerType> engine = new FileHelperEngine<IntegerType>(IntegerType.class);
+
+		List<IntegerType> res = (List<IntegerType>) Common.readTest(engine, "Good/IntegerConverters.txt");
+
+		assertEquals(2, res.size());
+
+		assertEquals(Byte.valueOf(Byte.MIN_VALUE), res.get(0).byteField);
+		assertEquals(Short.valueOf((short) 42), res.get(0).shortField);
+		assertEquals(Integer.valueOf(Integer.MAX_VALUE), res.get(0).intField);
+		assertEquals(Long.valueOf(Long.MIN_VALUE), res.get(0).longField);
+		assertEquals(Long.valueOf(123), res.get(0).paddedField);
+
+		assertEquals(Short.valueOf((short) 12), res.get(1).shortField);
+		assertEquals(Integer.valueOf(0), res.get(1).groupedField);
+		assertEquals(Long.valueOf(-1), res.get(1).paddedField);
+	}
+
+	@SuppressWarnings("unchecked")
+	public void testGroupedFormat() throws IOException {
+		if (new DecimalFormatSymbols().getGroupingSeparator() != ',') {
+			// the test file uses the english grouping separator
+			return;
+		}
+		FileHelperEngine<IntegerType> engine = new FileHelperEngine<IntegerType>(IntegerType.class);
+
+		List<IntegerType> res = (List<IntegerType>) Common.readTest(engine, "Good/IntegerConverters.txt");
+		assertEquals(Integer.valueOf(1234567), res.get(0).groupedField);
+
+		String[] lines = engine.getRecordsAsString(res).split("\r?\n");
+		assertEquals("-128;42;2147483647;-9223372036854775808;1,234,567;000123", lines[0]);
+		assertEquals("7;12;0;42;0;-000001", lines[1]);
+	}
+}
@@ -0,0 +1,88 @@
+/*
+ * InternTest.java
+ *
+ * Copyright (C) 2007 Felipe Gonalves Coury <felipe.coury@gmail.com>
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package org.coury.jfilehelpers.tests.converters;
+
+import java.io.IOException;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.coury.jfilehelpers.engines.FileHelperEngine;
+import org.coury.jfilehelpers.helpers.StringPool;
+import org.coury.jfilehelpers.tests.common.Common;
+import org.coury.jfilehelpers.tests.converters.testobjects.InternType;
+
+public class InternTest extends TestCase {
+
+	@SuppressWarnings("unchecked")
+	public void testIntern() throws IOException {
+		FileHelperEngine<InternType> engine = 
+			new FileHelperEngine<InternType>(InternType.class);
+
+		List<InternType> res = 
+			(List<InternType>) Common.readTest(engine, "Good/Intern.txt");
+
+		assertEquals(4, res.size());
+
+		assertEquals("Ana", res.get(1).name);
+		assertNotSame(res.get(0).name, res.get(1).name);
+
+		assertEquals("Brazil", res.get(0).country);
+		assertEquals("Argentina", res.get(1).country);
+		assertSame(res.get(0).country, res.get(2).country);
+		assertSame(res.get(0).country, res.get(3).country);
+
+		assertEquals("ARS", res.get(3).currency);
+		assertSame(res.get(1).currency, res.get(3).currency);
+		assertSame(res.get(0).currency, StringPool.getShared().intern("BRL"));
+	}
+
+	public void testPool() {
+		StringPool pool = new StringPool(3);
+		assertEquals(4, pool.getSize());
+
+		char[] chars = "xxUSDxxUSD".toCharArray();
+		String usd = pool.intern(chars, 2, 3);
+		assertEquals("USD", usd);
+		assertSame(usd, pool.intern(chars, 7, 3));
+		assertSame(usd, pool.intern(new String("USD")));
+
+		pool.clear();
+		assertNotSame(usd, pool.intern(chars, 7, 3));
+	}
+
+	public void testLargePool() {
+		// the sets are spread over the whole pool, not only over the first 65536 entries
+		StringPool pool = new StringPool(1 << 18);
+		String[] values = new String[100000];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = pool.intern("value" + i);
+		}
+
+		int kept = 0;
+		for (int i = 0; i < values.length; i++) {
+			if (pool.intern("value" + i) == values[i]) {
+				kept++;
+			}
+		}
+		assertTrue(kept > 65536);
+	}
+}
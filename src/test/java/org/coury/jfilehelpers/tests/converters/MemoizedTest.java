@@ -0,0 +1,107 @@
+/*
+ * MemoizedTest.java
+ *
+ * Copyright (C) 2007 Felipe Gonalves Coury <felipe.coury@gmail.com>
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package org.coury.jfilehelpers.tests.converters;
+
+import java.io.IOException;
+import java.util.Calendar;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.coury.jfilehelpers.converters.ConverterBase;
+import org.coury.jfilehelpers.converters.MemoizingConverter;
+import org.coury.jfilehelpers.core.RecordInfo;
+import org.coury.jfilehelpers.engines.FileHelperEngine;
+import org.coury.jfilehelpers.tests.common.Common;
+import org.coury.jfilehelpers.tests.converters.testobjects.MemoizedCustomType;
+import org.coury.jfilehelpers.tests.converters.testobjects.MemoizedType;
+
+public class MemoizedTest extends TestCase {
+
+	@SuppressWarnings("unchecked")
+	public void testMemoized() throws IOException {
+		MemoizingConverter dates = (MemoizingConverter)
+			RecordInfo.forClass(MemoizedType.class).getFields()[0].getConvertProvider();
+		MemoizingConverter codes = (MemoizingConverter)
+			RecordInfo.forClass(MemoizedType.class).getFields()[1].getConvertProvider();
+		assertEquals(4, dates.getSize());
+		assertEquals(256, codes.getSize());
+		dates.clear();
+		codes.clear();
+		long dateHits = dates.getHits();
+		long dateMisses = dates.getMisses();
+		long codeHits = codes.getHits();
+
+		FileHelperEngine<MemoizedType> engine = 
+			new FileHelperEngine<MemoizedType>(MemoizedType.class);
+
+		List<MemoizedType> res = 
+			(List<MemoizedType>) Common.readTest(engine, "Good/Memoized.txt");
+
+		assertEquals(5, res.size());
+		Calendar c = Calendar.getInstance();
+		c.clear();
+		c.set(1996, 7, 1);
+		assertEquals(c.getTime(), res.get(0).date);
+		assertEquals(c.getTime(), res.get(3).date);
+		c.set(1996, 7, 16);
+		assertEquals(c.getTime(), res.get(4).date);
+		assertEquals(10, res.get(4).code.intValue());
+
+		assertEquals(3, dates.getHits() - dateHits);
+		assertEquals(2, dates.getMisses() - dateMisses);
+		assertEquals(3, codes.getHits() - codeHits);
+
+		// dates are mutable, each record gets its own
+		assertNotSame(res.get(0).date, res.get(1).date);
+		res.get(0).date.setTime(0);
+		assertEquals(res.get(1).date, res.get(3).date);
+	}
+
+	public void testLargeCache() {
+		// the sets are spread over the whole cache, not only over the first 65536 entries
+		MemoizingConverter cache = new MemoizingConverter(new ConverterBase() {
+			@Override
+			public Object stringToField(String from) {
+				return from;
+			}
+		}, 1 << 18);
+
+		for (int i = 0; i < 100000; i++) {
+			cache.stringToField("value" + i);
+		}
+		for (int i = 0; i < 100000; i++) {
+			cache.stringToField("value" + i);
+		}
+		assertTrue(cache.getHits() > 65536);
+		assertEquals(200000, cache.getHits() + cache.getMisses());
+	}
+
+	public void testMutableResultRejected() {
+		// the custom converter returns Address objects, that records could change
+		try {
+			RecordInfo.forClass(MemoizedCustomType.class);
+			fail("FieldMemoized accepted on a converter with mutable results");
+		} catch (IllegalArgumentException e) {
+			assertTrue(e.getMessage().indexOf("FieldMemoized") >= 0);
+		}
+	}
+}
@@ -0,0 +1,75 @@
+/*
+ * PrimitiveTypesTest.java
+ *
+ * Copyright (C) 2007 Felipe Gonalves Coury <felipe.coury@gmail.com>
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package org.coury.jfilehelpers.tests.converters;
+
+import java.io.IOException;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.coury.jfilehelpers.engines.FileHelperEngine;
+import org.coury.jfilehelpers.tests.common.Common;
+import org.coury.jfilehelpers.tests.converters.testobjects.PrimitiveType;
+
+public class PrimitiveTypesTest extends TestCase {
+
+	public void testPrimitives() throws IOException {
+		FileHelperEngine<PrimitiveType> engine = new FileHelperEngine<PrimitiveType>(PrimitiveType.class);
+		assertPrimitives(engine);
+	}
+
+	public void testPrimitivesWithoutCodec() throws IOException {
+		FileHelperEngine<PrimitiveType> engine = new FileHelperEngine<PrimitiveType>(PrimitiveType.class);
+		engine.setCompiledCodec(false);
+		assertPrimitives(engine);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static void assertPrimitives(FileHelperEngine<PrimitiveType> engine) throws IOException {
+		List<PrimitiveType> res = (List<PrimitiveType>) Common.readTest(engine, "Good/PrimitiveTypes.txt");
+
+		assertEquals(3, res.size());
+
+		assertEquals(Long.MAX_VALUE, res.get(0).longField);
+		assertEquals(Short.MIN_VALUE, res.get(0).shortField);
+		assertEquals(Byte.MAX_VALUE, res.get(0).byteField);
+		assertEquals('A', res.get(0).charField);
+		assertTrue(res.get(0).booleanField);
+		assertEquals(-1.5, res.get(0).doubleField);
+		assertEquals(7, res.get(0).intField);
+		assertEquals(1, res.get(0).getPrivateField());
+
+		assertEquals(-42, res.get(1).longField);
+		assertEquals(12, res.get(1).shortField);
+		assertEquals(0, res.get(1).byteField);
+		assertEquals('z', res.get(1).charField);
+		assertFalse(res.get(1).booleanField);
+		assertEquals(3.0, res.get(1).doubleField);
+		assertEquals(10, res.get(1).intField);
+		assertEquals(-2, res.get(1).getPrivateField());
+
+		assertFalse(res.get(2).booleanField);
+		assertEquals(0.25, res.get(2).doubleField);
+		// empty values leave the field untouched
+		assertEquals(0, res.get(2).intField);
+		assertEquals(3, res.get(2).getPrivateField());
+	}
+}
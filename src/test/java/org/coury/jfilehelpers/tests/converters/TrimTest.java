@@ -0,0 +1,75 @@
+/*
+ * TrimTest.java
+ *
+ * Copyright (C) 2007 Felipe Gonalves Coury <felipe.coury@gmail.com>
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package org.coury.jfilehelpers.tests.converters;
+
+import java.io.IOException;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.coury.jfilehelpers.engines.FileHelperEngine;
+import org.coury.jfilehelpers.helpers.CharClass;
+import org.coury.jfilehelpers.tests.common.Common;
+import org.coury.jfilehelpers.tests.converters.testobjects.TrimType;
+
+public class TrimTest extends TestCase {
+
+	@SuppressWarnings("unchecked")
+	public void testTrim() throws IOException {
+		FileHelperEngine<TrimType> engine = 
+			new FileHelperEngine<TrimType>(TrimType.class);
+
+		List<TrimType> res = 
+			(List<TrimType>) Common.readTest(engine, "Good/Trim.txt");
+
+		assertEquals(3, res.size());
+
+		assertEquals("abc", res.get(0).both);
+		assertEquals("abc-*", res.get(0).start);
+		assertEquals("  abc", res.get(0).end);
+
+		assertEquals("a*b", res.get(1).both);
+		assertEquals("x", res.get(1).start);
+		assertEquals("", res.get(1).end);
+
+		assertEquals("", res.get(2).both);
+		assertEquals("", res.get(2).start);
+		assertEquals(" z", res.get(2).end);
+	}
+
+	public void testCharClass() {
+		CharClass cc = new CharClass(new char[] { '\u2003', '-', ' ', '*' });
+
+		assertTrue(cc.contains('\u2003'));
+		assertTrue(cc.contains('-'));
+		assertFalse(cc.contains('a'));
+		assertFalse(cc.contains('\u2002'));
+
+		assertEquals("a-b", cc.trim("*- a-b\u2003 "));
+		assertEquals("a- ", cc.trimStart("*a- "));
+		assertEquals(" *a", cc.trimEnd(" *a- "));
+		assertEquals("", cc.trim(" -*"));
+		assertTrue(cc.containsAll("-\u2003*"));
+		assertFalse(cc.containsAll("-x"));
+
+		assertEquals("abc", CharClass.WHITESPACE.trim("\t abc \r\n"));
+	}
+}
@@ -0,0 +1,7 @@
+package org.coury.jfilehelpers.tests.converters.testobjects;
+
+public class Address {
+	public String street;
+	public String number;
+	public String city;
+}
@@ -0,0 +1,28 @@
+package org.coury.jfilehelpers.tests.converters.testobjects;
+
+import org.coury.jfilehelpers.converters.ConverterBase;
+
+public class AddressConverter extends ConverterBase {
+	private String separator;
+
+	public AddressConverter(String separator) {
+		this.separator = separator;
+	}
+
+	@Override
+	public Object stringToField(String from) {
+		Address address = new Address();
+		int sep = from.indexOf(separator);
+		int comma = from.indexOf(',', sep);
+		address.street = from.substring(0, sep).trim();
+		address.number = from.substring(sep + separator.length(), comma).trim();
+		address.city = from.substring(comma + 1).trim();
+		return address;
+	}
+
+	@Override
+	public String fieldToString(Object from) {
+		Address address = (Address) from;
+		return address.street + separator + address.number + ", " + address.city;
+	}
+}
@@ -0,0 +1,19 @@
+package org.coury.jfilehelpers.tests.converters.testobjects;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+import org.coury.jfilehelpers.annotations.DelimitedRecord;
+import org.coury.jfilehelpers.annotations.FieldConverter;
+import org.coury.jfilehelpers.annotations.FieldDecimalScale;
+import org.coury.jfilehelpers.enums.ConverterKind;
+
+@DelimitedRecord(";")
+public class BigDecimalType {
+	public BigDecimal plainField;
+	@FieldDecimalScale(2)
+	public BigDecimal scaledField;
+	@FieldConverter(converter=ConverterKind.Decimal, format=",")
+	@FieldDecimalScale(value=1, rounding=RoundingMode.HALF_EVEN)
+	public BigDecimal commaField;
+}
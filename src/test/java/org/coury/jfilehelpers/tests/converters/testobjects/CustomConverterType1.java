@@ -0,0 +1,12 @@
+package org.coury.jfilehelpers.tests.converters.testobjects;
+
+import org.coury.jfilehelpers.annotations.DelimitedRecord;
+import org.coury.jfilehelpers.annotations.FieldConverter;
+
+@DelimitedRecord("|")
+public class CustomConverterType1 {
+	public String country;
+	@FieldConverter(converterClass=NameConverter.class)
+	public Name name;
+	public int age;
+}
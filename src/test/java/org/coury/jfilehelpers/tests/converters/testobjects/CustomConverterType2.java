@@ -0,0 +1,11 @@
+package org.coury.jfilehelpers.tests.converters.testobjects;
+
+import org.coury.jfilehelpers.annotations.DelimitedRecord;
+import org.coury.jfilehelpers.annotations.FieldConverter;
+
+@DelimitedRecord("|")
+public class CustomConverterType2 {
+	@FieldConverter(converterClass=AddressConverter.class, format=" - ")
+	public Address address;
+	public int age;
+}
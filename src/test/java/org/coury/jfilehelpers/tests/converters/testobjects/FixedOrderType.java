@@ -0,0 +1,16 @@
+package org.coury.jfilehelpers.tests.converters.testobjects;
+
+import org.coury.jfilehelpers.annotations.FieldFixedLength;
+import org.coury.jfilehelpers.annotations.FixedLengthRecord;
+import org.coury.jfilehelpers.annotations.IgnoreFirst;
+
+@FixedLengthRecord
+@IgnoreFirst
+public class FixedOrderType {
+	@FieldFixedLength(6)
+	public int orderId;
+	@FieldFixedLength(10)
+	public String customer;
+	@FieldFixedLength(8)
+	public long amount;
+}
@@ -0,0 +1,15 @@
+package org.coury.jfilehelpers.tests.converters.testobjects;
+
+import org.coury.jfilehelpers.annotations.DelimitedRecord;
+import org.coury.jfilehelpers.annotations.FieldConverter;
+import org.coury.jfilehelpers.enums.ConverterKind;
+
+@DelimitedRecord(";")
+public class FloatingPointType {
+	public Double doubleField;
+	public Float floatField;
+	@FieldConverter(converter=ConverterKind.Double, format=",")
+	public Double commaDoubleField;
+	@FieldConverter(converter=ConverterKind.Float, format=",")
+	public float commaFloatField;
+}
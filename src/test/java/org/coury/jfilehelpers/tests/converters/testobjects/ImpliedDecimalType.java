@@ -0,0 +1,23 @@
+package org.coury.jfilehelpers.tests.converters.testobjects;
+
+import java.math.BigDecimal;
+
+import org.coury.jfilehelpers.annotations.FieldFixedLength;
+import org.coury.jfilehelpers.annotations.FieldImpliedDecimal;
+import org.coury.jfilehelpers.annotations.FixedLengthRecord;
+
+@FixedLengthRecord
+public class ImpliedDecimalType {
+	@FieldFixedLength(10)
+	@FieldImpliedDecimal(2)
+	public long minorUnits;
+	@FieldFixedLength(8)
+	@FieldImpliedDecimal(value=3, overpunch=true)
+	public BigDecimal decimalField;
+	@FieldFixedLength(6)
+	@FieldImpliedDecimal(1)
+	public double doubleField;
+	@FieldFixedLength(5)
+	@FieldImpliedDecimal(value=2, overpunch=true)
+	public Integer intField;
+}
@@ -0,0 +1,17 @@
+package org.coury.jfilehelpers.tests.converters.testobjects;
+
+import org.coury.jfilehelpers.annotations.DelimitedRecord;
+import org.coury.jfilehelpers.annotations.FieldConverter;
+import org.coury.jfilehelpers.enums.ConverterKind;
+
+@DelimitedRecord(";")
+public class IntegerType {
+	public Byte byteField;
+	public Short shortField;
+	public Integer intField;
+	public Long longField;
+	@FieldConverter(converter=ConverterKind.Int, format="#,##0")
+	public Integer groupedField;
+	@FieldConverter(converter=ConverterKind.Long, format="000000")
+	public Long paddedField;
+}
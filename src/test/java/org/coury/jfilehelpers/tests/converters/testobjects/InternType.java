@@ -0,0 +1,13 @@
+package org.coury.jfilehelpers.tests.converters.testobjects;
+
+import org.coury.jfilehelpers.annotations.DelimitedRecord;
+import org.coury.jfilehelpers.annotations.FieldIntern;
+
+@DelimitedRecord(";")
+public class InternType {
+	public String name;
+	@FieldIntern
+	public String country;
+	@FieldIntern(shared=true)
+	public String currency;
+}
@@ -0,0 +1,13 @@
+package org.coury.jfilehelpers.tests.converters.testobjects;
+
+import org.coury.jfilehelpers.annotations.DelimitedRecord;
+import org.coury.jfilehelpers.annotations.FieldLookup;
+
+@DelimitedRecord(",")
+public class LookupType {
+	@FieldLookup(ignoreCase=true, aliases={"1=One", "II=Two"})
+	public Enum2 enumValue;
+	@FieldLookup(aliases={"Y=true", "N=false"})
+	public boolean flag;
+	public Boolean boxedFlag;
+}
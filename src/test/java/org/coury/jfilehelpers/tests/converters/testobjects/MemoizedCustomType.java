@@ -0,0 +1,13 @@
+package org.coury.jfilehelpers.tests.converters.testobjects;
+
+import org.coury.jfilehelpers.annotations.DelimitedRecord;
+import org.coury.jfilehelpers.annotations.FieldConverter;
+import org.coury.jfilehelpers.annotations.FieldMemoized;
+
+@DelimitedRecord("|")
+public class MemoizedCustomType {
+	@FieldMemoized
+	@FieldConverter(converterClass=AddressConverter.class, format=" - ")
+	public Address address;
+	public int age;
+}
@@ -0,0 +1,17 @@
+package org.coury.jfilehelpers.tests.converters.testobjects;
+
+import java.util.Date;
+
+import org.coury.jfilehelpers.annotations.DelimitedRecord;
+import org.coury.jfilehelpers.annotations.FieldConverter;
+import org.coury.jfilehelpers.annotations.FieldMemoized;
+import org.coury.jfilehelpers.enums.ConverterKind;
+
+@DelimitedRecord(",")
+public class MemoizedType {
+	@FieldMemoized(4)
+	@FieldConverter(converter=ConverterKind.Date, format="ddMMyyyy")
+	public Date date;
+	@FieldMemoized
+	public Integer code;
+}
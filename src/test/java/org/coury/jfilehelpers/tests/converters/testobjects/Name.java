@@ -0,0 +1,6 @@
+package org.coury.jfilehelpers.tests.converters.testobjects;
+
+public class Name {
+	public String last;
+	public String first;
+}
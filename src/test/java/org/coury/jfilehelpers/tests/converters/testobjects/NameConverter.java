@@ -0,0 +1,24 @@
+package org.coury.jfilehelpers.tests.converters.testobjects;
+
+import org.coury.jfilehelpers.converters.CharSequenceConverter;
+
+public class NameConverter extends CharSequenceConverter {
+
+	@Override
+	public Object fromChars(CharSequence chars) {
+		int comma = 0;
+		while (comma < chars.length() && chars.charAt(comma) != ',') {
+			comma++;
+		}
+		Name name = new Name();
+		name.last = chars.subSequence(0, comma).toString().trim();
+		name.first = chars.subSequence(comma + 1, chars.length()).toString().trim();
+		return name;
+	}
+
+	@Override
+	public void toChars(StringBuffer sb, Object from) {
+		Name name = (Name) from;
+		sb.append(name.last).append(',').append(name.first);
+	}
+}
@@ -0,0 +1,18 @@
+package org.coury.jfilehelpers.tests.converters.testobjects;
+
+import org.coury.jfilehelpers.annotations.DelimitedRecord;
+import org.coury.jfilehelpers.annotations.FieldQuoted;
+import org.coury.jfilehelpers.annotations.FieldTrim;
+import org.coury.jfilehelpers.enums.QuoteMode;
+import org.coury.jfilehelpers.enums.TrimMode;
+
+@DelimitedRecord(";")
+public class OptionalQuotedType {
+	@FieldQuoted(quoteChar='\'', quoteMode=QuoteMode.OptionalForBoth)
+	public String a;
+	@FieldQuoted(quoteChar='\'', quoteMode=QuoteMode.OptionalForBoth)
+	@FieldTrim(trimMode=TrimMode.Both)
+	public String b;
+	@FieldQuoted(quoteChar='\'', quoteMode=QuoteMode.OptionalForBoth)
+	public String c;
+}
@@ -0,0 +1,19 @@
+package org.coury.jfilehelpers.tests.converters.testobjects;
+
+import org.coury.jfilehelpers.annotations.DelimitedRecord;
+
+@DelimitedRecord("|")
+public class PrimitiveType {
+	public long longField;
+	public short shortField;
+	public byte byteField;
+	public char charField;
+	public boolean booleanField;
+	public double doubleField;
+	public int intField;
+	private int privateField;
+
+	public int getPrivateField() {
+		return privateField;
+	}
+}
@@ -0,0 +1,12 @@
+package org.coury.jfilehelpers.tests.converters.testobjects;
+
+import org.coury.jfilehelpers.annotations.DelimitedRecord;
+import org.coury.jfilehelpers.annotations.FieldQuoted;
+
+@DelimitedRecord(",")
+@FieldQuoted
+public class QuotedType {
+	public String name;
+	public int qty;
+	public String note;
+}
@@ -0,0 +1,14 @@
+package org.coury.jfilehelpers.tests.converters.testobjects;
+
+import org.coury.jfilehelpers.annotations.DelimitedRecord;
+import org.coury.jfilehelpers.annotations.FieldOptional;
+
+@DelimitedRecord("||")
+public class SeparatorType {
+	public String id;
+	public String name;
+	@FieldOptional
+	public String city;
+	@FieldOptional
+	public String zip;
+}
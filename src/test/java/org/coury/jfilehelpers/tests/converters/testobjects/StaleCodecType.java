@@ -0,0 +1,10 @@
+package org.coury.jfilehelpers.tests.converters.testobjects;
+
+/**
+ * Record without a record annotation, so the codec processor skips it and
+ * {@link StaleCodecType_Codec} stands for a codec built for an older version of the class
+ */
+public class StaleCodecType {
+	public String name;
+	public int quantity;
+}
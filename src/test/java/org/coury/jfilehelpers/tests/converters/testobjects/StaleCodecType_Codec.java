@@ -0,0 +1,31 @@
+package org.coury.jfilehelpers.tests.converters.testobjects;
+
+import org.coury.jfilehelpers.core.RecordCodec;
+import org.coury.jfilehelpers.engines.LineInfo;
+
+/**
+ * Codec left from a version of {@link StaleCodecType} where quantity was a long
+ */
+public final class StaleCodecType_Codec implements RecordCodec<StaleCodecType> {
+
+	public static final String[] FIELD_NAMES = {"name", "quantity"};
+	public static final String[] FIELD_TYPES = {"java.lang.String", "long"};
+	public static final String[] FIELD_DESCRIPTORS = {
+		"org.coury.jfilehelpers.fields.DelimitedField", 
+		"org.coury.jfilehelpers.fields.DelimitedField"};
+
+	public StaleCodecType_Codec(final org.coury.jfilehelpers.fields.FieldBase[] fields) {
+	}
+
+	public StaleCodecType newRecord() {
+		throw new NoSuchFieldError("quantity");
+	}
+
+	public void readFields(LineInfo line, StaleCodecType record) {
+		throw new NoSuchFieldError("quantity");
+	}
+
+	public void writeFields(StaleCodecType record, StringBuffer sb) {
+		throw new NoSuchFieldError("quantity");
+	}
+}
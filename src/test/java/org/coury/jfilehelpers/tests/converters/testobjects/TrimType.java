@@ -0,0 +1,15 @@
+package org.coury.jfilehelpers.tests.converters.testobjects;
+
+import org.coury.jfilehelpers.annotations.DelimitedRecord;
+import org.coury.jfilehelpers.annotations.FieldTrim;
+import org.coury.jfilehelpers.enums.TrimMode;
+
+@DelimitedRecord("|")
+public class TrimType {
+	@FieldTrim(trimMode=TrimMode.Both, trimChars={'-', ' ', '*'})
+	public String both;
+	@FieldTrim(trimMode=TrimMode.Left, trimChars={'-', ' ', '*'})
+	public String start;
+	@FieldTrim(trimMode=TrimMode.Right, trimChars={'-', ' ', '*'})
+	public String end;
+}
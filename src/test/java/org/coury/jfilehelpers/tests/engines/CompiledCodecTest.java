@@ -0,0 +1,91 @@
+/*
+ * CompiledCodecTest.java
+ *
+ * Copyright (C) 2007 Felipe Gonalves Coury <felipe.coury@gmail.com>
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package org.coury.jfilehelpers.tests.engines;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.coury.jfilehelpers.core.RecordInfo;
+import org.coury.jfilehelpers.engines.FileHelperEngine;
+import org.coury.jfilehelpers.tests.common.Common;
+import org.coury.jfilehelpers.tests.converters.testobjects.StaleCodecType;
+import org.coury.jfilehelpers.tests.types.orders.OrdersVerticalBar;
+
+public class CompiledCodecTest extends TestCase {
+
+	@SuppressWarnings("unchecked")
+	public void testSameRecordsAsGenericPath() throws IOException {
+		FileHelperEngine<OrdersVerticalBar> generic = 
+			new FileHelperEngine<OrdersVerticalBar>(OrdersVerticalBar.class);
+		FileHelperEngine<OrdersVerticalBar> compiled = 
+			new FileHelperEngine<OrdersVerticalBar>(OrdersVerticalBar.class);
+		compiled.setCompiledCodec(true);
+
+		List<OrdersVerticalBar> expected = 
+			(List<OrdersVerticalBar>) Common.readTest(generic, "Good/OrdersVerticalBar.txt");
+		List<OrdersVerticalBar> res = 
+			(List<OrdersVerticalBar>) Common.readTest(compiled, "Good/OrdersVerticalBar.txt");
+
+		assertEquals(expected.size(), res.size());
+		for (int i = 0; i < res.size(); i++) {
+			assertEquals(expected.get(i).orderID, res.get(i).orderID);
+			assertEquals(expected.get(i).customerID, res.get(i).customerID);
+			assertEquals(expected.get(i).orderDate, res.get(i).orderDate);
+			assertEquals(expected.get(i).shippedDate, res.get(i).shippedDate);
+			assertEquals(expected.get(i).freight, res.get(i).freight);
+		}
+
+		assertEquals(generic.getRecordsAsString(expected), compiled.getRecordsAsString(res));
+	}
+
+	public void testDisableCompiledCodec() {
+		FileHelperEngine<OrdersVerticalBar> engine = 
+			new FileHelperEngine<OrdersVerticalBar>(OrdersVerticalBar.class);
+		assertFalse(engine.isCompiledCodec());
+
+		engine.setCompiledCodec(false);
+		assertFalse(engine.isCompiledCodec());
+	}
+
+	public void testGeneratedCodec() {
+		// the test build runs RecordCodecProcessor, enabling the codec picks up its class
+		RecordInfo<OrdersVerticalBar> info = RecordInfo.forClass(OrdersVerticalBar.class);
+		assertNotNull(info.getGeneratedCodec());
+		assertSame(info.getGeneratedCodec(), info.getCompiledCodec());
+	}
+
+	public void testStaleGeneratedCodec() throws IOException {
+		// same field names, but the codec was built when quantity was a long
+		RecordInfo<StaleCodecType> info = RecordInfo.forClass(StaleCodecType.class);
+		assertNull(info.getGeneratedCodec());
+
+		FileHelperEngine<StaleCodecType> engine = 
+			new FileHelperEngine<StaleCodecType>(StaleCodecType.class);
+		engine.setCompiledCodec(true);
+		List<StaleCodecType> res = engine.readStream(new StringReader("abc,12\n"));
+		assertEquals(1, res.size());
+		assertEquals("abc", res.get(0).name);
+		assertEquals(12, res.get(0).quantity);
+	}
+}
@@ -0,0 +1,217 @@
+/*
+ * EncodingTest.java
+ *
+ * Copyright (C) 2007 Felipe Gonalves Coury <felipe.coury@gmail.com>
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package org.coury.jfilehelpers.tests.engines;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.coury.jfilehelpers.engines.Encoding;
+import org.coury.jfilehelpers.engines.FileHelperEngine;
+import org.coury.jfilehelpers.tests.types.orders.OrdersVerticalBar;
+
+public class EncodingTest extends TestCase {
+
+	private static final String TEXT = "caf\u00E9 \u20AC1\n\uD83D\uDE00;ok\r\nend";
+
+	public void testDecode() throws IOException {
+		assertEquals(TEXT, read(Encoding.UTF8, TEXT.getBytes("UTF-8"), 3));
+		assertEquals(TEXT, read(Encoding.UTF8, TEXT.getBytes("UTF-8"), 1));
+		assertEquals(TEXT, read(new Encoding("UTF-16LE"), TEXT.getBytes("UTF-16LE"), 5));
+		assertEquals("caf\u00E9", read(Encoding.LATIN1_ENCODING, 
+				"caf\u00E9".getBytes("ISO-8859-1"), 3));
+		assertEquals("caf\uFFFD", read(Encoding.ASCII_ENCODING, 
+				"caf\u00E9".getBytes("ISO-8859-1"), 3));
+
+		byte[] bad = new byte[] { 'a', (byte) 0xed, (byte) 0xa0, (byte) 0x80, 'b', (byte) 0xc3 };
+		assertEquals(new String(bad, "UTF-8"), read(Encoding.UTF8, bad, 3));
+	}
+
+	public void testBigInput() throws IOException {
+		StringBuilder sb = new StringBuilder();
+		while (sb.length() < 200000) {
+			sb.append(TEXT);
+		}
+		String text = sb.toString();
+		assertEquals(text, read(Encoding.UTF8, text.getBytes("UTF-8"), 1000));
+	}
+
+	public void testByteOrderMark() throws IOException {
+		byte[] utf8 = concat(new byte[] { (byte) 0xEF, (byte) 0xBB, (byte) 0xBF }, 
+				TEXT.getBytes("UTF-8"));
+		assertEquals(TEXT, read(Encoding.UTF8, utf8, 3));
+
+		// the mark tells the byte order of UTF-16
+		byte[] utf16 = concat(new byte[] { (byte) 0xFE, (byte) 0xFF }, 
+				TEXT.getBytes("UTF-16BE"));
+		assertEquals(TEXT, read(new Encoding("UTF-16"), utf16, 3));
+		assertEquals(TEXT, read(Encoding.UTF16LE, utf16, 3));
+
+		// a mark of another charset is text
+		byte[] marked = concat(new byte[] { (byte) 0xFF, (byte) 0xFE }, TEXT.getBytes("UTF-8"));
+		assertEquals(new String(marked, "UTF-8"), read(Encoding.UTF8, marked, 3));
+		assertEquals("\u00EF\u00BB\u00BF", read(Encoding.LATIN1_ENCODING, 
+				new byte[] { (byte) 0xEF, (byte) 0xBB, (byte) 0xBF }, 3));
+
+		// without detection the mark is read as text
+		Encoding noBom = new Encoding(Encoding.UTF8.getCharset(), false);
+		assertEquals("\uFEFF" + TEXT, read(noBom, utf8, 3));
+
+		File file = File.createTempFile("encoding", ".txt");
+		try {
+			write(file, utf8);
+			assertEquals(TEXT, read(Encoding.UTF8.openFile(file, true)));
+			assertEquals(TEXT, read(Encoding.UTF8.openFile(file, false)));
+			assertEquals(3, Encoding.UTF8.bomLength(file));
+		} finally {
+			file.delete();
+		}
+	}
+
+	public void testLatin1StartingLikeMark() throws IOException {
+		// \u00FF\u00FE are the bytes of a UTF-16LE mark, but the file is in ISO-8859-1
+		String text = "\u00FF\u00FEAB\n";
+		byte[] bytes = text.getBytes("ISO-8859-1");
+		assertEquals(text, read(Encoding.LATIN1_ENCODING, bytes, 3));
+
+		File file = File.createTempFile("encoding", ".txt");
+		try {
+			write(file, bytes);
+			assertEquals(text, read(Encoding.LATIN1_ENCODING.openFile(file, true)));
+			assertEquals(text, read(Encoding.LATIN1_ENCODING.openFile(file, false)));
+			assertEquals(0, Encoding.LATIN1_ENCODING.bomLength(file));
+			assertEquals("ISO-8859-1", Encoding.LATIN1_ENCODING.charsetOf(file).name());
+		} finally {
+			file.delete();
+		}
+	}
+
+	public void testEncode() throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		Writer writer = Encoding.LATIN1_ENCODING.newWriter(out);
+		writer.write("caf\u00E9 \u20AC \uD83D\uDE00");
+		writer.close();
+		assertEquals("caf\u00E9 ? ?", new String(out.toByteArray(), "ISO-8859-1"));
+
+		out = new ByteArrayOutputStream();
+		writer = Encoding.UTF8.newWriter(out);
+		writer.write(TEXT);
+		writer.close();
+		assertEquals(TEXT, new String(out.toByteArray(), "UTF-8"));
+	}
+
+	public void testEncodeOtherCharsets() throws IOException {
+		StringBuilder sb = new StringBuilder();
+		while (sb.length() < 200 * 1024) {
+			sb.append(TEXT);
+		}
+		String big = sb.toString();
+
+		for (String name : new String[] { "UTF-8", "UTF-16", "UTF-16LE", "windows-1252" }) {
+			Encoding encoding = new Encoding(name);
+			for (int round = 0; round < 2; round++) {
+				// larger than the buffer, the second round reuses the pooled encoder
+				ByteArrayOutputStream out = new ByteArrayOutputStream();
+				Writer writer = encoding.newWriter(out);
+				writer.write(big);
+				writer.close();
+				assertTrue(name, Arrays.equals(big.getBytes(name), out.toByteArray()));
+			}
+		}
+
+		// a pair cut between two writes, and a high surrogate left alone at the end
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		Writer writer = Encoding.UTF8.newWriter(out);
+		writer.write("a\uD83D");
+		writer.write("\uDE00b\uD83D");
+		writer.write("\uD83D\uDE00");
+		writer.write("\uD83D");
+		writer.close();
+		assertEquals("a\uD83D\uDE00b?\uD83D\uDE00?", new String(out.toByteArray(), "UTF-8"));
+	}
+
+	public void testEngineEncoding() throws IOException {
+		FileHelperEngine<OrdersVerticalBar> engine = 
+			new FileHelperEngine<OrdersVerticalBar>(OrdersVerticalBar.class);
+		List<OrdersVerticalBar> res1 = engine.readResource("/Good/OrdersVerticalBar.txt");
+
+		File file = File.createTempFile("encoding", ".txt");
+		try {
+			engine.setEncoding(new Encoding("UTF-16"));
+			engine.writeFile(file.getPath(), res1);
+			List<OrdersVerticalBar> res2 = engine.readFile(file.getPath());
+
+			assertEquals(res1.size(), res2.size());
+			assertEquals(engine.getRecordsAsString(res1), engine.getRecordsAsString(res2));
+		} finally {
+			file.delete();
+		}
+
+		engine.setEncoding(null);
+		assertSame(Encoding.DEFAULT, engine.getEncoding());
+	}
+
+	private static String read(Encoding encoding, byte[] bytes, int bufferSize) 
+			throws IOException {
+		Reader reader = encoding.newReader(new ByteArrayInputStream(bytes));
+		StringBuilder sb = new StringBuilder();
+		char[] buf = new char[bufferSize];
+		int n;
+		while ((n = reader.read(buf, 0, buf.length)) >= 0) {
+			sb.append(buf, 0, n);
+		}
+		reader.close();
+		return sb.toString();
+	}
+
+	private static String read(Reader reader) throws IOException {
+		StringBuilder sb = new StringBuilder();
+		char[] buf = new char[7];
+		int n;
+		while ((n = reader.read(buf, 0, buf.length)) >= 0) {
+			sb.append(buf, 0, n);
+		}
+		reader.close();
+		return sb.toString();
+	}
+
+	private static void write(File file, byte[] bytes) throws IOException {
+		OutputStream out = new FileOutputStream(file);
+		out.write(bytes);
+		out.close();
+	}
+
+	private static byte[] concat(byte[] a, byte[] b) {
+		byte[] res = new byte[a.length + b.length];
+		System.arraycopy(a, 0, res, 0, a.length);
+		System.arraycopy(b, 0, res, a.length, b.length);
+		return res;
+	}
+}
@@ -0,0 +1,90 @@
+/*
+ * MappedFileTest.java
+ *
+ * Copyright (C) 2007 Felipe Gonalves Coury <felipe.coury@gmail.com>
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package org.coury.jfilehelpers.tests.engines;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.coury.jfilehelpers.core.MappedFileReader;
+import org.coury.jfilehelpers.engines.FileHelperEngine;
+import org.coury.jfilehelpers.tests.types.orders.OrdersVerticalBar;
+
+public class MappedFileTest extends TestCase {
+
+	public void testReadMapped() throws IOException {
+		String fileName = new File(getClass().getResource("/Good/OrdersVerticalBar.txt")
+				.getFile()).getPath();
+
+		FileHelperEngine<OrdersVerticalBar> engine = 
+			new FileHelperEngine<OrdersVerticalBar>(OrdersVerticalBar.class);
+		List<OrdersVerticalBar> res1 = engine.readFile(fileName);
+
+		engine.setMemoryMapped(true);
+		assertTrue(engine.isMemoryMapped());
+		List<OrdersVerticalBar> res2 = engine.readFile(fileName);
+
+		assertEquals(res1.size(), res2.size());
+		assertEquals(engine.getRecordsAsString(res1), engine.getRecordsAsString(res2));
+	}
+
+	public void testDecoding() throws IOException {
+		String text = "caf\u00E9 \u20AC1\n\uD83D\uDE00;ok\r\nend";
+
+		assertEquals(text, readMapped(text.getBytes("UTF-8"), "UTF-8", 4));
+		assertEquals(text, readMapped(text.getBytes("UTF-8"), "UTF-8", 1024));
+		assertEquals("caf\u00E9", readMapped("caf\u00E9".getBytes("ISO-8859-1"), "ISO-8859-1", 4));
+		assertEquals("caf\uFFFD", readMapped("caf\u00E9".getBytes("ISO-8859-1"), "US-ASCII", 4));
+
+		// invalid sequences are replaced as the JDK decoder does
+		byte[] bad = new byte[] { 'a', (byte) 0xed, (byte) 0xa0, (byte) 0x80, 'b', (byte) 0xc3 };
+		assertEquals(new String(bad, "UTF-8"), readMapped(bad, "UTF-8", 4));
+
+		assertFalse(MappedFileReader.isSupported(Charset.forName("UTF-16")));
+	}
+
+	private String readMapped(byte[] bytes, String charset, int chunkSize) throws IOException {
+		File file = File.createTempFile("mapped", ".txt");
+		try {
+			OutputStream out = new FileOutputStream(file);
+			out.write(bytes);
+			out.close();
+
+			MappedFileReader reader = 
+				new MappedFileReader(file, Charset.forName(charset), chunkSize);
+			StringBuilder sb = new StringBuilder();
+			char[] buf = new char[3];
+			int n;
+			while ((n = reader.read(buf, 0, buf.length)) > 0) {
+				sb.append(buf, 0, n);
+			}
+			reader.close();
+			return sb.toString();
+		} finally {
+			file.delete();
+		}
+	}
+}
@@ -0,0 +1,302 @@
+/*
+ * ParallelReadTest.java
+ *
+ * Copyright (C) 2007 Felipe Gonalves Coury <felipe.coury@gmail.com>
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package org.coury.jfilehelpers.tests.engines;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import junit.framework.TestCase;
+
+import org.coury.jfilehelpers.engines.Encoding;
+import org.coury.jfilehelpers.engines.EngineBase;
+import org.coury.jfilehelpers.engines.FileHelperEngine;
+import org.coury.jfilehelpers.events.AfterReadRecordEventArgs;
+import org.coury.jfilehelpers.events.AfterReadRecordHandler;
+import org.coury.jfilehelpers.events.RecordsReadHandler;
+import org.coury.jfilehelpers.tests.converters.testobjects.FixedOrderType;
+import org.coury.jfilehelpers.tests.converters.testobjects.QuotedType;
+import org.coury.jfilehelpers.tests.converters.testobjects.SampleCustomer;
+import org.coury.jfilehelpers.tests.types.orders.OrdersVerticalBar;
+
+public class ParallelReadTest extends TestCase {
+
+	private static final int LINES = 200000;
+
+	private File file;
+
+	private ForkJoinPool pool;
+
+	@Override
+	protected void setUp() throws Exception {
+		StringBuilder sb = new StringBuilder("name|age\n");
+		for (int i = 0; i < LINES; i++) {
+			sb.append("Customer ").append(i).append('|').append(i % 90);
+			// mixes the line breaks
+			sb.append(i % 3 == 0 ? "\r\n" : "\n");
+			if (i % 1000 == 0) {
+				sb.append("// comment\n");
+			}
+		}
+		sb.append("total|").append(LINES).append('\n');
+
+		file = File.createTempFile("parallel", ".txt");
+		write(file, sb.toString());
+		pool = new ForkJoinPool(4);
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		file.delete();
+		pool.shutdown();
+	}
+
+	public void testSameAsSequential() throws IOException {
+		FileHelperEngine<SampleCustomer> engine = 
+			new FileHelperEngine<SampleCustomer>(SampleCustomer.class);
+		List<SampleCustomer> res1 = engine.readFile(file.getPath());
+		String header = engine.getHeaderText();
+
+		engine.setForkJoinPool(pool);
+		List<SampleCustomer> res2 = engine.readFileParallel(file.getPath());
+
+		assertEquals(LINES, res2.size());
+		assertEquals(res1.size(), res2.size());
+		for (int i = 0; i < res1.size(); i++) {
+			assertEquals(res1.get(i).name, res2.get(i).name);
+			assertEquals(res1.get(i).age, res2.get(i).age);
+		}
+		assertEquals(header, engine.getHeaderText());
+		assertTrue(engine.getFooterText().startsWith("total|" + LINES));
+	}
+
+	public void testStreamed() throws IOException {
+		FileHelperEngine<SampleCustomer> engine = 
+			new FileHelperEngine<SampleCustomer>(SampleCustomer.class);
+		engine.setForkJoinPool(pool);
+		final List<String> names = new ArrayList<String>();
+		final int[] calls = new int[1];
+		engine.readFileParallel(file.getPath(), new RecordsReadHandler<SampleCustomer>() {
+			public void handleRecordsRead(EngineBase<SampleCustomer> engine,
+					List<SampleCustomer> records) {
+				calls[0]++;
+				for (SampleCustomer c : records) {
+					names.add(c.name);
+				}
+			}
+		});
+
+		// a call per chunk, in the order they are finished
+		assertTrue(calls[0] > 1);
+		Collections.sort(names);
+		List<String> expected = new ArrayList<String>();
+		for (int i = 0; i < LINES; i++) {
+			expected.add("Customer " + i);
+		}
+		Collections.sort(expected);
+		assertEquals(expected, names);
+	}
+
+	public void testLineNumbers() throws IOException {
+		final List<Integer> lines1 = new ArrayList<Integer>();
+		final List<Integer> lines2 = new ArrayList<Integer>();
+
+		FileHelperEngine<SampleCustomer> engine = 
+			new FileHelperEngine<SampleCustomer>(SampleCustomer.class);
+		engine.setAfterReadRecordHandler(new AfterReadRecordHandler<SampleCustomer>() {
+			public void handleAfterReadRecord(EngineBase<SampleCustomer> engine,
+					AfterReadRecordEventArgs<SampleCustomer> e) {
+				lines1.add(e.getLineNumber());
+			}
+		});
+		engine.readFile(file.getPath());
+
+		engine.setAfterReadRecordHandler(new AfterReadRecordHandler<SampleCustomer>() {
+			public void handleAfterReadRecord(EngineBase<SampleCustomer> engine,
+					AfterReadRecordEventArgs<SampleCustomer> e) {
+				synchronized (lines2) {
+					lines2.add(e.getLineNumber());
+				}
+			}
+		});
+		engine.setForkJoinPool(pool);
+		engine.readFileParallel(file.getPath());
+
+		Collections.sort(lines2);
+		assertEquals(lines1, lines2);
+	}
+
+	public void testErrorLine() throws IOException {
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < LINES; i++) {
+			sb.append(i == 150000 ? "x" : "10248");
+			sb.append("|VINET|5|04071996|01081996|16071996|3|32.38\n");
+		}
+		write(file, sb.toString());
+
+		FileHelperEngine<OrdersVerticalBar> engine = 
+			new FileHelperEngine<OrdersVerticalBar>(OrdersVerticalBar.class);
+		engine.setForkJoinPool(pool);
+		try {
+			engine.readFileParallel(file.getPath());
+			fail("The bad line was read");
+		} catch (RuntimeException e) {
+			assertTrue(e.getMessage(), e.getMessage().endsWith("line 150001"));
+		}
+	}
+
+	public void testMultilineFallback() throws IOException {
+		String fileName = new File(getClass().getResource("/Good/Quoted.txt")
+				.getFile()).getPath();
+
+		FileHelperEngine<QuotedType> engine = new FileHelperEngine<QuotedType>(QuotedType.class);
+		List<QuotedType> res1 = engine.readFile(fileName);
+		List<QuotedType> res2 = engine.readFileParallel(fileName);
+
+		assertEquals(engine.getRecordsAsString(res1), engine.getRecordsAsString(res2));
+	}
+
+	public void testQuoted() throws IOException {
+		// quoted values may have line breaks, but none of these do
+		write(file, quoted(""));
+		readQuoted();
+	}
+
+	public void testQuotedAcrossChunks() throws IOException {
+		// most of the line breaks are inside the values, the chunks end inside one of them
+		write(file, quoted("\nmore\n\nand more\n"));
+		readQuoted();
+	}
+
+	private void readQuoted() throws IOException {
+		FileHelperEngine<QuotedType> engine = new FileHelperEngine<QuotedType>(QuotedType.class);
+		List<QuotedType> res1 = engine.readFile(file.getPath());
+
+		engine.setForkJoinPool(pool);
+		List<QuotedType> res2 = engine.readFileParallel(file.getPath());
+
+		assertEquals(LINES, res2.size());
+		assertEquals(engine.getRecordsAsString(res1), engine.getRecordsAsString(res2));
+
+		// the chunks are handed out in file order, none of them twice
+		final List<QuotedType> res3 = new ArrayList<QuotedType>();
+		engine.readFileParallel(file.getPath(), new RecordsReadHandler<QuotedType>() {
+			public void handleRecordsRead(EngineBase<QuotedType> engine,
+					List<QuotedType> records) {
+				res3.addAll(records);
+			}
+		});
+		assertEquals(engine.getRecordsAsString(res1), engine.getRecordsAsString(res3));
+	}
+
+	public void testFixedLength() throws IOException {
+		write(file, fixedOrders("\r\n", true));
+
+		FileHelperEngine<FixedOrderType> engine = 
+			new FileHelperEngine<FixedOrderType>(FixedOrderType.class);
+		engine.setEncoding(Encoding.LATIN1_ENCODING);
+		List<FixedOrderType> res1 = engine.readFile(file.getPath());
+
+		final List<Integer> lines = new ArrayList<Integer>();
+		engine.setAfterReadRecordHandler(new AfterReadRecordHandler<FixedOrderType>() {
+			public void handleAfterReadRecord(EngineBase<FixedOrderType> engine,
+					AfterReadRecordEventArgs<FixedOrderType> e) {
+				synchronized (lines) {
+					lines.add(e.getLineNumber());
+				}
+			}
+		});
+		engine.setForkJoinPool(pool);
+		List<FixedOrderType> res2 = engine.readFileParallel(file.getPath());
+
+		assertEquals(LINES, res2.size());
+		assertEquals(engine.getRecordsAsString(res1), engine.getRecordsAsString(res2));
+		assertEquals("orders\n", engine.getHeaderText());
+
+		Collections.sort(lines);
+		assertEquals(2, lines.get(0).intValue());
+		assertEquals(LINES + 1, lines.get(LINES - 1).intValue());
+
+		// the last record may have no line break
+		write(file, fixedOrders("\n", false));
+		assertEquals(LINES, engine.readFileParallel(file.getPath()).size());
+	}
+
+	public void testFixedLengthValidation() throws IOException {
+		FileHelperEngine<FixedOrderType> engine = 
+			new FileHelperEngine<FixedOrderType>(FixedOrderType.class);
+		engine.setEncoding(Encoding.LATIN1_ENCODING);
+		engine.setForkJoinPool(pool);
+
+		// a char missing on the last record
+		String text = fixedOrders("\n", true);
+		write(file, text.substring(0, text.length() - 2) + "\n");
+		try {
+			engine.readFileParallel(file.getPath());
+			fail("The file size was not checked");
+		} catch (IllegalArgumentException e) {
+		}
+
+		// a char missing on one record and one more on the next
+		StringBuilder sb = new StringBuilder(fixedOrders("\n", true));
+		int pos = 7 + 25 * 1000;
+		sb.deleteCharAt(pos);
+		sb.insert(pos + 25, ' ');
+		write(file, sb.toString());
+		try {
+			engine.readFileParallel(file.getPath());
+			fail("The line break was not checked");
+		} catch (RuntimeException e) {
+			assertTrue(e.getMessage(), e.getMessage().endsWith("line 1002"));
+		}
+	}
+
+	private static String quoted(String lines) {
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < LINES; i++) {
+			sb.append("\"Customer ").append(i).append("\",\"").append(i % 90).append("\",\"");
+			sb.append(i % 7 == 0 ? "note" + lines : "").append("\"\n");
+		}
+		return sb.toString();
+	}
+
+	private static String fixedOrders(String lineBreak, boolean last) {
+		StringBuilder sb = new StringBuilder("orders\n");
+		for (int i = 0; i < LINES; i++) {
+			sb.append(String.format("%6d%-10s%8d", i, "C" + (i % 977), i * 3L));
+			if (last || i < LINES - 1) {
+				sb.append(lineBreak);
+			}
+		}
+		return sb.toString();
+	}
+
+	private static void write(File file, String text) throws IOException {
+		OutputStream out = new FileOutputStream(file);
+		out.write(text.getBytes("ISO-8859-1"));
+		out.close();
+	}
+}
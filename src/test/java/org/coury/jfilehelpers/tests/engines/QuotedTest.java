@@ -0,0 +1,118 @@
+/*
+ * QuotedTest.java
+ *
+ * Copyright (C) 2007 Felipe Gonalves Coury <felipe.coury@gmail.com>
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package org.coury.jfilehelpers.tests.engines;
+
+import java.io.IOException;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.coury.jfilehelpers.core.RecordInfo;
+import org.coury.jfilehelpers.engines.FileHelperEngine;
+import org.coury.jfilehelpers.engines.LineInfo;
+import org.coury.jfilehelpers.helpers.StringHelper;
+import org.coury.jfilehelpers.tests.common.Common;
+import org.coury.jfilehelpers.tests.converters.testobjects.OptionalQuotedType;
+import org.coury.jfilehelpers.tests.converters.testobjects.QuotedType;
+
+public class QuotedTest extends TestCase {
+
+	@SuppressWarnings("unchecked")
+	public void testReadQuoted() throws IOException {
+		FileHelperEngine<QuotedType> engine = 
+			new FileHelperEngine<QuotedType>(QuotedType.class);
+
+		List<QuotedType> res = 
+			(List<QuotedType>) Common.readTest(engine, "Good/Quoted.txt");
+
+		assertEquals(4, res.size());
+
+		assertEquals("Ana", res.get(0).name);
+		assertEquals(10, res.get(0).qty);
+		assertEquals("plain", res.get(0).note);
+
+		assertEquals("Bob \"the\" builder", res.get(1).name);
+		assertEquals(20, res.get(1).qty);
+		assertEquals("a,b", res.get(1).note);
+
+		assertEquals("line one" + StringHelper.NEW_LINE + "line two", res.get(2).note);
+
+		assertEquals("Dan", res.get(3).name);
+		assertEquals(40, res.get(3).qty);
+		assertEquals("", res.get(3).note);
+	}
+
+	public void testWriteQuoted() throws Exception {
+		RecordInfo<QuotedType> info = RecordInfo.forClass(QuotedType.class);
+
+		QuotedType rec = new QuotedType();
+		rec.name = "Bob \"the\" builder";
+		rec.qty = 5;
+		rec.note = "a,b";
+
+		String line = info.recordToStr(rec);
+		assertEquals("\"Bob \"\"the\"\" builder\",\"5\",\"a,b\"", line);
+
+		QuotedType back = info.strToRecord(new LineInfo(line));
+		assertEquals(rec.name, back.name);
+		assertEquals(rec.note, back.note);
+	}
+
+	public void testOptionalQuotes() throws Exception {
+		RecordInfo<OptionalQuotedType> info = RecordInfo.forClass(OptionalQuotedType.class);
+
+		OptionalQuotedType rec = new OptionalQuotedType();
+		rec.a = "x;y";
+		rec.b = "say 'hi'";
+		rec.c = "plain";
+
+		String line = info.recordToStr(rec);
+		assertEquals("'x;y';'say ''hi''';plain", line);
+
+		OptionalQuotedType back = info.strToRecord(new LineInfo(line));
+		assertEquals(rec.a, back.a);
+		assertEquals(rec.b, back.b);
+		assertEquals(rec.c, back.c);
+
+		back = info.strToRecord(new LineInfo("one;  'two' ;three"));
+		assertEquals("one", back.a);
+		assertEquals("two", back.b);
+		assertEquals("three", back.c);
+	}
+
+	public void testBadQuotes() {
+		RecordInfo<QuotedType> info = RecordInfo.forClass(QuotedType.class);
+
+		assertBadLine(info, "\"Ana\"x,\"10\",\"plain\"");
+		assertBadLine(info, "\"Ana\",\"10\",\"plain");
+		assertBadLine(info, "Ana,\"10\",\"plain\"");
+		assertBadLine(info, "\"Ana\",\"10\"");
+	}
+
+	private void assertBadLine(RecordInfo<QuotedType> info, String line) {
+		try {
+			info.strToRecord(new LineInfo(line));
+			fail("The line should not be read: " + line);
+		} catch (RuntimeException e) {
+			assertTrue(e.getCause() instanceof IllegalArgumentException);
+		}
+	}
+}
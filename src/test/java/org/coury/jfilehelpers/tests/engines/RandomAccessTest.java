@@ -0,0 +1,136 @@
+/*
+ * RandomAccessTest.java
+ *
+ * Copyright (C) 2007 Felipe Gonalves Coury <felipe.coury@gmail.com>
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package org.coury.jfilehelpers.tests.engines;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.coury.jfilehelpers.engines.Encoding;
+import org.coury.jfilehelpers.engines.FileHelperEngine;
+import org.coury.jfilehelpers.engines.RandomAccessEngine;
+import org.coury.jfilehelpers.tests.converters.testobjects.FixedOrderType;
+import org.coury.jfilehelpers.tests.types.orders.OrdersVerticalBar;
+
+public class RandomAccessTest extends TestCase {
+
+	private static final int RECORDS = 50000;
+
+	private File file;
+
+	private RandomAccessEngine<FixedOrderType> engine;
+
+	@Override
+	protected void setUp() throws Exception {
+		StringBuilder sb = new StringBuilder("orders\n");
+		for (int i = 0; i < RECORDS; i++) {
+			sb.append(String.format("%6d%-10s%8d\r\n", i, "C" + (i % 977), i * 3L));
+		}
+		file = File.createTempFile("random", ".txt");
+		write(file, sb.toString());
+
+		engine = new RandomAccessEngine<FixedOrderType>(FixedOrderType.class);
+		engine.setEncoding(Encoding.LATIN1_ENCODING);
+		engine.open(file.getPath());
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		engine.close();
+		file.delete();
+	}
+
+	public void testGet() throws IOException {
+		assertEquals(RECORDS, engine.size());
+		assertEquals("orders\n", engine.getHeaderText());
+
+		for (int i : new int[] { 0, 1, 12345, RECORDS - 1 }) {
+			FixedOrderType order = engine.get(i);
+			assertEquals(i, order.orderId);
+			assertEquals("C" + (i % 977), order.customer.trim());
+			assertEquals(i * 3L, order.amount);
+		}
+	}
+
+	public void testGetRange() throws IOException {
+		FileHelperEngine<FixedOrderType> sequential = 
+			new FileHelperEngine<FixedOrderType>(FixedOrderType.class);
+		List<FixedOrderType> all = sequential.readFile(file.getPath());
+
+		List<FixedOrderType> range = engine.getRange(20000, 23000);
+		assertEquals(3000, range.size());
+		assertEquals(sequential.getRecordsAsString(all.subList(20000, 23000)), 
+				sequential.getRecordsAsString(range));
+
+		assertEquals(RECORDS, engine.getRange(0, RECORDS).size());
+		assertEquals(0, engine.getRange(10, 10).size());
+	}
+
+	public void testBounds() throws IOException {
+		try {
+			engine.get(RECORDS);
+			fail("Read past the last record");
+		} catch (IndexOutOfBoundsException e) {
+		}
+		try {
+			engine.getRange(-1, 5);
+			fail("Read before the first record");
+		} catch (IndexOutOfBoundsException e) {
+		}
+	}
+
+	public void testValidation() throws IOException {
+		engine.close();
+		write(file, "orders\n     1C1               3\r\n     2C2              6\r\n");
+		try {
+			engine.open(file.getPath());
+			fail("The file size was not checked");
+		} catch (IllegalArgumentException e) {
+		}
+
+		// same size, but the line break is not after the record
+		write(file, "orders\n     1C1               3\r\n     2C2              6\r\n\n");
+		engine.open(file.getPath());
+		assertEquals(1, engine.get(0).orderId);
+		try {
+			engine.get(1);
+			fail("The line break was not checked");
+		} catch (RuntimeException e) {
+			assertTrue(e.getMessage(), e.getMessage().endsWith("line 3"));
+		}
+
+		try {
+			new RandomAccessEngine<OrdersVerticalBar>(OrdersVerticalBar.class);
+			fail("A delimited record was accepted");
+		} catch (IllegalArgumentException e) {
+		}
+	}
+
+	private static void write(File file, String text) throws IOException {
+		OutputStream out = new FileOutputStream(file);
+		out.write(text.getBytes("ISO-8859-1"));
+		out.close();
+	}
+}
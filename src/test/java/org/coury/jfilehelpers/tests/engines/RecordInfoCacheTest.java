@@ -0,0 +1,61 @@
+/*
+ * RecordInfoCacheTest.java
+ *
+ * Copyright (C) 2007 Felipe Gonalves Coury <felipe.coury@gmail.com>
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package org.coury.jfilehelpers.tests.engines;
+
+import java.io.IOException;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.coury.jfilehelpers.core.RecordInfo;
+import org.coury.jfilehelpers.engines.FileHelperEngine;
+import org.coury.jfilehelpers.tests.common.Common;
+import org.coury.jfilehelpers.tests.types.customers.CustomersVerticalBar;
+import org.coury.jfilehelpers.tests.types.orders.OrdersVerticalBar;
+
+public class RecordInfoCacheTest extends TestCase {
+
+	public void testSameInstanceForClass() {
+		assertSame(RecordInfo.forClass(OrdersVerticalBar.class), 
+				RecordInfo.forClass(OrdersVerticalBar.class));
+		assertNotSame(RecordInfo.forClass(OrdersVerticalBar.class), 
+				RecordInfo.forClass(CustomersVerticalBar.class));
+	}
+
+	@SuppressWarnings("unchecked")
+	public void testEnginesSharingRecordInfo() throws IOException {
+		FileHelperEngine<OrdersVerticalBar> engine1 = 
+			new FileHelperEngine<OrdersVerticalBar>(OrdersVerticalBar.class);
+		FileHelperEngine<OrdersVerticalBar> engine2 = 
+			new FileHelperEngine<OrdersVerticalBar>(OrdersVerticalBar.class);
+		engine1.setCompiledCodec(true);
+
+		List<OrdersVerticalBar> res1 = 
+			(List<OrdersVerticalBar>) Common.readTest(engine1, "Good/OrdersVerticalBar.txt");
+		List<OrdersVerticalBar> res2 = 
+			(List<OrdersVerticalBar>) Common.readTest(engine2, "Good/OrdersVerticalBar.txt");
+
+		assertEquals(res1.size(), res2.size());
+		assertEquals(engine1.getRecordsAsString(res1), engine2.getRecordsAsString(res2));
+		assertTrue(engine1.isCompiledCodec());
+		assertFalse(engine2.isCompiledCodec());
+	}
+}
@@ -0,0 +1,208 @@
+/*
+ * SeparatorTest.java
+ *
+ * Copyright (C) 2007 Felipe Gonalves Coury <felipe.coury@gmail.com>
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package org.coury.jfilehelpers.tests.engines;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.coury.jfilehelpers.core.ExtractedInfo;
+import org.coury.jfilehelpers.core.StructuralIndex;
+import org.coury.jfilehelpers.engines.FileHelperEngine;
+import org.coury.jfilehelpers.engines.LineInfo;
+import org.coury.jfilehelpers.helpers.CharSearch;
+import org.coury.jfilehelpers.tests.common.Common;
+import org.coury.jfilehelpers.tests.converters.testobjects.OptionalQuotedType;
+import org.coury.jfilehelpers.tests.converters.testobjects.QuotedType;
+import org.coury.jfilehelpers.tests.converters.testobjects.SeparatorType;
+import org.coury.jfilehelpers.tests.types.customers.CustomersVerticalBar;
+
+public class SeparatorTest extends TestCase {
+
+	@SuppressWarnings("unchecked")
+	public void testOptionalFields() throws IOException {
+		FileHelperEngine<SeparatorType> engine = 
+			new FileHelperEngine<SeparatorType>(SeparatorType.class);
+
+		List<SeparatorType> res = 
+			(List<SeparatorType>) Common.readTest(engine, "Good/Separator.txt");
+
+		assertEquals(3, res.size());
+
+		assertEquals("Ana", res.get(0).name);
+		assertEquals("Rio", res.get(0).city);
+		assertEquals("|20000", res.get(0).zip);
+
+		assertEquals("2", res.get(1).id);
+		assertEquals("Bob", res.get(1).name);
+
+		assertEquals("Carl", res.get(2).name);
+		assertEquals("Sao Paulo", res.get(2).city);
+	}
+
+	@SuppressWarnings("unchecked")
+	public void testStructuralIndex() throws IOException {
+		FileHelperEngine<SeparatorType> engine = 
+			new FileHelperEngine<SeparatorType>(SeparatorType.class);
+		engine.setStructuralIndex(true);
+
+		List<SeparatorType> res = 
+			(List<SeparatorType>) Common.readTest(engine, "Good/Separator.txt");
+
+		assertEquals(3, res.size());
+		assertEquals("Rio", res.get(0).city);
+		assertEquals("|20000", res.get(0).zip);
+		assertEquals("Bob", res.get(1).name);
+		assertEquals("Sao Paulo", res.get(2).city);
+
+		StructuralIndex index = new StructuralIndex(new CharSearch("||"));
+		char[] chars = "xa|||b||".toCharArray();
+		index.build(chars, 1, chars.length);
+		assertEquals(3, index.getCount());
+		assertEquals(2, index.getPosition(0));
+		assertEquals(3, index.getPosition(1));
+		assertEquals(3, index.next(3));
+		assertEquals(6, index.next(4));
+		assertEquals(2, index.next(0));
+		assertEquals(-1, index.next(7));
+	}
+
+	@SuppressWarnings("unchecked")
+	public void testStructuralIndexSameResult() throws IOException {
+		FileHelperEngine<CustomersVerticalBar> engine = 
+			new FileHelperEngine<CustomersVerticalBar>(CustomersVerticalBar.class);
+
+		List<CustomersVerticalBar> res1 = 
+			(List<CustomersVerticalBar>) Common.readTest(engine, "Good/CustomersVerticalBar.txt");
+		engine.setStructuralIndex(true);
+		List<CustomersVerticalBar> res2 = 
+			(List<CustomersVerticalBar>) Common.readTest(engine, "Good/CustomersVerticalBar.txt");
+
+		assertEquals(res1.size(), res2.size());
+		assertEquals(engine.getRecordsAsString(res1), engine.getRecordsAsString(res2));
+	}
+
+	public void testStructuralIndexQuotes() {
+		StructuralIndex index = new StructuralIndex(new CharSearch(","), '"');
+		char[] chars = "\"a,b\",c,\"d\"\"e,f\",g".toCharArray();
+		index.build(chars, 0, chars.length);
+		// the separators inside the quoted values are left out
+		assertEquals(3, index.getCount());
+		assertEquals(5, index.getPosition(0));
+		assertEquals(7, index.getPosition(1));
+		assertEquals(16, index.getPosition(2));
+		assertEquals(6, index.getQuoteCount());
+		assertEquals(4, index.nextQuote(1));
+		assertEquals(10, index.nextQuote(9));
+		assertEquals(15, index.nextQuote(12));
+		assertEquals(-1, index.nextQuote(16));
+
+		// a line going on with the value of the line before
+		chars = "x,y\",z".toCharArray();
+		index.build(chars, 0, chars.length, true);
+		assertEquals(1, index.getCount());
+		assertEquals(4, index.getPosition(0));
+
+		// a quote inside an unquoted value does not open one
+		chars = "a\"b,c\"".toCharArray();
+		index.build(chars, 0, chars.length);
+		assertEquals(1, index.getCount());
+		assertEquals(3, index.getPosition(0));
+
+		// nor a quote after overlapping separators, the field start is not known
+		index = new StructuralIndex(new CharSearch("||"), '"');
+		chars = "a|||\"b||c\"".toCharArray();
+		index.build(chars, 0, chars.length);
+		assertEquals(3, index.getCount());
+		assertEquals(6, index.getPosition(2));
+	}
+
+	public void testStructuralIndexQuotedSameResult() throws IOException {
+		FileHelperEngine<QuotedType> engine = 
+			new FileHelperEngine<QuotedType>(QuotedType.class);
+		String text = "\"Ana\",\"10\",\"a,b\"\n"
+			+ "\"Bob \"\"the\"\", builder\",\"20\",\"\"\n"
+			+ "\"Carl\",\"30\",\"line one\nline, \"\"two\"\",\"\n"
+			+ "\"Dan\nx,y\",\"40\",\"z\"\n";
+
+		List<QuotedType> res1 = engine.readStream(new StringReader(text));
+		engine.setStructuralIndex(true);
+		List<QuotedType> res2 = engine.readStream(new StringReader(text));
+
+		assertEquals(4, res2.size());
+		assertEquals("Bob \"the\", builder", res2.get(1).name);
+		assertEquals(40, res2.get(3).qty);
+		assertEquals(engine.getRecordsAsString(res1), engine.getRecordsAsString(res2));
+
+		// the fields trim the start, so only the separators are indexed
+		FileHelperEngine<OptionalQuotedType> optional = 
+			new FileHelperEngine<OptionalQuotedType>(OptionalQuotedType.class);
+		optional.setStructuralIndex(true);
+		List<OptionalQuotedType> res3 = optional.readStream(
+				new StringReader("one;  'two;2' ;three\n'x;y';'say ''hi''';plain\n"));
+		assertEquals("two;2", res3.get(0).b);
+		assertEquals("three", res3.get(0).c);
+		assertEquals("x;y", res3.get(1).a);
+		assertEquals("say 'hi'", res3.get(1).b);
+	}
+
+	public void testCharSearch() {
+		char[] chars = "a;b||c|d||".toCharArray();
+
+		assertEquals(1, new CharSearch(";").indexOf(chars, 0, chars.length));
+		assertEquals(-1, new CharSearch(";").indexOf(chars, 2, chars.length));
+		assertEquals(3, new CharSearch("||").indexOf(chars, 0, chars.length));
+		assertEquals(8, new CharSearch("||").indexOf(chars, 4, chars.length));
+		assertEquals(-1, new CharSearch("||").indexOf(chars, 4, 9));
+		assertEquals(-1, new CharSearch("c|e").indexOf(chars, 0, chars.length));
+
+		chars = "1and2AnD3".toCharArray();
+		assertEquals(1, new CharSearch("AND").indexOf(chars, 0, chars.length));
+		assertEquals(5, new CharSearch("and").indexOf(chars, 2, chars.length));
+		assertEquals(7, new CharSearch("d").indexOf(chars, 4, chars.length));
+	}
+
+	public void testExtractedInfoReused() {
+		LineInfo line = new LineInfo("abc;def");
+		ExtractedInfo first = line.extractTo(3);
+		assertEquals("abc", first.extractedString());
+
+		line.setCurrentPos(4);
+		ExtractedInfo second = line.extractRest();
+		assertSame(first, second);
+		assertEquals("def", second.extractedString());
+
+		assertSame(first, line.extractEmpty());
+		assertEquals(0, first.length());
+	}
+
+	public void testLineIndexOf() {
+		LineInfo line = new LineInfo("abc;def");
+		assertEquals(3, line.indexOf(";"));
+		assertEquals(4, line.indexOf("DE"));
+
+		line.setCurrentPos(4);
+		assertEquals(-1, line.indexOf(";"));
+		assertEquals(-1, line.indexOf(new CharSearch(";")));
+	}
+}
@@ -0,0 +1,129 @@
+/*
+ * WideRowBenchmark.java
+ *
+ * Copyright (C) 2007 Felipe Gonalves Coury <felipe.coury@gmail.com>
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package org.coury.jfilehelpers.tests.engines;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.List;
+
+import org.coury.jfilehelpers.annotations.DelimitedRecord;
+import org.coury.jfilehelpers.annotations.FieldQuoted;
+import org.coury.jfilehelpers.engines.FileHelperEngine;
+
+/**
+ * Reads 100 column rows, plain and quoted, with and without the separator index and prints the
+ * throughput of each run and the median. The first rounds warm up the JIT and are not printed.
+ * The JIT compiles the shared code for the mode it sees first, so compare the modes run on their
+ * own JVMs, several times each.
+ * Run it by hand: java WideRowBenchmark [rows] [rounds] [warm up rounds] [both|searched|indexed]
+ */
+public class WideRowBenchmark {
+
+	@DelimitedRecord(",")
+	public static class WideRecord {
+		public String c00, c01, c02, c03, c04, c05, c06, c07, c08, c09;
+		public String c10, c11, c12, c13, c14, c15, c16, c17, c18, c19;
+		public String c20, c21, c22, c23, c24, c25, c26, c27, c28, c29;
+		public String c30, c31, c32, c33, c34, c35, c36, c37, c38, c39;
+		public String c40, c41, c42, c43, c44, c45, c46, c47, c48, c49;
+		public String c50, c51, c52, c53, c54, c55, c56, c57, c58, c59;
+		public String c60, c61, c62, c63, c64, c65, c66, c67, c68, c69;
+		public String c70, c71, c72, c73, c74, c75, c76, c77, c78, c79;
+		public String c80, c81, c82, c83, c84, c85, c86, c87, c88, c89;
+		public String c90, c91, c92, c93, c94, c95, c96, c97, c98, c99;
+	}
+
+	@DelimitedRecord(",")
+	@FieldQuoted
+	public static class WideQuotedRecord {
+		public String c00, c01, c02, c03, c04, c05, c06, c07, c08, c09;
+		public String c10, c11, c12, c13, c14, c15, c16, c17, c18, c19;
+		public String c20, c21, c22, c23, c24, c25, c26, c27, c28, c29;
+		public String c30, c31, c32, c33, c34, c35, c36, c37, c38, c39;
+		public String c40, c41, c42, c43, c44, c45, c46, c47, c48, c49;
+		public String c50, c51, c52, c53, c54, c55, c56, c57, c58, c59;
+		public String c60, c61, c62, c63, c64, c65, c66, c67, c68, c69;
+		public String c70, c71, c72, c73, c74, c75, c76, c77, c78, c79;
+		public String c80, c81, c82, c83, c84, c85, c86, c87, c88, c89;
+		public String c90, c91, c92, c93, c94, c95, c96, c97, c98, c99;
+	}
+
+	public static void main(String[] args) throws IOException {
+		int rows = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+		int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+		int warmUp = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+		String modes = args.length > 3 ? args[3] : "both";
+		boolean[] indexed = "both".equals(modes) ? new boolean[] { false, true } 
+			: new boolean[] { "indexed".equals(modes) };
+
+		run("plain", new FileHelperEngine<WideRecord>(WideRecord.class), 
+				rows(rows, ""), rows, rounds, warmUp, indexed);
+		// every value quoted, a few of them with separators inside
+		run("quoted", new FileHelperEngine<WideQuotedRecord>(WideQuotedRecord.class), 
+				rows(rows, "\""), rows, rounds, warmUp, indexed);
+	}
+
+	private static String rows(int rows, String quote) {
+		StringBuilder sb = new StringBuilder();
+		for (int r = 0; r < rows; r++) {
+			for (int c = 0; c < 100; c++) {
+				if (c > 0) {
+					sb.append(',');
+				}
+				sb.append(quote).append("v").append((r * 31 + c) % 1000);
+				if (quote.length() > 0 && c % 10 == 5) {
+					sb.append(",x");
+				}
+				sb.append(quote);
+			}
+			sb.append('\n');
+		}
+		return sb.toString();
+	}
+
+	private static void run(String name, FileHelperEngine<?> engine, String data, int rows, 
+			int rounds, int warmUp, boolean[] indexed) throws IOException {
+		long[][] speeds = new long[indexed.length][rounds];
+		for (int round = -warmUp; round < rounds; round++) {
+			for (int mode = 0; mode < indexed.length; mode++) {
+				engine.setStructuralIndex(indexed[mode]);
+				long start = System.nanoTime();
+				List<?> res = engine.readStream(new StringReader(data));
+				long nanos = System.nanoTime() - start;
+
+				if (res.size() != rows) {
+					throw new IllegalStateException("Wrong result reading the rows");
+				}
+				if (round >= 0) {
+					speeds[mode][round] = data.length() * 1000L / nanos;
+					System.out.println(name + (indexed[mode] ? " indexed:  " : " searched: ") 
+							+ speeds[mode][round] + " M chars/s");
+				}
+			}
+		}
+		for (int mode = 0; mode < indexed.length; mode++) {
+			Arrays.sort(speeds[mode]);
+			System.out.println(name + (indexed[mode] ? " indexed median:  " : " searched median: ") 
+					+ speeds[mode][rounds / 2] + " M chars/s");
+		}
+	}
+}